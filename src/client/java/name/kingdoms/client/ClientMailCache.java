@@ -1,29 +1,111 @@
 package name.kingdoms.client;
 
 import name.kingdoms.diplomacy.Letter;
+import name.kingdoms.payload.mailInboxRequestC2SPayload;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
+/**
+ * Client view of the inbox: counts plus one loaded window of letters (index 0 = newest).
+ * Screens ask for the rows they show with {@link #ensure}; anything missing is requested a page at a time.
+ */
 public final class ClientMailCache {
-    private static List<Letter> inbox = new ArrayList<>();
+    private static final int PAGE_SIZE = mailInboxRequestC2SPayload.PAGE_SIZE;
+
+    private static int total;
+    private static int pending;
+    private static long headSeq;
+
+    private static int offset;
+    private static List<Letter> window = new ArrayList<>();
+    private static boolean stale = true;
+
+    // offset of the page asked for and not yet received (-1 = none)
+    private static int requestedOffset = -1;
 
     private ClientMailCache() {}
 
-    public static void setInbox(List<Letter> newInbox) {
-        inbox = new ArrayList<>(newInbox);
+    public static void setPage(int newTotal, int newPending, long newHeadSeq, int newOffset, List<Letter> letters) {
+        total = newTotal;
+        pending = newPending;
+        headSeq = newHeadSeq;
+        offset = newOffset;
+        window = new ArrayList<>(letters);
+        stale = false;
+        requestedOffset = -1;
+    }
+
+    /** A letter arrived at index 0. @return false if this page already had it */
+    public static boolean letterAdded(int newTotal, int newPending, Letter letter, long seq) {
+        total = newTotal;
+        pending = newPending;
+        if (seq <= headSeq) return false;
+        headSeq = seq;
+
+        if (!stale) {
+            if (offset == 0) {
+                window.add(0, letter);
+                if (window.size() > PAGE_SIZE * 2) window.remove(window.size() - 1);
+            } else {
+                offset++;
+            }
+            // the server may have archived the oldest letter
+            int keep = Math.max(0, Math.min(window.size(), total - offset));
+            while (window.size() > keep) window.remove(window.size() - 1);
+        }
+        return true;
+    }
+
+    /** Letters were removed/replaced: reload the window when it is next needed. @return false */
+    public static boolean changed(int newTotal, int newPending) {
+        total = newTotal;
+        pending = newPending;
+        stale = true;
+        return false;
     }
 
-    public static List<Letter> getInbox() {
-        return Collections.unmodifiableList(inbox);
+    public static int total() {
+        return total;
     }
 
     public static int unreadCount() {
-        int n = 0;
-        for (Letter l : inbox) {
-            if (l.status() == Letter.Status.PENDING) n++;
+        return pending;
+    }
+
+    /** Letter at inbox index, or null if that part of the inbox is not loaded (yet). */
+    public static Letter get(int index) {
+        int i = index - offset;
+        if (stale || i < 0 || i >= window.size()) return null;
+        return window.get(i);
+    }
+
+    /** Inbox index of a loaded letter, or -1. */
+    public static int indexOf(UUID letterId) {
+        if (stale || letterId == null) return -1;
+        for (int i = 0; i < window.size(); i++) {
+            if (letterId.equals(window.get(i).id())) return offset + i;
         }
-        return n;
+        return -1;
+    }
+
+    /** Makes sure rows [from, from + count) are loaded, requesting the page around them if not. */
+    public static void ensure(int from, int count) {
+        int end = Math.min(total, from + count);
+        if (!stale && from >= offset && end <= offset + window.size()) return;
+
+        // center the requested range in the page
+        int want = Math.max(0, from - Math.max(0, PAGE_SIZE - (end - from)) / 2);
+        if (requestedOffset == want) return;
+        requestedOffset = want;
+        ClientPlayNetworking.send(new mailInboxRequestC2SPayload(want, PAGE_SIZE, null));
+    }
+
+    /** Requests the page holding {@code letterId}. */
+    public static void requestAround(UUID letterId) {
+        requestedOffset = -1;
+        ClientPlayNetworking.send(new mailInboxRequestC2SPayload(0, PAGE_SIZE, letterId));
     }
 }
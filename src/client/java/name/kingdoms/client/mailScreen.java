@@ -48,6 +48,7 @@ public final class mailScreen extends Screen {
     private final UUID forcedRecipientKingdomId; // if non-null, compose only to that kingdom
     private UUID focusInboxLetterId;             // if non-null, select this on first inbox draw
     private boolean didFocusInbox = false;
+    private boolean didRequestFocusPage = false;
 
     private final boolean inPersonMode;
     private final int inPersonKingEntityId;
@@ -127,6 +128,7 @@ public final class mailScreen extends Screen {
 
         this.focusInboxLetterId = null;
         this.didFocusInbox = false;
+        this.didRequestFocusPage = false;
 
         this.inPersonMode = inPersonMode;
         this.inPersonKingEntityId = kingEntityId;
@@ -140,6 +142,7 @@ public final class mailScreen extends Screen {
 
         this.focusInboxLetterId = focusInboxLetterId;
         this.didFocusInbox = false;
+        this.didRequestFocusPage = false;
 
         // default non-in-person
         this.inPersonMode = false;
@@ -518,8 +521,8 @@ public final class mailScreen extends Screen {
             int dir = (amountY > 0) ? -1 : 1;
 
            if (tab == Tab.INBOX) {
-                inboxScroll = clampScroll(inboxScroll + dir, inbox().size());
-                inboxSelected = clampIndex(inboxSelected, inbox().size());
+                inboxScroll = clampScroll(inboxScroll + dir, inboxTotal());
+                inboxSelected = clampIndex(inboxSelected, inboxTotal());
             } else if (tab == Tab.COMPOSE) {
                 recipientScroll = clampScroll(recipientScroll + dir, recipients().size());
                 recipientSelected = clampIndex(recipientSelected, recipients().size());
@@ -553,7 +556,7 @@ public final class mailScreen extends Screen {
     private void onRowClicked(int visibleIdx) {
         if (tab == Tab.INBOX) {
             int actual = inboxScroll + visibleIdx;
-            if (actual >= 0 && actual < inbox().size()) inboxSelected = actual;
+            if (actual >= 0 && actual < inboxTotal()) inboxSelected = actual;
             // no policy request here
         } else if (tab == Tab.COMPOSE) {
             int actual = recipientScroll + visibleIdx;
@@ -637,15 +640,19 @@ public final class mailScreen extends Screen {
         if (didFocusInbox) return;
         if (focusInboxLetterId == null) return;
 
-        List<Letter> list = inbox();
-        for (int i = 0; i < list.size(); i++) {
-            if (focusInboxLetterId.equals(list.get(i).id())) {
-                inboxSelected = i;
-                inboxScroll = Math.max(0, i - 1);
-                didFocusInbox = true;
-                return;
+        int i = ClientMailCache.indexOf(focusInboxLetterId);
+        if (i < 0) {
+            // not in the loaded page: ask for the page holding it (once)
+            if (!didRequestFocusPage) {
+                ClientMailCache.requestAround(focusInboxLetterId);
+                didRequestFocusPage = true;
             }
+            return;
         }
+
+        inboxSelected = i;
+        inboxScroll = Math.max(0, i - 1);
+        didFocusInbox = true;
     }
 
 
@@ -653,8 +660,9 @@ public final class mailScreen extends Screen {
     // Data
     // -------------------------
 
-    private List<Letter> inbox() {
-        return ClientMailCache.getInbox();
+    /** Inbox size on the server; letters are loaded a page at a time ({@link ClientMailCache}). */
+    private int inboxTotal() {
+        return ClientMailCache.total();
     }
 
     private List<String> news() {
@@ -678,10 +686,10 @@ public final class mailScreen extends Screen {
 
 
     private Letter getSelectedInbox() {
-        List<Letter> list = inbox();
-        if (list.isEmpty()) return null;
-        inboxSelected = clampIndex(inboxSelected, list.size());
-        return list.get(inboxSelected);
+        int total = inboxTotal();
+        if (total <= 0) return null;
+        inboxSelected = clampIndex(inboxSelected, total);
+        return ClientMailCache.get(inboxSelected); // null while its page loads
     }
 
     private mailRecipientsSyncS2CPayload.Entry getSelectedRecipient() {
@@ -840,15 +848,20 @@ public final class mailScreen extends Screen {
 
     private void refreshRows() {
         if (tab == Tab.INBOX) {
-            List<Letter> list = inbox();
-            inboxScroll = clampScroll(inboxScroll, list.size());
+            int total = inboxTotal();
+            inboxScroll = clampScroll(inboxScroll, total);
+            // keep the selected letter loaded too when it is near the visible rows
+            int from = Math.min(inboxScroll, inboxSelected);
+            int to = Math.max(inboxScroll + rowButtons.size(), inboxSelected + 1);
+            if (to - from <= mailInboxRequestC2SPayload.PAGE_SIZE) ClientMailCache.ensure(from, to - from);
+            else ClientMailCache.ensure(inboxScroll, rowButtons.size());
 
             for (int i = 0; i < rowButtons.size(); i++) {
                 Button row = rowButtons.get(i);
                 int actual = inboxScroll + i;
-                if (actual < list.size()) {
-                    Letter l = list.get(actual);
-                    row.setMessage(Component.literal(summarize(l)));
+                if (actual < total) {
+                    Letter l = ClientMailCache.get(actual);
+                    row.setMessage(Component.literal(l == null ? "..." : summarize(l)));
                 } else row.setMessage(Component.literal(""));
 
                             }
@@ -1100,7 +1113,7 @@ public final class mailScreen extends Screen {
             recipientsRefreshCooldown = 0; // reset when not composing
         }
 
-        if (tab == Tab.INBOX) inboxSelected = clampIndex(inboxSelected, inbox().size());
+        if (tab == Tab.INBOX) inboxSelected = clampIndex(inboxSelected, inboxTotal());
         else if (tab == Tab.COMPOSE) recipientSelected = clampIndex(recipientSelected, recipients().size());
         else newsSelected = clampIndex(newsSelected, news().size());
 
@@ -1168,7 +1181,7 @@ public final class mailScreen extends Screen {
         if (tab == Tab.INBOX) tryFocusInboxLetter();
 
         if (sel == null) {
-            g.drawString(this.font, "No letters.", dx, dy, 0xFFFFFFFF);
+            g.drawString(this.font, inboxTotal() > 0 ? "Loading..." : "No letters.", dx, dy, 0xFFFFFFFF);
             return;
         }
 
@@ -30,6 +30,7 @@ import name.kingdoms.payload.kingdomInfoSyncPayload;
 import name.kingdoms.payload.kingdomQueryPayload;
 import name.kingdoms.payload.kingdomQueryResultPayload;
 import name.kingdoms.payload.kingdomTransitionS2CPayload;
+import name.kingdoms.payload.mailInboxDeltaS2CPayload;
 import name.kingdoms.payload.mailInboxSyncPayload;
 import name.kingdoms.payload.mailRecipientsSyncS2CPayload;
 import name.kingdoms.payload.mailSendResultS2CPayload;
@@ -76,6 +77,32 @@ public final class clientNetworkInit {
             }
             return best;
         }
+
+        private static void announceNewMail(int delta) {
+            var mc = Minecraft.getInstance();
+            if (mc.player == null) return;
+
+            // Find the scribe entity if present (optional but recommended)
+            var scribe = findNearestScribe(mc);
+
+            Component sender = (scribe != null)
+                    ? scribe.getDisplayName()          // "Edwin (Scribe)"
+                    : Component.literal("Scribe");     // fallback
+
+            String text = ScribeLines.pickLine(delta);
+
+            Component chatLine = Component.translatable(
+                    "chat.type.text",
+                    sender,
+                    Component.literal(text)
+                            .withStyle(ChatFormatting.GRAY, ChatFormatting.ITALIC)
+            );
+
+            // Add it as a real chat line
+            mc.gui.getChat().addMessage(chatLine);
+
+            mc.player.playSound(SoundEvents.BOOK_PAGE_TURN, 0.6f, 1.0f);
+        }
     
     public static void registerClientReceivers() {
 
@@ -252,51 +279,26 @@ public final class clientNetworkInit {
             ctx.client().execute(() -> {
                 // 1) Detect change BEFORE overwriting cache
                 int prev = LAST_INBOX_COUNT;
-                int now  = (payload.inbox() == null) ? 0 : payload.inbox().size();
+                int now  = payload.total();
 
-                // 2) Update client cache (existing behavior)
-                ClientMailCache.setInbox(payload.inbox());
+                // 2) Update client cache (one page + counts)
+                ClientMailCache.setPage(payload.total(), payload.pending(), payload.headSeq(), payload.offset(), payload.letters());
 
                 // Seed on first sync so we don’t announce on join / reconnect
-                if (prev < 0) {
-                    LAST_INBOX_COUNT = now;
-                    return;
-                }
-
-                // 3) New mail arrived
-                if (now > prev) {
-                    var mc = Minecraft.getInstance();
-                    if (mc.player == null) {
-                        LAST_INBOX_COUNT = now;
-                        return;
-                    }
-
-                    int delta = now - prev;
-
-                    // Find the scribe entity if present (optional but recommended)
-                    var scribe = findNearestScribe(mc);
-
-                    Component sender = (scribe != null)
-                            ? scribe.getDisplayName()          // "Edwin (Scribe)"
-                            : Component.literal("Scribe");     // fallback
-
-                    String text = ScribeLines.pickLine(delta);
-
-                    Component chatLine = Component.translatable(
-                            "chat.type.text",
-                            sender,
-                            Component.literal(text)
-                                    .withStyle(ChatFormatting.GRAY, ChatFormatting.ITALIC)
-                    );
-
-                    // Add it as a real chat line
-                    mc.gui.getChat().addMessage(chatLine);
-
-                    mc.player.playSound(SoundEvents.BOOK_PAGE_TURN, 0.6f, 1.0f);
-                }
-
+                if (prev >= 0 && now > prev) announceNewMail(now - prev);
                 LAST_INBOX_COUNT = now;
+            });
+        });
+
+        ClientPlayNetworking.registerGlobalReceiver(mailInboxDeltaS2CPayload.TYPE, (payload, ctx) -> {
+            ctx.client().execute(() -> {
+                boolean arrived = (payload.added() != null)
+                        ? ClientMailCache.letterAdded(payload.total(), payload.pending(), payload.added(), payload.seq())
+                        : ClientMailCache.changed(payload.total(), payload.pending());
 
+                // counted by letter, not by size: a full inbox stays the same size when mail arrives
+                if (arrived && LAST_INBOX_COUNT >= 0) announceNewMail(1);
+                LAST_INBOX_COUNT = payload.total();
             });
         });
 
@@ -0,0 +1,56 @@
+package name.kingdoms;
+
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.saveddata.SavedDataType;
+
+/**
+ * SavedData whose encode + file write can run off the server thread ({@link AsyncStateSaver}).
+ *
+ * Once the saver adopts an instance, vanilla no longer sees it as dirty; at save time the saver takes
+ * {@link #snapshotForSave} on the server thread and encodes that with {@link #saveType()}'s codec on its
+ * own thread. Instances the saver never adopted (other dimensions, no saver) save the vanilla way.
+ */
+public abstract class AsyncSavedData<S extends AsyncSavedData<S>> extends SavedData {
+
+    private boolean managed;
+    // last background write failed: write again at the next save even if nothing changed
+    private volatile boolean retry;
+
+    /** Type this state is stored under; its codec encodes the snapshot. */
+    protected abstract SavedDataType<S> saveType();
+
+    /**
+     * Server thread: a copy the codec can encode on another thread while this instance keeps changing.
+     * It must not share anything mutable with this instance.
+     */
+    protected abstract S snapshotForSave(RegistryOps<Tag> ops);
+
+    @Override
+    public boolean isDirty() {
+        return !managed && super.isDirty();
+    }
+
+    final void adopt() {
+        managed = true;
+    }
+
+    final boolean managed() {
+        return managed;
+    }
+
+    /** Dirty (or a failed write to redo); clears the flag. Server thread. */
+    final boolean takeDirty() {
+        boolean dirty = super.isDirty() || retry;
+        if (dirty) {
+            super.setDirty(false);
+            retry = false;
+        }
+        return dirty;
+    }
+
+    final void writeFailed() {
+        retry = true;
+    }
+}
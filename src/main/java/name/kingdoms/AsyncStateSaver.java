@@ -0,0 +1,161 @@
+package name.kingdoms;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.saveddata.SavedDataType;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Saves the large overworld states ({@link AsyncSavedData}) without encoding them on the server thread.
+ *
+ * On every world save the server thread only takes a snapshot of each dirty state; codec encoding and the
+ * compressed write (temp file + move, same file and layout vanilla uses) run in order on one save thread.
+ * Server stop waits for everything queued (barrier), and so does a flushing save. A failed write is
+ * logged and retried at the next save. A state that must not lose a change to a crash can ask for a
+ * write at the end of the current tick ({@link #saveSoon}) instead of waiting for the next world save.
+ */
+public final class AsyncStateSaver {
+    private AsyncStateSaver() {}
+
+    private static final List<Function<MinecraftServer, ? extends AsyncSavedData<?>>> SOURCES = new ArrayList<>();
+
+    private static final List<AsyncSavedData<?>> adopted = new ArrayList<>();
+    // one per server start, reused by every save
+    private static RegistryOps<Tag> ops;
+    private static ExecutorService executor;
+    private static CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+    // states to write at the end of this tick (saveSoon)
+    private static final Set<AsyncSavedData<?>> soon = new LinkedHashSet<>();
+
+    /** Adds a state (looked up in the overworld) to be saved asynchronously. Call during mod init. */
+    public static void register(Function<MinecraftServer, ? extends AsyncSavedData<?>> source) {
+        SOURCES.add(source);
+    }
+
+    public static void init() {
+        ServerLifecycleEvents.SERVER_STARTED.register(AsyncStateSaver::adoptAll);
+        ServerTickEvents.END_SERVER_TICK.register(AsyncStateSaver::saveRequested);
+        ServerLifecycleEvents.BEFORE_SAVE.register((server, flush, force) -> {
+            saveDirty(server);
+            if (flush) pending.join();
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            saveDirty(server);
+            pending.join();
+            adopted.clear();
+            soon.clear();
+            ops = null;
+        });
+    }
+
+    private static void adoptAll(MinecraftServer server) {
+        adopted.clear();
+        ops = server.registryAccess().createSerializationContext(NbtOps.INSTANCE);
+        for (var source : SOURCES) {
+            AsyncSavedData<?> state = source.apply(server);
+            if (state == null || state.managed()) continue;
+            state.adopt();
+            adopted.add(state);
+        }
+    }
+
+    /**
+     * Writes {@code state} (if dirty) at the end of the current server tick rather than at the next world
+     * save; several requests in one tick make one write. Ignored for states the saver did not adopt, which
+     * vanilla saves. Server thread.
+     */
+    public static void saveSoon(AsyncSavedData<?> state) {
+        if (state.managed()) soon.add(state);
+    }
+
+    private static void saveRequested(MinecraftServer server) {
+        if (soon.isEmpty() || ops == null) return;
+
+        Path dir = server.getWorldPath(LevelResource.ROOT).resolve("data");
+        for (AsyncSavedData<?> state : soon) {
+            if (state.takeDirty()) submit(state, ops, dir);
+        }
+        soon.clear();
+    }
+
+    private static void saveDirty(MinecraftServer server) {
+        if (adopted.isEmpty()) return;
+
+        Path dir = server.getWorldPath(LevelResource.ROOT).resolve("data");
+
+        for (AsyncSavedData<?> state : adopted) {
+            if (state.takeDirty()) submit(state, ops, dir);
+        }
+    }
+
+    private static <S extends AsyncSavedData<S>> void submit(AsyncSavedData<S> state, RegistryOps<Tag> ops, Path dir) {
+        SavedDataType<S> type = state.saveType();
+        S snapshot;
+        try {
+            snapshot = state.snapshotForSave(ops);
+        } catch (RuntimeException e) {
+            Kingdoms.LOGGER.error("[Save] Could not snapshot {}; will retry at the next save", type.id(), e);
+            state.writeFailed();
+            return;
+        }
+        pending = pending.thenRunAsync(() -> write(state, type, snapshot, ops, dir), executor());
+    }
+
+    private static <S extends AsyncSavedData<S>> void write(AsyncSavedData<S> state, SavedDataType<S> type,
+                                                             S snapshot, RegistryOps<Tag> ops, Path dir) {
+        try {
+            CompoundTag root = new CompoundTag();
+            root.put("data", type.codec().encodeStart(ops, snapshot).getOrThrow());
+            NbtUtils.addCurrentDataVersion(root);
+
+            Files.createDirectories(dir);
+            Path file = dir.resolve(type.id() + ".dat");
+            Path tmp = dir.resolve(type.id() + ".dat.tmp");
+            NbtIo.writeCompressed(root, tmp);
+            move(tmp, file);
+        } catch (Exception e) {
+            Kingdoms.LOGGER.error("[Save] Could not save {}; will retry at the next save", type.id(), e);
+            state.writeFailed();
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "Kingdoms-Save");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,369 @@
+package name.kingdoms;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Region-tiled claim storage used by {@link kingdomState}.
+ *
+ * Claim cells are grouped into 32x32 tiles. Each tile keeps one short per cell
+ * (0 = unclaimed, otherwise 1-based index into a small per-tile palette of kingdom ids),
+ * so a lookup is one long-keyed map hit plus an array read: no boxing, no record keys.
+ *
+ * Tile keys pack an interned dimension id (10 bits) with the tile x/z (27 bits each).
+ * A tile coordinate is a cell coordinate >> 5, so every int cell coordinate in every
+ * dimension maps to exactly one key: there is no hashing step that can collide.
+ *
+ * Each tile carries a version bumped on every change, so saves can re-encode only the tiles that
+ * changed ({@link #encodeCache}). {@link #snapshot} shares tiles copy-on-write: a shared tile is
+ * cloned the first time this grid changes it, so a snapshot can be encoded on another thread.
+ */
+final class ClaimGrid {
+
+    static final int TILE_SHIFT = 5;
+    static final int TILE_SIZE = 1 << TILE_SHIFT; // 32 cells
+    static final int TILE_MASK = TILE_SIZE - 1;
+    static final int TILE_CELLS = TILE_SIZE * TILE_SIZE;
+
+    private static final int DIM_BITS = 10;
+    private static final int COORD_BITS = 32 - TILE_SHIFT; // 27
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1L;
+    static final int MAX_DIMS = 1 << DIM_BITS;
+
+    @FunctionalInterface
+    interface ClaimVisitor {
+        void accept(ResourceKey<Level> dim, int gx, int gz, UUID kid);
+    }
+
+    @FunctionalInterface
+    interface TileVisitor {
+        void accept(long key, Tile tile);
+    }
+
+    /** Per-tile encoded claims from the last save; shared with snapshots, used by whichever thread saves. */
+    final SegmentEncodeCache<Long> encodeCache;
+
+    /** packed (dim id, tile x, tile z) -> tile */
+    private final Long2ObjectMap<Tile> tiles = new Long2ObjectOpenHashMap<>();
+
+    /** dimension -> small interned id, stable for the lifetime of this grid */
+    private final Map<ResourceKey<Level>, Integer> dimIds = new HashMap<>();
+    private final List<ResourceKey<Level>> dimsById = new ArrayList<>();
+
+    // last dimension interned; claims are almost always queried in the overworld
+    private ResourceKey<Level> lastDim;
+    private int lastDimId = -1;
+
+    ClaimGrid() {
+        this(new SegmentEncodeCache<>());
+    }
+
+    private ClaimGrid(SegmentEncodeCache<Long> encodeCache) {
+        this.encodeCache = encodeCache;
+    }
+
+    /** Read-only copy for saving; O(tiles), cells are not copied until this grid changes them. */
+    ClaimGrid snapshot() {
+        ClaimGrid snap = new ClaimGrid(encodeCache);
+        snap.dimsById.addAll(dimsById);
+        snap.dimIds.putAll(dimIds);
+        for (Long2ObjectMap.Entry<Tile> te : tiles.long2ObjectEntrySet()) {
+            Tile t = te.getValue();
+            t.shared = true;
+            snap.tiles.put(te.getLongKey(), t);
+        }
+        return snap;
+    }
+
+    /* -----------------------------
+       QUERIES
+     ----------------------------- */
+
+    UUID get(ResourceKey<Level> dim, int gx, int gz) {
+        int d = dimIdOrNeg(dim);
+        if (d < 0) return null;
+
+        Tile t = tiles.get(tileKey(d, gx >> TILE_SHIFT, gz >> TILE_SHIFT));
+        return t == null ? null : t.get(cellIndex(gx & TILE_MASK, gz & TILE_MASK));
+    }
+
+    int size() {
+        int n = 0;
+        for (Tile t : tiles.values()) n += t.claimed;
+        return n;
+    }
+
+    void forEach(ClaimVisitor visitor) {
+        for (Long2ObjectMap.Entry<Tile> te : tiles.long2ObjectEntrySet()) {
+            forEachIn(te.getLongKey(), te.getValue(), visitor);
+        }
+    }
+
+    void forEachTile(TileVisitor visitor) {
+        for (Long2ObjectMap.Entry<Tile> te : tiles.long2ObjectEntrySet()) {
+            visitor.accept(te.getLongKey(), te.getValue());
+        }
+    }
+
+    /** Claimed cells of one tile (as handed out by {@link #forEachTile}). */
+    void forEachIn(long key, Tile t, ClaimVisitor visitor) {
+        ResourceKey<Level> dim = dimsById.get(tileDim(key));
+        int baseX = tileX(key) << TILE_SHIFT;
+        int baseZ = tileZ(key) << TILE_SHIFT;
+
+        for (int i = 0; i < TILE_CELLS; i++) {
+            int p = t.cells[i];
+            if (p == 0) continue;
+            visitor.accept(dim, baseX + (i >> TILE_SHIFT), baseZ + (i & TILE_MASK), t.palette[p - 1]);
+        }
+    }
+
+    /* -----------------------------
+       MUTATION
+     ----------------------------- */
+
+    /** Sets (or clears, when {@code kid} is null) a single cell. */
+    void put(ResourceKey<Level> dim, int gx, int gz, UUID kid) {
+        int idx = cellIndex(gx & TILE_MASK, gz & TILE_MASK);
+
+        if (kid == null) {
+            int d = dimIdOrNeg(dim);
+            if (d < 0) return;
+            long key = tileKey(d, gx >> TILE_SHIFT, gz >> TILE_SHIFT);
+            Tile t = writable(key);
+            if (t == null) return;
+            t.set(idx, 0);
+            if (t.claimed == 0) tiles.remove(key);
+            return;
+        }
+
+        long key = tileKey(dimId(dim), gx >> TILE_SHIFT, gz >> TILE_SHIFT);
+        Tile t = writableOrNew(key);
+        t.set(idx, t.intern(kid));
+    }
+
+    /** Claims every cell in the inclusive cell rectangle, one row fill per tile column. */
+    void fillRect(ResourceKey<Level> dim, int minGX, int maxGX, int minGZ, int maxGZ, UUID kid) {
+        if (kid == null || minGX > maxGX || minGZ > maxGZ) return;
+
+        int d = dimId(dim);
+
+        int minTX = minGX >> TILE_SHIFT, maxTX = maxGX >> TILE_SHIFT;
+        int minTZ = minGZ >> TILE_SHIFT, maxTZ = maxGZ >> TILE_SHIFT;
+
+        for (int tx = minTX; tx <= maxTX; tx++) {
+            int lx0 = (tx == minTX) ? (minGX & TILE_MASK) : 0;
+            int lx1 = (tx == maxTX) ? (maxGX & TILE_MASK) : TILE_MASK;
+
+            for (int tz = minTZ; tz <= maxTZ; tz++) {
+                int lz0 = (tz == minTZ) ? (minGZ & TILE_MASK) : 0;
+                int lz1 = (tz == maxTZ) ? (maxGZ & TILE_MASK) : TILE_MASK;
+
+                Tile t = writableOrNew(tileKey(d, tx, tz));
+                t.fill(t.intern(kid), lx0, lx1, lz0, lz1);
+            }
+        }
+    }
+
+    /** Drops every cell owned by {@code kid}. Tiles whose palette lacks the id are skipped without touching cells. */
+    void removeAll(UUID kid) {
+        if (kid == null) return;
+
+        Iterator<Long2ObjectMap.Entry<Tile>> it = tiles.long2ObjectEntrySet().iterator();
+        while (it.hasNext()) {
+            Long2ObjectMap.Entry<Tile> te = it.next();
+            Tile t = te.getValue();
+            if (t.indexOf(kid) == 0) continue;
+            if (t.shared) {
+                t = t.copy();
+                te.setValue(t);
+            }
+            if (t.removeAll(kid) && t.claimed == 0) it.remove();
+        }
+    }
+
+    void clear() {
+        tiles.clear();
+    }
+
+    /* -----------------------------
+       INTERNALS
+     ----------------------------- */
+
+    /** Tile at {@code key}, cloned first if a snapshot shares it; null if absent. */
+    private Tile writable(long key) {
+        Tile t = tiles.get(key);
+        if (t != null && t.shared) {
+            t = t.copy();
+            tiles.put(key, t);
+        }
+        return t;
+    }
+
+    private Tile writableOrNew(long key) {
+        Tile t = writable(key);
+        if (t == null) {
+            t = new Tile();
+            tiles.put(key, t);
+        }
+        return t;
+    }
+
+    /** Interned id for {@code dim}, or -1 if nothing was ever claimed there. */
+    private int dimIdOrNeg(ResourceKey<Level> dim) {
+        if (dim == lastDim) return lastDimId;
+        Integer id = dimIds.get(dim);
+        if (id == null) return -1;
+        lastDim = dim;
+        lastDimId = id;
+        return id;
+    }
+
+    private int dimId(ResourceKey<Level> dim) {
+        int id = dimIdOrNeg(dim);
+        if (id >= 0) return id;
+
+        if (dimsById.size() >= MAX_DIMS) {
+            throw new IllegalStateException("Too many claim dimensions (max " + MAX_DIMS + ")");
+        }
+        id = dimsById.size();
+        dimsById.add(dim);
+        dimIds.put(dim, id);
+        lastDim = dim;
+        lastDimId = id;
+        return id;
+    }
+
+    static long tileKey(int dimId, int tx, int tz) {
+        return ((long) dimId << (2 * COORD_BITS))
+                | ((tx & COORD_MASK) << COORD_BITS)
+                | (tz & COORD_MASK);
+    }
+
+    static int tileDim(long key) { return (int) (key >>> (2 * COORD_BITS)); }
+    static int tileX(long key) { return (int) ((key << DIM_BITS) >> (DIM_BITS + COORD_BITS)); }
+    static int tileZ(long key) { return (int) ((key << (DIM_BITS + COORD_BITS)) >> (DIM_BITS + COORD_BITS)); }
+
+    static int cellIndex(int lx, int lz) {
+        return (lx << TILE_SHIFT) | lz;
+    }
+
+    /** One 32x32 block of claim cells. */
+    static final class Tile {
+        final short[] cells = new short[TILE_CELLS];
+        UUID[] palette = new UUID[2];
+        int[] counts = new int[2];
+        int claimed;
+        long version;
+        // handed to a snapshot: never changed in place again
+        boolean shared;
+
+        Tile copy() {
+            Tile c = new Tile();
+            System.arraycopy(cells, 0, c.cells, 0, TILE_CELLS);
+            c.palette = palette.clone();
+            c.counts = counts.clone();
+            c.claimed = claimed;
+            c.version = version;
+            return c;
+        }
+
+        UUID get(int idx) {
+            int p = cells[idx];
+            return p == 0 ? null : palette[p - 1];
+        }
+
+        /** Returns the 1-based palette index for {@code kid}, adding it if needed. */
+        int intern(UUID kid) {
+            int free = -1;
+            for (int i = 0; i < palette.length; i++) {
+                UUID u = palette[i];
+                if (u == null) {
+                    if (free < 0) free = i;
+                } else if (u.equals(kid)) {
+                    return i + 1;
+                }
+            }
+
+            if (free < 0) {
+                free = palette.length;
+                palette = Arrays.copyOf(palette, palette.length * 2);
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+
+            palette[free] = kid;
+            counts[free] = 0;
+            return free + 1;
+        }
+
+        int indexOf(UUID kid) {
+            for (int i = 0; i < palette.length; i++) {
+                if (kid.equals(palette[i])) return i + 1;
+            }
+            return 0;
+        }
+
+        void set(int idx, int p) {
+            int old = cells[idx];
+            if (old == p) return;
+
+            if (old != 0) release(old, 1);
+            else claimed++;
+
+            if (p != 0) counts[p - 1]++;
+            else claimed--;
+
+            cells[idx] = (short) p;
+            version++;
+        }
+
+        void fill(int p, int lx0, int lx1, int lz0, int lz1) {
+            for (int lx = lx0; lx <= lx1; lx++) {
+                int row = lx << TILE_SHIFT;
+                for (int i = row + lz0, end = row + lz1; i <= end; i++) {
+                    set(i, p);
+                }
+            }
+        }
+
+        /** @return true if anything was removed */
+        boolean removeAll(UUID kid) {
+            int p = indexOf(kid);
+            if (p == 0) return false;
+
+            int n = counts[p - 1];
+            if (n == claimed) {
+                Arrays.fill(cells, (short) 0);
+            } else {
+                short sp = (short) p;
+                for (int i = 0; i < TILE_CELLS; i++) {
+                    if (cells[i] == sp) cells[i] = 0;
+                }
+            }
+
+            claimed -= n;
+            release(p, n);
+            version++;
+            return true;
+        }
+
+        private void release(int p, int n) {
+            int i = p - 1;
+            counts[i] -= n;
+            if (counts[i] <= 0) {
+                counts[i] = 0;
+                palette[i] = null;
+            }
+        }
+    }
+}
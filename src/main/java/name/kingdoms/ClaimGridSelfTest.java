@@ -0,0 +1,155 @@
+package name.kingdoms;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Randomized cross-check of {@link ClaimGrid} against the old {@code Map<ClaimKey, UUID>} claim index.
+ * Run in-game with {@code /kingdoms perf claims [samples] [seed]}.
+ *
+ * Builds a throwaway grid (never touches the live kingdomState), fills both indexes with the same
+ * random rect claims across three dimensions and the full cell range, then compares every sampled
+ * lookup and times both paths over the same coordinates.
+ */
+public final class ClaimGridSelfTest {
+    private ClaimGridSelfTest() {}
+
+    public record Result(
+            long samples,
+            long mismatches,
+            int claimedCells,
+            int legacyKeyCollisions,
+            double gridNsPerLookup,
+            double mapNsPerLookup
+    ) {}
+
+    private static final int KINGDOMS = 48;
+    private static final int RECTS = 600;
+    private static final int MAX_RECT_CELLS = 40;
+
+    // spread claims over the whole int cell range, plus a dense cluster near spawn
+    private static final int FAR_RANGE = Integer.MAX_VALUE - MAX_RECT_CELLS;
+    private static final int NEAR_RANGE = 2_000;
+
+    public static Result run(long samples, long seed) {
+        Random rng = new Random(seed);
+        List<ResourceKey<Level>> dims = List.of(Level.OVERWORLD, Level.NETHER, Level.END);
+
+        UUID[] kids = new UUID[KINGDOMS];
+        for (int i = 0; i < KINGDOMS; i++) kids[i] = new UUID(rng.nextLong(), rng.nextLong());
+
+        ClaimGrid grid = new ClaimGrid();
+        Map<kingdomState.ClaimKey, UUID> reference = new HashMap<>();
+
+        // rect origins, reused as sampling hot spots so most lookups land near real claims
+        int[] hotX = new int[RECTS];
+        int[] hotZ = new int[RECTS];
+        int[] hotDim = new int[RECTS];
+
+        for (int r = 0; r < RECTS; r++) {
+            int d = rng.nextInt(dims.size());
+            ResourceKey<Level> dim = dims.get(d);
+            UUID kid = kids[rng.nextInt(KINGDOMS)];
+
+            boolean near = rng.nextBoolean();
+            int range = near ? NEAR_RANGE : FAR_RANGE;
+            int gx = rng.nextInt(range) * (rng.nextBoolean() ? 1 : -1);
+            int gz = rng.nextInt(range) * (rng.nextBoolean() ? 1 : -1);
+            int w = rng.nextInt(MAX_RECT_CELLS);
+            int h = rng.nextInt(MAX_RECT_CELLS);
+
+            grid.fillRect(dim, gx, gx + w, gz, gz + h, kid);
+            for (int x = gx; x <= gx + w; x++) {
+                for (int z = gz; z <= gz + h; z++) {
+                    reference.put(new kingdomState.ClaimKey(dim, x, z), kid);
+                }
+            }
+
+            // occasionally drop a whole kingdom, as disband/clearKingdomBorder do
+            if (rng.nextInt(50) == 0) {
+                UUID gone = kids[rng.nextInt(KINGDOMS)];
+                grid.removeAll(gone);
+                reference.values().removeIf(gone::equals);
+            }
+
+            hotX[r] = gx;
+            hotZ[r] = gz;
+            hotDim[r] = d;
+        }
+
+        // sample coordinates up front so both timing loops see identical inputs
+        int n = (int) Math.min(samples, Integer.MAX_VALUE - 8);
+        int[] sx = new int[n];
+        int[] sz = new int[n];
+        byte[] sd = new byte[n];
+        for (int i = 0; i < n; i++) {
+            if (rng.nextInt(4) == 0) {
+                sx[i] = rng.nextInt();
+                sz[i] = rng.nextInt();
+                sd[i] = (byte) rng.nextInt(dims.size());
+            } else {
+                int r = rng.nextInt(RECTS);
+                sx[i] = hotX[r] + rng.nextInt(MAX_RECT_CELLS + 8) - 4;
+                sz[i] = hotZ[r] + rng.nextInt(MAX_RECT_CELLS + 8) - 4;
+                sd[i] = (byte) hotDim[r];
+            }
+        }
+
+        long mismatches = 0;
+        for (int i = 0; i < n; i++) {
+            ResourceKey<Level> dim = dims.get(sd[i]);
+            UUID expected = reference.get(new kingdomState.ClaimKey(dim, sx[i], sz[i]));
+            if (!Objects.equals(expected, grid.get(dim, sx[i], sz[i]))) mismatches++;
+        }
+        if (grid.size() != reference.size()) mismatches++;
+
+        // timing: grid
+        long sink = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            UUID u = grid.get(dims.get(sd[i]), sx[i], sz[i]);
+            if (u != null) sink += u.getLeastSignificantBits();
+        }
+        long gridNs = System.nanoTime() - t0;
+
+        // timing: record-keyed map (allocates a ClaimKey per lookup, like the old getKingdomAt)
+        t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            UUID u = reference.get(new kingdomState.ClaimKey(dims.get(sd[i]), sx[i], sz[i]));
+            if (u != null) sink -= u.getLeastSignificantBits();
+        }
+        long mapNs = System.nanoTime() - t0;
+
+        // sink cancels out if both paths returned the same owners
+        if (sink != 0) mismatches++;
+
+        return new Result(
+                n,
+                mismatches,
+                grid.size(),
+                countLegacyCollisions(reference),
+                n == 0 ? 0.0 : (double) gridNs / n,
+                n == 0 ? 0.0 : (double) mapNs / n
+        );
+    }
+
+    /** How many claimed cells the removed {@code dimHash | (31*gx+gz)} packing mapped onto someone else's key. */
+    private static int countLegacyCollisions(Map<kingdomState.ClaimKey, UUID> reference) {
+        Map<Long, kingdomState.ClaimKey> seen = new HashMap<>(reference.size() * 2);
+        int collisions = 0;
+        for (kingdomState.ClaimKey ck : reference.keySet()) {
+            long legacy = ((long) ck.dim().location().hashCode() << 32)
+                    | ((long) (31 * ck.gx() + ck.gz()) & 0xFFFFFFFFL);
+            kingdomState.ClaimKey prev = seen.putIfAbsent(legacy, ck);
+            if (prev != null && !prev.equals(ck)) collisions++;
+        }
+        return collisions;
+    }
+}
@@ -0,0 +1,75 @@
+package name.kingdoms;
+
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compiled vs registry/tag block-requirement matching, over every job with requirements.
+ * Run in-game with {@code /kingdoms perf jobreqs [samples] [seed]} (needs tags loaded, i.e. a running server).
+ *
+ * Samples random block states from the state registry, checks both paths agree for every job,
+ * then times each path over the same samples.
+ */
+public final class JobRequirementBench {
+    private JobRequirementBench() {}
+
+    public record Result(
+            int samples,
+            int jobs,
+            long mismatches,
+            double uncompiledNsPerCheck,
+            double compiledNsPerCheck
+    ) {}
+
+    public static Result run(int samples, long seed) {
+        List<jobDefinition> jobs = new ArrayList<>();
+        for (jobDefinition j : jobDefinition.all()) {
+            if (j.requirementSlots() > 0) jobs.add(j);
+        }
+
+        List<BlockState> states = new ArrayList<>(Block.BLOCK_STATE_REGISTRY.size());
+        for (BlockState st : Block.BLOCK_STATE_REGISTRY) states.add(st);
+
+        Random rng = new Random(seed);
+        BlockState[] sample = new BlockState[samples];
+        for (int i = 0; i < samples; i++) sample[i] = states.get(rng.nextInt(states.size()));
+
+        long mismatches = 0;
+        for (BlockState st : sample) {
+            for (jobDefinition j : jobs) {
+                if (j.requirementMask(st) != j.requirementMaskUncompiled(st)) mismatches++;
+            }
+        }
+
+        // timing: registry key + tag lookups per check (the old meetsBlockRequirements path)
+        long sink = 0;
+        long t0 = System.nanoTime();
+        for (BlockState st : sample) {
+            for (jobDefinition j : jobs) sink += j.requirementMaskUncompiled(st);
+        }
+        long uncompiledNs = System.nanoTime() - t0;
+
+        // timing: compiled bitsets
+        t0 = System.nanoTime();
+        for (BlockState st : sample) {
+            for (jobDefinition j : jobs) sink -= j.requirementMask(st);
+        }
+        long compiledNs = System.nanoTime() - t0;
+
+        // sink cancels out if both paths returned the same masks
+        if (sink != 0) mismatches++;
+
+        long checks = (long) samples * jobs.size();
+        return new Result(
+                samples,
+                jobs.size(),
+                mismatches,
+                checks == 0 ? 0.0 : (double) uncompiledNs / checks,
+                checks == 0 ? 0.0 : (double) compiledNs / checks
+        );
+    }
+}
@@ -0,0 +1,278 @@
+package name.kingdoms;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.BedBlock;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.BedPart;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Per-level index of the blocks worker / NPC routines walk to, for loaded chunks.
+ *
+ * - chunk load: the chunk's sections are scanned (sections whose palette can't hold a POI are skipped)
+ * - block change: ServerLevel.onBlockStateChange (mixin) moves the position between categories
+ * - chunk unload / level unload / server stop: entries are dropped
+ *
+ * Queries walk only the chunks inside the search box and return real positions, nearest first.
+ */
+public final class KingdomPoiIndex {
+    private KingdomPoiIndex() {}
+
+    public enum Category {
+        /** Bed head halves. */
+        BED,
+        /** Enabled tavern / chapel / shop blocks (routine targets only make sense while enabled). */
+        TAVERN,
+        CHAPEL,
+        SHOP,
+        /** Every job block, enabled or not. */
+        JOB;
+
+        private static final Category[] VALUES = values();
+        final int bit = 1 << ordinal();
+    }
+
+    private static final class ChunkPois {
+        final LongArrayList[] byCategory = new LongArrayList[Category.VALUES.length];
+
+        void add(Category c, long pos) {
+            LongArrayList l = byCategory[c.ordinal()];
+            if (l == null) byCategory[c.ordinal()] = l = new LongArrayList(4);
+            l.add(pos);
+        }
+
+        void remove(Category c, long pos) {
+            LongArrayList l = byCategory[c.ordinal()];
+            if (l == null) return;
+            int i = l.indexOf(pos);
+            if (i >= 0) l.removeLong(i);
+        }
+
+        boolean isEmpty() {
+            for (LongArrayList l : byCategory) {
+                if (l != null && !l.isEmpty()) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final Map<ServerLevel, Long2ObjectMap<ChunkPois>> LEVELS = new IdentityHashMap<>();
+
+    public static void init() {
+        ServerChunkEvents.CHUNK_LOAD.register(KingdomPoiIndex::indexChunk);
+        ServerChunkEvents.CHUNK_UNLOAD.register((level, chunk) -> {
+            Long2ObjectMap<ChunkPois> chunks = LEVELS.get(level);
+            if (chunks != null) chunks.remove(chunk.getPos().toLong());
+        });
+        ServerWorldEvents.UNLOAD.register((server, level) -> LEVELS.remove(level));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> LEVELS.clear());
+    }
+
+    // ------------------------------------------------------------
+    // Classification
+    // ------------------------------------------------------------
+
+    /** Bitmask of {@link Category#bit} this state belongs to (0 for almost everything). */
+    static int classify(BlockState st) {
+        Block b = st.getBlock();
+
+        if (b instanceof BedBlock) {
+            return st.getValue(BedBlock.PART) == BedPart.HEAD ? Category.BED.bit : 0;
+        }
+
+        if (b instanceof jobBlock) {
+            int mask = Category.JOB.bit;
+
+            boolean enabled = true;
+            try {
+                enabled = st.getValue(jobBlock.ENABLED);
+            } catch (Throwable ignored) {}
+
+            if (enabled) {
+                if (b == modBlock.tavern_block) mask |= Category.TAVERN.bit;
+                else if (b == modBlock.chapel_block) mask |= Category.CHAPEL.bit;
+                else if (b == modBlock.shop_block) mask |= Category.SHOP.bit;
+            }
+            return mask;
+        }
+
+        return 0;
+    }
+
+    private static boolean isPoi(BlockState st) {
+        return classify(st) != 0;
+    }
+
+    // ------------------------------------------------------------
+    // Updates
+    // ------------------------------------------------------------
+
+    private static void indexChunk(ServerLevel level, LevelChunk chunk) {
+        ChunkPois pois = null;
+        int baseX = chunk.getPos().getMinBlockX();
+        int baseZ = chunk.getPos().getMinBlockZ();
+
+        LevelChunkSection[] sections = chunk.getSections();
+        for (int s = 0; s < sections.length; s++) {
+            LevelChunkSection section = sections[s];
+            if (section == null || section.hasOnlyAir()) continue;
+            if (!section.maybeHas(KingdomPoiIndex::isPoi)) continue;
+
+            int baseY = level.getSectionYFromSectionIndex(s) << 4;
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        int mask = classify(section.getBlockState(x, y, z));
+                        if (mask == 0) continue;
+
+                        if (pois == null) pois = new ChunkPois();
+                        long packed = BlockPos.asLong(baseX + x, baseY + y, baseZ + z);
+                        for (Category c : Category.VALUES) {
+                            if ((mask & c.bit) != 0) pois.add(c, packed);
+                        }
+                    }
+                }
+            }
+        }
+
+        long key = chunk.getPos().toLong();
+        if (pois == null) {
+            Long2ObjectMap<ChunkPois> chunks = LEVELS.get(level);
+            if (chunks != null) chunks.remove(key);
+        } else {
+            LEVELS.computeIfAbsent(level, l -> new Long2ObjectOpenHashMap<>()).put(key, pois);
+        }
+    }
+
+    /** Called for every block state change in a server level (see ServerLevelBlockChangeMixin). */
+    public static void onBlockChanged(ServerLevel level, BlockPos pos, BlockState oldState, BlockState newState) {
+        int before = classify(oldState);
+        int after = classify(newState);
+        if (before == after) return;
+
+        long key = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+        long packed = pos.asLong();
+
+        Long2ObjectMap<ChunkPois> chunks = LEVELS.computeIfAbsent(level, l -> new Long2ObjectOpenHashMap<>());
+        ChunkPois pois = chunks.get(key);
+        if (pois == null) {
+            if (after == 0) return;
+            pois = new ChunkPois();
+            chunks.put(key, pois);
+        }
+
+        for (Category c : Category.VALUES) {
+            boolean was = (before & c.bit) != 0;
+            boolean is = (after & c.bit) != 0;
+            if (was && !is) pois.remove(c, packed);
+            else if (!was && is) pois.add(c, packed);
+        }
+
+        if (pois.isEmpty()) chunks.remove(key);
+    }
+
+    // ------------------------------------------------------------
+    // Queries
+    // ------------------------------------------------------------
+
+    /** Nearest single match, or null. See {@link #nearest(ServerLevel, Category, BlockPos, int, int, UUID, int)}. */
+    @Nullable
+    public static BlockPos nearest(ServerLevel level, Category category, BlockPos origin, int radius, int yRange,
+                                   @Nullable UUID kingdomId) {
+        return nearest(level, category, origin, radius, yRange, kingdomId, null);
+    }
+
+    /**
+     * Nearest match that {@code accept} agrees to, or null. The filter runs inside the walk, only on
+     * candidates nearer than the best accepted so far, so a rejected near match never hides a farther one.
+     */
+    @Nullable
+    public static BlockPos nearest(ServerLevel level, Category category, BlockPos origin, int radius, int yRange,
+                                   @Nullable UUID kingdomId, @Nullable Predicate<BlockPos> accept) {
+        List<BlockPos> out = nearest(level, category, origin, radius, yRange, kingdomId, 1, accept);
+        return out.isEmpty() ? null : out.get(0);
+    }
+
+    /**
+     * Up to {@code k} positions of {@code category} within {@code radius} blocks horizontally (square) and
+     * {@code yRange} vertically of {@code origin}, nearest first by 3D distance.
+     * If {@code kingdomId} is set, only positions inside that kingdom's claims count.
+     */
+    public static List<BlockPos> nearest(ServerLevel level, Category category, BlockPos origin, int radius, int yRange,
+                                         @Nullable UUID kingdomId, int k) {
+        return nearest(level, category, origin, radius, yRange, kingdomId, k, null);
+    }
+
+    private static List<BlockPos> nearest(ServerLevel level, Category category, BlockPos origin, int radius, int yRange,
+                                          @Nullable UUID kingdomId, int k, @Nullable Predicate<BlockPos> accept) {
+        Long2ObjectMap<ChunkPois> chunks = LEVELS.get(level);
+        if (chunks == null || chunks.isEmpty() || k <= 0) return List.of();
+
+        int ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+        kingdomState ks = kingdomId == null ? null : kingdomState.get(level.getServer());
+
+        // best k so far, sorted by d2 ascending
+        long[] bestPos = new long[k];
+        int[] bestD2 = new int[k];
+        int found = 0;
+
+        for (int cx = (ox - radius) >> 4; cx <= (ox + radius) >> 4; cx++) {
+            for (int cz = (oz - radius) >> 4; cz <= (oz + radius) >> 4; cz++) {
+                ChunkPois pois = chunks.get(ChunkPos.asLong(cx, cz));
+                if (pois == null) continue;
+                LongArrayList list = pois.byCategory[category.ordinal()];
+                if (list == null) continue;
+
+                for (int i = 0, n = list.size(); i < n; i++) {
+                    long p = list.getLong(i);
+                    int dx = BlockPos.getX(p) - ox;
+                    int dy = BlockPos.getY(p) - oy;
+                    int dz = BlockPos.getZ(p) - oz;
+                    if (Math.abs(dx) > radius || Math.abs(dz) > radius || Math.abs(dy) > yRange) continue;
+
+                    int d2 = dx * dx + dy * dy + dz * dz;
+                    if (found == k && d2 >= bestD2[k - 1]) continue;
+
+                    if (ks != null) {
+                        kingdomState.Kingdom owner = ks.getKingdomAt(level, BlockPos.of(p));
+                        if (owner == null || !kingdomId.equals(owner.id)) continue;
+                    }
+                    if (accept != null && !accept.test(BlockPos.of(p))) continue;
+
+                    // insertion into the sorted top-k
+                    int j = Math.min(found, k - 1);
+                    while (j > 0 && bestD2[j - 1] > d2) {
+                        bestD2[j] = bestD2[j - 1];
+                        bestPos[j] = bestPos[j - 1];
+                        j--;
+                    }
+                    bestD2[j] = d2;
+                    bestPos[j] = p;
+                    if (found < k) found++;
+                }
+            }
+        }
+
+        List<BlockPos> out = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) out.add(BlockPos.of(bestPos[i]));
+        return out;
+    }
+}
@@ -21,7 +21,7 @@ import name.kingdoms.entity.kingdomWorkerEntity;
 import name.kingdoms.entity.modEntities;
 import name.kingdoms.entity.ai.aiKingdomNPCEntity;
 import name.kingdoms.payload.kingdomTransitionS2CPayload;
-import name.kingdoms.payload.mailInboxSyncPayload;
+import name.kingdoms.network.serverMail;
 import name.kingdoms.war.WarPendingTicker;
 import name.kingdoms.war.WarState;
 import net.fabricmc.api.ModInitializer;
@@ -352,6 +352,8 @@ public class Kingdoms implements ModInitializer {
         BlueprintPlacerEngine.init();
         worldGenBluePrintAutoSpawner.init();
         RoadBuilder.init();
+        jobRequirementTracker.init();
+        KingdomPoiIndex.init();
         name.kingdoms.diplomacy.DiplomacyMailGenerator.init();
         KingdomsCommands.register();
         DiplomacyResponseQueue.init();
@@ -369,6 +371,13 @@ public class Kingdoms implements ModInitializer {
         name.kingdoms.pressure.GlobalPressureEvents.init();
         name.kingdoms.pressure.AiPressureTicker.init();
         name.kingdoms.pressure.AiInterKingdomPressureTicker.init();
+        name.kingdoms.time.KingdomScheduler.init();
+        AsyncStateSaver.register(kingdomState::get);
+        AsyncStateSaver.register(WarState::get);
+        AsyncStateSaver.register(server -> name.kingdoms.news.KingdomNewsState.get(server.overworld()));
+        AsyncStateSaver.register(name.kingdoms.diplomacy.DiplomacyMailArchiveState::get);
+        AsyncStateSaver.register(name.kingdoms.diplomacy.DiplomacyResponseQueueState::get);
+        AsyncStateSaver.init();
 
 
         WarPendingTicker.init();
@@ -458,7 +467,7 @@ public class Kingdoms implements ModInitializer {
                 if (!(player.level() instanceof ServerLevel level)) return;
 
                 var mail = DiplomacyMailboxState.get(level);
-                ServerPlayNetworking.send(player, new mailInboxSyncPayload(mail.getInbox(player.getUUID())));
+                serverMail.syncInbox(player, mail);
             });
         });
 
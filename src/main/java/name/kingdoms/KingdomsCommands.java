@@ -20,18 +20,25 @@ import name.kingdoms.diplomacy.AiDiplomacyTicker;
 import name.kingdoms.diplomacy.Letter;
 import name.kingdoms.diplomacy.ResourceType;
 import name.kingdoms.entity.aiKingdomEntity;
+import name.kingdoms.blueprint.RoadAStarBench;
 import name.kingdoms.blueprint.WorldgenToggleState;
 import name.kingdoms.diplomacy.AiDiplomacyEvent;
 import name.kingdoms.diplomacy.AiDiplomacyEventState;
 import name.kingdoms.diplomacy.AiEconomyMutator;
 import name.kingdoms.diplomacy.AiRelationNormalizer;
 import name.kingdoms.diplomacy.AllianceState;
+import name.kingdoms.diplomacy.DiplomacyMailArchiveState;
+import name.kingdoms.diplomacy.DiplomacyMailboxState;
+import name.kingdoms.network.serverMail;
 import name.kingdoms.news.KingdomNewsState;
 import name.kingdoms.pressure.KingdomPressureState;
 import name.kingdoms.pressure.PressureCatalog;
+import name.kingdoms.war.BattleProfiler;
 import name.kingdoms.war.BattleZone;
+import name.kingdoms.war.WarBattleManager;
 import name.kingdoms.war.WarState;
 import name.kingdoms.sim.SimRunWriter;
+import name.kingdoms.time.KingdomScheduler;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.UUID;
@@ -614,6 +621,19 @@ public final class KingdomsCommands {
                                         )
                                 )
                         )
+                        // /kingdoms diplomacy mail_retention [<inbox> <archive>]
+                        .then(Commands.literal("mail_retention")
+                                .executes(ctx -> mailRetention(ctx.getSource()))
+                                .then(Commands.argument("inbox", IntegerArgumentType.integer(
+                                                DiplomacyMailboxState.MIN_INBOX_CAP, DiplomacyMailboxState.MAX_INBOX_CAP))
+                                        .then(Commands.argument("archive", IntegerArgumentType.integer(
+                                                        0, DiplomacyMailArchiveState.MAX_ARCHIVE_CAP))
+                                                .executes(ctx -> mailRetentionSet(ctx.getSource(),
+                                                        IntegerArgumentType.getInteger(ctx, "inbox"),
+                                                        IntegerArgumentType.getInteger(ctx, "archive")))
+                                        )
+                                )
+                        )
 
 
                 // -------------------------
@@ -694,6 +714,72 @@ public final class KingdomsCommands {
                         )
                 )
 
+                // -------------------------
+                // Perf self-checks
+                // -------------------------
+                .then(Commands.literal("perf")
+                        // /kingdoms perf claims [samples] [seed]
+                        .then(Commands.literal("claims")
+                                .executes(ctx -> perfClaims(ctx.getSource(), 2_000_000, 1L))
+                                .then(Commands.argument("samples", IntegerArgumentType.integer(1, 20_000_000))
+                                        .executes(ctx -> perfClaims(ctx.getSource(),
+                                                IntegerArgumentType.getInteger(ctx, "samples"), 1L))
+                                        .then(Commands.argument("seed", IntegerArgumentType.integer())
+                                                .executes(ctx -> perfClaims(ctx.getSource(),
+                                                        IntegerArgumentType.getInteger(ctx, "samples"),
+                                                        IntegerArgumentType.getInteger(ctx, "seed")))
+                                        )
+                                )
+                        )
+                        // /kingdoms perf jobreqs [samples] [seed]
+                        .then(Commands.literal("jobreqs")
+                                .executes(ctx -> perfJobReqs(ctx.getSource(), 200_000, 1L))
+                                .then(Commands.argument("samples", IntegerArgumentType.integer(1, 5_000_000))
+                                        .executes(ctx -> perfJobReqs(ctx.getSource(),
+                                                IntegerArgumentType.getInteger(ctx, "samples"), 1L))
+                                        .then(Commands.argument("seed", IntegerArgumentType.integer())
+                                                .executes(ctx -> perfJobReqs(ctx.getSource(),
+                                                        IntegerArgumentType.getInteger(ctx, "samples"),
+                                                        IntegerArgumentType.getInteger(ctx, "seed")))
+                                        )
+                                )
+                        )
+                        // /kingdoms perf roads [seeds]
+                        .then(Commands.literal("roads")
+                                .executes(ctx -> perfRoads(ctx.getSource(), 8))
+                                .then(Commands.argument("seeds", IntegerArgumentType.integer(1, 64))
+                                        .executes(ctx -> perfRoads(ctx.getSource(),
+                                                IntegerArgumentType.getInteger(ctx, "seeds")))
+                                )
+                        )
+                        // /kingdoms perf savecache [seed]
+                        .then(Commands.literal("savecache")
+                                .executes(ctx -> perfSaveCache(ctx.getSource(), 1L))
+                                .then(Commands.argument("seed", IntegerArgumentType.integer())
+                                        .executes(ctx -> perfSaveCache(ctx.getSource(),
+                                                IntegerArgumentType.getInteger(ctx, "seed")))
+                                )
+                        )
+                        // /kingdoms perf schedule
+                        .then(Commands.literal("schedule")
+                                .executes(ctx -> perfSchedule(ctx.getSource()))
+                        )
+                        // /kingdoms perf battle [on|off|reset]
+                        .then(Commands.literal("battle")
+                                .executes(ctx -> perfBattle(ctx.getSource()))
+                                .then(Commands.literal("on")
+                                        .executes(ctx -> perfBattleToggle(ctx.getSource(), true)))
+                                .then(Commands.literal("off")
+                                        .executes(ctx -> perfBattleToggle(ctx.getSource(), false)))
+                                .then(Commands.literal("reset")
+                                        .executes(ctx -> {
+                                            WarBattleManager.perfReset();
+                                            ctx.getSource().sendSuccess(() -> Component.literal("Battle perf stats cleared."), false);
+                                            return 1;
+                                        }))
+                        )
+                )
+
                 .then(Commands.literal("ambient")
                         .then(Commands.literal("list")
                                 .executes(ctx -> ambientList(ctx.getSource()))
@@ -733,6 +819,171 @@ public final class KingdomsCommands {
         );
     }
 
+    // -------------------------
+    // /kingdoms diplomacy mail_retention
+    // -------------------------
+    private static int mailRetention(CommandSourceStack src) {
+        var mailbox = DiplomacyMailboxState.get(src.getServer().overworld());
+        var archive = DiplomacyMailArchiveState.get(src.getServer());
+        src.sendSuccess(() -> Component.literal("Mail retention: inbox=" + mailbox.inboxCap()
+                + " archive=" + archive.archiveCap() + " letters per player"), false);
+        return 1;
+    }
+
+    private static int mailRetentionSet(CommandSourceStack src, int inboxCap, int archiveCap) {
+        var mailbox = DiplomacyMailboxState.get(src.getServer().overworld());
+        var archive = DiplomacyMailArchiveState.get(src.getServer());
+
+        // archive cap first, so letters a smaller inbox pushes out are kept under the new cap
+        int a = archive.setArchiveCap(archiveCap);
+        int i = mailbox.setInboxCap(inboxCap);
+        for (ServerPlayer sp : src.getServer().getPlayerList().getPlayers()) {
+            serverMail.inboxChanged(sp, mailbox);
+        }
+
+        src.sendSuccess(() -> Component.literal("Mail retention set: inbox=" + i + " archive=" + a
+                + " letters per player"), true);
+        return 1;
+    }
+
+    // -------------------------
+    // /kingdoms perf claims
+    // -------------------------
+    private static int perfClaims(CommandSourceStack src, int samples, long seed) {
+        ClaimGridSelfTest.Result r = ClaimGridSelfTest.run(samples, seed);
+
+        src.sendSuccess(() -> Component.literal("=== Claim index self-test (seed " + seed + ") ==="), false);
+        src.sendSuccess(() -> Component.literal("samples=" + r.samples() + " claimedCells=" + r.claimedCells()
+                + " mismatches=" + r.mismatches()), false);
+        src.sendSuccess(() -> Component.literal("grid: " + fmt2(r.gridNsPerLookup()) + " ns/lookup ("
+                + fmt2(r.gridNsPerLookup() <= 0 ? 0 : 1000.0 / r.gridNsPerLookup()) + " M/s)"), false);
+        src.sendSuccess(() -> Component.literal("ClaimKey map: " + fmt2(r.mapNsPerLookup()) + " ns/lookup ("
+                + fmt2(r.mapNsPerLookup() <= 0 ? 0 : 1000.0 / r.mapNsPerLookup()) + " M/s)"), false);
+        src.sendSuccess(() -> Component.literal("legacy packed-key collisions on this data: " + r.legacyKeyCollisions()), false);
+
+        if (r.mismatches() != 0) {
+            src.sendFailure(Component.literal("Claim grid disagrees with the reference map!"));
+            return 0;
+        }
+        return 1;
+    }
+
+    // -------------------------
+    // /kingdoms perf jobreqs
+    // -------------------------
+    private static int perfJobReqs(CommandSourceStack src, int samples, long seed) {
+        JobRequirementBench.Result r = JobRequirementBench.run(samples, seed);
+
+        src.sendSuccess(() -> Component.literal("=== Job requirement matchers (seed " + seed + ") ==="), false);
+        src.sendSuccess(() -> Component.literal("samples=" + r.samples() + " jobs=" + r.jobs()
+                + " mismatches=" + r.mismatches()), false);
+        src.sendSuccess(() -> Component.literal("registry/tag: " + fmt2(r.uncompiledNsPerCheck()) + " ns/check"), false);
+        src.sendSuccess(() -> Component.literal("compiled: " + fmt2(r.compiledNsPerCheck()) + " ns/check"), false);
+
+        if (r.mismatches() != 0) {
+            src.sendFailure(Component.literal("Compiled matchers disagree with the registry/tag path!"));
+            return 0;
+        }
+        return 1;
+    }
+
+    // -------------------------
+    // /kingdoms perf roads
+    // -------------------------
+    private static int perfRoads(CommandSourceStack src, int seeds) {
+        var results = RoadAStarBench.run(seeds);
+
+        double totalMs = 0;
+        long totalBytes = 0;
+        src.sendSuccess(() -> Component.literal("=== Road A* bench (" + seeds + " seeds) ==="), false);
+        for (var r : results) {
+            totalMs += r.millis();
+            totalBytes += r.allocatedBytes();
+            src.sendSuccess(() -> Component.literal("seed " + r.seed() + ": len=" + r.pathLength()
+                    + " " + fmt2(r.millis()) + "ms " + fmt2(r.allocatedBytes() / 1024.0) + "KiB"
+                    + " sum=" + Long.toHexString(r.pathChecksum())), false);
+        }
+
+        double ms = totalMs;
+        long bytes = totalBytes;
+        src.sendSuccess(() -> Component.literal("total: " + fmt2(ms) + "ms, "
+                + fmt2(bytes / (1024.0 * 1024.0)) + "MiB allocated"), false);
+        return 1;
+    }
+
+    // -------------------------
+    // /kingdoms perf savecache
+    // -------------------------
+    private static int perfSaveCache(CommandSourceStack src, long seed) {
+        SegmentEncodeSelfTest.Result r = SegmentEncodeSelfTest.run(src.getServer(), seed);
+
+        src.sendSuccess(() -> Component.literal("=== Claim save cache self-test (seed " + seed + ") ==="), false);
+        src.sendSuccess(() -> Component.literal("tiles=" + r.tiles() + " outputsMatch=" + r.outputsMatch()
+                + " roundTrips=" + r.roundTrips()), false);
+        src.sendSuccess(() -> Component.literal("save 1: encoded=" + r.firstEncoded() + " " + fmt2(r.firstMillis()) + "ms"), false);
+        src.sendSuccess(() -> Component.literal("save 2: encoded=" + r.secondEncoded() + " reused=" + r.secondReused()
+                + " " + fmt2(r.secondMillis()) + "ms"), false);
+        src.sendSuccess(() -> Component.literal("save 3 (one cell changed): encoded=" + r.thirdEncoded()
+                + " reused=" + r.thirdReused()), false);
+
+        if (!r.ok()) {
+            src.sendFailure(Component.literal("Claim saves are not reusing cached tiles correctly!"));
+            return 0;
+        }
+        return 1;
+    }
+
+    // -------------------------
+    // /kingdoms perf schedule
+    // -------------------------
+    private static int perfSchedule(CommandSourceStack src) {
+        var stats = KingdomScheduler.stats(src.getServer());
+
+        src.sendSuccess(() -> Component.literal("=== Kingdom scheduler (" + stats.size() + " task types) ==="), false);
+        for (var t : stats) {
+            src.sendSuccess(() -> Component.literal(t.id() + ": scheduled=" + t.scheduled()
+                    + " ready=" + t.ready() + " runs=" + t.runs() + " skips=" + t.skips()
+                    + " late avg=" + fmt2(t.avgLateTicks()) + "t max=" + t.maxLateTicks() + "t"
+                    + " oldestReady=" + t.oldestReadyLateTicks() + "t"), false);
+        }
+        return 1;
+    }
+
+    // -------------------------
+    // /kingdoms perf battle
+    // -------------------------
+    private static int perfBattle(CommandSourceStack src) {
+        if (!BattleProfiler.enabled()) {
+            src.sendSuccess(() -> Component.literal("Battle profiling is off. Use /kingdoms perf battle on"), false);
+            return 0;
+        }
+
+        var reports = WarBattleManager.perfReports();
+        src.sendSuccess(() -> Component.literal("=== Battle perf (" + reports.size() + " active, last "
+                + (BattleProfiler.WINDOW_TICKS * BattleProfiler.WINDOWS / 20) + "s) ==="), false);
+
+        for (var r : reports) {
+            src.sendSuccess(() -> Component.literal("battle " + r.battle() + ": units=" + r.units()
+                    + " ticks=" + r.ticks()), false);
+            for (var p : r.phases()) {
+                if (p.calls() == 0) continue;
+                src.sendSuccess(() -> Component.literal("  " + p.phase() + ": " + fmt2(p.avgMicrosPerTick()) + "us/tick"
+                        + " max=" + fmt2(p.maxMicros()) + "us calls=" + p.calls()
+                        + " alloc=" + fmt2(p.kibPerTick()) + "KiB/tick"
+                        + " lookups=" + fmt2(p.lookupsPerTick()) + "/tick"), false);
+            }
+        }
+        return 1;
+    }
+
+    private static int perfBattleToggle(CommandSourceStack src, boolean on) {
+        BattleProfiler.setEnabled(on);
+        if (on) WarBattleManager.perfReset();
+        src.sendSuccess(() -> Component.literal("Battle profiling " + (on ? "enabled" : "disabled")
+                + " (JFR event kingdoms.BattlePhase works independently)."), false);
+        return 1;
+    }
+
     // -------------------------
     // /kingdoms listai
     // -------------------------
@@ -1314,7 +1565,7 @@ public final class KingdomsCommands {
 
         // --- SNAPSHOT (for non-destructive sims / A-B tests) ---
         var snapAi = aiState.exportSnapshot();                 // Map<UUID, AiKingdomSnap>
-        var snapRel = relState.exportRel();                    // Map<String, Integer>
+        var snapRel = relState.exportRel();                    // AiRelationsState.RelSnapshot
         var snapAlly = alliance.exportAllies();                // Map<UUID, List<UUID>>
         var snapWar = war.exportState();                       // WarState.WarSnapshot
         var snapSchedule = AiDiplomacyTicker.exportSchedule(); // Map<UUID, Long>
@@ -1988,7 +2239,7 @@ public final class KingdomsCommands {
         // keep client inbox synced (exists in your project)
         var player = server.getPlayerList().getPlayer(toResolved.playerId);
         if (player != null) {
-            name.kingdoms.network.serverMail.syncInbox(player, mailbox.getInbox(toResolved.playerId));
+            name.kingdoms.network.serverMail.letterAdded(player, mailbox, letter);
         }
 
         src.sendSuccess(() -> Component.literal("Generated + delivered: " + letter.kind() + " from " + letter.fromName()), false);
@@ -2095,7 +2346,7 @@ public final class KingdomsCommands {
 
         var player = server.getPlayerList().getPlayer(toResolved.playerId);
         if (player != null) {
-            name.kingdoms.network.serverMail.syncInbox(player, mailbox.getInbox(toResolved.playerId));
+            name.kingdoms.network.serverMail.letterAdded(player, mailbox, letter);
         }
 
         src.sendSuccess(() -> Component.literal("Forced letter delivered: " + letter.kind() + " from " + letter.fromName()), false);
@@ -0,0 +1,54 @@
+package name.kingdoms;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.MapCodec;
+
+import java.util.List;
+
+/**
+ * Ordered, versioned fix-ups for a SavedData class.
+ *
+ * Step {@code i} upgrades data from version {@code i} to {@code i + 1}, so the current version is simply
+ * the number of steps. The owning state stores the version in a {@code dataVersion} field
+ * (missing = 0, i.e. saved before migrations existed) and calls {@link #migrate} once from its codec's
+ * decode lambda. Nothing runs on {@code get()}.
+ */
+public final class SchemaMigrations<S> {
+
+    public static final String FIELD = "dataVersion";
+
+    @FunctionalInterface
+    public interface Step<S> {
+        void apply(S state);
+    }
+
+    private final List<Step<S>> steps;
+
+    @SafeVarargs
+    public SchemaMigrations(Step<S>... steps) {
+        this.steps = List.of(steps);
+    }
+
+    public int currentVersion() {
+        return steps.size();
+    }
+
+    /** Optional {@code dataVersion} field; old saves without it decode as version 0. */
+    public static MapCodec<Integer> versionField() {
+        return Codec.INT.optionalFieldOf(FIELD, 0);
+    }
+
+    /**
+     * Runs every step newer than {@code loadedVersion}.
+     * @return true if any step ran (caller should mark the state dirty so the new version is written)
+     */
+    public boolean migrate(S state, int loadedVersion) {
+        int from = Math.max(0, loadedVersion);
+        if (from >= steps.size()) return false;
+
+        for (int v = from; v < steps.size(); v++) {
+            steps.get(v).apply(state);
+        }
+        return true;
+    }
+}
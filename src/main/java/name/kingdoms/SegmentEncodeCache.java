@@ -0,0 +1,120 @@
+package name.kingdoms;
+
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.Encoder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Remembers the encoded elements of each segment of a large saved list (a claim tile, a footprint region...)
+ * so a save only re-encodes the segments that changed since the previous save.
+ *
+ * A segment is identified by its key plus the identity of the object holding it and a version the owner
+ * bumps on every change; a replaced object or a new version means "encode again". Cached output is only
+ * reused with the same underlying format (see {@link #begin}). The list format on disk is unchanged: the
+ * owner still writes one flat list, just assembled from cached pieces.
+ *
+ * Only the claim grid and the footprint regions use it. aiKingdomState rewrites every kingdom's stockpiles
+ * each econ tick, and WarState holds a few small records, so both still encode whole.
+ *
+ * Use from one thread at a time (whichever thread encodes the owning SavedData).
+ */
+public final class SegmentEncodeCache<K> {
+
+    private static final class Segment {
+        Object owner;
+        long version;
+        List<Object> elements;
+    }
+
+    private final Map<K, Segment> segments = new HashMap<>();
+    private final Set<K> seen = new HashSet<>();
+    private Object format;
+
+    private int lastEncoded;
+    private int lastReused;
+
+    /**
+     * Starts one encode pass. Everything cached under a different format is dropped.
+     *
+     * Saves wrap the format in a new RegistryOps every time (vanilla's DimensionDataStorage does), so the
+     * wrapper can't be the key: the format is identified by its {@link DynamicOps#empty()} value, which
+     * RegistryOps takes from the ops it wraps ({@code EndTag.INSTANCE} for NbtOps). Segment encoders must
+     * therefore not depend on registry contents.
+     */
+    public void begin(DynamicOps<?> ops) {
+        Object f = ops.empty();
+        if (f != this.format) {
+            segments.clear();
+            this.format = f;
+        }
+        seen.clear();
+        lastEncoded = 0;
+        lastReused = 0;
+    }
+
+    /**
+     * Appends the encoded elements of one segment to {@code out}, encoding them via {@code elements}
+     * only if the segment changed. On an encode error nothing is cached for the segment.
+     */
+    @SuppressWarnings("unchecked")
+    public <T, A> DataResult<Void> append(K key, Object owner, long version,
+                                          DynamicOps<T> ops, Encoder<A> encoder,
+                                          Consumer<Consumer<A>> elements, List<T> out) {
+        seen.add(key);
+
+        Segment seg = segments.get(key);
+        if (seg != null && seg.owner == owner && seg.version == version) {
+            for (Object o : seg.elements) out.add((T) o);
+            lastReused++;
+            return DataResult.success(null);
+        }
+
+        List<Object> encoded = new ArrayList<>();
+        String[] error = new String[1];
+        elements.accept(a -> {
+            if (error[0] != null) return;
+            encoder.encodeStart(ops, a).resultOrPartial(msg -> error[0] = msg).ifPresent(encoded::add);
+        });
+
+        if (error[0] != null) {
+            segments.remove(key);
+            String msg = error[0];
+            return DataResult.error(() -> "Segment " + key + ": " + msg);
+        }
+
+        if (seg == null) {
+            seg = new Segment();
+            segments.put(key, seg);
+        }
+        seg.owner = owner;
+        seg.version = version;
+        seg.elements = encoded;
+
+        for (Object o : encoded) out.add((T) o);
+        lastEncoded++;
+        return DataResult.success(null);
+    }
+
+    /** Ends the pass, forgetting segments that no longer exist. */
+    public void end() {
+        segments.keySet().retainAll(seen);
+        seen.clear();
+    }
+
+    /** Segments encoded / reused by the last pass. */
+    public int lastEncoded() {
+        return lastEncoded;
+    }
+
+    public int lastReused() {
+        return lastReused;
+    }
+}
@@ -0,0 +1,104 @@
+package name.kingdoms;
+
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Checks that claim saves reuse {@link SegmentEncodeCache} output across saves.
+ * Run in-game with {@code /kingdoms perf savecache [seed]}.
+ *
+ * Fills a throwaway {@link ClaimGrid} (never the live kingdomState) and saves it the way the game does:
+ * a snapshot encoded through a fresh RegistryOps per save. The second save must reuse every tile and
+ * produce the same output; after one cell changes, only that tile may be encoded again, and the result
+ * must match an uncached encode of the same claims. That partly cached save must also load back into a
+ * grid holding exactly the same claims.
+ */
+public final class SegmentEncodeSelfTest {
+    private SegmentEncodeSelfTest() {}
+
+    public record Result(
+            int tiles,
+            int firstEncoded,
+            int secondEncoded,
+            int secondReused,
+            int thirdEncoded,
+            int thirdReused,
+            boolean outputsMatch,
+            boolean roundTrips,
+            double firstMillis,
+            double secondMillis
+    ) {
+        public boolean ok() {
+            return outputsMatch && roundTrips && secondReused > 0 && secondEncoded == 0 && thirdEncoded == 1;
+        }
+    }
+
+    private static final int KINGDOMS = 16;
+    private static final int RECTS = 400;
+    private static final int RANGE = 4_000;
+    private static final int MAX_RECT_CELLS = 40;
+
+    public static Result run(MinecraftServer server, long seed) {
+        Random rng = new Random(seed);
+        UUID[] kids = new UUID[KINGDOMS];
+        for (int i = 0; i < KINGDOMS; i++) kids[i] = new UUID(rng.nextLong(), rng.nextLong());
+
+        ClaimGrid grid = new ClaimGrid();
+        ClaimGrid reference = new ClaimGrid();
+        for (int r = 0; r < RECTS; r++) {
+            int gx = rng.nextInt(RANGE * 2) - RANGE;
+            int gz = rng.nextInt(RANGE * 2) - RANGE;
+            int w = rng.nextInt(MAX_RECT_CELLS);
+            int h = rng.nextInt(MAX_RECT_CELLS);
+            UUID kid = kids[rng.nextInt(KINGDOMS)];
+            grid.fillRect(Level.OVERWORLD, gx, gx + w, gz, gz + h, kid);
+            reference.fillRect(Level.OVERWORLD, gx, gx + w, gz, gz + h, kid);
+        }
+
+        int[] tiles = new int[1];
+        grid.forEachTile((key, tile) -> tiles[0]++);
+
+        long t0 = System.nanoTime();
+        Tag first = save(server, grid);
+        double firstMs = (System.nanoTime() - t0) / 1_000_000.0;
+        int firstEncoded = grid.encodeCache.lastEncoded();
+
+        t0 = System.nanoTime();
+        Tag second = save(server, grid);
+        double secondMs = (System.nanoTime() - t0) / 1_000_000.0;
+        int secondEncoded = grid.encodeCache.lastEncoded();
+        int secondReused = grid.encodeCache.lastReused();
+
+        // change one cell to an owner it can't already have: exactly one tile is stale
+        UUID kid = new UUID(rng.nextLong(), rng.nextLong());
+        grid.put(Level.OVERWORLD, 0, 0, kid);
+        reference.put(Level.OVERWORLD, 0, 0, kid);
+
+        Tag third = save(server, grid);
+        int thirdEncoded = grid.encodeCache.lastEncoded();
+        int thirdReused = grid.encodeCache.lastReused();
+
+        Tag expected = save(server, reference);
+        boolean match = first.equals(second) && third.equals(expected);
+
+        // load the partly cached save back; a fresh grid has an empty cache, so this save is a plain encode
+        ClaimGrid loaded = kingdomState.CLAIMS_CODEC
+                .parse(server.registryAccess().createSerializationContext(NbtOps.INSTANCE), third)
+                .getOrThrow();
+        boolean roundTrips = kid.equals(loaded.get(Level.OVERWORLD, 0, 0)) && save(server, loaded).equals(expected);
+
+        return new Result(tiles[0], firstEncoded, secondEncoded, secondReused, thirdEncoded, thirdReused,
+                match, roundTrips, firstMs, secondMs);
+    }
+
+    private static Tag save(MinecraftServer server, ClaimGrid grid) {
+        RegistryOps<Tag> ops = server.registryAccess().createSerializationContext(NbtOps.INSTANCE);
+        return kingdomState.CLAIMS_CODEC.encodeStart(ops, grid.snapshot()).getOrThrow();
+    }
+}
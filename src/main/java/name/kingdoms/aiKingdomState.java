@@ -13,6 +13,7 @@ import net.minecraft.world.level.saveddata.SavedData;
 import net.minecraft.world.level.saveddata.SavedDataType;
 import name.kingdoms.blueprint.KingdomSatelliteSpawner.KingdomSize;
 import name.kingdoms.diplomacy.AiRelationsState;
+import name.kingdoms.diplomacy.DiplomacyTopology;
 import name.kingdoms.entity.SoldierSkins;
 import name.kingdoms.blueprint.KingdomSatelliteSpawner;
 import java.util.HashMap;
@@ -58,6 +59,49 @@ public class aiKingdomState extends SavedData {
                 return kingdoms.values();
         }
 
+    // =========================
+    // Read-only views (live, no copying)
+    // =========================
+
+    /**
+     * Read-only look at an AI kingdom. Backed by the live object, so values change as the kingdom ticks;
+     * use {@link #exportSnapshot()} when you actually need a copy (A/B sims).
+     */
+    public interface AiKingdomView {
+        UUID id();
+        String name();
+        KingdomSize size();
+        KingdomPersonality personality();
+        int maxSoldiers();
+        int aliveSoldiers();
+        double gold();
+        int happiness();
+        int security();
+    }
+
+    private final java.util.Collection<AiKingdomView> viewsView =
+            java.util.Collections.unmodifiableCollection(kingdoms.values());
+    private final java.util.Set<UUID> idsView =
+            java.util.Collections.unmodifiableSet(kingdoms.keySet());
+
+    /** Every AI kingdom, read-only. Live view; don't hold across ticks or mutate kingdoms while iterating. */
+    public java.util.Collection<AiKingdomView> views() {
+        return viewsView;
+    }
+
+    /** Ids of every AI kingdom. Live, read-only view. */
+    public java.util.Set<UUID> ids() {
+        return idsView;
+    }
+
+    public AiKingdomView view(UUID id) {
+        return kingdoms.get(id);
+    }
+
+    public int count() {
+        return kingdoms.size();
+    }
+
 
     private static void tickSoldiers(AiKingdom k, RandomSource r, boolean inWar) {
     // safety for old data
@@ -221,6 +265,7 @@ public class aiKingdomState extends SavedData {
 
 
         kingdoms.put(kingdomId, k);
+        DiplomacyTopology.onKingdomAdded(kingdomId);
         setDirty();
         return k;
 
@@ -473,7 +518,7 @@ public class aiKingdomState extends SavedData {
                 ).apply(inst, BorderData::new));
     }
 
-    public static class AiKingdom {
+    public static class AiKingdom implements AiKingdomView {
 
         public KingdomSize size = KingdomSize.MEDIUM;
         public final UUID id;       // we use king UUID
@@ -484,6 +529,17 @@ public class aiKingdomState extends SavedData {
         public int skinId = 0;
         public int soldierSkinId = 0;
 
+        // --- AiKingdomView ---
+        @Override public UUID id() { return id; }
+        @Override public String name() { return name; }
+        @Override public KingdomSize size() { return size; }
+        @Override public KingdomPersonality personality() { return personality; }
+        @Override public int maxSoldiers() { return maxSoldiers; }
+        @Override public int aliveSoldiers() { return aliveSoldiers; }
+        @Override public double gold() { return gold; }
+        @Override public int happiness() { return happiness; }
+        @Override public int security() { return security; }
+
         public double happinessValue() {
                  return Mth.clamp(this.happiness / 10.0, 0.0, 10.0); // 0..10
         }
@@ -590,15 +646,21 @@ public class aiKingdomState extends SavedData {
     // SavedData plumbing
     // =========================
 
+    /** Save-format fix-ups, applied once on load (see {@link SchemaMigrations}). None yet. */
+    private static final SchemaMigrations<aiKingdomState> MIGRATIONS = new SchemaMigrations<>();
+
     public static final Codec<aiKingdomState> CODEC =
             RecordCodecBuilder.create(inst -> inst.group(
                     Codec.unboundedMap(UUID_CODEC, AiKingdom.CODEC)
                             .optionalFieldOf("kingdoms", Map.of())
-                            .forGetter(s -> s.kingdoms)
-            ).apply(inst, (map) -> {
+                            .forGetter(s -> s.kingdoms),
+                    SchemaMigrations.versionField()
+                            .forGetter(s -> MIGRATIONS.currentVersion())
+            ).apply(inst, (map, dataVersion) -> {
                 aiKingdomState s = new aiKingdomState();
                 s.kingdoms.clear();
                 s.kingdoms.putAll(map);
+                if (MIGRATIONS.migrate(s, dataVersion)) s.setDirty();
                 return s;
             }));
 
@@ -0,0 +1,190 @@
+package name.kingdoms.ambient;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import name.kingdoms.war.BattleZone;
+import name.kingdoms.war.WarState;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Grid of the active war zones, rebuilt only when {@link WarState#zoneVersion()} moves (or the
+ * WarState instance changes, e.g. a different world was loaded).
+ *
+ * Zones are deduplicated per root war and bucketed into 64x64 cells (4x4 chunks; zones are ~240
+ * wide, so a chunk grid would spend most of a "near" query on empty lookups). Queries touch only the
+ * cells around the position and don't allocate.
+ *
+ * Zones live in the overworld (WarState has no per-dimension zones), so there is a single grid.
+ * Server thread only.
+ */
+final class WarZoneIndex {
+    private WarZoneIndex() {}
+
+    private static final int CELL_SHIFT = 6;
+
+    private static WarState owner;
+    private static int ownerVersion;
+
+    // one slot per distinct root zone, in the order its first pair-link appears in wars()
+    private static int count;
+    private static int[] minX = new int[0], minZ = new int[0], maxX = new int[0], maxZ = new int[0];
+    private static BattleZone[] zone = new BattleZone[0];
+    private static UUID[] pairA = new UUID[0], pairB = new UUID[0];
+
+    private static final Long2ObjectMap<int[]> cells = new Long2ObjectOpenHashMap<>();
+
+    // per-query dedupe: a zone spans several cells
+    private static int[] seen = new int[0];
+    private static int stamp;
+
+    // ------------------------------------------------------------
+    // Rebuild
+    // ------------------------------------------------------------
+
+    private static void ensureFresh(WarState war) {
+        if (war == owner && war.zoneVersion() == ownerVersion) return;
+
+        owner = war;
+        ownerVersion = war.zoneVersion();
+
+        List<WarState.ActiveZone> active = war.activeZones();
+        Map<String, Integer> slotByRoot = new HashMap<>();
+
+        int n = 0;
+        int cap = active.size();
+        minX = new int[cap]; minZ = new int[cap]; maxX = new int[cap]; maxZ = new int[cap];
+        zone = new BattleZone[cap];
+        pairA = new UUID[cap]; pairB = new UUID[cap];
+
+        for (WarState.ActiveZone az : active) {
+            if (slotByRoot.putIfAbsent(az.rootKey(), n) != null) continue;
+            BattleZone z = az.zone();
+            minX[n] = z.minX(); minZ[n] = z.minZ(); maxX[n] = z.maxX(); maxZ[n] = z.maxZ();
+            zone[n] = z;
+            pairA[n] = az.a();
+            pairB[n] = az.b();
+            n++;
+        }
+        count = n;
+
+        Long2ObjectMap<IntArrayList> build = new Long2ObjectOpenHashMap<>();
+        for (int i = 0; i < n; i++) {
+            for (int cx = minX[i] >> CELL_SHIFT; cx <= maxX[i] >> CELL_SHIFT; cx++) {
+                for (int cz = minZ[i] >> CELL_SHIFT; cz <= maxZ[i] >> CELL_SHIFT; cz++) {
+                    build.computeIfAbsent(ChunkPos.asLong(cx, cz), k -> new IntArrayList(2)).add(i);
+                }
+            }
+        }
+
+        cells.clear();
+        for (Long2ObjectMap.Entry<IntArrayList> e : build.long2ObjectEntrySet()) {
+            cells.put(e.getLongKey(), e.getValue().toIntArray());
+        }
+
+        seen = new int[n];
+        stamp = 0;
+    }
+
+    private static boolean firstVisit(int i) {
+        if (seen[i] == stamp) return false;
+        seen[i] = stamp;
+        return true;
+    }
+
+    private static void nextStamp() {
+        if (++stamp == 0) {
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+    }
+
+    private static boolean inside(int i, int x, int z) {
+        return x >= minX[i] && x <= maxX[i] && z >= minZ[i] && z <= maxZ[i];
+    }
+
+    // ------------------------------------------------------------
+    // Queries
+    // ------------------------------------------------------------
+
+    static boolean isInside(WarState war, int x, int z) {
+        ensureFresh(war);
+        if (count == 0) return false;
+
+        int[] ids = cells.get(ChunkPos.asLong(x >> CELL_SHIFT, z >> CELL_SHIFT));
+        if (ids == null) return false;
+
+        for (int i : ids) {
+            if (inside(i, x, z)) return true;
+        }
+        return false;
+    }
+
+    /** True if some zone, expanded by {@code radius}, contains (x, z) while that zone itself doesn't. */
+    static boolean isNear(WarState war, int x, int z, int radius) {
+        ensureFresh(war);
+        if (count == 0) return false;
+
+        int r = Math.max(0, radius);
+        nextStamp();
+        for (int cx = (x - r) >> CELL_SHIFT; cx <= (x + r) >> CELL_SHIFT; cx++) {
+            for (int cz = (z - r) >> CELL_SHIFT; cz <= (z + r) >> CELL_SHIFT; cz++) {
+                int[] ids = cells.get(ChunkPos.asLong(cx, cz));
+                if (ids == null) continue;
+
+                for (int i : ids) {
+                    if (!firstVisit(i)) continue;
+                    boolean inExpanded = x >= minX[i] - r && x <= maxX[i] + r && z >= minZ[i] - r && z <= maxZ[i] + r;
+                    if (inExpanded && !inside(i, x, z)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Slot of the zone closest to (x, z) within {@code maxRadius} (0 if inside), or -1.
+     * Ties go to the zone whose pair-link comes first in wars(), like the old linear scan.
+     */
+    static int nearest(WarState war, int x, int z, int maxRadius) {
+        ensureFresh(war);
+        if (count == 0 || maxRadius < 0) return -1;
+
+        long limit = (long) maxRadius * maxRadius;
+        long bestD2 = Long.MAX_VALUE;
+        int best = -1;
+
+        nextStamp();
+        for (int cx = (x - maxRadius) >> CELL_SHIFT; cx <= (x + maxRadius) >> CELL_SHIFT; cx++) {
+            for (int cz = (z - maxRadius) >> CELL_SHIFT; cz <= (z + maxRadius) >> CELL_SHIFT; cz++) {
+                int[] ids = cells.get(ChunkPos.asLong(cx, cz));
+                if (ids == null) continue;
+
+                for (int i : ids) {
+                    if (!firstVisit(i)) continue;
+
+                    int dx = x < minX[i] ? minX[i] - x : (x > maxX[i] ? x - maxX[i] : 0);
+                    int dz = z < minZ[i] ? minZ[i] - z : (z > maxZ[i] ? z - maxZ[i] : 0);
+                    long d2 = (long) dx * dx + (long) dz * dz;
+                    if (d2 > limit) continue;
+
+                    if (d2 < bestD2 || (d2 == bestD2 && i < best)) {
+                        bestD2 = d2;
+                        best = i;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    static BattleZone zone(int slot) { return zone[slot]; }
+    static UUID pairA(int slot) { return pairA[slot]; }
+    static UUID pairB(int slot) { return pairB[slot]; }
+}
@@ -10,118 +10,24 @@ public final class WarZoneUtil {
 
     // Returns true if pos is inside ANY war zone rectangle currently active
     public static boolean isInsideAnyWarZone(MinecraftServer server, BlockPos pos) {
-        var war = WarState.get(server);
-        int x = pos.getX();
-        int z = pos.getZ();
-
-        // WarState stores zones per root war key; we don’t have direct iteration helpers,
-        // so use getZonesFor for each involved kingdom would be expensive.
-        // For step 1, we do a cheap approach:
-        // - iterate wars() and pull zone via getZone(UUID,UUID) (you have that API).
-        for (String pairKey : war.wars()) {
-            String[] parts = pairKey.split("\\|");
-            if (parts.length != 2) continue;
-
-            try {
-                var a = java.util.UUID.fromString(parts[0]);
-                var b = java.util.UUID.fromString(parts[1]);
-
-                var opt = war.getZone(a, b);
-                if (opt.isEmpty()) continue;
-
-                BattleZone zone = opt.get();
-                if (x >= zone.minX() && x <= zone.maxX() && z >= zone.minZ() && z <= zone.maxZ()) return true;
-
-            } catch (Throwable ignored) {}
-        }
-
-        return false;
+        return WarZoneIndex.isInside(WarState.get(server), pos.getX(), pos.getZ());
     }
 
     // Returns true if pos is within "radius" blocks of any war zone rectangle (but not inside)
     public static boolean isNearAnyWarZone(MinecraftServer server, BlockPos pos, int radius) {
-        var war = WarState.get(server);
-        int x = pos.getX();
-        int z = pos.getZ();
-
-        for (String pairKey : war.wars()) {
-            String[] parts = pairKey.split("\\|");
-            if (parts.length != 2) continue;
-
-            try {
-                var a = java.util.UUID.fromString(parts[0]);
-                var b = java.util.UUID.fromString(parts[1]);
-
-                var opt = war.getZone(a, b);
-                if (opt.isEmpty()) continue;
-
-                BattleZone zone = opt.get();
-
-                // expanded rectangle
-                int minX = zone.minX() - radius;
-                int maxX = zone.maxX() + radius;
-                int minZ = zone.minZ() - radius;
-                int maxZ = zone.maxZ() + radius;
-
-                boolean inExpanded = (x >= minX && x <= maxX && z >= minZ && z <= maxZ);
-                if (!inExpanded) continue;
-
-                // exclude inside zone itself
-                boolean inside = (x >= zone.minX() && x <= zone.maxX() && z >= zone.minZ() && z <= zone.maxZ());
-                if (!inside) return true;
-
-            } catch (Throwable ignored) {}
-        }
-
-        return false;
+        return WarZoneIndex.isNear(WarState.get(server), pos.getX(), pos.getZ(), radius);
     }
 
     // WarZoneUtil.java
     public record WarPair(java.util.UUID a, java.util.UUID b, BattleZone zone, int distSq) {}
 
     public static WarPair findNearestWarPair(MinecraftServer server, BlockPos pos, int maxRadius) {
-            var war = WarState.get(server);
-            int x = pos.getX();
-            int z = pos.getZ();
-
-            int bestD2 = Integer.MAX_VALUE;
-            WarPair best = null;
-
-            for (String pairKey : war.wars()) {
-                String[] parts = pairKey.split("\\|");
-                if (parts.length != 2) continue;
+        int slot = WarZoneIndex.nearest(WarState.get(server), pos.getX(), pos.getZ(), maxRadius);
+        if (slot < 0) return null;
 
-                try {
-                    var a = java.util.UUID.fromString(parts[0]);
-                    var b = java.util.UUID.fromString(parts[1]);
-
-                    var opt = war.getZone(a, b);
-                    if (opt.isEmpty()) continue;
-
-                    BattleZone zone = opt.get();
-
-                    // distance from point to rectangle (0 if inside)
-                    int dx = 0;
-                    if (x < zone.minX()) dx = zone.minX() - x;
-                    else if (x > zone.maxX()) dx = x - zone.maxX();
-
-                    int dz = 0;
-                    if (z < zone.minZ()) dz = zone.minZ() - z;
-                    else if (z > zone.maxZ()) dz = z - zone.maxZ();
-
-                    int d2 = dx*dx + dz*dz;
-                    if (d2 > maxRadius * maxRadius) continue;
-
-                    if (d2 < bestD2) {
-                        bestD2 = d2;
-                        best = new WarPair(a, b, zone, d2);
-                    }
-
-                } catch (Throwable ignored) {}
-            }
-
-            return best;
-        }
+        BattleZone zone = WarZoneIndex.zone(slot);
+        return new WarPair(WarZoneIndex.pairA(slot), WarZoneIndex.pairB(slot), zone, distSq(zone, pos));
+    }
 
         public record NearestWar(
                 java.util.UUID a,
@@ -131,49 +37,29 @@ public final class WarZoneUtil {
                 net.minecraft.core.BlockPos edgePos
         ) {}
 
-        public static NearestWar findNearestWarEdge(MinecraftServer server, BlockPos pos, int maxRadius) {
-        var war = WarState.get(server);
-        int x = pos.getX();
-        int z = pos.getZ();
-
-        int best = Integer.MAX_VALUE;
-        NearestWar bestRes = null;
-
-        for (String pairKey : war.wars()) {
-            String[] parts = pairKey.split("\\|");
-            if (parts.length != 2) continue;
-
-            try {
-                var a = java.util.UUID.fromString(parts[0]);
-                var b = java.util.UUID.fromString(parts[1]);
-
-                var opt = war.getZone(a, b);
-                if (opt.isEmpty()) continue;
-
-                BattleZone zone = opt.get();
+    public static NearestWar findNearestWarEdge(MinecraftServer server, BlockPos pos, int maxRadius) {
+        int slot = WarZoneIndex.nearest(WarState.get(server), pos.getX(), pos.getZ(), maxRadius);
+        if (slot < 0) return null;
 
-                // distance from point to rectangle
-                int dx = 0;
-                if (x < zone.minX()) dx = zone.minX() - x;
-                else if (x > zone.maxX()) dx = x - zone.maxX();
-
-                int dz = 0;
-                if (z < zone.minZ()) dz = zone.minZ() - z;
-                else if (z > zone.maxZ()) dz = z - zone.maxZ();
+        BattleZone zone = WarZoneIndex.zone(slot);
+        return new NearestWar(WarZoneIndex.pairA(slot), WarZoneIndex.pairB(slot), zone,
+                distSq(zone, pos), closestEdgePoint(zone, pos));
+    }
 
-                int d2 = dx*dx + dz*dz;
-                if (d2 > maxRadius * maxRadius) continue;
+    // distance from point to rectangle (0 if inside)
+    private static int distSq(BattleZone zone, BlockPos pos) {
+        int x = pos.getX();
+        int z = pos.getZ();
 
-                if (d2 < best) {
-                    best = d2;
-                    BlockPos edge = closestEdgePoint(zone, pos);
-                    bestRes = new NearestWar(a, b, zone, d2, edge);
-                }
+        int dx = 0;
+        if (x < zone.minX()) dx = zone.minX() - x;
+        else if (x > zone.maxX()) dx = x - zone.maxX();
 
-            } catch (Throwable ignored) {}
-        }
+        int dz = 0;
+        if (z < zone.minZ()) dz = zone.minZ() - z;
+        else if (z > zone.maxZ()) dz = z - zone.maxZ();
 
-        return bestRes;
+        return dx*dx + dz*dz;
     }
 
     private static BlockPos closestEdgePoint(BattleZone zone, BlockPos pos) {
@@ -1,9 +1,14 @@
 package name.kingdoms.blueprint;
 
+import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.DynamicOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import name.kingdoms.SegmentEncodeCache;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.datafix.DataFixTypes;
 import net.minecraft.world.level.saveddata.SavedData;
@@ -15,6 +20,11 @@ import java.util.List;
 /**
  * Persisted "do not route roads here" blueprint footprints per roadsRegionKey.
  * Stored as XZ rectangles; Y is irrelevant.
+ *
+ * The rect lists are the saved truth; each region also has a {@link FootprintIndex} (per-chunk column
+ * bitmask) that every add/remove/load updates alongside, and which answers the queries.
+ *
+ * Saves re-encode only the regions whose rect list changed since the last save ({@link SegmentEncodeCache}).
  */
 public final class BlueprintFootprintState extends SavedData {
     private static final String DATA_NAME = "kingdoms_blueprint_footprints";
@@ -29,6 +39,13 @@ public final class BlueprintFootprintState extends SavedData {
     // roadsRegionKey -> list of rectangles
     private final Long2ObjectMap<List<Rect>> byRegion = new Long2ObjectOpenHashMap<>();
 
+    // roadsRegionKey -> column index over the same rectangles (not saved; rebuilt on load)
+    private final Long2ObjectMap<FootprintIndex> indexByRegion = new Long2ObjectOpenHashMap<>();
+
+    // roadsRegionKey -> bumped on every change to that region's rects (not saved)
+    private final Long2LongOpenHashMap versionByRegion = new Long2LongOpenHashMap();
+    private final SegmentEncodeCache<Long> encodeCache = new SegmentEncodeCache<>();
+
     // ---------------------------------------------------------------------
     // SavedData wiring (match KingdomsSpawnState style)
     // ---------------------------------------------------------------------
@@ -40,6 +57,41 @@ public final class BlueprintFootprintState extends SavedData {
             Codec.INT.fieldOf("maxZ").forGetter(Rect::maxZ)
     ).apply(inst, Rect::new));
 
+    private static final Codec<List<Rect>> RECT_LIST_CODEC = Codec.list(RECT_CODEC);
+
+    /** "rectLists" as decoded, or (when saving) the live state to encode region by region. */
+    private record RectLists(BlueprintFootprintState source, List<List<Rect>> lists) {}
+
+    private static final Codec<RectLists> RECT_LISTS_CODEC = new Codec<>() {
+        @Override
+        public <T> DataResult<Pair<RectLists, T>> decode(DynamicOps<T> ops, T input) {
+            return RECT_LIST_CODEC.listOf().decode(ops, input)
+                    .map(p -> p.mapFirst(lists -> new RectLists(null, lists)));
+        }
+
+        @Override
+        public <T> DataResult<T> encode(RectLists value, DynamicOps<T> ops, T prefix) {
+            BlueprintFootprintState s = value.source();
+            if (s == null) return RECT_LIST_CODEC.listOf().encode(value.lists(), ops, prefix);
+
+            // same key order as "regionKeys"
+            List<T> out = new ArrayList<>(s.byRegion.size());
+            DataResult<Void> failed = null;
+            s.encodeCache.begin(ops);
+            for (Long2ObjectMap.Entry<List<Rect>> e : s.byRegion.long2ObjectEntrySet()) {
+                long key = e.getLongKey();
+                List<Rect> rects = e.getValue();
+                DataResult<Void> r = s.encodeCache.append(key, rects, s.versionByRegion.get(key),
+                        ops, RECT_LIST_CODEC, sink -> sink.accept(rects), out);
+                if (failed == null && r.error().isPresent()) failed = r;
+            }
+            s.encodeCache.end();
+
+            if (failed != null) return failed.map(v -> prefix);
+            return ops.mergeToList(prefix, out);
+        }
+    };
+
     public static final SavedDataType<BlueprintFootprintState> TYPE =
             new SavedDataType<>(
                     DATA_NAME,
@@ -52,18 +104,15 @@ public final class BlueprintFootprintState extends SavedData {
                                         s.byRegion.keySet().forEach(keys::add);
                                         return keys;
                                     }),
-                            Codec.list(RECT_CODEC).listOf()
+                            RECT_LISTS_CODEC
                                     .fieldOf("rectLists")
-                                    .forGetter(s -> {
-                                        List<List<Rect>> lists = new ArrayList<>();
-                                        s.byRegion.keySet().forEach(k -> lists.add(new ArrayList<>(s.byRegion.get(k))));
-                                        return lists;
-                                    })
-                    ).apply(instance, (regionKeys, rectLists) -> {
+                                    .forGetter(s -> new RectLists(s, List.of()))
+                    ).apply(instance, (regionKeys, loadedLists) -> {
                         BlueprintFootprintState s = new BlueprintFootprintState(ctx);
+                        List<List<Rect>> rectLists = loadedLists.lists();
                         int n = Math.min(regionKeys.size(), rectLists.size());
                         for (int i = 0; i < n; i++) {
-                            s.byRegion.put(regionKeys.get(i), new ArrayList<>(rectLists.get(i)));
+                            for (Rect r : rectLists.get(i)) s.put(regionKeys.get(i), r);
                         }
                         return s;
                     })),
@@ -83,11 +132,17 @@ public final class BlueprintFootprintState extends SavedData {
     // ---------------------------------------------------------------------
 
     public void addFootprint(long roadsRegionKey, int minX, int minZ, int maxX, int maxZ) {
-        byRegion.computeIfAbsent(roadsRegionKey, k -> new ArrayList<>())
-                .add(new Rect(minX, minZ, maxX, maxZ));
+        put(roadsRegionKey, new Rect(minX, minZ, maxX, maxZ));
         setDirty();
     }
 
+    private void put(long roadsRegionKey, Rect r) {
+        byRegion.computeIfAbsent(roadsRegionKey, k -> new ArrayList<>()).add(r);
+        indexByRegion.computeIfAbsent(roadsRegionKey, k -> new FootprintIndex())
+                .add(r.minX(), r.minZ(), r.maxX(), r.maxZ());
+        versionByRegion.addTo(roadsRegionKey, 1);
+    }
+
     /**
      * Remove an exact rectangle match (used when a blueprint job fails so we don't leave "ghost" blocked zones).
      */
@@ -99,7 +154,19 @@ public final class BlueprintFootprintState extends SavedData {
             Rect r = rects.get(i);
             if (r.minX() == minX && r.minZ() == minZ && r.maxX() == maxX && r.maxZ() == maxZ) {
                 rects.remove(i);
-                if (rects.isEmpty()) byRegion.remove(roadsRegionKey);
+                if (rects.isEmpty()) {
+                    byRegion.remove(roadsRegionKey);
+                    versionByRegion.remove(roadsRegionKey);
+                } else {
+                    versionByRegion.addTo(roadsRegionKey, 1);
+                }
+
+                FootprintIndex idx = indexByRegion.get(roadsRegionKey);
+                if (idx != null) {
+                    idx.remove(minX, minZ, maxX, maxZ);
+                    if (idx.isEmpty()) indexByRegion.remove(roadsRegionKey);
+                }
+
                 setDirty();
                 return true;
             }
@@ -108,6 +175,26 @@ public final class BlueprintFootprintState extends SavedData {
     }
 
     public boolean isBlocked(long roadsRegionKey, int x, int z, int margin) {
+        if (margin < 0) return isBlockedScan(roadsRegionKey, x, z, margin); // shrunk rects aren't in the index
+
+        FootprintIndex idx = indexByRegion.get(roadsRegionKey);
+        if (idx == null) return false;
+        if (margin == 0) return idx.blocked(x, z);
+        return idx.anyInRect(x - margin, z - margin, x + margin, z + margin);
+    }
+
+    /**
+     * True if the inclusive XZ rect, grown by {@code margin}, touches any footprint in the region.
+     * For site selection: is this spot clear of everything already placed or queued?
+     */
+    public boolean overlapsFootprint(long roadsRegionKey, int minX, int minZ, int maxX, int maxZ, int margin) {
+        FootprintIndex idx = indexByRegion.get(roadsRegionKey);
+        if (idx == null) return false;
+        int m = Math.max(0, margin);
+        return idx.anyInRect(minX - m, minZ - m, maxX + m, maxZ + m);
+    }
+
+    private boolean isBlockedScan(long roadsRegionKey, int x, int z, int margin) {
         List<Rect> rects = byRegion.get(roadsRegionKey);
         if (rects == null) return false;
         for (Rect r : rects) {
@@ -0,0 +1,114 @@
+package name.kingdoms.blueprint;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * Column occupancy for one road region's footprint rects, bucketed by chunk.
+ *
+ * Each touched chunk keeps a 16x16 cover count (so overlapping rects can be removed independently)
+ * and a 16-bit occupancy mask per row, which is what the queries read:
+ * - {@link #blocked(int, int)}: one map lookup + one bit test
+ * - {@link #anyInRect}: one lookup per overlapped chunk + one mask test per row
+ *
+ * A rect expanded by a margin overlaps a column exactly when some covered column lies within that
+ * margin (Chebyshev), so margin queries are just {@link #anyInRect} on the padded square.
+ *
+ * Owned by {@link BlueprintFootprintState}, which keeps it in step with its rect lists.
+ */
+final class FootprintIndex {
+
+    private static final class ChunkMask {
+        final short[] cover = new short[256]; // index = (lz << 4) | lx
+        final int[] rows = new int[16];       // bit lx of rows[lz] set while cover > 0
+        int covered;                          // cells with cover > 0
+    }
+
+    private final Long2ObjectMap<ChunkMask> chunks = new Long2ObjectOpenHashMap<>();
+
+    boolean isEmpty() {
+        return chunks.isEmpty();
+    }
+
+    void add(int minX, int minZ, int maxX, int maxZ) {
+        apply(minX, minZ, maxX, maxZ, 1);
+    }
+
+    void remove(int minX, int minZ, int maxX, int maxZ) {
+        apply(minX, minZ, maxX, maxZ, -1);
+    }
+
+    private void apply(int minX, int minZ, int maxX, int maxZ, int delta) {
+        if (minX > maxX || minZ > maxZ) return;
+
+        for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+            int lz0 = Math.max(minZ, cz << 4) & 15;
+            int lz1 = Math.min(maxZ, (cz << 4) + 15) & 15;
+
+            for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+                int lx0 = Math.max(minX, cx << 4) & 15;
+                int lx1 = Math.min(maxX, (cx << 4) + 15) & 15;
+
+                long key = ChunkPos.asLong(cx, cz);
+                ChunkMask m = chunks.get(key);
+                if (m == null) {
+                    if (delta < 0) continue; // nothing recorded here
+                    m = new ChunkMask();
+                    chunks.put(key, m);
+                }
+
+                for (int lz = lz0; lz <= lz1; lz++) {
+                    int row = m.rows[lz];
+                    for (int lx = lx0; lx <= lx1; lx++) {
+                        int i = (lz << 4) | lx;
+                        int before = m.cover[i];
+                        int after = Math.max(0, Math.min(Short.MAX_VALUE, before + delta));
+                        m.cover[i] = (short) after;
+
+                        if (before == 0 && after > 0) {
+                            row |= (1 << lx);
+                            m.covered++;
+                        } else if (before > 0 && after == 0) {
+                            row &= ~(1 << lx);
+                            m.covered--;
+                        }
+                    }
+                    m.rows[lz] = row;
+                }
+
+                if (m.covered == 0) chunks.remove(key);
+            }
+        }
+    }
+
+    /** True if column (x, z) lies inside any rect. */
+    boolean blocked(int x, int z) {
+        ChunkMask m = chunks.get(ChunkPos.asLong(x >> 4, z >> 4));
+        return m != null && (m.rows[z & 15] & (1 << (x & 15))) != 0;
+    }
+
+    /** True if any column of the inclusive rect lies inside any rect. */
+    boolean anyInRect(int minX, int minZ, int maxX, int maxZ) {
+        if (minX > maxX || minZ > maxZ || chunks.isEmpty()) return false;
+
+        for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+            int lz0 = Math.max(minZ, cz << 4) & 15;
+            int lz1 = Math.min(maxZ, (cz << 4) + 15) & 15;
+
+            for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+                ChunkMask m = chunks.get(ChunkPos.asLong(cx, cz));
+                if (m == null) continue;
+
+                int lx0 = Math.max(minX, cx << 4) & 15;
+                int lx1 = Math.min(maxX, (cx << 4) + 15) & 15;
+                int mask = ((1 << (lx1 - lx0 + 1)) - 1) << lx0;
+
+                for (int lz = lz0; lz <= lz1; lz++) {
+                    if ((m.rows[lz] & mask) != 0) return true;
+                }
+            }
+        }
+        return false;
+    }
+}
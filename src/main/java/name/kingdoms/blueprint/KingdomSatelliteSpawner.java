@@ -29,6 +29,9 @@ public final class KingdomSatelliteSpawner {
     public static final int MIN_DIST_FROM_CASTLE = 20;
     public static final int MIN_CENTER_SPACING  = 50;
 
+    // Gap kept between a satellite and any footprint already reserved in the region (room for a road)
+    private static final int SITE_CLEARANCE = 2 * RoadAStar.FOOTPRINT_MARGIN;
+
     // Reduced from 600 to reduce one-tick CPU spikes
     private static final int CANDIDATES_PER_PASS = 180;
 
@@ -377,6 +380,12 @@ public final class KingdomSatelliteSpawner {
                         continue;
                     }
 
+                    // Don't plan on top of the castle or anything else already reserved in this region
+                    if (BlueprintFootprintState.get(level).overlapsFootprint(
+                            regionKey, ox, oz, ox + sx - 1, oz + sz - 1, SITE_CLEARANCE)) {
+                        continue;
+                    }
+
                     int y = surfaceY(level, ox, oz);
                     BlockPos origin = new BlockPos(ox, y, oz);
 
@@ -1,14 +1,17 @@
 package name.kingdoms.blueprint;
 
 import net.minecraft.core.BlockPos;
-import net.minecraft.server.level.ServerLevel;
-import net.minecraft.world.level.block.Blocks;
-import net.minecraft.world.level.block.StairBlock;
-import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.level.levelgen.Heightmap;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
 
+/**
+ * Road A* over a {@link RoadTerrainSnapshot}. Touches no world state, so it is safe to run on
+ * a {@link RoadPathService} worker.
+ */
 public final class RoadAStar {
     private RoadAStar() {}
 
@@ -31,7 +34,10 @@ public final class RoadAStar {
     public static final int FOOTPRINT_MARGIN = 2;
 
     // Limit search region so A* can't wander forever looking for a gentle slope.
-    private static final int SEARCH_PADDING = 96; // tune (64..192)
+    static final int SEARCH_PADDING = 96; // tune (64..192)
+
+    // How often (in expansions) a search polls its cancel flag
+    private static final int CANCEL_CHECK_MASK = 4095;
 
     // Penalize turns so road doesn't "stair-step" in XZ.
     private static final double TURN_PENALTY = 8.0;
@@ -62,8 +68,12 @@ public final class RoadAStar {
     }
 
 
-    public static List<BlockPos> findPath(ServerLevel level, long regionKey, BlockPos start, BlockPos goal) {
-        NodeKey startK = new NodeKey(start.getX(), start.getZ(), Dir.NONE, MIN_STRAIGHT_BEFORE_TURN);
+    /**
+     * @return the path; an empty list if the search gave up after running into columns the snapshot
+     *         has not captured yet and could still {@link RoadTerrainSnapshot#widen}; otherwise a
+     *         straight fallback line if the search gives up; null if cancelled
+     */
+    public static List<BlockPos> findPath(RoadTerrainSnapshot terrain, BlockPos start, BlockPos goal, BooleanSupplier cancelled) {
         int goalX = goal.getX();
         int goalZ = goal.getZ();
 
@@ -73,75 +83,80 @@ public final class RoadAStar {
         int minZ = Math.min(start.getZ(), goal.getZ()) - SEARCH_PADDING;
         int maxZ = Math.max(start.getZ(), goal.getZ()) + SEARCH_PADDING;
 
-        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingDouble(n -> n.f));
-        HashMap<NodeKey, NodeRec> best = new HashMap<>(8192);
-
         // start lastDy=0, stepRun=0
-        int startY = surfaceY(level, start.getX(), start.getZ());
-        NodeRec sRec = new NodeRec(startK, startY, null, 0.0, 0, 0);
+        if (!terrain.available(start.getX(), start.getZ())) return fallbackLine(terrain, start, goal);
+        int startY = terrain.surfaceY(start.getX(), start.getZ());
 
-        sRec.f = heuristic(start.getX(), start.getZ(), goal.getX(), goal.getZ());
-        best.put(startK, sRec);
-        open.add(new Node(startK, sRec.f));
+        SearchArena a = ARENA.get();
+        a.reset(minX, minZ);
 
-        int iters = 0;
+        try {
+            int sRec = a.add(start.getX(), start.getZ(), Dir.NONE, MIN_STRAIGHT_BEFORE_TURN, startY, -1, 0.0, 0, 0,
+                    heuristic(start.getX(), start.getZ(), goalX, goalZ));
+            a.putBest(sRec);
+            a.push(sRec);
 
-        while (!open.isEmpty() && iters++ < MAX_ITERS) {
-            Node curN = open.poll();
-            NodeRec cur = best.get(curN.k);
-            if (cur == null) continue;
+            int iters = 0;
 
-            // stale queue entries check
-            if (curN.f > cur.f + 1e-9) continue;
+            while (a.heapSize > 0 && iters++ < MAX_ITERS) {
+                if ((iters & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) return null;
 
-            if (cur.k.x == goalX && cur.k.z == goalZ) {
-                return reconstruct(cur);
-            }
+                int popped = a.poll();
+                int cur = a.getBest(a.key[popped]);
+                if (cur < 0) continue;
 
+                // stale queue entries check
+                if (a.f[popped] > a.f[cur] + 1e-9) continue;
 
-            int cx = cur.k.x;
-            int cz = cur.k.z;
+                int cx = a.x(cur);
+                int cz = a.z(cur);
 
-            step(level, regionKey, cur, cx + 1, cz, goalX, goalZ, best, open, minX, maxX, minZ, maxZ);
-            step(level, regionKey, cur, cx - 1, cz, goalX, goalZ, best, open, minX, maxX, minZ, maxZ);
-            step(level, regionKey, cur, cx, cz + 1, goalX, goalZ, best, open, minX, maxX, minZ, maxZ);
-            step(level, regionKey, cur, cx, cz - 1, goalX, goalZ, best, open, minX, maxX, minZ, maxZ);
+                if (cx == goalX && cz == goalZ) {
+                    return reconstruct(a, cur);
+                }
 
-        }
+                step(terrain, a, cur, cx + 1, cz, goalX, goalZ, minX, maxX, minZ, maxZ);
+                step(terrain, a, cur, cx - 1, cz, goalX, goalZ, minX, maxX, minZ, maxZ);
+                step(terrain, a, cur, cx, cz + 1, goalX, goalZ, minX, maxX, minZ, maxZ);
+                step(terrain, a, cur, cx, cz - 1, goalX, goalZ, minX, maxX, minZ, maxZ);
 
-        return fallbackLine(level, regionKey, start, goal);
+            }
+
+            if (a.hitUnknown && terrain.canWiden()) return List.of();
+            return fallbackLine(terrain, start, goal);
+        } finally {
+            if (a.finishSearch()) ARENA.remove();
+        }
     }
     
 
-    private static void step(ServerLevel level,
-                         long regionKey,
-                         NodeRec cur,
+    private static void step(RoadTerrainSnapshot terrain,
+                         SearchArena a,
+                         int cur,
                          int nx, int nz,
                          int goalX, int goalZ,
-                         HashMap<NodeKey, NodeRec> best,
-                         PriorityQueue<Node> open,
                          int minX, int maxX, int minZ, int maxZ) {
 
 
         if (nx < minX || nx > maxX || nz < minZ || nz > maxZ) return;
-        
-        try {
-            level.getChunk(nx >> 4, nz >> 4);
-        } catch (Exception ex) {
+        if (!terrain.available(nx, nz)) {
+            if (terrain.contains(nx, nz)) a.hitUnknown = true;
             return;
         }
 
         boolean isGoal = (nx == goalX && nz == goalZ);
-        if (!isGoal && isFootprintBlocked(level, regionKey, nx, nz, FOOTPRINT_MARGIN)) return;
+        if (!isGoal && terrain.blocked(nx, nz)) return;
 
         // Determine move direction
-        int mdx = nx - cur.k.x;
-        int mdz = nz - cur.k.z;
+        int cx = a.x(cur);
+        int cz = a.z(cur);
+        int mdx = nx - cx;
+        int mdz = nz - cz;
         Dir ndir = Dir.fromDelta(mdx, mdz);
 
         // Turn spacing hard constraint
-        Dir cdir = cur.k.dir;
-        int since = cur.k.sinceTurn;
+        Dir cdir = a.dir(cur);
+        int since = a.sinceTurn(cur);
 
         boolean isTurn = (cdir != Dir.NONE && ndir != cdir);
         if (isTurn && since < MIN_STRAIGHT_BEFORE_TURN) {
@@ -151,9 +166,9 @@ public final class RoadAStar {
 
 
         // Desired surface, but we only step by +/-1 max (tunneling allowed)
-        int surf = surfaceY(level, nx, nz);
+        int surf = terrain.surfaceY(nx, nz);
 
-        int curY = cur.y;
+        int curY = a.y[cur];
         int ny = surf;
         if (ny > curY + 1) ny = curY + 1;
         else if (ny < curY - 1) ny = curY - 1;
@@ -161,13 +176,13 @@ public final class RoadAStar {
         int dy = ny - curY; // guaranteed in [-1, +1]
 
         // base move cost + grade penalty
-        double g2 = cur.g + 1.0 + Math.abs(dy) * GRADE_PENALTY;
+        double g2 = a.g[cur] + 1.0 + Math.abs(dy) * GRADE_PENALTY;
         if (dy > 0) g2 += UPHILL_EXTRA;
 
         // Extra anti-diagonal: penalize alternating axis steps (E/N/E/N...)
-        if (cur.prev != null) {
-            int pdx = cur.k.x - cur.prev.k.x;
-            int pdz = cur.k.z - cur.prev.k.z;
+        int prev = a.prev[cur];
+        if (prev >= 0) {
+            int pdx = cx - a.x(prev);
 
             boolean prevAxisX = (pdx != 0);
             boolean nextAxisX = (mdx != 0);
@@ -179,100 +194,61 @@ public final class RoadAStar {
 
 
         // mild water penalty (still allowed)
-        if (isWaterAtOrBelow(level, nx, ny, nz)) g2 += 2.0;
+        if (isWaterAtOrBelow(terrain, nx, ny, nz)) g2 += 2.0;
 
         // turn penalty (still useful, but the spacing rule is the real guard)
         if (isTurn) g2 += TURN_PENALTY;
 
         // ---- smoothness penalties ----
-        int newStepRun = (dy != 0) ? (cur.stepRun + 1) : 0;
-        if (dy != cur.lastDy) g2 += DY_CHANGE_PENALTY;
-        if (cur.lastDy != 0 && dy != 0 && Integer.signum(cur.lastDy) != Integer.signum(dy)) g2 += SIGN_FLIP_PENALTY;
+        int lastDy = a.lastDy[cur];
+        int newStepRun = (dy != 0) ? (a.stepRun[cur] + 1) : 0;
+        if (dy != lastDy) g2 += DY_CHANGE_PENALTY;
+        if (lastDy != 0 && dy != 0 && Integer.signum(lastDy) != Integer.signum(dy)) g2 += SIGN_FLIP_PENALTY;
         if (newStepRun > 2) g2 += (newStepRun - 2) * STEP_RUN_PENALTY;
 
         // ---- tunneling penalty: count solids in corridor ABOVE the road deck ----
-        g2 += tunnelPenalty(level, nx, ny, nz);
+        g2 += tunnelPenalty(terrain, nx, ny, nz);
 
-        // Create next key/state
-        NodeKey nk = new NodeKey(nx, nz, ndir, nextSince);
+        // Next state
+        long nk = a.pack(nx, nz, ndir, nextSince);
 
-        NodeRec prevBest = best.get(nk);
-        if (prevBest == null || g2 < prevBest.g) {
-            NodeRec nr = new NodeRec(nk, ny, cur, g2, dy, newStepRun);
-            nr.f = g2 + heuristic(nx, nz, goalX, goalZ);
-            best.put(nk, nr);
-            open.add(new Node(nk, nr.f));
+        int prevBest = a.getBest(nk);
+        if (prevBest < 0 || g2 < a.g[prevBest]) {
+            int nr = a.add(nk, ny, cur, g2, dy, newStepRun, g2 + heuristic(nx, nz, goalX, goalZ));
+            a.putBest(nr);
+            a.push(nr);
         }
 
     }
 
-    private static int surfaceY(ServerLevel level, int x, int z) {
-        int y = level.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, x, z) - 1;
-        y = Math.max(level.getMinY() + 1, y);
-
-        BlockPos.MutableBlockPos p = new BlockPos.MutableBlockPos(x, y, z);
-
-        boolean steppedDownThroughRoad = false;
-
-        // Walk DOWN if we landed on our own road materials (prevents A* feedback),
-        // but ONLY add +1 if we actually stepped down.
-        while (p.getY() > level.getMinY() + 1) {
-            BlockState bs = level.getBlockState(p);
-
-            boolean isRoad =
-                    bs.is(Blocks.DIRT_PATH) ||
-                    bs.is(Blocks.COBBLESTONE) ||
-                    bs.is(Blocks.SPRUCE_PLANKS) ||
-                    (bs.getBlock() instanceof StairBlock);
-
-            if (!isRoad) break;
-
-            steppedDownThroughRoad = true;
-            p.move(0, -1, 0);
-        }
-
-        int out = steppedDownThroughRoad ? (p.getY() + 1) : p.getY();
-        return Math.min(level.getMaxY() - 1, out);
-    }
-
-
-    private static boolean isWaterAtOrBelow(ServerLevel level, int x, int y, int z) {
-        var p = new BlockPos.MutableBlockPos(x, y, z);
-        if (!level.getBlockState(p).getFluidState().isEmpty()) return true;
-        p.setY(y - 1);
-        return !level.getBlockState(p).getFluidState().isEmpty();
+    private static boolean isWaterAtOrBelow(RoadTerrainSnapshot terrain, int x, int y, int z) {
+        return terrain.fluidAt(x, y, z) || terrain.fluidAt(x, y - 1, z);
     }
 
     private static double heuristic(int x, int z, int gx, int gz) {
        return 1.0 * (Math.abs(gx - x) + Math.abs(gz - z));
     }
 
-    private static List<BlockPos> reconstruct(NodeRec end) {
+    private static List<BlockPos> reconstruct(SearchArena a, int end) {
         ArrayList<BlockPos> out = new ArrayList<>();
-        NodeRec cur = end;
-        while (cur != null) {
-            out.add(new BlockPos(cur.k.x, cur.y, cur.k.z));
-            cur = cur.prev;
+        for (int cur = end; cur >= 0; cur = a.prev[cur]) {
+            out.add(new BlockPos(a.x(cur), a.y[cur], a.z(cur)));
         }
         Collections.reverse(out);
         return out;
     }
 
-    private static double tunnelPenalty(ServerLevel level, int x, int roadY, int z) {
+    private static double tunnelPenalty(RoadTerrainSnapshot terrain, int x, int roadY, int z) {
         double p = 0.0;
 
         // deck position itself
-        BlockPos.MutableBlockPos m = new BlockPos.MutableBlockPos(x, roadY, z);
-        BlockState deck = level.getBlockState(m);
-        if (!deck.isAir() && deck.getFluidState().isEmpty()) {
+        if (terrain.solidAt(x, roadY, z)) {
             p += DECK_SOLID_PENALTY;
         }
 
         // corridor above deck
         for (int i = 1; i <= CLEAR_HEIGHT; i++) {
-            m.set(x, roadY + i, z);
-            BlockState bs = level.getBlockState(m);
-            if (!bs.isAir() && bs.getFluidState().isEmpty()) {
+            if (terrain.solidAt(x, roadY + i, z)) {
                 p += TUNNEL_BLOCK_PENALTY;
             }
         }
@@ -280,7 +256,7 @@ public final class RoadAStar {
     }
 
 
-    private static List<BlockPos> fallbackLine(ServerLevel level, long regionKey, BlockPos a, BlockPos b) {
+    private static List<BlockPos> fallbackLine(RoadTerrainSnapshot terrain, BlockPos a, BlockPos b) {
         ArrayList<BlockPos> out = new ArrayList<>();
         int x = a.getX(), z = a.getZ();
         int tx = b.getX(), tz = b.getZ();
@@ -299,12 +275,12 @@ public final class RoadAStar {
 
             boolean candIsGoal = (candX == tx && candZ == tz);
 
-            if (!candIsGoal && isFootprintBlocked(level, regionKey, candX, candZ, FOOTPRINT_MARGIN)) {
+            if (!candIsGoal && terrain.blocked(candX, candZ)) {
                 int altX = x + dx;
                 int altZ = z + dz;
 
-                boolean altOkX = (altX != x) && ((altX == tx && z == tz) || !isFootprintBlocked(level, regionKey, altX, z, FOOTPRINT_MARGIN));
-                boolean altOkZ = (altZ != z) && ((x == tx && altZ == tz) || !isFootprintBlocked(level, regionKey, x, altZ, FOOTPRINT_MARGIN));
+                boolean altOkX = (altX != x) && ((altX == tx && z == tz) || !terrain.blocked(altX, z));
+                boolean altOkZ = (altZ != z) && ((x == tx && altZ == tz) || !terrain.blocked(x, altZ));
 
                 if (altOkX && !altOkZ) { candX = altX; candZ = z; }
                 else if (!altOkX && altOkZ) { candX = x; candZ = altZ; }
@@ -315,9 +291,9 @@ public final class RoadAStar {
             x = candX;
             z = candZ;
 
-            if (!level.hasChunk(x >> 4, z >> 4)) break;
+            if (!terrain.available(x, z)) break;
 
-            int ny = surfaceY(level, x, z);
+            int ny = terrain.surfaceY(x, z);
             int step = ny - y;
             if (step < -1) ny = y - 1;
             if (step > 1)  ny = y + 1;
@@ -329,30 +305,236 @@ public final class RoadAStar {
         return out;
     }
 
-    private static boolean isFootprintBlocked(ServerLevel level, long regionKey, int x, int z, int margin) {
-        return BlueprintFootprintState.get(level).isBlocked(regionKey, x, z, margin);
-    }
+    // ============================================================
+    // Search arena
+    // ============================================================
+
+    private static final ThreadLocal<SearchArena> ARENA = ThreadLocal.withInitial(SearchArena::new);
+
+    /**
+     * Per-thread node store for one search at a time, reused across searches.
+     *
+     * Every pushed state becomes a record id into parallel arrays (what NodeRec used to be); {@code best}
+     * is an open-addressing map from packed state to its latest record id, cleared in O(1) by bumping a
+     * generation stamp; the open set is a binary heap of record ids ordered by {@code f}.
+     *
+     * The heap's sift rules are java.util.PriorityQueue's, tie handling included, so expansion order and
+     * therefore paths are exactly what the old object-based search produced.
+     */
+    private static final class SearchArena {
+        // an arena grown past this (long searches that hit MAX_ITERS) is kept while such searches keep
+        // coming, and only dropped after SHRINK_AFTER searches in a row that all fit in this size
+        static final int RETAIN_RECORDS = 1 << 18;
+        static final int SHRINK_AFTER = 64;
+
+        private static final int INITIAL_RECORDS = 1 << 12;
+
+        // state key: x and z relative to the search rectangle, Dir ordinal, sinceTurn (< MAX_ITERS + 1)
+        private static final int XZ_BITS = 20;
+        private static final int DIR_BITS = 3;
+        private static final int SINCE_BITS = 64 - 2 * XZ_BITS - DIR_BITS;
+        private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+        private static final long DIR_MASK = (1L << DIR_BITS) - 1;
+        private static final long SINCE_MASK = (1L << SINCE_BITS) - 1;
+        private static final Dir[] DIRS = Dir.values();
+
+        private int originX, originZ;
+
+        // records
+        int count;
+        long[] key = new long[INITIAL_RECORDS];
+        int[] y = new int[INITIAL_RECORDS];
+        int[] prev = new int[INITIAL_RECORDS];
+        double[] g = new double[INITIAL_RECORDS];
+        double[] f = new double[INITIAL_RECORDS];
+        byte[] lastDy = new byte[INITIAL_RECORDS];
+        int[] stepRun = new int[INITIAL_RECORDS];
+
+        // open set
+        int heapSize;
+        private int[] heap = new int[INITIAL_RECORDS];
+
+        // best: state key -> record id (slot is live only when slotGen matches gen)
+        private long[] slotKey = new long[INITIAL_RECORDS * 2];
+        private int[] slotRec = new int[INITIAL_RECORDS * 2];
+        private int[] slotGen = new int[INITIAL_RECORDS * 2];
+        private int gen = 1;
+        private int bestSize;
+
+        // consecutive finished searches that used at most RETAIN_RECORDS records
+        private int smallSearches;
+
+        // the search was turned back by a column the snapshot has not captured
+        boolean hitUnknown;
+
+        void reset(int originX, int originZ) {
+            this.originX = originX;
+            this.originZ = originZ;
+            count = 0;
+            heapSize = 0;
+            bestSize = 0;
+            hitUnknown = false;
+            if (++gen == 0) {
+                Arrays.fill(slotGen, 0);
+                gen = 1;
+            }
+        }
+
+        int capacity() {
+            return key.length;
+        }
+
+        /** Call after each search. @return true if this arena is oversized and should be dropped */
+        boolean finishSearch() {
+            if (count > RETAIN_RECORDS) {
+                smallSearches = 0;
+                return false;
+            }
+            return capacity() > RETAIN_RECORDS && ++smallSearches >= SHRINK_AFTER;
+        }
+
+        // ---- records ----
+
+        long pack(int x, int z, Dir dir, int sinceTurn) {
+            return ((long) (x - originX) & XZ_MASK) << (XZ_BITS + DIR_BITS + SINCE_BITS)
+                    | ((long) (z - originZ) & XZ_MASK) << (DIR_BITS + SINCE_BITS)
+                    | ((long) dir.ordinal() & DIR_MASK) << SINCE_BITS
+                    | ((long) sinceTurn & SINCE_MASK);
+        }
+
+        int x(int rec) {
+            return originX + (int) ((key[rec] >>> (XZ_BITS + DIR_BITS + SINCE_BITS)) & XZ_MASK);
+        }
 
-    private record Node(NodeKey k, double f) {}
-    private record NodeKey(int x, int z, Dir dir, int sinceTurn) {}
-
-
-    private static final class NodeRec {
-        final NodeKey k;
-        final int y;
-        final NodeRec prev;
-        final double g;
-        final int lastDy;
-        final int stepRun;
-        double f;
-
-        NodeRec(NodeKey k, int y, NodeRec prev, double g, int lastDy, int stepRun) {
-            this.k = k;
-            this.y = y;
-            this.prev = prev;
-            this.g = g;
-            this.lastDy = lastDy;
-            this.stepRun = stepRun;
+        int z(int rec) {
+            return originZ + (int) ((key[rec] >>> (DIR_BITS + SINCE_BITS)) & XZ_MASK);
+        }
+
+        Dir dir(int rec) {
+            return DIRS[(int) ((key[rec] >>> SINCE_BITS) & DIR_MASK)];
+        }
+
+        int sinceTurn(int rec) {
+            return (int) (key[rec] & SINCE_MASK);
+        }
+
+        int add(int x, int z, Dir dir, int sinceTurn, int ry, int rprev, double rg, int rLastDy, int rStepRun, double rf) {
+            return add(pack(x, z, dir, sinceTurn), ry, rprev, rg, rLastDy, rStepRun, rf);
+        }
+
+        int add(long k, int ry, int rprev, double rg, int rLastDy, int rStepRun, double rf) {
+            if (count == key.length) growRecords();
+            int id = count++;
+            key[id] = k;
+            y[id] = ry;
+            prev[id] = rprev;
+            g[id] = rg;
+            f[id] = rf;
+            lastDy[id] = (byte) rLastDy;
+            stepRun[id] = rStepRun;
+            return id;
+        }
+
+        private void growRecords() {
+            int n = key.length * 2;
+            key = Arrays.copyOf(key, n);
+            y = Arrays.copyOf(y, n);
+            prev = Arrays.copyOf(prev, n);
+            g = Arrays.copyOf(g, n);
+            f = Arrays.copyOf(f, n);
+            lastDy = Arrays.copyOf(lastDy, n);
+            stepRun = Arrays.copyOf(stepRun, n);
+        }
+
+        // ---- best map ----
+
+        int getBest(long k) {
+            int mask = slotKey.length - 1;
+            for (int i = mix(k) & mask; ; i = (i + 1) & mask) {
+                if (slotGen[i] != gen) return -1;
+                if (slotKey[i] == k) return slotRec[i];
+            }
+        }
+
+        void putBest(int rec) {
+            if ((bestSize + 1) * 2 > slotKey.length) growSlots();
+            if (insert(key[rec], rec)) bestSize++;
+        }
+
+        private boolean insert(long k, int rec) {
+            int mask = slotKey.length - 1;
+            for (int i = mix(k) & mask; ; i = (i + 1) & mask) {
+                if (slotGen[i] != gen) {
+                    slotGen[i] = gen;
+                    slotKey[i] = k;
+                    slotRec[i] = rec;
+                    return true;
+                }
+                if (slotKey[i] == k) {
+                    slotRec[i] = rec;
+                    return false;
+                }
+            }
+        }
+
+        private void growSlots() {
+            long[] oldKey = slotKey;
+            int[] oldRec = slotRec;
+            int[] oldGen = slotGen;
+            int oldGenValue = gen;
+
+            int n = oldKey.length * 2;
+            slotKey = new long[n];
+            slotRec = new int[n];
+            slotGen = new int[n];
+            gen = 1;
+
+            for (int i = 0; i < oldKey.length; i++) {
+                if (oldGen[i] == oldGenValue) insert(oldKey[i], oldRec[i]);
+            }
+        }
+
+        private static int mix(long k) {
+            long h = k * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        // ---- open set (same sift logic as PriorityQueue) ----
+
+        void push(int rec) {
+            if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+            double fx = f[rec];
+            int k = heapSize++;
+            while (k > 0) {
+                int parent = (k - 1) >>> 1;
+                int e = heap[parent];
+                if (fx >= f[e]) break;
+                heap[k] = e;
+                k = parent;
+            }
+            heap[k] = rec;
+        }
+
+        int poll() {
+            int result = heap[0];
+            int n = --heapSize;
+            if (n > 0) {
+                int x = heap[n];
+                double fx = f[x];
+                int k = 0;
+                int half = n >>> 1;
+                while (k < half) {
+                    int child = (k << 1) + 1;
+                    int c = heap[child];
+                    int right = child + 1;
+                    if (right < n && f[c] > f[heap[right]]) c = heap[child = right];
+                    if (fx <= f[c]) break;
+                    heap[k] = c;
+                    k = child;
+                }
+                heap[k] = x;
+            }
+            return result;
         }
     }
 }
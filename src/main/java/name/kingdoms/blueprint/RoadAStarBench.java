@@ -0,0 +1,125 @@
+package name.kingdoms.blueprint;
+
+import net.minecraft.core.BlockPos;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixed-seed RoadAStar timing / allocation check on synthetic terrain.
+ * Run in-game with {@code /kingdoms perf roads [seeds]}; also handy from a scratch main when tuning.
+ *
+ * Each seed picks a 12..48 block leg, builds a rolling heightfield with a river and a few blueprint
+ * footprints around it, then searches start to goal. Longer legs exhaust MAX_ITERS and fall back, which
+ * is the expensive case in-game too. The path checksum lets two builds be compared for identical output.
+ */
+public final class RoadAStarBench {
+    private RoadAStarBench() {}
+
+    public record SeedResult(long seed, int pathLength, long pathChecksum, double millis, long allocatedBytes) {}
+
+    private static final int MIN_LEG = 12;
+    private static final int MAX_LEG = 48;
+    private static final int SEA_LEVEL = 62;
+
+    public static List<SeedResult> run(int seeds) {
+        List<SeedResult> out = new ArrayList<>(seeds);
+
+        // one untimed search so the JIT and the thread's arena are warm
+        runSeed(-1L);
+
+        for (int i = 0; i < seeds; i++) out.add(runSeed(i));
+        return out;
+    }
+
+    private static SeedResult runSeed(long seed) {
+        // leg lengths like RoadBuilder's waypoint segments; the longer ones run into MAX_ITERS
+        Random legs = new Random(seed ^ 0x5DEECE66DL);
+        BlockPos start = new BlockPos(0, 0, 0);
+        BlockPos goal = new BlockPos(MIN_LEG + legs.nextInt(MAX_LEG - MIN_LEG), 0, legs.nextInt(MAX_LEG / 3));
+        RoadTerrainSnapshot terrain = synthetic(seed, start, goal);
+
+        long allocBefore = allocatedBytes();
+        long t0 = System.nanoTime();
+        List<BlockPos> path = RoadAStar.findPath(terrain, start, goal, () -> false);
+        long nanos = System.nanoTime() - t0;
+        long alloc = allocatedBytes() - allocBefore;
+
+        long checksum = 1;
+        for (BlockPos p : path) {
+            checksum = 31 * checksum + p.getX();
+            checksum = 31 * checksum + p.getY();
+            checksum = 31 * checksum + p.getZ();
+        }
+
+        return new SeedResult(seed, path.size(), checksum, nanos / 1_000_000.0, alloc);
+    }
+
+    static RoadTerrainSnapshot synthetic(long seed, BlockPos start, BlockPos goal) {
+        RoadTerrainSnapshot t = RoadTerrainSnapshot.forSearch(start, goal, RoadAStar.SEARCH_PADDING);
+        Random rng = new Random(seed);
+
+        int spanX = Math.max(1, Math.abs(goal.getX() - start.getX()));
+        int spanZ = Math.max(1, Math.abs(goal.getZ() - start.getZ()));
+        int baseX = Math.min(start.getX(), goal.getX());
+        int baseZ = Math.min(start.getZ(), goal.getZ());
+
+        double p1 = rng.nextDouble() * Math.PI * 2, p2 = rng.nextDouble() * Math.PI * 2;
+        double f1 = 0.015 + rng.nextDouble() * 0.02, f2 = 0.02 + rng.nextDouble() * 0.03;
+        double amp = 2 + rng.nextInt(8);
+
+        int riverX = baseX + rng.nextInt(spanX);
+
+        // a few footprints near the leg (inclusive rects, margin added like BlueprintFootprintState)
+        int rects = 1 + rng.nextInt(3);
+        int[][] fp = new int[rects][];
+        for (int r = 0; r < rects; r++) {
+            int x = baseX + rng.nextInt(spanX);
+            int z = baseZ + spanZ + 4 + rng.nextInt(12) * (rng.nextBoolean() ? 1 : -2);
+            fp[r] = new int[]{x, z, x + 4 + rng.nextInt(8), z + 4 + rng.nextInt(8)};
+        }
+
+        for (int x = t.minX; x <= t.maxX; x++) {
+            for (int z = t.minZ; z <= t.maxZ; z++) {
+                int surf = 64 + (int) Math.round(amp * Math.sin(x * f1 + p1) * Math.cos(z * f2 + p2));
+                int solid = (1 << (RoadTerrainSnapshot.BAND_BELOW + 1)) - 1; // ground up to surface
+                int fluid = 0;
+
+                boolean river = Math.abs(x - riverX - (int) (6 * Math.sin(z * 0.05))) <= 2;
+                if (river || surf < SEA_LEVEL) {
+                    fluid = 1 << RoadTerrainSnapshot.BAND_BELOW;
+                    solid &= ~fluid;
+                }
+
+                // scattered trees: two solid blocks above ground
+                if (rng.nextInt(60) == 0) solid |= 0b11 << (RoadTerrainSnapshot.BAND_BELOW + 1);
+
+                boolean blocked = false;
+                int m = RoadAStar.FOOTPRINT_MARGIN;
+                for (int[] r : fp) {
+                    if (x >= r[0] - m && x <= r[2] + m && z >= r[1] - m && z <= r[3] + m) {
+                        blocked = true;
+                        break;
+                    }
+                }
+
+                t.setColumn(x, z, surf, solid, fluid, blocked);
+            }
+        }
+
+        t.markCaptured();
+        return t;
+    }
+
+    /** Bytes allocated by this thread so far, or 0 if the JVM can't tell us. */
+    private static long allocatedBytes() {
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        if (mx instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()) {
+            return sun.getCurrentThreadAllocatedBytes();
+        }
+        return 0L;
+    }
+}
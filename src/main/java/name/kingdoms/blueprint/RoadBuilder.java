@@ -16,6 +16,7 @@ import net.minecraft.world.level.levelgen.Heightmap;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
 /**
  * RoadBuilder V2 (REPLACEMENT)
@@ -62,7 +63,6 @@ public final class RoadBuilder {
 
     // Smoothing
     private static final int MAX_WAYPOINTS_PER_EDGE = 64; // safety
-    private static final int LOS_MARGIN = RoadAStar.FOOTPRINT_MARGIN;
 
     private RoadBuilder() {}
 
@@ -70,6 +70,7 @@ public final class RoadBuilder {
         LOGGER.info("[Kingdoms] RoadBuilder.init() registered tick");
         ServerTickEvents.END_SERVER_TICK.register(RoadBuilder::tick);
         ServerLifecycleEvents.SERVER_STOPPING.register(server -> JOBS.clear());
+        RoadPathService.init();
     }
 
     public static void enqueue(ServerLevel level, long regionKey, List<RoadEdge> edges) {
@@ -116,6 +117,85 @@ public final class RoadBuilder {
 
     }
 
+    // ============================================================
+    // Off-thread planning (runs on RoadPathService workers)
+    // ============================================================
+
+    /**
+     * raw = A* path; waypoints/segments = LOS smoothing re-routed between waypoints.
+     * waypoints == null means "use raw as-is"; a null segment means "fallback line" (done on the server thread).
+     */
+    private record EdgePlan(List<BlockPos> raw, List<BlockPos> waypoints, List<List<BlockPos>> segments) {}
+
+    private static EdgePlan planEdge(RoadTerrainSnapshot terrain, BlockPos a, BlockPos b, BooleanSupplier cancelled) {
+        List<BlockPos> raw = RoadAStar.findPath(terrain, a, b, cancelled);
+        if (raw == null || raw.size() < 2) return new EdgePlan(raw, null, null);
+
+        // Waypoints are a subset of raw points; keeps stable endpoints.
+        List<BlockPos> wp = simplifyLOS(terrain, raw);
+        if (wp.size() > MAX_WAYPOINTS_PER_EDGE) {
+            // safety: if something goes wild, just keep raw
+            return new EdgePlan(raw, null, null);
+        }
+
+        // Re-route between waypoints using A* again (shorter, straighter problem).
+        // Segments reuse the edge's snapshot; anything outside it counts as unloaded.
+        List<List<BlockPos>> segments = new ArrayList<>(wp.size() - 1);
+        for (int i = 0; i < wp.size() - 1; i++) {
+            List<BlockPos> seg = RoadAStar.findPath(terrain, wp.get(i), wp.get(i + 1), cancelled);
+            if (cancelled.getAsBoolean()) return null;
+            if (seg != null && seg.isEmpty()) seg = null; // wanted more terrain; the fallback line will do
+            segments.add(seg);
+        }
+
+        return new EdgePlan(raw, wp, segments);
+    }
+
+    private static List<BlockPos> simplifyLOS(RoadTerrainSnapshot terrain, List<BlockPos> raw) {
+        ArrayList<BlockPos> out = new ArrayList<>();
+        int i = 0;
+        out.add(raw.get(0));
+
+        while (i < raw.size() - 1) {
+            int best = i + 1;
+            // find farthest reachable j by LOS
+            for (int j = raw.size() - 1; j > best; j--) {
+                if (hasLOS(terrain, raw.get(i), raw.get(j))) {
+                    best = j;
+                    break;
+                }
+            }
+            out.add(raw.get(best));
+            i = best;
+        }
+        return out;
+    }
+
+    /** Footprint-only LOS; the snapshot's blocked bits already include RoadAStar.FOOTPRINT_MARGIN. */
+    private static boolean hasLOS(RoadTerrainSnapshot terrain, BlockPos a, BlockPos b) {
+        int x0 = a.getX(), z0 = a.getZ();
+        int x1 = b.getX(), z1 = b.getZ();
+
+        int dx = Math.abs(x1 - x0);
+        int dz = Math.abs(z1 - z0);
+        int sx = Integer.compare(x1, x0);
+        int sz = Integer.compare(z1, z0);
+
+        int err = dx - dz;
+        int x = x0, z = z0;
+
+        while (!(x == x1 && z == z1)) {
+            // allow endpoints, block interior cells if footprint-blocked
+            if (!(x == x0 && z == z0) && !(x == x1 && z == z1)) {
+                if (terrain.blocked(x, z)) return false;
+            }
+            int e2 = err << 1;
+            if (e2 > -dz) { err -= dz; x += sx; }
+            if (e2 < dx)  { err += dx; z += sz; }
+        }
+        return true;
+    }
+
     // ============================================================
     // Job
     // ============================================================
@@ -132,6 +212,19 @@ public final class RoadBuilder {
         List<BlockPos> path = null;
         int pathIndex = 0;
 
+        // off-thread A* + smoothing for edgeIndex (see RoadPathService)
+        RoadPathService.Ticket<EdgePlan> pending = null;
+        BlockPos pendingA = null, pendingB = null;
+
+        // snapshots of edges whose search ran out of captured terrain, widened and reused on the retry
+        static final int RETRY_SNAPSHOTS = 4;
+        final Map<Integer, RoadTerrainSnapshot> retryTerrain = new LinkedHashMap<>(8, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, RoadTerrainSnapshot> eldest) {
+                return size() > RETRY_SNAPSHOTS;
+            }
+        };
+
         long blocksPlacedTotal = 0;
 
         private boolean isStairAt(int x, int y, int z) {
@@ -209,21 +302,42 @@ public final class RoadBuilder {
                 if (path == null) {
                     if (edgeIndex >= edges.size()) return true;
 
-                    RoadEdge e = edges.get(edgeIndex);
+                    if (pending == null) {
+                        RoadEdge e = edges.get(edgeIndex);
+
+                        BlockPos a = nudgeOutOfFootprint(surfaceAlign(e.a()), 2, 96);
+                        BlockPos b = nudgeOutOfFootprint(surfaceAlign(e.b()), 2, 96);
+
+                        // A* (turn penalty + slope limit) + smoothing run on a worker against a terrain snapshot
+                        pendingA = a;
+                        pendingB = b;
+                        RoadPathService.Task<EdgePlan> task = (terrain, cancelled) -> planEdge(terrain, a, b, cancelled);
+                        RoadTerrainSnapshot known = retryTerrain.remove(edgeIndex);
+                        if (known != null && known.sameSearch(a, b, RoadAStar.SEARCH_PADDING) && known.widen()) {
+                            pending = RoadPathService.submit(level, regionKey, known, task);
+                        } else {
+                            pending = RoadPathService.submit(level, regionKey, a, b, task);
+                        }
+                        return false;
+                    }
 
-                    BlockPos a = nudgeOutOfFootprint(surfaceAlign(e.a()), 2, 96);
-                    BlockPos b = nudgeOutOfFootprint(surfaceAlign(e.b()), 2, 96);
+                    if (!pending.isDone()) return false;
 
+                    EdgePlan plan = pending.result();
+                    RoadTerrainSnapshot searched = pending.isCancelled() ? null : pending.terrain();
+                    pending = null;
 
-                    // A* (already has turn penalty + slope limit)
-                    List<BlockPos> raw = RoadAStar.findPath(level, regionKey, a, b);
+                    List<BlockPos> raw = (plan == null) ? null : plan.raw();
 
                     if (raw == null || raw.size() < 2) {
+                    // An empty path means the search hit terrain outside the corridor: keep what was captured.
+                    if (raw != null && searched != null && searched.canWiden()) retryTerrain.put(edgeIndex, searched);
+
                     // Don't skip edges. Most failures are just unloaded chunks.
                     edgeRetryTicks++;
                     if ((edgeRetryTicks % 40) == 0) {
-                        LOGGER.warn("[RoadBuilder] Edge {} still failing after {} ticks (a={} b={})",
-                                edgeIndex, edgeRetryTicks, a, b);
+                        LOGGER.warn("[RoadBuilder] Edge {} still failing after {} attempts (a={} b={})",
+                                edgeIndex, edgeRetryTicks, pendingA, pendingB);
                     }
 
                     // Try a different edge next tick so we don't stall the whole region on one bad edge.
@@ -233,8 +347,8 @@ public final class RoadBuilder {
                 edgeRetryTicks = 0;
 
 
-                    // Smoothing: LOS waypoints + re-route between waypoints (keeps A* heights)
-                    path = smoothAndReroute(raw);
+                    // Smoothing: LOS waypoints + re-routed segments (keeps A* heights)
+                    path = assembleSmoothed(plan);
                     pathIndex = 0;
 
                     edgeIndex++;
@@ -263,27 +377,19 @@ public final class RoadBuilder {
         // Smoothing
         // ============================================================
 
-        private List<BlockPos> smoothAndReroute(List<BlockPos> raw) {
-            // Waypoints are a subset of raw points; keeps stable endpoints.
-            List<BlockPos> wp = simplifyLOS(raw);
-            if (wp.size() > MAX_WAYPOINTS_PER_EDGE) {
-                // safety: if something goes wild, just keep raw
-                return raw;
-            }
+        /** Concatenates the worker's re-routed segments; failed segments get a simple stepping line. */
+        private List<BlockPos> assembleSmoothed(EdgePlan plan) {
+            List<BlockPos> wp = plan.waypoints();
+            if (wp == null) return plan.raw();
 
-            // Re-route between waypoints using A* again (shorter, straighter problem),
-            // then concatenate, removing duplicates.
             ArrayList<BlockPos> out = new ArrayList<>();
             out.add(wp.get(0));
 
             for (int i = 0; i < wp.size() - 1; i++) {
-                BlockPos s = wp.get(i);
-                BlockPos g = wp.get(i + 1);
-
-                List<BlockPos> seg = RoadAStar.findPath(level, regionKey, s, g);
+                List<BlockPos> seg = plan.segments().get(i);
                 if (seg == null || seg.size() < 2) {
                     // fallback: a simple stepping line with clamped y
-                    seg = fallbackLine(s, g);
+                    seg = fallbackLine(wp.get(i), wp.get(i + 1));
                 }
 
                 // append without duplicating first point
@@ -293,50 +399,6 @@ public final class RoadBuilder {
             return out;
         }
 
-        private List<BlockPos> simplifyLOS(List<BlockPos> raw) {
-            ArrayList<BlockPos> out = new ArrayList<>();
-            int i = 0;
-            out.add(raw.get(0));
-
-            while (i < raw.size() - 1) {
-                int best = i + 1;
-                // find farthest reachable j by LOS
-                for (int j = raw.size() - 1; j > best; j--) {
-                    if (hasLOS(raw.get(i), raw.get(j))) {
-                        best = j;
-                        break;
-                    }
-                }
-                out.add(raw.get(best));
-                i = best;
-            }
-            return out;
-        }
-
-        private boolean hasLOS(BlockPos a, BlockPos b) {
-            int x0 = a.getX(), z0 = a.getZ();
-            int x1 = b.getX(), z1 = b.getZ();
-
-            int dx = Math.abs(x1 - x0);
-            int dz = Math.abs(z1 - z0);
-            int sx = Integer.compare(x1, x0);
-            int sz = Integer.compare(z1, z0);
-
-            int err = dx - dz;
-            int x = x0, z = z0;
-
-            while (!(x == x1 && z == z1)) {
-                // allow endpoints, block interior cells if footprint-blocked
-                if (!(x == x0 && z == z0) && !(x == x1 && z == z1)) {
-                    if (BlueprintFootprintState.get(level).isBlocked(regionKey, x, z, LOS_MARGIN)) return false;
-                }
-                int e2 = err << 1;
-                if (e2 > -dz) { err -= dz; x += sx; }
-                if (e2 < dx)  { err += dx; z += sz; }
-            }
-            return true;
-        }
-
         private List<BlockPos> fallbackLine(BlockPos a, BlockPos b) {
             ArrayList<BlockPos> out = new ArrayList<>();
             int x = a.getX(), z = a.getZ();
@@ -0,0 +1,186 @@
+package name.kingdoms.blueprint;
+
+import com.mojang.logging.LogUtils;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Asynchronous road planning.
+ *
+ * 1) {@link #submit} queues a request for a start/goal pair.
+ * 2) Each server tick, the head request's padded search rectangle is copied into a
+ *    {@link RoadTerrainSnapshot}, a few chunks at a time (time-budgeted, loading at most one).
+ * 3) Once captured, the caller's task (A* + smoothing) runs on a small worker pool against the snapshot.
+ * 4) The caller (RoadBuilder's Job, still sitting in JOBS) polls {@link Ticket#isDone()} on its own tick.
+ *
+ * Requests for a level are cancelled when that level unloads; everything is cancelled on server stop.
+ */
+public final class RoadPathService {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // Throughput knobs
+    public static long MAX_CAPTURE_NANOS_PER_TICK = 3_000_000; // ~3ms
+    private static final int WORKERS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 4));
+
+    /** Work done off-thread once terrain is captured. Must not touch the level. */
+    @FunctionalInterface
+    public interface Task<R> {
+        R run(RoadTerrainSnapshot terrain, BooleanSupplier cancelled);
+    }
+
+    private static final Deque<Ticket<?>> CAPTURING = new ArrayDeque<>();
+    private static final List<Ticket<?>> IN_FLIGHT = new ArrayList<>();
+
+    private static ExecutorService pool;
+
+    private RoadPathService() {}
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(RoadPathService::tick);
+        ServerWorldEvents.UNLOAD.register((server, level) -> cancelAll(level));
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> shutdown());
+    }
+
+    /** Server thread only. */
+    public static <R> Ticket<R> submit(ServerLevel level, long regionKey, BlockPos start, BlockPos goal, Task<R> task) {
+        return submit(level, regionKey, RoadTerrainSnapshot.forSearch(start, goal, RoadAStar.SEARCH_PADDING), task);
+    }
+
+    /**
+     * Re-runs against a snapshot from an earlier finished ticket (typically after
+     * {@link RoadTerrainSnapshot#widen}); only chunks it has not captured yet are visited. Server thread only.
+     */
+    public static <R> Ticket<R> submit(ServerLevel level, long regionKey, RoadTerrainSnapshot terrain, Task<R> task) {
+        Ticket<R> t = new Ticket<>(level, regionKey, terrain, task);
+        CAPTURING.add(t);
+        IN_FLIGHT.add(t);
+        return t;
+    }
+
+    private static void tick(MinecraftServer server) {
+        if (!IN_FLIGHT.isEmpty()) IN_FLIGHT.removeIf(Ticket::isDone);
+        if (CAPTURING.isEmpty()) return;
+
+        long deadline = System.nanoTime() + MAX_CAPTURE_NANOS_PER_TICK;
+
+        while (!CAPTURING.isEmpty() && System.nanoTime() < deadline) {
+            Ticket<?> t = CAPTURING.peek();
+
+            if (t.isCancelled()) {
+                CAPTURING.poll();
+                continue;
+            }
+
+            if (!t.terrain.captureStep(t.level, t.regionKey, deadline)) return;
+
+            CAPTURING.poll();
+            t.launch(pool());
+        }
+    }
+
+    private static ExecutorService pool() {
+        if (pool == null) {
+            AtomicInteger n = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(WORKERS, r -> {
+                Thread th = new Thread(r, "Kingdoms-RoadPath-" + n.incrementAndGet());
+                th.setDaemon(true);
+                th.setPriority(Thread.NORM_PRIORITY - 1);
+                return th;
+            });
+        }
+        return pool;
+    }
+
+    public static void cancelAll(ServerLevel level) {
+        for (Iterator<Ticket<?>> it = IN_FLIGHT.iterator(); it.hasNext(); ) {
+            Ticket<?> t = it.next();
+            if (level == null || t.level == level) {
+                t.cancel();
+                it.remove();
+            }
+        }
+        CAPTURING.removeIf(Ticket::isCancelled);
+    }
+
+    private static void shutdown() {
+        cancelAll(null);
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    // ============================================================
+    // Ticket
+    // ============================================================
+
+    public static final class Ticket<R> {
+        final ServerLevel level;
+        final long regionKey;
+        final RoadTerrainSnapshot terrain;
+        private final Task<R> task;
+
+        private volatile boolean cancelled = false;
+        private volatile boolean done = false;
+        private volatile R result = null;
+
+        private Ticket(ServerLevel level, long regionKey, RoadTerrainSnapshot terrain, Task<R> task) {
+            this.level = level;
+            this.regionKey = regionKey;
+            this.terrain = terrain;
+            this.task = task;
+        }
+
+        private void launch(ExecutorService exec) {
+            exec.execute(() -> {
+                try {
+                    if (!cancelled) result = task.run(terrain, this::isCancelled);
+                } catch (Throwable th) {
+                    LOGGER.error("[Kingdoms] Road path task failed for region {}", regionKey, th);
+                } finally {
+                    done = true;
+                }
+            });
+        }
+
+        /** The snapshot this ticket searches; only safe to reuse once the ticket is done and not cancelled. */
+        public RoadTerrainSnapshot terrain() {
+            return terrain;
+        }
+
+        /** True once the task finished, failed or was cancelled. */
+        public boolean isDone() {
+            return done;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /** Task result; null if not done, cancelled, or the task failed. */
+        public R result() {
+            return cancelled ? null : result;
+        }
+
+        /** The worker (if running) sees the flag at its next poll and stops; the ticket reads as done now. */
+        public void cancel() {
+            cancelled = true;
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package name.kingdoms.blueprint;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.StairBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+import java.util.Arrays;
+
+/**
+ * Copy of the terrain facts RoadAStar needs, for one padded search rectangle.
+ *
+ * Filled chunk-by-chunk on the server thread by {@link #captureStep}, then handed to a worker.
+ * Chunks that are already loaded are copied as they are; chunks that are not are only loaded (at most
+ * one per step, since loading may generate) inside a corridor around the start-goal line. Everything
+ * else stays unknown, which A* treats as impassable. When a search runs into unknown columns the caller
+ * can {@link #widen} the corridor and capture again; columns already copied are kept.
+ * Per column it stores:
+ * - the A* surface height (same rules as the old RoadAStar.surfaceY)
+ * - whether the column is footprint-blocked (with {@link RoadAStar#FOOTPRINT_MARGIN})
+ * - a 32-block vertical band of solid / fluid bits around the surface
+ *
+ * Outside the band we assume solid ground below and open air above; a road that far off the
+ * surface is already priced out by the tunnel/grade penalties.
+ */
+public final class RoadTerrainSnapshot {
+    // band covers [surface - BAND_BELOW, surface - BAND_BELOW + 31]
+    static final int BAND_BELOW = 12;
+    private static final int BAND_HEIGHT = 32;
+
+    private static final byte FLAG_LOADED = 1;
+    private static final byte FLAG_BLOCKED = 2;
+
+    final int minX, minZ, maxX, maxZ;
+    private final int sizeX;
+
+    private final int[] surface;
+    private final int[] solidBits;
+    private final int[] fluidBits;
+    private final byte[] flags;
+
+    // corridor the capture may load chunks in, in chunks from the start-goal line
+    private static final int INITIAL_CORRIDOR_CHUNKS = 2;
+
+    // capture cursor (server thread only)
+    private final int minCX, minCZ, chunksX, chunkCount;
+    private final boolean[] chunkCaptured;
+    private int nextChunk = 0;
+
+    // start-goal line in chunk coordinates, and the current corridor half-width
+    private double lineAX, lineAZ, lineBX, lineBZ;
+    private int corridorChunks = Integer.MAX_VALUE;
+    private final int maxCorridorChunks;
+
+    RoadTerrainSnapshot(int minX, int minZ, int maxX, int maxZ) {
+        this.minX = minX;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxZ = maxZ;
+        this.sizeX = maxX - minX + 1;
+        int sizeZ = maxZ - minZ + 1;
+
+        int n = sizeX * sizeZ;
+        this.surface = new int[n];
+        this.solidBits = new int[n];
+        this.fluidBits = new int[n];
+        this.flags = new byte[n];
+
+        this.minCX = minX >> 4;
+        this.minCZ = minZ >> 4;
+        this.chunksX = (maxX >> 4) - minCX + 1;
+        int chunksZ = (maxZ >> 4) - minCZ + 1;
+        this.chunkCount = chunksX * chunksZ;
+        this.chunkCaptured = new boolean[chunkCount];
+        this.maxCorridorChunks = Math.max(chunksX, chunksZ);
+    }
+
+    /** Padded search rectangle RoadAStar uses for a start/goal pair. */
+    static RoadTerrainSnapshot forSearch(BlockPos a, BlockPos b, int padding) {
+        RoadTerrainSnapshot t = new RoadTerrainSnapshot(
+                Math.min(a.getX(), b.getX()) - padding,
+                Math.min(a.getZ(), b.getZ()) - padding,
+                Math.max(a.getX(), b.getX()) + padding,
+                Math.max(a.getZ(), b.getZ()) + padding
+        );
+        t.lineAX = a.getX() >> 4;
+        t.lineAZ = a.getZ() >> 4;
+        t.lineBX = b.getX() >> 4;
+        t.lineBZ = b.getZ() >> 4;
+        t.corridorChunks = INITIAL_CORRIDOR_CHUNKS;
+        return t;
+    }
+
+    /** True if this snapshot was made for the same search rectangle. */
+    boolean sameSearch(BlockPos a, BlockPos b, int padding) {
+        return minX == Math.min(a.getX(), b.getX()) - padding
+                && minZ == Math.min(a.getZ(), b.getZ()) - padding
+                && maxX == Math.max(a.getX(), b.getX()) + padding
+                && maxZ == Math.max(a.getZ(), b.getZ()) + padding;
+    }
+
+    /** Whether {@link #widen} can still add chunks to capture. */
+    boolean canWiden() {
+        return corridorChunks < maxCorridorChunks;
+    }
+
+    /**
+     * Doubles the corridor and restarts the capture pass: chunks already copied are skipped, chunks
+     * loaded since the last pass (by players, say) are picked up. Server thread.
+     * @return false if the corridor already covers the whole rectangle
+     */
+    boolean widen() {
+        if (!canWiden()) return false;
+        corridorChunks = Math.min(maxCorridorChunks, corridorChunks * 2);
+        nextChunk = 0;
+        return true;
+    }
+
+    // ------------------------------------------------------------
+    // Capture (server thread)
+    // ------------------------------------------------------------
+
+    boolean isCaptured() {
+        return nextChunk >= chunkCount;
+    }
+
+    /**
+     * Captures whole chunks until done or past {@code deadline}. Loaded chunks are copied; an unloaded
+     * chunk inside the corridor is loaded, but only one per call, and the call returns right after it.
+     * Unloaded chunks outside the corridor are skipped (unknown).
+     * @return true once the pass is complete
+     */
+    boolean captureStep(ServerLevel level, long regionKey, long deadline) {
+        BlueprintFootprintState footprints = BlueprintFootprintState.get(level);
+        BlockPos.MutableBlockPos m = new BlockPos.MutableBlockPos();
+        boolean loadedOne = false;
+
+        while (nextChunk < chunkCount) {
+            int ci = nextChunk;
+            if (chunkCaptured[ci]) {
+                nextChunk++;
+                continue;
+            }
+
+            int cx = minCX + (ci % chunksX);
+            int cz = minCZ + (ci / chunksX);
+
+            LevelChunk chunk = level.getChunkSource().getChunkNow(cx, cz);
+            if (chunk == null) {
+                if (!inCorridor(cx, cz)) {
+                    nextChunk++;
+                    continue; // stays unknown
+                }
+                if (loadedOne) break; // one load (maybe a generation) per tick
+                loadedOne = true;
+                try {
+                    chunk = level.getChunk(cx, cz);
+                } catch (Exception ex) {
+                    chunk = null;
+                }
+                if (chunk == null) {
+                    chunkCaptured[ci] = true; // columns stay unloaded -> A* treats them as impassable
+                    nextChunk++;
+                    continue;
+                }
+            }
+            nextChunk++;
+            chunkCaptured[ci] = true;
+
+            int x0 = Math.max(minX, cx << 4), x1 = Math.min(maxX, (cx << 4) + 15);
+            int z0 = Math.max(minZ, cz << 4), z1 = Math.min(maxZ, (cz << 4) + 15);
+
+            for (int x = x0; x <= x1; x++) {
+                for (int z = z0; z <= z1; z++) {
+                    captureColumn(level, chunk, footprints, regionKey, m, x, z);
+                }
+            }
+
+            if (loadedOne || System.nanoTime() >= deadline) break;
+        }
+
+        return isCaptured();
+    }
+
+    /** Chunk within the corridor around the start-goal line (distance to the segment, in chunks). */
+    private boolean inCorridor(int cx, int cz) {
+        double dx = lineBX - lineAX, dz = lineBZ - lineAZ;
+        double len2 = dx * dx + dz * dz;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, ((cx - lineAX) * dx + (cz - lineAZ) * dz) / len2));
+        double px = lineAX + t * dx - cx, pz = lineAZ + t * dz - cz;
+        return px * px + pz * pz <= (double) corridorChunks * corridorChunks;
+    }
+
+    private void captureColumn(ServerLevel level, LevelChunk chunk, BlueprintFootprintState footprints,
+                               long regionKey, BlockPos.MutableBlockPos m, int x, int z) {
+        int i = index(x, z);
+        int surf = surfaceY(level, chunk, m, x, z);
+        surface[i] = surf;
+
+        int base = surf - BAND_BELOW;
+        int solid = 0, fluid = 0;
+        for (int b = 0; b < BAND_HEIGHT; b++) {
+            m.set(x, base + b, z);
+            BlockState bs = chunk.getBlockState(m);
+            boolean hasFluid = !bs.getFluidState().isEmpty();
+            if (hasFluid) fluid |= (1 << b);
+            else if (!bs.isAir()) solid |= (1 << b);
+        }
+        solidBits[i] = solid;
+        fluidBits[i] = fluid;
+
+        byte f = FLAG_LOADED;
+        if (footprints.isBlocked(regionKey, x, z, RoadAStar.FOOTPRINT_MARGIN)) f |= FLAG_BLOCKED;
+        flags[i] = f;
+    }
+
+    /** Heightmap surface, stepping down through our own road materials (prevents A* feedback). */
+    private static int surfaceY(ServerLevel level, LevelChunk chunk, BlockPos.MutableBlockPos p, int x, int z) {
+        int y = level.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, x, z) - 1;
+        y = Math.max(level.getMinY() + 1, y);
+
+        p.set(x, y, z);
+
+        boolean steppedDownThroughRoad = false;
+
+        // only add +1 if we actually stepped down
+        while (p.getY() > level.getMinY() + 1) {
+            BlockState bs = chunk.getBlockState(p);
+
+            boolean isRoad =
+                    bs.is(Blocks.DIRT_PATH) ||
+                    bs.is(Blocks.COBBLESTONE) ||
+                    bs.is(Blocks.SPRUCE_PLANKS) ||
+                    (bs.getBlock() instanceof StairBlock);
+
+            if (!isRoad) break;
+
+            steppedDownThroughRoad = true;
+            p.move(0, -1, 0);
+        }
+
+        int out = steppedDownThroughRoad ? (p.getY() + 1) : p.getY();
+        return Math.min(level.getMaxY() - 1, out);
+    }
+
+    /** Fills one column directly (synthetic terrain for {@link RoadAStarBench}). */
+    void setColumn(int x, int z, int surfaceY, int solid, int fluid, boolean blocked) {
+        int i = index(x, z);
+        surface[i] = surfaceY;
+        solidBits[i] = solid;
+        fluidBits[i] = fluid;
+        flags[i] = (byte) (FLAG_LOADED | (blocked ? FLAG_BLOCKED : 0));
+    }
+
+    void markCaptured() {
+        Arrays.fill(chunkCaptured, true);
+        nextChunk = chunkCount;
+        corridorChunks = maxCorridorChunks;
+    }
+
+    // ------------------------------------------------------------
+    // Queries (any thread, after capture)
+    // ------------------------------------------------------------
+
+    boolean contains(int x, int z) {
+        return x >= minX && x <= maxX && z >= minZ && z <= maxZ;
+    }
+
+    /** Inside the rectangle and its chunk could be loaded. */
+    boolean available(int x, int z) {
+        return contains(x, z) && (flags[index(x, z)] & FLAG_LOADED) != 0;
+    }
+
+    boolean blocked(int x, int z) {
+        return contains(x, z) && (flags[index(x, z)] & FLAG_BLOCKED) != 0;
+    }
+
+    int surfaceY(int x, int z) {
+        return surface[index(x, z)];
+    }
+
+    /** Non-air, non-fluid block (what tunnelPenalty counts). */
+    boolean solidAt(int x, int y, int z) {
+        int i = index(x, z);
+        int b = y - (surface[i] - BAND_BELOW);
+        if (b < 0) return true;
+        if (b >= BAND_HEIGHT) return false;
+        return (solidBits[i] & (1 << b)) != 0;
+    }
+
+    boolean fluidAt(int x, int y, int z) {
+        int i = index(x, z);
+        int b = y - (surface[i] - BAND_BELOW);
+        if (b < 0 || b >= BAND_HEIGHT) return false;
+        return (fluidBits[i] & (1 << b)) != 0;
+    }
+
+    private int index(int x, int z) {
+        return (z - minZ) * sizeX + (x - minX);
+    }
+}
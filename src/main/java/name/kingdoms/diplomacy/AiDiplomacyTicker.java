@@ -204,6 +204,7 @@ public final class AiDiplomacyTicker {
 
     public static void init() {
         ServerTickEvents.END_SERVER_TICK.register(AiDiplomacyTicker::tick);
+        DiplomacyTopology.init();
     }
 
     private static void addLocalNews(MinecraftServer server, long nowTick, KingdomNewsState news,kingdomState.Kingdom srcK, String text) {
@@ -292,35 +293,31 @@ public final class AiDiplomacyTicker {
 
         warState.tickAiWars(server, nowTick);
 
-        // Collect AI kingdom ids from kingdom list (no aiState.getAll() needed)
-        List<UUID> aiIds = new ArrayList<>();
-        for (var k : ks.getAllKingdoms()) {
-            if (k == null) continue;
-            if (aiState.getById(k.id) != null) {
-                aiIds.add(k.id);
-            }
-        }
+        // AI kingdom ids + AI<->AI ally/enemy degrees, kept current by DiplomacyTopology
+        List<UUID> aiIds = DiplomacyTopology.aiIds(server);
         if (aiIds.size() < 2) return actions;
 
-        // Optional filter: restrict sim to a subset of AI kingdoms
+        // Optional filter: restrict sim to a subset of AI kingdoms (degrees then count within the subset only)
+        java.util.HashMap<UUID, Integer> subsetAllyCounts = null;
+        java.util.HashMap<UUID, Integer> subsetEnemyCounts = null;
         if (onlyIds != null) {
+            aiIds = new ArrayList<>(aiIds);
             aiIds.removeIf(id -> !onlyIds.contains(id));
             if (aiIds.size() < 2) return actions;
-        }
 
-
-        java.util.HashMap<UUID, Integer> allyCounts = new java.util.HashMap<>();
-        java.util.HashMap<UUID, Integer> enemyCounts = new java.util.HashMap<>();
-        for (UUID id : aiIds) {
-            int allies = 0;
-            int enemies = 0;
-            for (UUID other : aiIds) {
-                if (other.equals(id)) continue;
-                if (alliance.isAllied(id, other)) allies++;
-                if (warState.isAtWar(id, other)) enemies++;
+            subsetAllyCounts = new java.util.HashMap<>();
+            subsetEnemyCounts = new java.util.HashMap<>();
+            for (UUID id : aiIds) {
+                int allies = 0;
+                int enemies = 0;
+                for (UUID other : aiIds) {
+                    if (other.equals(id)) continue;
+                    if (alliance.isAllied(id, other)) allies++;
+                    if (warState.isAtWar(id, other)) enemies++;
+                }
+                subsetAllyCounts.put(id, allies);
+                subsetEnemyCounts.put(id, enemies);
             }
-            allyCounts.put(id, allies);
-            enemyCounts.put(id, enemies);
         }
 
 
@@ -519,8 +516,10 @@ public final class AiDiplomacyTicker {
                 var fromK = ks.getKingdom(fromId);
                 var toK   = ks.getKingdom(toId);
 
-                int aiAllyCount = allyCounts.getOrDefault(toId, 0);
-                int enemyApprox = enemyCounts.getOrDefault(toId, 0);
+                int aiAllyCount = (subsetAllyCounts != null)
+                        ? subsetAllyCounts.getOrDefault(toId, 0) : DiplomacyTopology.allyCount(toId);
+                int enemyApprox = (subsetEnemyCounts != null)
+                        ? subsetEnemyCounts.getOrDefault(toId, 0) : DiplomacyTopology.enemyCount(toId);
 
                 
                 var ctxEval = new DiplomacyEvaluator.Context(
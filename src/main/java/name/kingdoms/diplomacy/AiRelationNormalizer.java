@@ -36,21 +36,7 @@ public final class AiRelationNormalizer {
 
         var aiRel = AiRelationsState.get(server);
 
-        boolean anyChanged = false;
-
-        // snapshot keys to mutate backing map
-        var keys = new java.util.ArrayList<>(aiRel.entries().keySet());
-
-        for (String k : keys) {
-            Integer vObj = aiRel.entries().get(k);
-            if (vObj == null) continue;
-            int v = vObj;
-            int nv = nudgeTowardZero(v, STEP);
-            if (nv != v) {
-                aiRel.entries().put(k, nv);
-                anyChanged = true;
-            }
-        }
+        boolean anyChanged = aiRel.updateAll(v -> nudgeTowardZero(v, STEP));
 
         if (anyChanged) {
             aiRel.setDirty();
@@ -2,29 +2,105 @@ package name.kingdoms.diplomacy;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import name.kingdoms.SchemaMigrations;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.saveddata.SavedData;
 import net.minecraft.world.level.saveddata.SavedDataType;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
+/**
+ * Symmetric AI relation scores.
+ *
+ * Kingdoms are interned to slots (in first-seen order) and the pair (i, j), i > j, lives at
+ * {@code i*(i-1)/2 + j} of a packed lower-triangular {@code int[]}; a parallel bitset records which pairs
+ * have been set (so {@link #has} can tell "never set" from 0). Adding a slot only appends a row, so
+ * existing indices never move. {@link #remove} clears a kingdom's row and column and puts its slot on a
+ * free list, which {@code intern} takes from before appending, so the triangle stays as big as the
+ * most kingdoms alive at once. Reads are two map lookups + an array read and never allocate.
+ *
+ * Saved as the slot list (free slots as the nil UUID) + the triangle + the bitset. Saves from before the matrix ("rel": "min|max" -> int)
+ * are folded in once by the v0 -> v1 migration.
+ */
 public final class AiRelationsState extends SavedData {
-    // key "min|max" -> rel
-    private final Map<String, Integer> rel = new HashMap<>();
+
+    private static final Codec<UUID> UUID_CODEC =
+            Codec.STRING.xmap(UUID::fromString, UUID::toString);
+
+    private final Object2IntOpenHashMap<UUID> slotOf = new Object2IntOpenHashMap<>();
+    private final List<UUID> slots = new ArrayList<>(); // null = free
+    private final IntArrayList freeSlots = new IntArrayList();
+    private int[] rel = new int[0];
+    private long[] present = new long[0];
+
+    // legacy "min|max" map from a v0 save, consumed by the v0 -> v1 migration
+    private Map<String, Integer> legacyRel = Map.of();
+
+    public AiRelationsState() {
+        slotOf.defaultReturnValue(-1);
+    }
+
+    // -----------------------------
+    // Persistence
+    // -----------------------------
 
     private static final Codec<Map<String, Integer>> REL_CODEC =
             Codec.unboundedMap(Codec.STRING, Codec.INT);
 
+    private static final Codec<int[]> INT_ARRAY_CODEC =
+            Codec.INT_STREAM.xmap(IntStream::toArray, IntStream::of);
+
+    private static final Codec<long[]> LONG_ARRAY_CODEC =
+            Codec.LONG_STREAM.xmap(LongStream::toArray, LongStream::of);
+
+    // stands in for a free slot in the saved slot list
+    private static final UUID FREE_SLOT = new UUID(0L, 0L);
+
+    /** Save-format fix-ups, applied once on load. Append new steps; never reorder. */
+    private static final SchemaMigrations<AiRelationsState> MIGRATIONS = new SchemaMigrations<>(
+            // v0 -> v1: string-keyed map -> relation matrix
+            s -> {
+                for (var e : s.legacyRel.entrySet()) {
+                    String k = e.getKey();
+                    int bar = (k == null) ? -1 : k.indexOf('|');
+                    if (bar <= 0 || e.getValue() == null) continue;
+                    try {
+                        UUID a = UUID.fromString(k.substring(0, bar));
+                        UUID b = UUID.fromString(k.substring(bar + 1));
+                        if (!a.equals(b)) s.put(a, b, e.getValue());
+                    } catch (IllegalArgumentException ignored) {}
+                }
+                s.legacyRel = Map.of();
+            }
+    );
+
     private static final Codec<AiRelationsState> CODEC =
             RecordCodecBuilder.create(inst -> inst.group(
-                    REL_CODEC.optionalFieldOf("rel", Map.of()).forGetter(s -> s.rel)
-            ).apply(inst, (loaded) -> {
+                    REL_CODEC.optionalFieldOf("rel", Map.of()).forGetter(s -> Map.of()),
+                    UUID_CODEC.listOf().optionalFieldOf("slots", List.of()).forGetter(AiRelationsState::savedSlots),
+                    INT_ARRAY_CODEC.optionalFieldOf("matrix", new int[0])
+                            .forGetter(s -> Arrays.copyOf(s.rel, tri(s.slots.size()))),
+                    LONG_ARRAY_CODEC.optionalFieldOf("present", new long[0])
+                            .forGetter(s -> Arrays.copyOf(s.present, words(tri(s.slots.size())))),
+                    SchemaMigrations.versionField().forGetter(s -> MIGRATIONS.currentVersion())
+            ).apply(inst, (loadedLegacy, loadedSlots, loadedMatrix, loadedPresent, dataVersion) -> {
                 AiRelationsState s = new AiRelationsState();
-                s.rel.putAll(loaded);
+                s.restore(loadedSlots, loadedMatrix, loadedPresent);
+
+                s.legacyRel = loadedLegacy;
+                if (MIGRATIONS.migrate(s, dataVersion)) s.setDirty();
                 return s;
             }));
 
@@ -37,22 +113,133 @@ public final class AiRelationsState extends SavedData {
         return overworld.getDataStorage().computeIfAbsent(TYPE);
     }
 
-    private static String key(UUID a, UUID b) {
-        String sa = a.toString();
-        String sb = b.toString();
-        return (sa.compareTo(sb) <= 0) ? (sa + "|" + sb) : (sb + "|" + sa);
+    // -----------------------------
+    // Matrix
+    // -----------------------------
+
+    /** Number of pairs among {@code n} slots. */
+    private static int tri(int n) {
+        return n * (n - 1) / 2;
     }
 
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /** Index of the pair (i, j), i != j. */
+    private static int index(int i, int j) {
+        int hi = Math.max(i, j), lo = Math.min(i, j);
+        return hi * (hi - 1) / 2 + lo;
+    }
+
+    private int intern(UUID id) {
+        int s = slotOf.getInt(id);
+        if (s >= 0) return s;
+
+        if (!freeSlots.isEmpty()) {
+            s = freeSlots.popInt();
+            slotOf.put(id, s);
+            slots.set(s, id);
+            return s;
+        }
+        return appendSlot(id);
+    }
+
+    /** Appends a slot for {@code id}, or a free one if {@code id} is null. */
+    private int appendSlot(UUID id) {
+        int s = slots.size();
+        slots.add(id);
+        if (id != null) slotOf.put(id, s);
+        else freeSlots.add(s);
+
+        int need = tri(s + 1);
+        if (need > rel.length) {
+            int cap = Math.max(need, rel.length * 2);
+            rel = Arrays.copyOf(rel, cap);
+            present = Arrays.copyOf(present, words(cap));
+        }
+        return s;
+    }
+
+    /** Index of (a, b), or -1 if either kingdom has no slot yet. */
+    private int find(UUID a, UUID b) {
+        int i = slotOf.getInt(a);
+        if (i < 0) return -1;
+        int j = slotOf.getInt(b);
+        if (j < 0 || i == j) return -1;
+        return index(i, j);
+    }
+
+    private boolean isSet(int idx) {
+        return (present[idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    private List<UUID> savedSlots() {
+        List<UUID> out = new ArrayList<>(slots.size());
+        for (UUID id : slots) out.add(id == null ? FREE_SLOT : id);
+        return out;
+    }
+
+    /** Rebuilds the slots from a saved list (free slots as {@link #FREE_SLOT}) and copies the pairs in. */
+    private void restore(List<UUID> savedSlots, int[] savedRel, long[] savedPresent) {
+        slotOf.clear();
+        slots.clear();
+        freeSlots.clear();
+        rel = new int[0];
+        present = new long[0];
+
+        for (UUID id : savedSlots) {
+            appendSlot(FREE_SLOT.equals(id) || slotOf.containsKey(id) ? null : id);
+        }
+
+        int n = tri(slots.size());
+        System.arraycopy(savedRel, 0, rel, 0, Math.min(n, savedRel.length));
+        System.arraycopy(savedPresent, 0, present, 0, Math.min(words(n), savedPresent.length));
+
+        // a free slot never keeps pairs (older saves may not have cleared them)
+        for (int i = 0; i < freeSlots.size(); i++) clearSlot(freeSlots.getInt(i));
+    }
+
+    private void clearSlot(int s) {
+        for (int j = 0, n = slots.size(); j < n; j++) {
+            if (j == s) continue;
+            int idx = index(s, j);
+            rel[idx] = 0;
+            present[idx >>> 6] &= ~(1L << idx);
+        }
+    }
+
+    private int put(UUID a, UUID b, int value) {
+        int i = intern(a);
+        int j = intern(b);
+        if (i == j) return value;
+
+        int idx = index(i, j);
+        rel[idx] = value;
+        present[idx >>> 6] |= (1L << idx);
+        return value;
+    }
+
+    // -----------------------------
+    // Queries / updates
+    // -----------------------------
+
     public int get(UUID a, UUID b) {
         if (a == null || b == null) return 0;
-        return rel.getOrDefault(key(a, b), 0);
+        int idx = find(a, b);
+        return idx < 0 ? 0 : rel[idx];
+    }
+
+    public boolean has(UUID a, UUID b) {
+        if (a == null || b == null) return false;
+        int idx = find(a, b);
+        return idx >= 0 && isSet(idx);
     }
 
     public int add(UUID a, UUID b, int delta) {
-        String k = key(a, b);
-        int prev = rel.getOrDefault(k, 0);
-        int next = net.minecraft.util.Mth.clamp(prev + delta, -100, 100);
-        rel.put(k, next);
+        if (a == null || b == null) return 0;
+        int next = Mth.clamp(get(a, b) + delta, -100, 100);
+        put(a, b, next);
         setDirty();
         return next;
     }
@@ -61,8 +248,7 @@ public final class AiRelationsState extends SavedData {
     public int addScaled(UUID a, UUID b, int rawDelta) {
         if (a == null || b == null || rawDelta == 0) return get(a, b);
 
-        String k = key(a, b);
-        int prev = rel.getOrDefault(k, 0);
+        int prev = get(a, b);
 
         // diminish near extremes: at 0 => 1.0, at +/-100 => 0.30
         double extremity = Math.min(1.0, Math.abs(prev) / 100.0);
@@ -73,8 +259,8 @@ public final class AiRelationsState extends SavedData {
         // keep small effects from disappearing
         if (d == 0) d = (rawDelta > 0) ? 1 : -1;
 
-        int next = net.minecraft.util.Mth.clamp(prev + d, -100, 100);
-        rel.put(k, next);
+        int next = Mth.clamp(prev + d, -100, 100);
+        put(a, b, next);
         setDirty();
         return next;
     }
@@ -88,8 +274,7 @@ public final class AiRelationsState extends SavedData {
      */
     public int driftTowardBands(UUID a, UUID b, int strength, int band) {
         if (a == null || b == null) return 0;
-        String k = key(a, b);
-        int prev = rel.getOrDefault(k, 0);
+        int prev = get(a, b);
 
         // choose target: +band if positive, -band if negative
         // if exactly 0, do nothing (you can handle flips elsewhere)
@@ -103,39 +288,84 @@ public final class AiRelationsState extends SavedData {
         // don't overshoot
         if ((prev < target && next > target) || (prev > target && next < target)) next = target;
 
-        rel.put(k, net.minecraft.util.Mth.clamp(next, -100, 100));
+        put(a, b, Mth.clamp(next, -100, 100));
         setDirty();
         return next;
     }
 
-
     public void set(UUID a, UUID b, int value) {
-        rel.put(key(a, b), value);
+        if (a == null || b == null) return;
+        put(a, b, value);
         setDirty();
     }
 
-    public Map<String, Integer> exportRel() {
-        return new HashMap<>(rel);
-    }
+    /** Forgets every relation of {@code kingdomId} and frees its slot for the next new kingdom. */
+    public void remove(UUID kingdomId) {
+        if (kingdomId == null) return;
+        int s = slotOf.removeInt(kingdomId);
+        if (s < 0) return;
 
-    public void importRel(Map<String, Integer> snap) {
-        rel.clear();
-        if (snap != null) rel.putAll(snap);
+        clearSlot(s);
+        slots.set(s, null);
+        freeSlots.add(s);
         setDirty();
     }
 
-    public void setKeyNoDirty(String key, int value) {
-        rel.put(key, value);
+    // -----------------------------
+    // Bulk access
+    // -----------------------------
+
+    @FunctionalInterface
+    public interface RelationConsumer {
+        void accept(UUID other, int value);
     }
 
-    public java.util.Map<String, Integer> entries() {
-        return rel;
+    /** Every relation that has been set between {@code kingdomId} and another kingdom. */
+    public void forEachRelation(UUID kingdomId, RelationConsumer action) {
+        if (kingdomId == null) return;
+        int i = slotOf.getInt(kingdomId);
+        if (i < 0) return;
+
+        for (int j = 0, n = slots.size(); j < n; j++) {
+            if (j == i) continue;
+            int idx = index(i, j);
+            if (isSet(idx)) action.accept(slots.get(j), rel[idx]);
+        }
     }
 
-    public boolean has(UUID a, UUID b) {
-        if (a == null || b == null) return false;
-        return rel.containsKey(key(a, b));
+    /**
+     * Rewrites every set relation in place (no dirty marking on its own).
+     * @return true if any value changed
+     */
+    public boolean updateAll(IntUnaryOperator f) {
+        boolean changed = false;
+        int n = tri(slots.size());
+        for (int idx = 0; idx < n; idx++) {
+            if (!isSet(idx)) continue;
+            int v = rel[idx];
+            int nv = f.applyAsInt(v);
+            if (nv != v) {
+                rel[idx] = nv;
+                changed = true;
+            }
+        }
+        return changed;
     }
 
+    // -----------------------------
+    // Snapshots (A/B sims)
+    // -----------------------------
 
+    public record RelSnapshot(List<UUID> slots, int[] rel, long[] present) {}
+
+    public RelSnapshot exportRel() {
+        int n = tri(slots.size());
+        return new RelSnapshot(List.copyOf(savedSlots()), Arrays.copyOf(rel, n), Arrays.copyOf(present, words(n)));
+    }
+
+    public void importRel(RelSnapshot snap) {
+        if (snap != null) restore(snap.slots(), snap.rel(), snap.present());
+        else restore(List.of(), new int[0], new long[0]);
+        setDirty();
+    }
 }
@@ -43,6 +43,7 @@ public final class AllianceState extends SavedData {
             }
         }
         normalizeSymmetry();
+        DiplomacyTopology.invalidate();
         setDirty();
     }
 
@@ -132,8 +133,9 @@ public final class AllianceState extends SavedData {
     public boolean addAlliance(UUID a, UUID b) {
         if (!canAlly(a, b)) return false;
 
-        allies.computeIfAbsent(a, k -> new HashSet<>()).add(b);
+        boolean added = allies.computeIfAbsent(a, k -> new HashSet<>()).add(b);
         allies.computeIfAbsent(b, k -> new HashSet<>()).add(a);
+        if (added) DiplomacyTopology.onAllianceChanged(this, a, b, true);
         setDirty();
         return true;
     }
@@ -149,7 +151,10 @@ public final class AllianceState extends SavedData {
         if (sa != null && sa.isEmpty()) allies.remove(a);
         if (sb != null && sb.isEmpty()) allies.remove(b);
 
-        if (changed) setDirty();
+        if (changed) {
+            DiplomacyTopology.onAllianceChanged(this, a, b, false);
+            setDirty();
+        }
         return changed;
     }
 
@@ -0,0 +1,104 @@
+package name.kingdoms.diplomacy;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import name.kingdoms.AsyncSavedData;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedDataType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Letters pushed out of a full inbox ({@link DiplomacyMailboxState#inboxCap()}), newest first, at most
+ * {@link #archiveCap()} per player (default {@link #DEFAULT_ARCHIVE_CAP}, set with
+ * {@code /kingdoms diplomacy mail_retention}). Kept in its own file so the live mailbox stays small;
+ * never synced to clients.
+ */
+public final class DiplomacyMailArchiveState extends AsyncSavedData<DiplomacyMailArchiveState> {
+    private static final String DATA_NAME = "kingdoms_diplomacy_mail_archive";
+
+    public static final int DEFAULT_ARCHIVE_CAP = 2000;
+    public static final int MAX_ARCHIVE_CAP = 20_000;
+
+    private int archiveCap = DEFAULT_ARCHIVE_CAP;
+
+    private final Map<UUID, ArrayDeque<Letter>> archived = new HashMap<>();
+
+    public DiplomacyMailArchiveState() {}
+
+    private static final Codec<DiplomacyMailArchiveState> CODEC =
+            RecordCodecBuilder.create(inst -> inst.group(
+                    DiplomacyMailboxState.INBOX_CODEC.optionalFieldOf("archive", Map.of()).forGetter(s -> {
+                        Map<UUID, List<Letter>> out = new HashMap<>();
+                        s.archived.forEach((player, letters) -> out.put(player, new ArrayList<>(letters)));
+                        return out;
+                    }),
+                    Codec.INT.optionalFieldOf("archiveCap", DEFAULT_ARCHIVE_CAP).forGetter(s -> s.archiveCap)
+            ).apply(inst, (loaded, cap) -> {
+                DiplomacyMailArchiveState s = new DiplomacyMailArchiveState();
+                s.archiveCap = Math.clamp(cap, 0, MAX_ARCHIVE_CAP);
+                loaded.forEach((player, letters) -> {
+                    ArrayDeque<Letter> q = new ArrayDeque<>();
+                    for (Letter l : letters) if (l != null) q.addLast(l);
+                    if (!q.isEmpty()) s.archived.put(player, q);
+                });
+                return s;
+            }));
+
+    public static final SavedDataType<DiplomacyMailArchiveState> TYPE =
+            new SavedDataType<>(DATA_NAME, DiplomacyMailArchiveState::new, CODEC, null);
+
+    public static DiplomacyMailArchiveState get(MinecraftServer server) {
+        ServerLevel overworld = server.getLevel(Level.OVERWORLD);
+        if (overworld == null) return new DiplomacyMailArchiveState();
+        return overworld.getDataStorage().computeIfAbsent(TYPE);
+    }
+
+    void archive(UUID player, Letter letter) {
+        if (player == null || letter == null) return;
+        ArrayDeque<Letter> q = archived.computeIfAbsent(player, k -> new ArrayDeque<>());
+        q.addFirst(letter);
+        while (q.size() > archiveCap) q.removeLast();
+        if (q.isEmpty()) archived.remove(player);
+        setDirty();
+    }
+
+    public int archiveCap() {
+        return archiveCap;
+    }
+
+    /** Sets the per-player cap (clamped to [0, {@link #MAX_ARCHIVE_CAP}]; 0 keeps nothing) and drops any excess now. */
+    public int setArchiveCap(int cap) {
+        int c = Math.clamp(cap, 0, MAX_ARCHIVE_CAP);
+        if (c == archiveCap) return c;
+        archiveCap = c;
+        archived.values().removeIf(q -> {
+            while (q.size() > c) q.removeLast();
+            return q.isEmpty();
+        });
+        setDirty();
+        return c;
+    }
+
+    @Override
+    protected SavedDataType<DiplomacyMailArchiveState> saveType() {
+        return TYPE;
+    }
+
+    @Override
+    protected DiplomacyMailArchiveState snapshotForSave(RegistryOps<Tag> ops) {
+        DiplomacyMailArchiveState snap = new DiplomacyMailArchiveState();
+        snap.archiveCap = archiveCap;
+        archived.forEach((player, letters) -> snap.archived.put(player, new ArrayDeque<>(letters))); // letters are immutable
+        return snap;
+    }
+}
@@ -341,7 +341,7 @@ public final class DiplomacyMailGenerator {
                             : Letter.whitePeace(from.id, true, fromName, player.getUUID(), nowTick, expires, note);
 
                     mailbox.addLetter(player.getUUID(), peaceLetter);
-                    serverMail.syncInbox(player, mailbox.getInbox(player.getUUID()));
+                    serverMail.letterAdded(player, mailbox, peaceLetter);
                     if (--budget <= 0) return;
                     continue; // do not send normal diplomacy letters while at war
                 }
@@ -380,7 +380,7 @@ public final class DiplomacyMailGenerator {
                 if (letter == null) continue;
 
                 mailbox.addLetter(player.getUUID(), letter);
-                serverMail.syncInbox(player, mailbox.getInbox(player.getUUID()));
+                serverMail.letterAdded(player, mailbox, letter);
                 if (--budget <= 0) return;
 
             }
@@ -13,11 +13,36 @@ import name.kingdoms.diplomacy.DiplomacyResponseQueue;
 
 import java.util.*;
 
+/**
+ * Player inboxes plus pending deliveries and proposal cooldowns.
+ *
+ * Each inbox is a ring of at most {@link #inboxCap()} letters (default {@link #DEFAULT_INBOX_CAP}, set with
+ * {@code /kingdoms diplomacy mail_retention}), newest first; every letter gets a monotonic sequence number
+ * when it arrives. When an inbox is full, the oldest letter that is not waiting for an answer moves to
+ * {@link DiplomacyMailArchiveState} (its own file); unanswered offers only go once nothing else is left.
+ * Clients read inboxes a page at a time ({@link #page}) and get small deltas on change (see {@link serverMail}).
+ */
 public final class DiplomacyMailboxState extends SavedData {
     private static final String DATA_NAME = "kingdoms_diplomacy_mail";
 
+    /** Letters kept in a live inbox unless configured otherwise; older ones are archived. */
+    public static final int DEFAULT_INBOX_CAP = 200;
+    public static final int MIN_INBOX_CAP = 20;
+    public static final int MAX_INBOX_CAP = 2000;
+
+    private int inboxCap = DEFAULT_INBOX_CAP;
+
+    // players whose inbox lost a letter other than the oldest since their last page (not saved)
+    private final Set<UUID> trimmedOutOfOrder = new HashSet<>();
+
     // player -> letters
-    private final Map<UUID, List<Letter>> inbox = new HashMap<>();
+    private final Map<UUID, Inbox> inbox = new HashMap<>();
+
+    // next letter sequence number (monotonic across all inboxes)
+    private long nextSeq = 1L;
+
+    // set on first get(); loaded inboxes may be over the cap until then
+    private DiplomacyMailArchiveState archive;
 
     // (player|kingdom) -> tickUntilAllowed
     private final Map<String, Long> proposalCooldownUntil = new HashMap<>();
@@ -39,19 +64,122 @@ public final class DiplomacyMailboxState extends SavedData {
      * IMPORTANT: This constructor is used by CODEC decode.
      * The incoming map/lists may be IMMUTABLE (Map.of / List.of),
      * so we must defensively copy into mutable collections.
+     *
+     * Saves from before sequence numbers have no "inboxSeqs": those letters are numbered in list order.
      */
-    private DiplomacyMailboxState(Map<UUID, List<Letter>> decodedInbox) {
-        // inbox (existing)
-        this.inbox.clear();
+    private DiplomacyMailboxState(Map<UUID, List<Letter>> decodedInbox, Map<UUID, List<Long>> decodedSeqs, long decodedNextSeq) {
+        this.nextSeq = Math.max(1L, decodedNextSeq);
+
         for (Map.Entry<UUID, List<Letter>> e : decodedInbox.entrySet()) {
             UUID player = e.getKey();
             List<Letter> raw = e.getValue();
-            if (raw == null) raw = List.of();
+            if (player == null || raw == null) continue;
+
+            List<Long> seqs = decodedSeqs.get(player);
+            boolean haveSeqs = seqs != null && seqs.size() == raw.size();
+
+            // stored newest first: add oldest first
+            Inbox box = new Inbox();
+            for (int i = raw.size() - 1; i >= 0; i--) {
+                Letter l = raw.get(i);
+                if (l == null) continue;
+                long seq = haveSeqs ? seqs.get(i) : nextSeq;
+                nextSeq = Math.max(nextSeq, seq + 1);
+                box.addFirst(l, seq);
+            }
+            if (box.size() > 0) this.inbox.put(player, box);
+        }
+    }
+
+    /**
+     * One player's letters, newest first: a ring that grows up to {@link #inboxCap()} entries.
+     * Index 0 is the newest letter.
+     */
+    private static final class Inbox {
+        private Letter[] letters = new Letter[8];
+        private long[] seqs = new long[8];
+        private int head; // slot of index 0
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        private int slot(int i) {
+            return (head + i) & (letters.length - 1);
+        }
+
+        Letter get(int i) {
+            return letters[slot(i)];
+        }
+
+        long seq(int i) {
+            return seqs[slot(i)];
+        }
 
-            ArrayList<Letter> safe = new ArrayList<>(raw.size());
-            for (Letter l : raw) if (l != null) safe.add(l);
+        void set(int i, Letter l) {
+            letters[slot(i)] = l;
+        }
+
+        void addFirst(Letter l, long seq) {
+            if (size == letters.length) grow();
+            head = (head - 1) & (letters.length - 1);
+            letters[head] = l;
+            seqs[head] = seq;
+            size++;
+        }
+
+        /** Removes and returns the oldest letter. */
+        Letter removeLast() {
+            int s = slot(size - 1);
+            Letter l = letters[s];
+            letters[s] = null;
+            size--;
+            return l;
+        }
 
-            this.inbox.put(player, safe);
+        Letter removeAt(int i) {
+            Letter l = get(i);
+            for (int j = i; j < size - 1; j++) {
+                int to = slot(j), from = slot(j + 1);
+                letters[to] = letters[from];
+                seqs[to] = seqs[from];
+            }
+            letters[slot(size - 1)] = null;
+            size--;
+            return l;
+        }
+
+        int indexOf(UUID letterId) {
+            for (int i = 0; i < size; i++) {
+                if (letterId.equals(get(i).id())) return i;
+            }
+            return -1;
+        }
+
+        private void grow() {
+            int n = letters.length;
+            Letter[] nl = new Letter[n * 2];
+            long[] ns = new long[n * 2];
+            for (int i = 0; i < size; i++) {
+                nl[i] = get(i);
+                ns[i] = seq(i);
+            }
+            letters = nl;
+            seqs = ns;
+            head = 0;
+        }
+
+        List<Letter> toList() {
+            ArrayList<Letter> out = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) out.add(get(i));
+            return out;
+        }
+
+        List<Long> seqList() {
+            ArrayList<Long> out = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) out.add(seq(i));
+            return out;
         }
     }
 
@@ -86,19 +214,19 @@ public final class DiplomacyMailboxState extends SavedData {
     }
 
 
-    private static final Codec<UUID> UUID_CODEC =
+    static final Codec<UUID> UUID_CODEC =
             Codec.STRING.xmap(UUID::fromString, UUID::toString);
 
-    private static final Codec<ResourceType> RESOURCE_CODEC =
+    static final Codec<ResourceType> RESOURCE_CODEC =
             Codec.STRING.xmap(ResourceType::valueOf, ResourceType::name);
 
-    private static final Codec<Letter.Kind> KIND_CODEC =
+    static final Codec<Letter.Kind> KIND_CODEC =
             Codec.STRING.xmap(Letter.Kind::valueOf, Letter.Kind::name);
 
     private static final Codec<Letter.Status> STATUS_CODEC =
             Codec.STRING.xmap(Letter.Status::valueOf, Letter.Status::name);
 
-    private static final Codec<Letter.CasusBelli> CB_CODEC =
+    static final Codec<Letter.CasusBelli> CB_CODEC =
             Codec.STRING.xmap(Letter.CasusBelli::valueOf, Letter.CasusBelli::name);
 
     private static final Codec<Map<String, Long>> COOLDOWN_CODEC =
@@ -107,7 +235,7 @@ public final class DiplomacyMailboxState extends SavedData {
 
 
 
-    private static final Codec<Letter> LETTER_CODEC =
+    static final Codec<Letter> LETTER_CODEC =
         RecordCodecBuilder.create(inst -> inst.group(
                 UUID_CODEC.fieldOf("id").forGetter(Letter::id),
                 UUID_CODEC.fieldOf("from").forGetter(Letter::fromKingdomId),
@@ -205,17 +333,32 @@ public final class DiplomacyMailboxState extends SavedData {
                     PendingToAi.CODEC.listOf();
 
 
-    private static final Codec<Map<UUID, List<Letter>>> INBOX_CODEC =
+    static final Codec<Map<UUID, List<Letter>>> INBOX_CODEC =
             Codec.unboundedMap(UUID_CODEC, LETTER_CODEC.listOf());
 
+    private static final Codec<Map<UUID, List<Long>>> SEQS_CODEC =
+            Codec.unboundedMap(UUID_CODEC, Codec.LONG.listOf());
+
    private static final Codec<DiplomacyMailboxState> STATE_CODEC =
         RecordCodecBuilder.create(inst -> inst.group(
-                INBOX_CODEC.optionalFieldOf("inbox", Map.of()).forGetter(s -> s.inbox),
+                INBOX_CODEC.optionalFieldOf("inbox", Map.of()).forGetter(s -> {
+                    Map<UUID, List<Letter>> out = new HashMap<>();
+                    s.inbox.forEach((player, box) -> out.put(player, box.toList()));
+                    return out;
+                }),
+                SEQS_CODEC.optionalFieldOf("inboxSeqs", Map.of()).forGetter(s -> {
+                    Map<UUID, List<Long>> out = new HashMap<>();
+                    s.inbox.forEach((player, box) -> out.put(player, box.seqList()));
+                    return out;
+                }),
+                Codec.LONG.optionalFieldOf("nextSeq", 1L).forGetter(s -> s.nextSeq),
+                Codec.INT.optionalFieldOf("inboxCap", DEFAULT_INBOX_CAP).forGetter(s -> s.inboxCap),
                 COOLDOWN_CODEC.optionalFieldOf("proposalCooldown", Map.of()).forGetter(s -> s.proposalCooldownUntil),
                 PENDING_CODEC.optionalFieldOf("pending", List.of()).forGetter(s -> s.pending),
                 PENDING_TO_AI_CODEC.optionalFieldOf("pendingToAi", List.of()).forGetter(s -> s.pendingToAi)
-        ).apply(inst, (decodedInbox, decodedCooldown, decodedPending, decodedPendingToAi) -> {
-            DiplomacyMailboxState s = new DiplomacyMailboxState(decodedInbox);
+        ).apply(inst, (decodedInbox, decodedSeqs, decodedNextSeq, decodedInboxCap, decodedCooldown, decodedPending, decodedPendingToAi) -> {
+            DiplomacyMailboxState s = new DiplomacyMailboxState(decodedInbox, decodedSeqs, decodedNextSeq);
+            s.inboxCap = Math.clamp(decodedInboxCap, MIN_INBOX_CAP, MAX_INBOX_CAP);
 
             s.proposalCooldownUntil.clear();
             if (decodedCooldown != null) s.proposalCooldownUntil.putAll(decodedCooldown);
@@ -295,7 +438,12 @@ public final class DiplomacyMailboxState extends SavedData {
             );
 
     public static DiplomacyMailboxState get(ServerLevel level) {
-        return level.getDataStorage().computeIfAbsent(TYPE);
+        DiplomacyMailboxState s = level.getDataStorage().computeIfAbsent(TYPE);
+        if (s.archive == null) {
+            s.archive = DiplomacyMailArchiveState.get(level.getServer());
+            s.trimAll();
+        }
+        return s;
     }
 
 
@@ -304,34 +452,118 @@ public final class DiplomacyMailboxState extends SavedData {
     // API
     // -------------------------
 
-    /** Always returns a MUTABLE inbox list. */
-    public List<Letter> getInbox(UUID player) {
-        List<Letter> list = inbox.get(player);
-        if (list == null) {
-            list = new ArrayList<>();
-            inbox.put(player, list);
-            return list;
-        }
+    public int inboxSize(UUID player) {
+        Inbox box = inbox.get(player);
+        return box == null ? 0 : box.size();
+    }
 
-        // Defensive: if something slipped in as immutable, wrap it.
-        if (!(list instanceof ArrayList)) {
-            list = new ArrayList<>(list);
-            inbox.put(player, list);
+    /** Letters still waiting for an answer. */
+    public int pendingCount(UUID player) {
+        Inbox box = inbox.get(player);
+        if (box == null) return 0;
+        int n = 0;
+        for (int i = 0; i < box.size(); i++) {
+            if (box.get(i).status() == Letter.Status.PENDING) n++;
         }
+        return n;
+    }
+
+    /** Up to {@code limit} letters from {@code offset} (0 = newest). */
+    public List<Letter> page(UUID player, int offset, int limit) {
+        Inbox box = inbox.get(player);
+        if (box == null || offset < 0 || offset >= box.size() || limit <= 0) return List.of();
+
+        int end = Math.min(box.size(), offset + limit);
+        ArrayList<Letter> out = new ArrayList<>(end - offset);
+        for (int i = offset; i < end; i++) out.add(box.get(i));
+        return out;
+    }
 
-        // SANITIZE: remove any null letters that would crash encoding/saving
-        list.removeIf(Objects::isNull);
+    /** Index of the letter in the inbox (0 = newest), or -1. */
+    public int indexOf(UUID player, UUID letterId) {
+        Inbox box = inbox.get(player);
+        return (box == null || letterId == null) ? -1 : box.indexOf(letterId);
+    }
 
-        return list;
+    /** Sequence number of the letter at {@code index}, or -1. */
+    public long seqAt(UUID player, int index) {
+        Inbox box = inbox.get(player);
+        return (box == null || index < 0 || index >= box.size()) ? -1L : box.seq(index);
     }
 
+    /** Delivers {@code letter} as the newest in the player's inbox; archives the oldest if full. */
     public void addLetter(UUID toPlayer, Letter letter) {
-        if (letter == null) return; // don't allow null into state
-        List<Letter> list = getInbox(toPlayer);
-        list.add(letter);
+        if (toPlayer == null || letter == null) return; // don't allow null into state
+        Inbox box = inbox.computeIfAbsent(toPlayer, k -> new Inbox());
+        box.addFirst(letter, nextSeq++);
+        trim(toPlayer, box);
         setDirty();
     }
 
+    private void trim(UUID player, Inbox box) {
+        if (box.size() <= inboxCap || archive == null) return;
+        while (box.size() > inboxCap) {
+            int victim = oldestSettled(box);
+            if (victim < 0) {
+                // every letter awaits an answer: the oldest one has to go
+                victim = box.size() - 1;
+            }
+            if (victim != box.size() - 1) trimmedOutOfOrder.add(player);
+            archive.archive(player, box.removeAt(victim));
+        }
+    }
+
+    /** Index of the oldest letter that no longer needs an answer, or -1. */
+    private static int oldestSettled(Inbox box) {
+        for (int i = box.size() - 1; i >= 0; i--) {
+            if (!awaitsAnswer(box.get(i))) return i;
+        }
+        return -1;
+    }
+
+    /** Unanswered letter the player can accept or refuse (same kinds the mail screen offers buttons for). */
+    private static boolean awaitsAnswer(Letter l) {
+        if (l.status() != Letter.Status.PENDING) return false;
+        return switch (l.kind()) {
+            case REQUEST, OFFER, CONTRACT, ULTIMATUM,
+                 ALLIANCE_PROPOSAL, WHITE_PEACE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * True (once) if a letter other than the oldest left this player's inbox since the last call,
+     * so index-based client deltas no longer line up.
+     */
+    public boolean takeTrimmedOutOfOrder(UUID player) {
+        return trimmedOutOfOrder.remove(player);
+    }
+
+    public int inboxCap() {
+        return inboxCap;
+    }
+
+    /** Sets the inbox cap (clamped to [{@link #MIN_INBOX_CAP}, {@link #MAX_INBOX_CAP}]); archives any excess now. */
+    public int setInboxCap(int cap) {
+        int c = Math.clamp(cap, MIN_INBOX_CAP, MAX_INBOX_CAP);
+        if (c != inboxCap) {
+            inboxCap = c;
+            setDirty();
+            trimAll();
+        }
+        return inboxCap;
+    }
+
+    private void trimAll() {
+        boolean changed = false;
+        for (Map.Entry<UUID, Inbox> e : inbox.entrySet()) {
+            if (e.getValue().size() <= inboxCap) continue;
+            trim(e.getKey(), e.getValue());
+            changed = true;
+        }
+        if (changed) setDirty();
+    }
+
     public boolean isProposalOnCooldown(UUID player, UUID kingdom, long nowTick) {
         if (player == null || kingdom == null) return false;
         long until = proposalCooldownUntil.getOrDefault(pairKey(player, kingdom), 0L);
@@ -371,14 +603,14 @@ public final class DiplomacyMailboxState extends SavedData {
             if (nowTick < p.deliverTick()) continue;
 
             // deliver letter (newest-first)
-            getInbox(p.toPlayer()).add(0, p.letter());
+            addLetter(p.toPlayer(), p.letter());
             pending.remove(i);
             setDirty();
 
             // if player is online, sync immediately
             ServerPlayer sp = server.getPlayerList().getPlayer(p.toPlayer());
             if (sp != null) {
-                serverMail.syncInbox(sp, getInbox(p.toPlayer()));
+                serverMail.letterAdded(sp, this, p.letter());
             }
         }
     }
@@ -386,7 +618,7 @@ public final class DiplomacyMailboxState extends SavedData {
     
    
 
-    public void deliverPlayerMail(
+    public Letter deliverPlayerMail(
             UUID recipientPlayerId,
             UUID fromKingdomId,
             String fromName,
@@ -400,7 +632,7 @@ public final class DiplomacyMailboxState extends SavedData {
             String note
             
     ) {
-        if (recipientPlayerId == null || fromKingdomId == null || kind == null || aType == null) return;
+        if (recipientPlayerId == null || fromKingdomId == null || kind == null || aType == null) return null;
 
         String safeName = (fromName == null || fromName.isBlank()) ? "Unknown Kingdom" : fromName;
         String safeNote = (note == null) ? "" : note;
@@ -445,43 +677,38 @@ public final class DiplomacyMailboxState extends SavedData {
                 safeNote
         );
 
-        // newest-first
-        getInbox(recipientPlayerId).add(0, letter);
-        setDirty();
+        addLetter(recipientPlayerId, letter);
+        return letter;
     }
 
     public Letter findLetter(UUID player, UUID letterId) {
-        if (letterId == null) return null;
-        for (Letter l : getInbox(player)) {
-            if (l == null) continue;
-            if (letterId.equals(l.id())) return l;
-        }
-        return null;
+        Inbox box = inbox.get(player);
+        if (box == null || letterId == null) return null;
+        int i = box.indexOf(letterId);
+        return i < 0 ? null : box.get(i);
     }
 
     public boolean removeLetter(UUID playerId, UUID letterId) {
-        if (playerId == null || letterId == null) return false;
+        Inbox box = inbox.get(playerId);
+        if (box == null || letterId == null) return false;
 
-        List<Letter> list = getInbox(playerId); // ensures mutable + sanitizes nulls
-        boolean removed = list.removeIf(l -> l != null && letterId.equals(l.id()));
-        if (removed) setDirty();
-        return removed;
+        int i = box.indexOf(letterId);
+        if (i < 0) return false;
+        box.removeAt(i);
+        if (box.size() == 0) inbox.remove(playerId);
+        setDirty();
+        return true;
     }
 
     public boolean replaceLetter(UUID player, Letter updated) {
         if (updated == null || updated.id() == null) return false;
 
-        List<Letter> list = getInbox(player);
-        for (int i = 0; i < list.size(); i++) {
-            Letter cur = list.get(i);
-            if (cur == null) continue;
-
-            if (cur.id().equals(updated.id())) {
-                list.set(i, updated);
-                setDirty();
-                return true;
-            }
-        }
-        return false;
+        Inbox box = inbox.get(player);
+        if (box == null) return false;
+        int i = box.indexOf(updated.id());
+        if (i < 0) return false;
+        box.set(i, updated);
+        setDirty();
+        return true;
     }
 }
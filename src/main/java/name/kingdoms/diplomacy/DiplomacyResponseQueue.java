@@ -14,10 +14,13 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 
-import java.util.ArrayDeque;
-import java.util.Iterator;
 import java.util.UUID;
 
+/**
+ * Delayed AI replies to player letters, and quick AI proposals. Entries live in
+ * {@link DiplomacyResponseQueueState} (persisted, ordered by due game time); each tick handles only
+ * the entries that are due.
+ */
 public final class DiplomacyResponseQueue {
 
     
@@ -41,7 +44,7 @@ public final class DiplomacyResponseQueue {
 
 
 
-    private record PendingMail(
+    record PendingMail(
             UUID playerId,
             UUID aiId,
             Letter.Kind kind,
@@ -50,20 +53,15 @@ public final class DiplomacyResponseQueue {
             double maxAmount,
             Letter.CasusBelli cb,
             String note,
-            boolean inPerson,
-            long dueTick
+            boolean inPerson
     ) {}
 
 
-    private record PendingProposal(
+    record PendingProposal(
             UUID playerId,
-            UUID aiId,
-            long dueTick
+            UUID aiId
     ) {}
 
-    private static final ArrayDeque<PendingMail> MAIL = new ArrayDeque<>();
-    private static final ArrayDeque<PendingProposal> PROPOSALS = new ArrayDeque<>();
-
     private DiplomacyResponseQueue() {}
 
     public static void init() {
@@ -90,18 +88,17 @@ public final class DiplomacyResponseQueue {
                                  Letter.CasusBelli cb,
                                  String note) {
 
-        long now = server.getTickCount();
+        long now = server.overworld().getGameTime();
         long delay = computeDelayTicks(server, false);
-        MAIL.add(new PendingMail(
+        DiplomacyResponseQueueState.get(server).addMail(new PendingMail(
                 playerId, aiId, kind,
                 aType, aAmount,
                 bType, bAmount,
                 maxAmount,
                 cb,
                 note == null ? "" : note,
-                false,
-                now + delay
-        ));
+                false
+        ), now + delay);
     }
 
     public static void queueMailInPerson(MinecraftServer server,
@@ -113,26 +110,25 @@ public final class DiplomacyResponseQueue {
                                         Letter.CasusBelli cb,
                                         String note) {
 
-        long now = server.getTickCount();
+        long now = server.overworld().getGameTime();
         long delay = computeDelayTicks(server, true); // fast
-        MAIL.add(new PendingMail(
+        DiplomacyResponseQueueState.get(server).addMail(new PendingMail(
                 playerId, aiId, kind,
                 aType, aAmount,
                 bType, bAmount,
                 maxAmount,
                 cb,
                 note == null ? "" : note,
-                true,
-                now + delay
-        ));
+                true
+        ), now + delay);
     }
 
 
     /** Queue a fast “proposal from AI” (diplo screen button). */
     public static void queueProposal(MinecraftServer server, UUID playerId, UUID aiId) {
-        long now = server.getTickCount();
+        long now = server.overworld().getGameTime();
         long delay = computeDelayTicks(server, true);
-        PROPOSALS.add(new PendingProposal(playerId, aiId, now + delay));
+        DiplomacyResponseQueueState.get(server).addProposal(new PendingProposal(playerId, aiId), now + delay);
     }
 
     private static long computeDelayTicks(MinecraftServer server, boolean fast) {
@@ -196,10 +192,16 @@ public final class DiplomacyResponseQueue {
     }
 
     private static void tickInternal(MinecraftServer server) {
-        long now = server.getTickCount();
         ServerLevel level = server.overworld();
         if (level == null) return;
 
+        var queue = DiplomacyResponseQueueState.get(server);
+        long gameTime = level.getGameTime();
+
+        DiplomacyResponseQueueState.Entry e = queue.pollDue(gameTime);
+        if (e == null) return;
+
+        long now = server.getTickCount();
         var ks = kingdomState.get(server);
         var aiState = aiKingdomState.get(server);
         var mailbox = DiplomacyMailboxState.get(level);
@@ -209,451 +211,451 @@ public final class DiplomacyResponseQueue {
         var alliance = name.kingdoms.diplomacy.AllianceState.get(server);
         var warState = name.kingdoms.war.WarState.get(server);
 
-        // ---- proposals ----
-        for (Iterator<PendingProposal> it = PROPOSALS.iterator(); it.hasNext();) {
-            PendingProposal p = it.next();
-            if (p.dueTick > now) continue;
+        for (; e != null; e = queue.pollDue(gameTime)) {
+            if (e.proposal() != null) {
+                deliverProposal(server, level, mailbox, e.proposal(), now);
+            } else if (e.mail() != null) {
+                respond(server, ks, aiState, mailbox, news, relState, alliance, warState, e.mail(), e.id(), now);
+            }
+        }
+    }
 
-            Letter proposal = DiplomacyMailGenerator.makeImmediateProposal(level, server, p.aiId, p.playerId, now);
-            if (proposal != null) {
-                mailbox.addLetter(p.playerId, proposal);
+    private static void deliverProposal(MinecraftServer server, ServerLevel level, DiplomacyMailboxState mailbox,
+                                        PendingProposal p, long now) {
+        Letter proposal = DiplomacyMailGenerator.makeImmediateProposal(level, server, p.aiId, p.playerId, now);
+        if (proposal != null) {
+            mailbox.addLetter(p.playerId, proposal);
 
-                ServerPlayer sp = server.getPlayerList().getPlayer(p.playerId);
-                if (sp != null) {
-                    serverMail.syncInbox(sp, mailbox.getInbox(p.playerId));
-                }
+            ServerPlayer sp = server.getPlayerList().getPlayer(p.playerId);
+            if (sp != null) {
+                serverMail.letterAdded(sp, mailbox, proposal);
             }
+        }
+    }
 
-            it.remove();
+    private static void respond(MinecraftServer server,
+                                kingdomState ks, aiKingdomState aiState,
+                                DiplomacyMailboxState mailbox, KingdomNewsState news,
+                                DiplomacyRelationsState relState, AllianceState alliance,
+                                name.kingdoms.war.WarState warState,
+                                PendingMail p, UUID outcomeId, long now) {
+        var playerK = ks.getPlayerKingdom(p.playerId);
+        var aiK = aiState.getById(p.aiId);
+
+        // If player left kingdom or AI disappeared, drop.
+        if (playerK == null || aiK == null) {
+            return;
         }
 
-        // ---- mail responses ----
-        for (Iterator<PendingMail> it = MAIL.iterator(); it.hasNext();) {
-            PendingMail p = it.next();
-            if (p.dueTick > now) continue;
+        // -----------------------------
+        // HARD ability checks (execute)
+        // -----------------------------
 
-            var playerK = ks.getPlayerKingdom(p.playerId);
-            var aiK = aiState.getById(p.aiId);
+        // Can AI afford what it would need to GIVE? (REQUEST/CONTRACT/ULTIMATUM)
+        boolean aiCanGiveA = switch (p.kind) {
+            case REQUEST, CONTRACT, ULTIMATUM -> networkInit.getAi(aiK, p.aType) >= p.aAmount;
+            default -> true;
+        };
 
-            // If player left kingdom or AI disappeared, drop.
-            if (playerK == null || aiK == null) {
-                it.remove();
-                continue;
-            }
+        // Can player afford what it would need to GIVE? (OFFER gives A; CONTRACT gives B)
+        boolean playerCanGive = switch (p.kind) {
+            case OFFER -> getPlayerStock(playerK, p.aType) >= p.aAmount;
+            case CONTRACT -> (p.bType != null) && (getPlayerStock(playerK, p.bType) >= p.bAmount);
+            default -> true;
+        };
 
-            // -----------------------------
-            // HARD ability checks (execute)
-            // -----------------------------
-
-            // Can AI afford what it would need to GIVE? (REQUEST/CONTRACT/ULTIMATUM)
-            boolean aiCanGiveA = switch (p.kind) {
-                case REQUEST, CONTRACT, ULTIMATUM -> networkInit.getAi(aiK, p.aType) >= p.aAmount;
-                default -> true;
-            };
-
-            // Can player afford what it would need to GIVE? (OFFER gives A; CONTRACT gives B)
-            boolean playerCanGive = switch (p.kind) {
-                case OFFER -> getPlayerStock(playerK, p.aType) >= p.aAmount;
-                case CONTRACT -> (p.bType != null) && (getPlayerStock(playerK, p.bType) >= p.bAmount);
-                default -> true;
-            };
-
-            boolean canExecuteIfAccepted = aiCanGiveA && playerCanGive;
-
-            // -----------------------------
-            // Get relation + personality
-            // -----------------------------
-            int baseRel = relState.getRelation(p.playerId, p.aiId);
-            int rel = PressureUtil.effectiveRelation(server, baseRel, playerK.id, p.aiId);
-
-            // --- OUTGOING happiness -> relation modifier (A) ---
-            double hEff = ks.happinessWithPressure(server, playerK); // pressure-aware happiness
-            double relMult = outgoingRelMultFromHappiness(hEff);
-            rel = applyRelMult(rel, relMult);
-            rel = clampRel(rel);
-
-
-
-            var pers = aiK.personality;
-
-            // -----------------------------
-            // Evaluate (server RNG, not Math.random)
-            // -----------------------------
-            var rng = server.overworld().getRandom();
-
-            // --- build context for "relevant factors" ---
-            boolean alliedNow = alliance.isAllied(playerK.id, aiK.id);
-            boolean atWarWithOther = warState.isAtWar(playerK.id, aiK.id);
-            boolean atWarWithAnyone = warState.isAtWarWithAny(aiK.id);
-
-            // simple enemy count approximation for now (0/1 is fine)
-            int enemyApprox = atWarWithAnyone ? 1 : 0;
-
-            // AI soldiers (from ai state)
-            int aiSoldiers = Math.max(0, aiK.aliveSoldiers);
-
-            // Player estimate: garrisons * 50 (fallback 0 if not present)
-            int garrisons = playerK.active.getOrDefault("garrison", 0);
-            int otherSoldiersEst = garrisons * 50;
-
-            // AI ally count
-            int aiAllyCount = alliance.alliesOf(aiK.id).size();
-
-            var ctxEval = new DiplomacyEvaluator.Context(
-                    rel,
-                    alliedNow,
-                    atWarWithOther,
-                    atWarWithAnyone,
-                    aiAllyCount,
-                    enemyApprox,
-                    aiSoldiers,
-                    otherSoldiersEst
-            );
-
-            var res = DiplomacyEvaluator.decide(
-                    rng,
-                    p.kind,
-                    pers,
-                    aiK,
-                    ctxEval,
-                    p.aType, p.aAmount,
-                    p.bType, p.bAmount,
-                    p.maxAmount,
-                    p.inPerson
-            );
-
-            // Apply relation delta (clamped inside DiplomacyRelationsState)
-            if (p.kind != Letter.Kind.ALLIANCE_PROPOSAL
-                    && p.kind != Letter.Kind.WAR_DECLARATION
-                    && p.kind != Letter.Kind.ULTIMATUM
-                    && res.relationDelta() != 0) {
-                relState.addRelation(p.playerId, p.aiId, res.relationDelta());
+        boolean canExecuteIfAccepted = aiCanGiveA && playerCanGive;
+
+        // -----------------------------
+        // Get relation + personality
+        // -----------------------------
+        int baseRel = relState.getRelation(p.playerId, p.aiId);
+        int rel = PressureUtil.effectiveRelation(server, baseRel, playerK.id, p.aiId);
+
+        // --- OUTGOING happiness -> relation modifier (A) ---
+        double hEff = ks.happinessWithPressure(server, playerK); // pressure-aware happiness
+        double relMult = outgoingRelMultFromHappiness(hEff);
+        rel = applyRelMult(rel, relMult);
+        rel = clampRel(rel);
+
+
+
+        var pers = aiK.personality;
+
+        // -----------------------------
+        // Evaluate (server RNG, not Math.random)
+        // -----------------------------
+        var rng = server.overworld().getRandom();
+
+        // --- build context for "relevant factors" ---
+        boolean alliedNow = alliance.isAllied(playerK.id, aiK.id);
+        boolean atWarWithOther = warState.isAtWar(playerK.id, aiK.id);
+        boolean atWarWithAnyone = warState.isAtWarWithAny(aiK.id);
+
+        // simple enemy count approximation for now (0/1 is fine)
+        int enemyApprox = atWarWithAnyone ? 1 : 0;
+
+        // AI soldiers (from ai state)
+        int aiSoldiers = Math.max(0, aiK.aliveSoldiers);
+
+        // Player estimate: garrisons * 50 (fallback 0 if not present)
+        int garrisons = playerK.active.getOrDefault("garrison", 0);
+        int otherSoldiersEst = garrisons * 50;
+
+        // AI ally count
+        int aiAllyCount = alliance.alliesOf(aiK.id).size();
+
+        var ctxEval = new DiplomacyEvaluator.Context(
+                rel,
+                alliedNow,
+                atWarWithOther,
+                atWarWithAnyone,
+                aiAllyCount,
+                enemyApprox,
+                aiSoldiers,
+                otherSoldiersEst
+        );
+
+        var res = DiplomacyEvaluator.decide(
+                rng,
+                p.kind,
+                pers,
+                aiK,
+                ctxEval,
+                p.aType, p.aAmount,
+                p.bType, p.bAmount,
+                p.maxAmount,
+                p.inPerson
+        );
+
+        // Apply relation delta (clamped inside DiplomacyRelationsState)
+        if (p.kind != Letter.Kind.ALLIANCE_PROPOSAL
+                && p.kind != Letter.Kind.WAR_DECLARATION
+                && p.kind != Letter.Kind.ULTIMATUM
+                && res.relationDelta() != 0) {
+            relState.addRelation(p.playerId, p.aiId, res.relationDelta());
+        }
+
+        boolean accepted = (res.decision() == DiplomacyEvaluator.Decision.ACCEPT);
+        boolean counter = (res.decision() == DiplomacyEvaluator.Decision.COUNTER);
+
+        // If evaluator accepted but we cannot actually execute the transfer, force refusal.
+        String extraNote = res.note() == null ? "" : res.note();
+        if (accepted && !canExecuteIfAccepted) {
+            accepted = false;
+            counter = false;
+            if (extraNote.isBlank()) {
+                extraNote = "We cannot fulfill those terms.";
+            } else {
+                extraNote = extraNote + " (We cannot fulfill those terms.)";
             }
+        }
 
-            boolean accepted = (res.decision() == DiplomacyEvaluator.Decision.ACCEPT);
-            boolean counter = (res.decision() == DiplomacyEvaluator.Decision.COUNTER);
+        // -----------------------------
+        // Peace letters (player -> AI): WHITE_PEACE / SURRENDER
+        // -----------------------------
+        if (p.kind == Letter.Kind.WHITE_PEACE || p.kind == Letter.Kind.SURRENDER) {
 
-            // If evaluator accepted but we cannot actually execute the transfer, force refusal.
-            String extraNote = res.note() == null ? "" : res.note();
-            if (accepted && !canExecuteIfAccepted) {
+            // Only meaningful if actually at war
+            if (!warState.isAtWar(playerK.id, aiK.id)) {
                 accepted = false;
                 counter = false;
-                if (extraNote.isBlank()) {
-                    extraNote = "We cannot fulfill those terms.";
-                } else {
-                    extraNote = extraNote + " (We cannot fulfill those terms.)";
-                }
-            }
-
-            // -----------------------------
-            // Peace letters (player -> AI): WHITE_PEACE / SURRENDER
-            // -----------------------------
-            if (p.kind == Letter.Kind.WHITE_PEACE || p.kind == Letter.Kind.SURRENDER) {
-
-                // Only meaningful if actually at war
-                if (!warState.isAtWar(playerK.id, aiK.id)) {
-                    accepted = false;
-                    counter = false;
-                    if (extraNote.isBlank()) extraNote = "We are not at war.";
-                } else {
-                    int aiAlive = Math.max(0, aiK.aliveSoldiers);
-                    int aiTotal = Math.max(1, aiK.maxSoldiers);
-
-                    // Player estimate: garrisons*50 tickets (alive assumed = total for now)
-                    int garrisonsPeace = playerK.active.getOrDefault("garrison", 0);
-                    int enemyTotal = Math.max(1, garrisonsPeace * 50);
-                    int enemyAlive = enemyTotal;
-
-                    var pd = PeaceEvaluator.decideAccept(
-                            rng,
-                            aiAlive, aiTotal,
-                            enemyAlive, enemyTotal
-                    );
-
-                    accepted = (pd == PeaceEvaluator.Decision.ACCEPT);
-                    counter = false;
+                if (extraNote.isBlank()) extraNote = "We are not at war.";
+            } else {
+                int aiAlive = Math.max(0, aiK.aliveSoldiers);
+                int aiTotal = Math.max(1, aiK.maxSoldiers);
+
+                // Player estimate: garrisons*50 tickets (alive assumed = total for now)
+                int garrisonsPeace = playerK.active.getOrDefault("garrison", 0);
+                int enemyTotal = Math.max(1, garrisonsPeace * 50);
+                int enemyAlive = enemyTotal;
+
+                var pd = PeaceEvaluator.decideAccept(
+                        rng,
+                        aiAlive, aiTotal,
+                        enemyAlive, enemyTotal
+                );
+
+                accepted = (pd == PeaceEvaluator.Decision.ACCEPT);
+                counter = false;
 
-                    if (accepted) {
+                if (accepted) {
 
-                        if (p.kind == Letter.Kind.SURRENDER) {
-                            name.kingdoms.network.networkInit.applyDefeatPenalty(server, playerK.id);
-                        }
-                        warState.makePeace(playerK.id, aiK.id);
-                        if (extraNote.isBlank()) extraNote = "Peace accepted.";
-                        relState.addRelation(p.playerId, p.aiId, +10);
-
-                        // --- Sync updated war zones to the player immediately after AI accepts peace ---
-                        {
-                            ServerPlayer spPeace = server.getPlayerList().getPlayer(p.playerId);
-                            if (spPeace != null) {
-                                var out = new java.util.ArrayList<name.kingdoms.payload.warZonesSyncPayload.Entry>();
-                                var ks2 = kingdomState.get(server);
-                                var ai2 = aiKingdomState.get(server);
-
-                                for (var zv : warState.getZonesFor(server, playerK.id)) {
-                                    var enemyId = zv.enemyId();
-                                    var zone = zv.zone();
-
-                                    var ek = ks2.getKingdom(enemyId);
-                                    String enemyName =
-                                            (ek != null && ek.name != null && !ek.name.isBlank())
-                                                    ? ek.name
-                                                    : ai2.getNameById(enemyId);
-
-                                    out.add(new name.kingdoms.payload.warZonesSyncPayload.Entry(
-                                            enemyId, enemyName,
-                                            zone.minX(), zone.minZ(), zone.maxX(), zone.maxZ()
-                                    ));
-                                }
-
-                                ServerPlayNetworking.send(spPeace, new name.kingdoms.payload.warZonesSyncPayload(out));
+                    if (p.kind == Letter.Kind.SURRENDER) {
+                        name.kingdoms.network.networkInit.applyDefeatPenalty(server, playerK.id);
+                    }
+                    warState.makePeace(playerK.id, aiK.id);
+                    if (extraNote.isBlank()) extraNote = "Peace accepted.";
+                    relState.addRelation(p.playerId, p.aiId, +10);
+
+                    // --- Sync updated war zones to the player immediately after AI accepts peace ---
+                    {
+                        ServerPlayer spPeace = server.getPlayerList().getPlayer(p.playerId);
+                        if (spPeace != null) {
+                            var out = new java.util.ArrayList<name.kingdoms.payload.warZonesSyncPayload.Entry>();
+                            var ks2 = kingdomState.get(server);
+                            var ai2 = aiKingdomState.get(server);
+
+                            for (var zv : warState.getZonesFor(server, playerK.id)) {
+                                var enemyId = zv.enemyId();
+                                var zone = zv.zone();
+
+                                var ek = ks2.getKingdom(enemyId);
+                                String enemyName =
+                                        (ek != null && ek.name != null && !ek.name.isBlank())
+                                                ? ek.name
+                                                : ai2.getNameById(enemyId);
+
+                                out.add(new name.kingdoms.payload.warZonesSyncPayload.Entry(
+                                        enemyId, enemyName,
+                                        zone.minX(), zone.minZ(), zone.maxX(), zone.maxZ()
+                                ));
                             }
-                        }
 
-                    } else {
-                        if (extraNote.isBlank()) extraNote = "We will fight on.";
+                            ServerPlayNetworking.send(spPeace, new name.kingdoms.payload.warZonesSyncPayload(out));
+                        }
                     }
-                }
 
-                // peace letters are non-economic
-                canExecuteIfAccepted = true;
+                } else {
+                    if (extraNote.isBlank()) extraNote = "We will fight on.";
+                }
             }
 
-            // -----------------------------
-            // War declaration (player -> AI): declare war immediately + fixed relation hit
-            // -----------------------------
-            if (p.kind == Letter.Kind.WAR_DECLARATION) {
-                warState.declareWar(server, playerK.id, aiK.id);
-                relState.addRelation(p.playerId, p.aiId, -80);
+            // peace letters are non-economic
+            canExecuteIfAccepted = true;
+        }
 
-                canExecuteIfAccepted = true;
-                accepted = true;
-                counter = false;
+        // -----------------------------
+        // War declaration (player -> AI): declare war immediately + fixed relation hit
+        // -----------------------------
+        if (p.kind == Letter.Kind.WAR_DECLARATION) {
+            warState.declareWar(server, playerK.id, aiK.id);
+            relState.addRelation(p.playerId, p.aiId, -80);
 
-                if (extraNote.isBlank()) extraNote = "War declared.";
-            }
+            canExecuteIfAccepted = true;
+            accepted = true;
+            counter = false;
 
-            // -----------------------------
-            // Alliance proposal handling (player -> AI)
-            // -----------------------------
-            if (p.kind == Letter.Kind.ALLIANCE_PROPOSAL) {
+            if (extraNote.isBlank()) extraNote = "War declared.";
+        }
 
-                if (accepted) {
-                    if (warState.isAtWar(playerK.id, aiK.id)) {
-                        accepted = false;
-                        counter = false;
-                        if (extraNote.isBlank()) extraNote = "We cannot ally while at war.";
-                    }
-                    else if (!alliance.canAlly(playerK.id, aiK.id)) {
-                        accepted = false;
-                        counter = false;
-                        if (extraNote.isBlank()) extraNote = "We cannot maintain more alliances.";
-                    } else {
-                        alliance.addAlliance(playerK.id, aiK.id);
-                        relState.addRelation(p.playerId, p.aiId, +30);
-                        if (extraNote.isBlank()) extraNote = "Alliance accepted.";
-                    }
+        // -----------------------------
+        // Alliance proposal handling (player -> AI)
+        // -----------------------------
+        if (p.kind == Letter.Kind.ALLIANCE_PROPOSAL) {
+
+            if (accepted) {
+                if (warState.isAtWar(playerK.id, aiK.id)) {
+                    accepted = false;
+                    counter = false;
+                    if (extraNote.isBlank()) extraNote = "We cannot ally while at war.";
+                }
+                else if (!alliance.canAlly(playerK.id, aiK.id)) {
+                    accepted = false;
+                    counter = false;
+                    if (extraNote.isBlank()) extraNote = "We cannot maintain more alliances.";
                 } else {
-                    relState.addRelation(p.playerId, p.aiId, -10);
-                    if (extraNote.isBlank()) extraNote = "We decline.";
+                    alliance.addAlliance(playerK.id, aiK.id);
+                    relState.addRelation(p.playerId, p.aiId, +30);
+                    if (extraNote.isBlank()) extraNote = "Alliance accepted.";
                 }
-
-                canExecuteIfAccepted = true;
+            } else {
+                relState.addRelation(p.playerId, p.aiId, -10);
+                if (extraNote.isBlank()) extraNote = "We decline.";
             }
 
-            // -----------------------------
-            // Apply economic transfer IF accepted
-            // -----------------------------
-            if (accepted) {
-                String pn = (playerK.name == null || playerK.name.isBlank()) ? "Player Kingdom" : playerK.name;
-                String an = (aiK.name == null || aiK.name.isBlank()) ? "AI Kingdom" : aiK.name;
-
-                switch (p.kind) {
-                    case REQUEST -> {
-                        // AI gives A to player
-                        networkInit.addAi(aiK, p.aType, -p.aAmount);
-                        EconomyMutator.add(playerK, p.aType, +p.aAmount);
-                        relState.addRelation(p.playerId, p.aiId, +3);
-                        
-                        addLocalNews(server, news,
-                                playerK,
-                                "[TRADE] " + an + " fulfilled a request from " + pn + " (" +
-                                        fmt(p.aAmount) + " " + p.aType + ")."
-                        );
-
-                        ks.markDirty();
-                        aiState.setDirty();
-                    }
-                    case OFFER -> {
-                        // Player gives A to AI
-                        EconomyMutator.add(playerK, p.aType, -p.aAmount);
-                        networkInit.addAi(aiK, p.aType, +p.aAmount);
-                        relState.addRelation(p.playerId, p.aiId, +3);
-
-                        addLocalNews(server, news,
-                                playerK,
-                                "[TRADE] " + pn + " sent an offer to " + an + " (" +
-                                        fmt(p.aAmount) + " " + p.aType + ")."
-                        );
-
-                        ks.markDirty();
-                        aiState.setDirty();
-                    }
-
-                    case CONTRACT -> {
-                        // AI gives A to player
-                        networkInit.addAi(aiK, p.aType, -p.aAmount);
-                        EconomyMutator.add(playerK, p.aType, +p.aAmount);
-                        relState.addRelation(p.playerId, p.aiId, +3);
-
-                        // Player gives B to AI
-                        if (p.bType != null) {
-                            EconomyMutator.add(playerK, p.bType, -p.bAmount);
-                            networkInit.addAi(aiK, p.bType, +p.bAmount);
-                        }
+            canExecuteIfAccepted = true;
+        }
 
-                        addLocalNews(server, news,
-                                playerK,
-                                "[TRADE] " + pn + " and " + an + " signed a contract: " +
-                                        fmt(p.bAmount) + " " + p.bType + " → " + fmt(p.aAmount) + " " + p.aType +
-                                        " (cap " + fmt(p.maxAmount) + ")."
-                        );
+        // -----------------------------
+        // Apply economic transfer IF accepted
+        // -----------------------------
+        if (accepted) {
+            String pn = (playerK.name == null || playerK.name.isBlank()) ? "Player Kingdom" : playerK.name;
+            String an = (aiK.name == null || aiK.name.isBlank()) ? "AI Kingdom" : aiK.name;
 
-                        ks.markDirty();
-                        aiState.setDirty();
-                    }
-                    default -> {}
-                }
-            }
-
-            // Ultimatum special: refused -> war; accepted -> transfer (same as REQUEST)
-            if (p.kind == Letter.Kind.ULTIMATUM) {
-                if (accepted) {
+            switch (p.kind) {
+                case REQUEST -> {
+                    // AI gives A to player
                     networkInit.addAi(aiK, p.aType, -p.aAmount);
                     EconomyMutator.add(playerK, p.aType, +p.aAmount);
+                    relState.addRelation(p.playerId, p.aiId, +3);
+                    
+                    addLocalNews(server, news,
+                            playerK,
+                            "[TRADE] " + an + " fulfilled a request from " + pn + " (" +
+                                    fmt(p.aAmount) + " " + p.aType + ")."
+                    );
+
                     ks.markDirty();
                     aiState.setDirty();
-                    relState.addRelation(p.playerId, p.aiId, -80);
-                } else {
-                    warState.declareWar(server, playerK.id, aiK.id);
-                    relState.addRelation(p.playerId, p.aiId, -80);
                 }
-            }
-
-            // -----------------------------
-            // Build response letters (AiLetterText-driven)
-            // -----------------------------
-            String aiName = (aiK.name == null || aiK.name.isBlank()) ? "Unknown Kingdom" : aiK.name;
-            String toName = (playerK.name == null || playerK.name.isBlank()) ? "your kingdom" : playerK.name;
-            String subject = buildOutcomeSubject(p.kind, accepted);
-
-
-            long defaultExpires = now + (20L * 60L * 10L);
-
-            // 1) Always send an OUTCOME letter (ACCEPTED / REFUSED) with AiLetterText outcome body.
-            String outcomeNote = AiLetterText.generateOutcome(
-                    rng,
-                    p.kind,
-                    accepted,
-                    aiName,
-                    toName,
-                    rel,
-                    aiK.personality,
-                    p.aType, p.aAmount,
-                    p.bType, p.bAmount,
-                    p.maxAmount,
-                    p.cb
-            );
-
-            // If you still want to append evaluator-specific explanation sometimes:
-            if (!extraNote.isBlank()) {
-                // Keep it short; append as a second sentence.
-                outcomeNote = outcomeNote.isBlank() ? extraNote : (outcomeNote + " " + extraNote);
-            }
-
-            // Outcome letter mirrors the original terms but is resolved (not actionable)
-            Letter outcome = new Letter(
-                    UUID.randomUUID(),
-                    aiK.id,
-                    p.playerId,
-                    false,
-                    aiName,
-                    p.kind,
-                    accepted ? Letter.Status.ACCEPTED : Letter.Status.REFUSED,
-                    now,
-                    0L,
-                    p.aType, p.aAmount,
-                    p.bType, p.bAmount,
-                    p.maxAmount,
-                    p.cb,
-                    subject,
-                    outcomeNote
-            );
-
-
-            mailbox.addLetter(p.playerId, outcome);
-
-            // 2) If COUNTER, send a second PENDING letter with the new terms (actionable)
-            if (counter) {
-                // Decide what the counter letter actually is
-                Letter counterLetter = null;
-
-                if (p.kind == Letter.Kind.CONTRACT && res.counterWantType() != null && res.counterWantAmt() > 0) {
-                    // Counter-contract: same A, different B
-                    ResourceType aType = p.aType;
-                    double aAmt = p.aAmount;
-                    ResourceType bType = res.counterWantType();
-                    double bAmt = res.counterWantAmt();
-                    double cap = p.maxAmount;
-
-                    String counterNote = AiLetterText.generateEconomic(
-                            rng, Letter.Kind.CONTRACT, aiName, toName, rel, aiK.personality,
-                            aType, aAmt, bType, bAmt, cap
+                case OFFER -> {
+                    // Player gives A to AI
+                    EconomyMutator.add(playerK, p.aType, -p.aAmount);
+                    networkInit.addAi(aiK, p.aType, +p.aAmount);
+                    relState.addRelation(p.playerId, p.aiId, +3);
+
+                    addLocalNews(server, news,
+                            playerK,
+                            "[TRADE] " + pn + " sent an offer to " + an + " (" +
+                                    fmt(p.aAmount) + " " + p.aType + ")."
                     );
 
-                    counterLetter = Letter.contract(
-                            aiK.id, true, aiName, p.playerId,
-                            aType, aAmt,
-                            bType, bAmt,
-                            cap,
-                            now, defaultExpires,
-                            counterNote
-                    );
+                    ks.markDirty();
+                    aiState.setDirty();
+                }
 
-                } else if (p.kind == Letter.Kind.REQUEST && res.counterGiveType() != null && res.counterGiveAmt() > 0) {
-                    // Player REQUESTed AI give A; AI counters by OFFERing a smaller amount
-                    ResourceType giveT = res.counterGiveType();
-                    double giveA = res.counterGiveAmt();
+                case CONTRACT -> {
+                    // AI gives A to player
+                    networkInit.addAi(aiK, p.aType, -p.aAmount);
+                    EconomyMutator.add(playerK, p.aType, +p.aAmount);
+                    relState.addRelation(p.playerId, p.aiId, +3);
 
-                    String counterNote = AiLetterText.generateEconomic(
-                            rng, Letter.Kind.OFFER, aiName, toName, rel, aiK.personality,
-                            giveT, giveA, null, 0.0, 0.0
-                    );
+                    // Player gives B to AI
+                    if (p.bType != null) {
+                        EconomyMutator.add(playerK, p.bType, -p.bAmount);
+                        networkInit.addAi(aiK, p.bType, +p.bAmount);
+                    }
 
-                    counterLetter = Letter.offer(
-                            aiK.id, true, aiName, p.playerId,
-                            giveT, giveA,
-                            now, defaultExpires,
-                            counterNote
+                    addLocalNews(server, news,
+                            playerK,
+                            "[TRADE] " + pn + " and " + an + " signed a contract: " +
+                                    fmt(p.bAmount) + " " + p.bType + " → " + fmt(p.aAmount) + " " + p.aType +
+                                    " (cap " + fmt(p.maxAmount) + ")."
                     );
-                }
 
-                if (counterLetter != null) {
-                    // keep it actionable
-                    // (Status is already PENDING in the factory)
-                    mailbox.addLetter(p.playerId, counterLetter);
+                    ks.markDirty();
+                    aiState.setDirty();
                 }
+                default -> {}
             }
+        }
 
-            // Sync player inbox + economy view
-            ServerPlayer sp = server.getPlayerList().getPlayer(p.playerId);
-            if (sp != null) {
-                serverMail.syncInbox(sp, mailbox.getInbox(p.playerId));
-                ServerPlayNetworking.send(sp, ecoSyncPayload.fromKingdomWithProjected(server, playerK));
+        // Ultimatum special: refused -> war; accepted -> transfer (same as REQUEST)
+        if (p.kind == Letter.Kind.ULTIMATUM) {
+            if (accepted) {
+                networkInit.addAi(aiK, p.aType, -p.aAmount);
+                EconomyMutator.add(playerK, p.aType, +p.aAmount);
+                ks.markDirty();
+                aiState.setDirty();
+                relState.addRelation(p.playerId, p.aiId, -80);
+            } else {
+                warState.declareWar(server, playerK.id, aiK.id);
+                relState.addRelation(p.playerId, p.aiId, -80);
             }
+        }
 
-            it.remove();
+        // -----------------------------
+        // Build response letters (AiLetterText-driven)
+        // -----------------------------
+        String aiName = (aiK.name == null || aiK.name.isBlank()) ? "Unknown Kingdom" : aiK.name;
+        String toName = (playerK.name == null || playerK.name.isBlank()) ? "your kingdom" : playerK.name;
+        String subject = buildOutcomeSubject(p.kind, accepted);
+
+
+        long defaultExpires = now + (20L * 60L * 10L);
+
+        // 1) Always send an OUTCOME letter (ACCEPTED / REFUSED) with AiLetterText outcome body.
+        String outcomeNote = AiLetterText.generateOutcome(
+                rng,
+                p.kind,
+                accepted,
+                aiName,
+                toName,
+                rel,
+                aiK.personality,
+                p.aType, p.aAmount,
+                p.bType, p.bAmount,
+                p.maxAmount,
+                p.cb
+        );
+
+        // If you still want to append evaluator-specific explanation sometimes:
+        if (!extraNote.isBlank()) {
+            // Keep it short; append as a second sentence.
+            outcomeNote = outcomeNote.isBlank() ? extraNote : (outcomeNote + " " + extraNote);
+        }
+
+        // Outcome letter mirrors the original terms but is resolved (not actionable)
+        Letter outcome = new Letter(
+                outcomeId,
+                aiK.id,
+                p.playerId,
+                false,
+                aiName,
+                p.kind,
+                accepted ? Letter.Status.ACCEPTED : Letter.Status.REFUSED,
+                now,
+                0L,
+                p.aType, p.aAmount,
+                p.bType, p.bAmount,
+                p.maxAmount,
+                p.cb,
+                subject,
+                outcomeNote
+        );
+
+
+        mailbox.addLetter(p.playerId, outcome);
+
+        // 2) If COUNTER, send a second PENDING letter with the new terms (actionable)
+        if (counter) {
+            // Decide what the counter letter actually is
+            Letter counterLetter = null;
+
+            if (p.kind == Letter.Kind.CONTRACT && res.counterWantType() != null && res.counterWantAmt() > 0) {
+                // Counter-contract: same A, different B
+                ResourceType aType = p.aType;
+                double aAmt = p.aAmount;
+                ResourceType bType = res.counterWantType();
+                double bAmt = res.counterWantAmt();
+                double cap = p.maxAmount;
+
+                String counterNote = AiLetterText.generateEconomic(
+                        rng, Letter.Kind.CONTRACT, aiName, toName, rel, aiK.personality,
+                        aType, aAmt, bType, bAmt, cap
+                );
+
+                counterLetter = Letter.contract(
+                        aiK.id, true, aiName, p.playerId,
+                        aType, aAmt,
+                        bType, bAmt,
+                        cap,
+                        now, defaultExpires,
+                        counterNote
+                );
+
+            } else if (p.kind == Letter.Kind.REQUEST && res.counterGiveType() != null && res.counterGiveAmt() > 0) {
+                // Player REQUESTed AI give A; AI counters by OFFERing a smaller amount
+                ResourceType giveT = res.counterGiveType();
+                double giveA = res.counterGiveAmt();
+
+                String counterNote = AiLetterText.generateEconomic(
+                        rng, Letter.Kind.OFFER, aiName, toName, rel, aiK.personality,
+                        giveT, giveA, null, 0.0, 0.0
+                );
+
+                counterLetter = Letter.offer(
+                        aiK.id, true, aiName, p.playerId,
+                        giveT, giveA,
+                        now, defaultExpires,
+                        counterNote
+                );
+            }
+
+            if (counterLetter != null) {
+                // keep it actionable
+                // (Status is already PENDING in the factory)
+                mailbox.addLetter(p.playerId, counterLetter);
+            }
+        }
 
+        // Sync player inbox + economy view
+        ServerPlayer sp = server.getPlayerList().getPlayer(p.playerId);
+        if (sp != null) {
+            serverMail.inboxChanged(sp, mailbox);
+            ServerPlayNetworking.send(sp, ecoSyncPayload.fromKingdomWithProjected(server, playerK));
         }
     }
 
@@ -0,0 +1,193 @@
+package name.kingdoms.diplomacy;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import name.kingdoms.AsyncSavedData;
+import name.kingdoms.AsyncStateSaver;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedDataType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Queued AI replies ({@link DiplomacyResponseQueue}), persisted so a restart does not drop them.
+ *
+ * A min-heap on due game time (then enqueue order): the tick only looks at the head. An add is written
+ * at the end of the tick it happens in ({@link AsyncStateSaver#saveSoon}), so a reply the player was
+ * promised survives a crash; deliveries are saved with the next world save.
+ *
+ * Taking an entry off the heap also records its id as applied (the last {@link #MAX_APPLIED} ids are
+ * kept and saved), and an entry whose id is already recorded is dropped instead of delivered, so a
+ * reply is never applied twice even if an older copy of the entry comes back.
+ */
+public final class DiplomacyResponseQueueState extends AsyncSavedData<DiplomacyResponseQueueState> {
+    private static final String DATA_NAME = "kingdoms_diplomacy_response_queue";
+
+    static final int MAX_APPLIED = 1024;
+
+    /** One queued reply: either a mail response or an AI proposal. {@code id} becomes the outcome letter's id. */
+    record Entry(
+            UUID id,
+            long seq,
+            long dueTick,
+            DiplomacyResponseQueue.PendingMail mail,          // nullable
+            DiplomacyResponseQueue.PendingProposal proposal   // nullable
+    ) {}
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingLong(Entry::dueTick).thenComparingLong(Entry::seq);
+
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(ORDER);
+    private long nextSeq = 1L;
+    // ids of delivered entries, oldest first
+    private final LinkedHashSet<UUID> applied = new LinkedHashSet<>();
+
+    public DiplomacyResponseQueueState() {}
+
+    // -------------------------------------------------
+    // CODECS
+    // -------------------------------------------------
+
+    private static final Codec<DiplomacyResponseQueue.PendingMail> MAIL_CODEC =
+            RecordCodecBuilder.create(inst -> inst.group(
+                    DiplomacyMailboxState.UUID_CODEC.fieldOf("player").forGetter(DiplomacyResponseQueue.PendingMail::playerId),
+                    DiplomacyMailboxState.UUID_CODEC.fieldOf("ai").forGetter(DiplomacyResponseQueue.PendingMail::aiId),
+                    DiplomacyMailboxState.KIND_CODEC.fieldOf("kind").forGetter(DiplomacyResponseQueue.PendingMail::kind),
+
+                    DiplomacyMailboxState.RESOURCE_CODEC.optionalFieldOf("aType").forGetter(p -> Optional.ofNullable(p.aType())),
+                    Codec.DOUBLE.optionalFieldOf("aAmt", 0.0).forGetter(DiplomacyResponseQueue.PendingMail::aAmount),
+
+                    DiplomacyMailboxState.RESOURCE_CODEC.optionalFieldOf("bType").forGetter(p -> Optional.ofNullable(p.bType())),
+                    Codec.DOUBLE.optionalFieldOf("bAmt", 0.0).forGetter(DiplomacyResponseQueue.PendingMail::bAmount),
+
+                    Codec.DOUBLE.optionalFieldOf("maxAmt", 0.0).forGetter(DiplomacyResponseQueue.PendingMail::maxAmount),
+                    DiplomacyMailboxState.CB_CODEC.optionalFieldOf("cb").forGetter(p -> Optional.ofNullable(p.cb())),
+                    Codec.STRING.optionalFieldOf("note", "").forGetter(DiplomacyResponseQueue.PendingMail::note),
+                    Codec.BOOL.optionalFieldOf("inPerson", false).forGetter(DiplomacyResponseQueue.PendingMail::inPerson)
+            ).apply(inst, (player, ai, kind, aType, aAmt, bType, bAmt, maxAmt, cb, note, inPerson) ->
+                    new DiplomacyResponseQueue.PendingMail(
+                            player, ai, kind,
+                            aType.orElse(null), aAmt,
+                            bType.orElse(null), bAmt,
+                            maxAmt,
+                            cb.orElse(null),
+                            note,
+                            inPerson
+                    )));
+
+    private static final Codec<DiplomacyResponseQueue.PendingProposal> PROPOSAL_CODEC =
+            RecordCodecBuilder.create(inst -> inst.group(
+                    DiplomacyMailboxState.UUID_CODEC.fieldOf("player").forGetter(DiplomacyResponseQueue.PendingProposal::playerId),
+                    DiplomacyMailboxState.UUID_CODEC.fieldOf("ai").forGetter(DiplomacyResponseQueue.PendingProposal::aiId)
+            ).apply(inst, DiplomacyResponseQueue.PendingProposal::new));
+
+    private static final Codec<Entry> ENTRY_CODEC =
+            RecordCodecBuilder.create(inst -> inst.group(
+                    DiplomacyMailboxState.UUID_CODEC.fieldOf("id").forGetter(Entry::id),
+                    Codec.LONG.fieldOf("seq").forGetter(Entry::seq),
+                    Codec.LONG.fieldOf("due").forGetter(Entry::dueTick),
+                    MAIL_CODEC.optionalFieldOf("mail").forGetter(e -> Optional.ofNullable(e.mail())),
+                    PROPOSAL_CODEC.optionalFieldOf("proposal").forGetter(e -> Optional.ofNullable(e.proposal()))
+            ).apply(inst, (id, seq, due, mail, proposal) ->
+                    new Entry(id, seq, due, mail.orElse(null), proposal.orElse(null))));
+
+    private static final Codec<DiplomacyResponseQueueState> CODEC =
+            RecordCodecBuilder.create(inst -> inst.group(
+                    ENTRY_CODEC.listOf().optionalFieldOf("entries", List.of()).forGetter(s -> new ArrayList<>(s.heap)),
+                    Codec.LONG.optionalFieldOf("nextSeq", 1L).forGetter(s -> s.nextSeq),
+                    DiplomacyMailboxState.UUID_CODEC.listOf().optionalFieldOf("applied", List.of())
+                            .forGetter(s -> new ArrayList<>(s.applied))
+            ).apply(inst, (entries, nextSeq, appliedIds) -> {
+                DiplomacyResponseQueueState s = new DiplomacyResponseQueueState();
+                s.nextSeq = Math.max(1L, nextSeq);
+                for (UUID id : appliedIds) s.markApplied(id);
+                for (Entry e : entries) {
+                    if (e == null || (e.mail() == null && e.proposal() == null)) continue;
+                    s.heap.add(e);
+                    s.nextSeq = Math.max(s.nextSeq, e.seq() + 1);
+                }
+                return s;
+            }));
+
+    public static final SavedDataType<DiplomacyResponseQueueState> TYPE =
+            new SavedDataType<>(DATA_NAME, DiplomacyResponseQueueState::new, CODEC, null);
+
+    public static DiplomacyResponseQueueState get(MinecraftServer server) {
+        ServerLevel overworld = server.getLevel(Level.OVERWORLD);
+        if (overworld == null) return new DiplomacyResponseQueueState();
+        return overworld.getDataStorage().computeIfAbsent(TYPE);
+    }
+
+    @Override
+    protected SavedDataType<DiplomacyResponseQueueState> saveType() {
+        return TYPE;
+    }
+
+    /** Entries are records, so copying the heap and the id set is enough. */
+    @Override
+    protected DiplomacyResponseQueueState snapshotForSave(RegistryOps<Tag> ops) {
+        DiplomacyResponseQueueState snap = new DiplomacyResponseQueueState();
+        snap.heap.addAll(heap);
+        snap.nextSeq = nextSeq;
+        snap.applied.addAll(applied);
+        return snap;
+    }
+
+    // -------------------------------------------------
+    // Queue
+    // -------------------------------------------------
+
+    void addMail(DiplomacyResponseQueue.PendingMail mail, long dueTick) {
+        add(new Entry(UUID.randomUUID(), nextSeq++, dueTick, mail, null));
+    }
+
+    void addProposal(DiplomacyResponseQueue.PendingProposal proposal, long dueTick) {
+        add(new Entry(UUID.randomUUID(), nextSeq++, dueTick, null, proposal));
+    }
+
+    private void add(Entry e) {
+        heap.add(e);
+        setDirty();
+        AsyncStateSaver.saveSoon(this);
+    }
+
+    /**
+     * Removes and returns the earliest entry if it is due at {@code nowTick}, else null. The entry's id is
+     * recorded as applied in the same step; entries already applied are dropped and skipped.
+     */
+    Entry pollDue(long nowTick) {
+        while (true) {
+            Entry head = heap.peek();
+            if (head == null || head.dueTick() > nowTick) return null;
+            heap.poll();
+            setDirty();
+            if (markApplied(head.id())) return head;
+        }
+    }
+
+    /** @return false if {@code id} was already applied */
+    private boolean markApplied(UUID id) {
+        if (!applied.add(id)) return false;
+        if (applied.size() > MAX_APPLIED) {
+            Iterator<UUID> it = applied.iterator();
+            it.next();
+            it.remove();
+        }
+        return true;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+}
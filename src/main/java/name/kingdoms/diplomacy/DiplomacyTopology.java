@@ -0,0 +1,228 @@
+package name.kingdoms.diplomacy;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import name.kingdoms.aiKingdomState;
+import name.kingdoms.kingdomState;
+import name.kingdoms.war.WarState;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.MinecraftServer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * AI kingdom ids plus, per AI kingdom, how many other AI kingdoms it is allied with / at war with.
+ *
+ * Built once from kingdomState, aiKingdomState, AllianceState and WarState (first use, or after one of
+ * them was replaced/imported), then kept current by hooks on alliance, war and kingdom add/remove.
+ * Only AI<->AI links count, same as the per-tick recount AiDiplomacyTicker used to do.
+ *
+ * A full recount every {@link #VERIFY_PERIOD_TICKS} corrects (and logs) any drift from changes that
+ * bypassed the hooks. Server thread only.
+ */
+public final class DiplomacyTopology {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private DiplomacyTopology() {}
+
+    private static final int VERIFY_PERIOD_TICKS = 1200;
+
+    // states the counts were built from; any other instance means "rebuild"
+    private static kingdomState ownerKs;
+    private static aiKingdomState ownerAi;
+    private static AllianceState ownerAlliance;
+    private static WarState ownerWar;
+    private static boolean valid;
+
+    private static final List<UUID> aiIds = new ArrayList<>();
+    private static final List<UUID> aiIdsView = Collections.unmodifiableList(aiIds);
+    private static final Set<UUID> aiSet = new HashSet<>();
+    private static final Object2IntOpenHashMap<UUID> allyDegree = new Object2IntOpenHashMap<>();
+    private static final Object2IntOpenHashMap<UUID> enemyDegree = new Object2IntOpenHashMap<>();
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (valid && server.getTickCount() % VERIFY_PERIOD_TICKS == 0) verify();
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> clear());
+    }
+
+    // ------------------------------------------------------------
+    // Queries
+    // ------------------------------------------------------------
+
+    /** AI kingdoms (present in both kingdomState and aiKingdomState). Live view; don't hold across ticks. */
+    public static List<UUID> aiIds(MinecraftServer server) {
+        ensure(server);
+        return aiIdsView;
+    }
+
+    /** Allies of {@code id} that are AI kingdoms. Call {@link #aiIds} first in the same tick. */
+    public static int allyCount(UUID id) {
+        return allyDegree.getInt(id);
+    }
+
+    /** AI kingdoms {@code id} is at war with. Call {@link #aiIds} first in the same tick. */
+    public static int enemyCount(UUID id) {
+        return enemyDegree.getInt(id);
+    }
+
+    // ------------------------------------------------------------
+    // Hooks
+    // ------------------------------------------------------------
+
+    /** A whole state was replaced in place (snapshot import); recount on next use. */
+    public static void invalidate() {
+        valid = false;
+    }
+
+    static void onAllianceChanged(AllianceState source, UUID a, UUID b, boolean formed) {
+        if (!valid || source != ownerAlliance) return;
+        if (!aiSet.contains(a) || !aiSet.contains(b)) return;
+        allyDegree.addTo(a, formed ? 1 : -1);
+        allyDegree.addTo(b, formed ? 1 : -1);
+    }
+
+    public static void onWarChanged(WarState source, UUID a, UUID b, boolean started) {
+        if (!valid || source != ownerWar) return;
+        if (!aiSet.contains(a) || !aiSet.contains(b)) return;
+        enemyDegree.addTo(a, started ? 1 : -1);
+        enemyDegree.addTo(b, started ? 1 : -1);
+    }
+
+    /** A kingdom was created in kingdomState or aiKingdomState; it joins once it is in both. */
+    public static void onKingdomAdded(UUID id) {
+        if (!valid || id == null || aiSet.contains(id)) return;
+        if (ownerKs.getKingdom(id) == null || ownerAi.getById(id) == null) return;
+
+        aiIds.add(id);
+        aiSet.add(id);
+
+        // links that already exist toward other AI kingdoms
+        for (UUID ally : ownerAlliance.alliesOf(id)) {
+            if (aiSet.contains(ally)) {
+                allyDegree.addTo(id, 1);
+                allyDegree.addTo(ally, 1);
+            }
+        }
+        for (UUID enemy : ownerWar.enemiesOf(id)) {
+            if (aiSet.contains(enemy)) {
+                enemyDegree.addTo(id, 1);
+                enemyDegree.addTo(enemy, 1);
+            }
+        }
+    }
+
+    public static void onKingdomRemoved(UUID id) {
+        if (!valid || id == null || !aiSet.remove(id)) return;
+        aiIds.remove(id);
+
+        for (UUID ally : ownerAlliance.alliesOf(id)) {
+            if (aiSet.contains(ally)) allyDegree.addTo(ally, -1);
+        }
+        for (UUID enemy : ownerWar.enemiesOf(id)) {
+            if (aiSet.contains(enemy)) enemyDegree.addTo(enemy, -1);
+        }
+        allyDegree.removeInt(id);
+        enemyDegree.removeInt(id);
+    }
+
+    // ------------------------------------------------------------
+    // Build / verify
+    // ------------------------------------------------------------
+
+    private static void ensure(MinecraftServer server) {
+        var ks = kingdomState.get(server);
+        var ai = aiKingdomState.get(server);
+        var alliance = AllianceState.get(server);
+        var war = WarState.get(server);
+
+        if (valid && ks == ownerKs && ai == ownerAi && alliance == ownerAlliance && war == ownerWar) return;
+
+        ownerKs = ks;
+        ownerAi = ai;
+        ownerAlliance = alliance;
+        ownerWar = war;
+        rebuild();
+        valid = true;
+    }
+
+    private static void rebuild() {
+        aiIds.clear();
+        aiSet.clear();
+        for (var k : ownerKs.getAllKingdoms()) {
+            if (k == null || ownerAi.getById(k.id) == null) continue;
+            if (aiSet.add(k.id)) aiIds.add(k.id);
+        }
+
+        allyDegree.clear();
+        enemyDegree.clear();
+        count(allyDegree, enemyDegree);
+    }
+
+    private static void count(Object2IntOpenHashMap<UUID> allies, Object2IntOpenHashMap<UUID> enemies) {
+        for (UUID id : aiIds) {
+            int a = 0;
+            for (UUID other : ownerAlliance.alliesOf(id)) {
+                if (!other.equals(id) && aiSet.contains(other)) a++;
+            }
+            int e = 0;
+            for (UUID other : ownerWar.enemiesOf(id)) {
+                if (aiSet.contains(other)) e++;
+            }
+            if (a != 0) allies.put(id, a);
+            if (e != 0) enemies.put(id, e);
+        }
+    }
+
+    private static void verify() {
+        // membership: cheap size check first, full rebuild if it doesn't line up
+        int expected = 0;
+        for (var k : ownerKs.getAllKingdoms()) {
+            if (k != null && ownerAi.getById(k.id) != null) expected++;
+        }
+        if (expected != aiIds.size()) {
+            LOGGER.debug("[Kingdoms] Diplomacy topology drifted: {} AI kingdoms tracked, {} actual", aiIds.size(), expected);
+            rebuild();
+            return;
+        }
+
+        var freshAllies = new Object2IntOpenHashMap<UUID>();
+        var freshEnemies = new Object2IntOpenHashMap<UUID>();
+        count(freshAllies, freshEnemies);
+
+        if (!sameCounts(freshAllies, allyDegree) || !sameCounts(freshEnemies, enemyDegree)) {
+            LOGGER.debug("[Kingdoms] Diplomacy topology degree counts drifted; recounted");
+            allyDegree.clear();
+            allyDegree.putAll(freshAllies);
+            enemyDegree.clear();
+            enemyDegree.putAll(freshEnemies);
+        }
+    }
+
+    private static boolean sameCounts(Object2IntOpenHashMap<UUID> fresh, Object2IntOpenHashMap<UUID> live) {
+        for (UUID id : aiIds) {
+            if (fresh.getInt(id) != live.getInt(id)) return false;
+        }
+        return true;
+    }
+
+    private static void clear() {
+        ownerKs = null;
+        ownerAi = null;
+        ownerAlliance = null;
+        ownerWar = null;
+        valid = false;
+        aiIds.clear();
+        aiSet.clear();
+        allyDegree.clear();
+        enemyDegree.clear();
+    }
+}
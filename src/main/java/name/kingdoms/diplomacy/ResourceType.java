@@ -1,8 +1,29 @@
 // src/main/java/name/kingdoms/diplomacy/ResourceType.java
 package name.kingdoms.diplomacy;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public enum ResourceType {
     GOLD, MEAT, GRAIN, FISH,
     WOOD, METAL, ARMOR, WEAPONS,
-    GEMS, HORSES, POTIONS
+    GEMS, HORSES, POTIONS;
+
+    private final String key = name().toLowerCase(Locale.ROOT);
+
+    private static final Map<String, ResourceType> BY_KEY = new HashMap<>();
+    static {
+        for (ResourceType t : values()) BY_KEY.put(t.key, t);
+    }
+
+    /** Lowercase id used by commands, payloads and kingdomState.getResource ("gold", "meat", ...). */
+    public String key() {
+        return key;
+    }
+
+    /** Inverse of {@link #key()}; null if unknown. */
+    public static ResourceType byKey(String key) {
+        return key == null ? null : BY_KEY.get(key);
+    }
 }
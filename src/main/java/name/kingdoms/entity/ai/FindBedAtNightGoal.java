@@ -1,5 +1,6 @@
 package name.kingdoms.entity.ai;
 
+import name.kingdoms.KingdomPoiIndex;
 import name.kingdoms.entity.kingdomWorkerEntity;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
@@ -142,37 +143,15 @@ public class FindBedAtNightGoal extends Goal {
     }
 
     private static BlockPos findNearbyUnclaimedBedHead(ServerLevel level, BlockPos origin, int r, kingdomWorkerEntity worker) {
-        BlockPos best = null;
-        double bestDist = Double.MAX_VALUE;
-
-        for (int dx = -r; dx <= r; dx++) {
-            for (int dy = -4; dy <= 4; dy++) {
-                for (int dz = -r; dz <= r; dz++) {
-                    BlockPos p = origin.offset(dx, dy, dz);
-                    BlockState s = level.getBlockState(p);
-
-                    if (!(s.getBlock() instanceof BedBlock)) continue;
-
-                    BlockPos head = normalizeToBedHead(level, p);
-                    if (head == null) continue;
-
-                    // must have space above
-                    BlockPos above = head.above();
-                    if (!level.getBlockState(above).getCollisionShape(level, above).isEmpty()) continue;
-
-                    // skip if another worker already claimed it
-                    if (worker.isBedClaimedByOther(head, r)) continue;
-
-                    double d = head.distSqr(origin);
-                    if (d < bestDist) {
-                        bestDist = d;
-                        best = head;
-                    }
-                }
-            }
-        }
-
-        return best;
+        // nearest indexed bed head that is usable, checked inside the index walk
+        return KingdomPoiIndex.nearest(level, KingdomPoiIndex.Category.BED, origin, r, 4, null, head -> {
+            // must have space above
+            BlockPos above = head.above();
+            if (!level.getBlockState(above).getCollisionShape(level, above).isEmpty()) return false;
+
+            // skip if another worker already claimed it
+            return !worker.isBedClaimedByOther(head, r);
+        });
     }
 
     private static boolean isDaytime(Level level) {
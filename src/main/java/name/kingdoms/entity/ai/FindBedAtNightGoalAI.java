@@ -1,5 +1,6 @@
 package name.kingdoms.entity.ai;
 
+import name.kingdoms.KingdomPoiIndex;
 import name.kingdoms.entity.aiKingdomEntity;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
@@ -139,35 +140,13 @@ public class FindBedAtNightGoalAI extends Goal {
     }
 
     private static BlockPos findNearbyUnclaimedBedHead(ServerLevel level, BlockPos origin, int r, aiKingdomEntity mob) {
-        BlockPos best = null;
-        double bestDist = Double.MAX_VALUE;
+        // nearest indexed bed head that is usable, checked inside the index walk
+        return KingdomPoiIndex.nearest(level, KingdomPoiIndex.Category.BED, origin, r, 4, null, head -> {
+            BlockPos above = head.above();
+            if (!level.getBlockState(above).getCollisionShape(level, above).isEmpty()) return false;
 
-        for (int dx = -r; dx <= r; dx++) {
-            for (int dy = -4; dy <= 4; dy++) {
-                for (int dz = -r; dz <= r; dz++) {
-                    BlockPos p = origin.offset(dx, dy, dz);
-                    BlockState s = level.getBlockState(p);
-
-                    if (!(s.getBlock() instanceof BedBlock)) continue;
-
-                    BlockPos head = normalizeToBedHead(level, p);
-                    if (head == null) continue;
-
-                    BlockPos above = head.above();
-                    if (!level.getBlockState(above).getCollisionShape(level, above).isEmpty()) continue;
-
-                    if (mob.isBedClaimedByOther(head, r)) continue;
-
-                    double d = head.distSqr(origin);
-                    if (d < bestDist) {
-                        bestDist = d;
-                        best = head;
-                    }
-                }
-            }
-        }
-
-        return best;
+            return !mob.isBedClaimedByOther(head, r);
+        });
     }
 
     private static boolean isDaytime(Level level) {
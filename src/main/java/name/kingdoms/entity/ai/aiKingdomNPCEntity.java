@@ -1,6 +1,7 @@
 package name.kingdoms.entity.ai;
 
 import name.kingdoms.IKingdomSpawnerBlock;
+import name.kingdoms.KingdomPoiIndex;
 import name.kingdoms.aiKingdomState;
 import name.kingdoms.kingdomState;
 import name.kingdoms.namePool;
@@ -1215,34 +1216,8 @@ public class aiKingdomNPCEntity extends PathfinderMob {
 
         @Nullable
         private static BlockPos findNearestBed(ServerLevel sl, BlockPos origin, int r) {
-            BlockPos best = null;
-            int bestD2 = Integer.MAX_VALUE;
-
-            int ox = origin.getX();
-            int oy = origin.getY();
-            int oz = origin.getZ();
-
-            // Sample count (tune): 200 checks instead of ~26,000
-            int samples = 200;
-            var rand = sl.random;
-
-            for (int i = 0; i < samples; i++) {
-                int dx = rand.nextInt(r * 2 + 1) - r;
-                int dz = rand.nextInt(r * 2 + 1) - r;
-                int dy = rand.nextInt(7) - 3;
-
-                BlockPos p = new BlockPos(ox + dx, oy + dy, oz + dz);
-                BlockState bs = sl.getBlockState(p);
-                if (!(bs.getBlock() instanceof BedBlock)) continue;
-
-                int d2 = dx * dx + dz * dz + dy * dy;
-                if (d2 < bestD2) {
-                    bestD2 = d2;
-                    best = p;
-                }
-            }
-
-            return best;
+            // nearest indexed bed head within +/-3 blocks vertically
+            return KingdomPoiIndex.nearest(sl, KingdomPoiIndex.Category.BED, origin, r, 3, null);
         }
 
     }
@@ -5,6 +5,7 @@ import name.kingdoms.entity.ai.ReturnHomeDayGoal;
 import name.kingdoms.entity.ai.FollowOwnerGoal;
 import name.kingdoms.entity.ai.RetinueSeparationGoal;
 import net.minecraft.network.chat.Component;
+import name.kingdoms.KingdomPoiIndex;
 import name.kingdoms.RetinueRespawnManager;
 import name.kingdoms.kingdomState;
 import name.kingdoms.kingdomsClientProxy;
@@ -72,7 +73,7 @@ public class kingdomWorkerEntity extends PathfinderMob {
 
         // Tune
         private static final int ROUTINE_SEARCH_RADIUS = 40;
-        private static final int ROUTINE_SAMPLES = 220;      // cheap sampling instead of full cube scan
+        private static final int ROUTINE_Y_RANGE = 4;        // +/- blocks from the worker (POI index query)
         private static final int STUCK_MAX_TICKS = 20 * 8;   // 8 seconds
         private static final int TP_COOLDOWN_TICKS = 20 * 20; // 20 seconds
 
@@ -113,42 +114,8 @@ public class kingdomWorkerEntity extends PathfinderMob {
 
 
         @Nullable
-        private static BlockPos findNearestPoiBlock(ServerLevel sl, BlockPos origin, int r, net.minecraft.world.level.block.Block poiBlock) {
-            BlockPos best = null;
-            int bestD2 = Integer.MAX_VALUE;
-
-            int ox = origin.getX();
-            int oy = origin.getY();
-            int oz = origin.getZ();
-
-            var rand = sl.random;
-
-            for (int i = 0; i < ROUTINE_SAMPLES; i++) {
-                int dx = rand.nextInt(r * 2 + 1) - r;
-                int dz = rand.nextInt(r * 2 + 1) - r;
-                int dy = rand.nextInt(9) - 4;
-
-                BlockPos p = new BlockPos(ox + dx, oy + dy, oz + dz);
-                var bs = sl.getBlockState(p);
-
-                if (bs.getBlock() != poiBlock) continue;
-
-                // If it’s a jobBlock, require ENABLED true
-                if (bs.getBlock() instanceof name.kingdoms.jobBlock) {
-                    try {
-                        if (!bs.getValue(name.kingdoms.jobBlock.ENABLED)) continue;
-                    } catch (Throwable ignored) {}
-                }
-
-
-                int d2 = dx * dx + dz * dz + dy * dy;
-                if (d2 < bestD2) {
-                    bestD2 = d2;
-                    best = p;
-                }
-            }
-
-            return best;
+        private static BlockPos findNearestPoiBlock(ServerLevel sl, BlockPos origin, int r, KingdomPoiIndex.Category category) {
+            return KingdomPoiIndex.nearest(sl, category, origin, r, ROUTINE_Y_RANGE, null);
         }
 
 
@@ -1404,7 +1371,7 @@ protected void registerGoals() {
                 return false;
             }
 
-            BlockPos tav = findNearestPoiBlock(sl, mob.blockPosition(), ROUTINE_SEARCH_RADIUS, name.kingdoms.modBlock.tavern_block);
+            BlockPos tav = findNearestPoiBlock(sl, mob.blockPosition(), ROUTINE_SEARCH_RADIUS, KingdomPoiIndex.Category.TAVERN);
             if (tav == null) {
                 recheckCd = 20 * 30; // 30s backoff
                 return false;
@@ -1512,13 +1479,13 @@ protected void registerGoals() {
 
             boolean preferChapel = sl.random.nextBoolean();
             if (preferChapel) {
-                poi = findNearestPoiBlock(sl, mob.blockPosition(), ROUTINE_SEARCH_RADIUS, name.kingdoms.modBlock.chapel_block);
+                poi = findNearestPoiBlock(sl, mob.blockPosition(), ROUTINE_SEARCH_RADIUS, KingdomPoiIndex.Category.CHAPEL);
             }
             if (poi == null) {
-                poi = findNearestPoiBlock(sl, mob.blockPosition(), ROUTINE_SEARCH_RADIUS, name.kingdoms.modBlock.shop_block);
+                poi = findNearestPoiBlock(sl, mob.blockPosition(), ROUTINE_SEARCH_RADIUS, KingdomPoiIndex.Category.SHOP);
             }
             if (poi == null) {
-                poi = findNearestPoiBlock(sl, mob.blockPosition(), ROUTINE_SEARCH_RADIUS, name.kingdoms.modBlock.chapel_block);
+                poi = findNearestPoiBlock(sl, mob.blockPosition(), ROUTINE_SEARCH_RADIUS, KingdomPoiIndex.Category.CHAPEL);
             }
 
             if (poi == null) {
@@ -48,6 +48,9 @@ public class jobBlockEntity extends BlockEntity {
     @Nullable private UUID workerUuid;
     @Nullable private UUID ownerKingdomId;
 
+    // Incremental requirement counts (registered on first check, dropped in setRemoved)
+    @Nullable private jobRequirementTracker.Workplace workplace;
+
     // Missing-requirements FX state (poof, not spam)
     private boolean wasMissingReqs = false;
     private long nextMissingReqPoofTick = 0L;
@@ -261,7 +264,11 @@ public class jobBlockEntity extends BlockEntity {
 
 
         // ---- IMPORTANT: check requirements BEFORE spawning worker ----
-        boolean meetsReqs = be.job.meetsBlockRequirements(serverLevel, pos, jobBlock.REQUIRE_RADIUS);
+        if (be.workplace == null || !be.workplace.isFor(serverLevel, pos, be.job)) {
+            jobRequirementTracker.unregister(be.workplace);
+            be.workplace = jobRequirementTracker.register(serverLevel, pos, be.job, jobBlock.REQUIRE_RADIUS);
+        }
+        boolean meetsReqs = be.workplace.met();
 
         if (!meetsReqs) {
             // NOT active if requirements missing
@@ -670,6 +677,9 @@ public class jobBlockEntity extends BlockEntity {
 
     @Override
     public void setRemoved() {
+        jobRequirementTracker.unregister(workplace);
+        workplace = null;
+
         if (this.level instanceof ServerLevel sl) {
             despawnWorker(sl);
 
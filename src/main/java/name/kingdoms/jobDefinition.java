@@ -148,11 +148,15 @@ public class jobDefinition {
 
             ResourceLocation id = ResourceLocation.parse(tagStr);
             TagKey<Block> tag = TagKey.create(Registries.BLOCK, id);
+            if (!requiredBlockTags.containsKey(tag)) checkSlotRoom(s);
             this.requiredBlockTags.merge(tag, count, Integer::sum);
         } else {
             ResourceLocation id = ResourceLocation.parse(fixed);
+            if (!requiredBlocks.containsKey(id)) checkSlotRoom(s);
             this.requiredBlocks.merge(id, count, Integer::sum);
         }
+        this.slotCounts = null; // rebuilt on next use
+        this.slotStateBits = null;
         return this;
     }
 
@@ -160,41 +164,147 @@ public class jobDefinition {
         return requiresBlock(s, 1);
     }
 
-    public boolean meetsBlockRequirements(ServerLevel level, BlockPos origin, int radius) {
-        if (requiredBlocks.isEmpty() && requiredBlockTags.isEmpty()) return true;
-
-        Map<ResourceLocation, Integer> haveBlocks = new HashMap<>();
-        Map<TagKey<Block>, Integer> haveTags = new HashMap<>();
+    // requirementMask is an int: one bit per distinct block/tag requirement
+    private void checkSlotRoom(String s) {
+        if (requiredBlocks.size() + requiredBlockTags.size() >= MAX_REQUIREMENT_SLOTS) {
+            throw new IllegalArgumentException("Job " + id + " has too many block requirements (max "
+                    + MAX_REQUIREMENT_SLOTS + "), cannot add " + s);
+        }
+    }
 
-        for (var e : requiredBlocks.entrySet()) haveBlocks.put(e.getKey(), 0);
-        for (var e : requiredBlockTags.entrySet()) haveTags.put(e.getKey(), 0);
+    /* -----------------------------
+       REQUIREMENT SLOTS
+       Flat view of the requirements for incremental counting (jobRequirementTracker):
+       slot i is either a block id or a tag, with its required count.
+     ----------------------------- */
 
-        BlockPos min = origin.offset(-radius, -radius, -radius);
-        BlockPos max = origin.offset( radius,  radius,  radius);
+    public static final int MAX_REQUIREMENT_SLOTS = Integer.SIZE;
 
-        for (BlockPos p : BlockPos.betweenClosed(min, max)) {
-            BlockState st = level.getBlockState(p);
-            Block b = st.getBlock();
+    private ResourceLocation[] slotBlocks;
+    private TagKey<Block>[] slotTags;
+    private int[] slotCounts;
 
-            ResourceLocation id = BuiltInRegistries.BLOCK.getKey(b);
-            if (requiredBlocks.containsKey(id)) {
-                haveBlocks.merge(id, 1, Integer::sum);
-            }
+    // Compiled matchers: per slot, a bitset over block-state ids (Block.getId).
+    // Null until tags have loaded; rebuilt on every tag (datapack) reload.
+    private long[][] slotStateBits;
 
-            for (TagKey<Block> tag : requiredBlockTags.keySet()) {
-                if (st.is(tag)) {
-                    haveTags.merge(tag, 1, Integer::sum);
-                }
-            }
-        }
+    @SuppressWarnings("unchecked")
+    private void buildSlots() {
+        int n = requiredBlocks.size() + requiredBlockTags.size();
+        ResourceLocation[] blocks = new ResourceLocation[n];
+        TagKey<Block>[] tags = (TagKey<Block>[]) new TagKey[n];
+        int[] counts = new int[n];
 
+        int i = 0;
         for (var e : requiredBlocks.entrySet()) {
-            if (haveBlocks.getOrDefault(e.getKey(), 0) < e.getValue()) return false;
+            blocks[i] = e.getKey();
+            counts[i++] = e.getValue();
         }
         for (var e : requiredBlockTags.entrySet()) {
-            if (haveTags.getOrDefault(e.getKey(), 0) < e.getValue()) return false;
+            tags[i] = e.getKey();
+            counts[i++] = e.getValue();
+        }
+
+        slotBlocks = blocks;
+        slotTags = tags;
+        slotCounts = counts;
+        slotStateBits = null;
+    }
+
+    /** Number of requirement slots (at most {@link #MAX_REQUIREMENT_SLOTS}; requiresBlock rejects more). */
+    public int requirementSlots() {
+        if (slotCounts == null) buildSlots();
+        return slotCounts.length;
+    }
+
+    public int requiredCountForSlot(int slot) {
+        if (slotCounts == null) buildSlots();
+        return slotCounts[slot];
+    }
+
+    /** Bit i set if {@code st} counts toward requirement slot i (same rules as meetsBlockRequirements). */
+    public int requirementMask(BlockState st) {
+        long[][] bits = slotStateBits;
+        if (bits == null) return requirementMaskUncompiled(st);
+
+        int id = Block.getId(st);
+        int word = id >>> 6;
+        long bit = 1L << id;
+
+        int mask = 0;
+        for (int i = 0; i < bits.length; i++) {
+            long[] b = bits[i];
+            if (word < b.length && (b[word] & bit) != 0) mask |= (1 << i);
         }
+        return mask;
+    }
 
+    /** Registry/tag lookups per call; what the compiled bitsets are built from. */
+    int requirementMaskUncompiled(BlockState st) {
+        if (slotCounts == null) buildSlots();
+        if (slotCounts.length == 0) return 0;
+
+        int mask = 0;
+        for (int i = 0; i < slotCounts.length; i++) {
+            if (matchesSlot(i, st)) mask |= (1 << i);
+        }
+        return mask;
+    }
+
+    private boolean matchesSlot(int slot, BlockState st) {
+        if (slotBlocks[slot] != null) return slotBlocks[slot].equals(BuiltInRegistries.BLOCK.getKey(st.getBlock()));
+        return st.is(slotTags[slot]);
+    }
+
+    /**
+     * Compiles every job's requirement slots into block-state bitsets. Call once tags are bound
+     * (server start and every datapack reload). Slots naming the same block or tag share one bitset.
+     */
+    public static void compileRequirementMatchers() {
+        int states = Block.BLOCK_STATE_REGISTRY.size();
+        Map<Object, long[]> shared = new HashMap<>();
+
+        for (jobDefinition j : BY_ID.values()) {
+            if (j.slotCounts == null) j.buildSlots();
+
+            long[][] bits = new long[j.slotCounts.length][];
+            for (int i = 0; i < bits.length; i++) {
+                final int slot = i;
+                Object key = j.slotBlocks[i] != null ? j.slotBlocks[i] : j.slotTags[i];
+                bits[i] = shared.computeIfAbsent(key, k -> {
+                    long[] b = new long[(states + 63) >>> 6];
+                    for (BlockState st : Block.BLOCK_STATE_REGISTRY) {
+                        if (j.matchesSlot(slot, st)) {
+                            int id = Block.getId(st);
+                            b[id >>> 6] |= 1L << id;
+                        }
+                    }
+                    return b;
+                });
+            }
+            j.slotStateBits = bits;
+        }
+    }
+
+    public boolean meetsBlockRequirements(ServerLevel level, BlockPos origin, int radius) {
+        int slots = requirementSlots();
+        if (slots == 0) return true;
+
+        int[] have = new int[slots];
+
+        BlockPos min = origin.offset(-radius, -radius, -radius);
+        BlockPos max = origin.offset( radius,  radius,  radius);
+
+        for (BlockPos p : BlockPos.betweenClosed(min, max)) {
+            int mask = requirementMask(level.getBlockState(p));
+            for (int i = 0; mask != 0; i++, mask >>>= 1) {
+                if ((mask & 1) != 0) have[i]++;
+            }
+        }
+
+        for (int i = 0; i < slots; i++) {
+            if (have[i] < slotCounts[i]) return false;
+        }
         return true;
     }
 
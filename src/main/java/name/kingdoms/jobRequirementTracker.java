@@ -0,0 +1,247 @@
+package name.kingdoms;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Incremental "are this job block's required blocks nearby?" counts.
+ *
+ * A job block registers once (first tick after load) and its cube is counted with one full scan.
+ * After that every block change in the level (ServerLevel.onBlockStateChange, via mixin) adjusts the
+ * counts of the workplaces whose cube contains it, so {@link Workplace#met()} is a field read instead
+ * of a 15^3 scan per tick.
+ *
+ * A round-robin sweep rescans every workplace once per {@link #VERIFY_PERIOD_TICKS} and corrects
+ * (and logs) any drift, e.g. from blocks that changed without going through Level.setBlock.
+ */
+public final class jobRequirementTracker {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    private jobRequirementTracker() {}
+
+    // Every workplace is rescanned about this often
+    private static final int VERIFY_PERIOD_TICKS = 1200;
+
+    private static final Map<ServerLevel, LevelIndex> LEVELS = new IdentityHashMap<>();
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(jobRequirementTracker::tickVerify);
+        ServerWorldEvents.UNLOAD.register((server, level) -> LEVELS.remove(level));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> LEVELS.clear());
+
+        // Tags are bound (server start, /reload): recompile matchers, then recount with them
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> {
+            if (client) return;
+            jobDefinition.compileRequirementMatchers();
+            rescanAll();
+        });
+    }
+
+    // ------------------------------------------------------------
+    // Workplace
+    // ------------------------------------------------------------
+
+    public static final class Workplace {
+        final ServerLevel level;
+        final BlockPos pos;
+        final jobDefinition job;
+        final int radius;
+        final int[] have;
+
+        private int missingSlots;
+        private boolean registered = true;
+
+        private Workplace(ServerLevel level, BlockPos pos, jobDefinition job, int radius) {
+            this.level = level;
+            this.pos = pos.immutable();
+            this.job = job;
+            this.radius = radius;
+            this.have = new int[job.requirementSlots()];
+        }
+
+        /** True while every requirement slot has at least its required count in range. */
+        public boolean met() {
+            return missingSlots == 0;
+        }
+
+        public boolean isFor(ServerLevel level, BlockPos pos, jobDefinition job) {
+            return registered && this.level == level && this.job == job && this.pos.equals(pos);
+        }
+
+        boolean contains(BlockPos p) {
+            return Math.abs(p.getX() - pos.getX()) <= radius
+                    && Math.abs(p.getY() - pos.getY()) <= radius
+                    && Math.abs(p.getZ() - pos.getZ()) <= radius;
+        }
+
+        void adjust(int mask, int delta) {
+            for (int i = 0; mask != 0; i++, mask >>>= 1) {
+                if ((mask & 1) == 0) continue;
+                int need = job.requiredCountForSlot(i);
+                boolean wasMet = have[i] >= need;
+                have[i] += delta;
+                boolean isMet = have[i] >= need;
+                if (wasMet != isMet) missingSlots += isMet ? -1 : 1;
+            }
+        }
+
+        /** Full rescan of the cube; returns the fresh counts without applying them. */
+        int[] scan() {
+            int[] out = new int[have.length];
+            if (out.length == 0) return out;
+
+            BlockPos min = pos.offset(-radius, -radius, -radius);
+            BlockPos max = pos.offset(radius, radius, radius);
+            for (BlockPos p : BlockPos.betweenClosed(min, max)) {
+                int mask = job.requirementMask(level.getBlockState(p));
+                for (int i = 0; mask != 0; i++, mask >>>= 1) {
+                    if ((mask & 1) != 0) out[i]++;
+                }
+            }
+            return out;
+        }
+
+        void setCounts(int[] counts) {
+            missingSlots = 0;
+            for (int i = 0; i < have.length; i++) {
+                have[i] = counts[i];
+                if (have[i] < job.requiredCountForSlot(i)) missingSlots++;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Per-level index: chunk column -> workplaces whose cube overlaps it
+    // ------------------------------------------------------------
+
+    private static final class LevelIndex {
+        final Long2ObjectMap<List<Workplace>> byChunk = new Long2ObjectOpenHashMap<>();
+        final List<Workplace> all = new ArrayList<>();
+        int verifyCursor = 0;
+
+        void add(Workplace w) {
+            all.add(w);
+            forEachChunk(w, key -> byChunk.computeIfAbsent(key, k -> new ArrayList<>(2)).add(w));
+        }
+
+        void remove(Workplace w) {
+            all.remove(w);
+            forEachChunk(w, key -> {
+                List<Workplace> list = byChunk.get(key);
+                if (list == null) return;
+                list.remove(w);
+                if (list.isEmpty()) byChunk.remove(key);
+            });
+        }
+
+        private static void forEachChunk(Workplace w, LongConsumer action) {
+            int minCX = (w.pos.getX() - w.radius) >> 4, maxCX = (w.pos.getX() + w.radius) >> 4;
+            int minCZ = (w.pos.getZ() - w.radius) >> 4, maxCZ = (w.pos.getZ() + w.radius) >> 4;
+            for (int cx = minCX; cx <= maxCX; cx++) {
+                for (int cz = minCZ; cz <= maxCZ; cz++) {
+                    action.accept(ChunkPos.asLong(cx, cz));
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------
+    // API
+    // ------------------------------------------------------------
+
+    /** Server thread. Counts the cube once and starts tracking it. */
+    public static Workplace register(ServerLevel level, BlockPos pos, jobDefinition job, int radius) {
+        Workplace w = new Workplace(level, pos, job, radius);
+        w.setCounts(w.scan());
+        LEVELS.computeIfAbsent(level, l -> new LevelIndex()).add(w);
+        return w;
+    }
+
+    public static void unregister(Workplace w) {
+        if (w == null || !w.registered) return;
+        w.registered = false;
+
+        LevelIndex idx = LEVELS.get(w.level);
+        if (idx == null) return;
+        idx.remove(w);
+        if (idx.all.isEmpty()) LEVELS.remove(w.level);
+    }
+
+    /** Called for every block state change in a server level (see ServerLevelBlockChangeMixin). */
+    public static void onBlockChanged(ServerLevel level, BlockPos pos, BlockState oldState, BlockState newState) {
+        if (LEVELS.isEmpty() || oldState == newState) return;
+
+        LevelIndex idx = LEVELS.get(level);
+        if (idx == null) return;
+
+        List<Workplace> list = idx.byChunk.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        if (list == null) return;
+
+        for (int i = 0, n = list.size(); i < n; i++) {
+            Workplace w = list.get(i);
+            if (!w.contains(pos)) continue;
+
+            int before = w.job.requirementMask(oldState);
+            int after = w.job.requirementMask(newState);
+            if (before == after) continue;
+
+            w.adjust(before & ~after, -1);
+            w.adjust(after & ~before, +1);
+        }
+    }
+
+    /** Recounts every workplace (requirement matching changed, e.g. after a tag reload). */
+    public static void rescanAll() {
+        for (LevelIndex idx : LEVELS.values()) {
+            for (Workplace w : idx.all) w.setCounts(w.scan());
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Verification sweep
+    // ------------------------------------------------------------
+
+    private static void tickVerify(MinecraftServer server) {
+        if (LEVELS.isEmpty()) return;
+
+        for (LevelIndex idx : LEVELS.values()) {
+            int n = idx.all.size();
+            if (n == 0) continue;
+
+            int budget = (n + VERIFY_PERIOD_TICKS - 1) / VERIFY_PERIOD_TICKS;
+            for (int k = 0; k < budget && !idx.all.isEmpty(); k++) {
+                if (idx.verifyCursor >= idx.all.size()) idx.verifyCursor = 0;
+                verify(idx.all.get(idx.verifyCursor++));
+            }
+        }
+    }
+
+    private static void verify(Workplace w) {
+        int[] fresh = w.scan();
+        for (int i = 0; i < fresh.length; i++) {
+            if (fresh[i] != w.have[i]) {
+                LOGGER.debug("[Kingdoms] Job requirement counts drifted at {} ({}): slot {} had {} actual {}",
+                        w.pos, w.job.getId(), i, w.have[i], fresh[i]);
+                w.setCounts(fresh);
+                return;
+            }
+        }
+    }
+}
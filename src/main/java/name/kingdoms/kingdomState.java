@@ -1,24 +1,33 @@
 package name.kingdoms;
 
+import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.Dynamic;
+import com.mojang.serialization.DynamicOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 
 import name.kingdoms.aiKingdomState.BorderData;
 import name.kingdoms.kingdomState.Kingdom;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.registries.Registries;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.saveddata.SavedData;
 import net.minecraft.world.level.saveddata.SavedDataType;
 import name.kingdoms.entity.SoldierSkins;
+import name.kingdoms.diplomacy.AiRelationsState;
+import name.kingdoms.diplomacy.DiplomacyTopology;
+import name.kingdoms.diplomacy.ResourceType;
 import java.util.*;
 
-public class kingdomState extends SavedData {
+public class kingdomState extends AsyncSavedData<kingdomState> {
     
     
     public Collection<Kingdom> allKingdoms() {
@@ -27,51 +36,25 @@ public class kingdomState extends SavedData {
 
     private void removeAllClaimsFor(UUID kid) {
         if (kid == null) return;
-        claims.entrySet().removeIf(e -> Objects.equals(e.getValue(), kid));
-        claimsFast.entrySet().removeIf(e -> Objects.equals(e.getValue(), kid));
+        claims.removeAll(kid);
     }
 
 
 
+    /** String-keyed adapter ("gold", "meat", ...) for commands and payloads; unknown keys read 0. */
     public double getResource(UUID kingdomId, String resource) {
         Kingdom k = getKingdom(kingdomId); // you already have getKingdom(UUID)
-        if (k == null) return 0.0;
-
-        return switch (resource) {
-            case "gold" -> k.gold;
-            case "meat" -> k.meat;
-            case "grain" -> k.grain;
-            case "fish" -> k.fish;
-            case "wood" -> k.wood;
-            case "metal" -> k.metal;
-            case "armor" -> k.armor;
-            case "weapons" -> k.weapons;
-            case "gems" -> k.gems;
-            case "horses" -> k.horses;
-            case "potions" -> k.potions;
-            default -> 0.0;
-        };
+        ResourceType t = ResourceType.byKey(resource);
+        if (k == null || t == null) return 0.0;
+        return k.get(t);
     }
 
+    /** String-keyed adapter; clamps to >= 0, unknown keys are ignored. */
     public void setResource(UUID kingdomId, String resource, double value) {
         Kingdom k = getKingdom(kingdomId);
-        if (k == null) return;
-
-        double v = Math.max(0.0, value);
-
-        switch (resource) {
-            case "gold" -> k.gold = v;
-            case "meat" -> k.meat = v;
-            case "grain" -> k.grain = v;
-            case "fish" -> k.fish = v;
-            case "wood" -> k.wood = v;
-            case "metal" -> k.metal = v;
-            case "armor" -> k.armor = v;
-            case "weapons" -> k.weapons = v;
-            case "gems" -> k.gems = v;
-            case "horses" -> k.horses = v;
-            case "potions" -> k.potions = v;
-        }
+        ResourceType t = ResourceType.byKey(resource);
+        if (k == null || t == null) return;
+        k.set(t, Math.max(0.0, value));
     }
 
     public void claimRect(Level level, UUID kingdomId, int minX, int maxX, int minZ, int maxZ) {
@@ -85,14 +68,7 @@ public class kingdomState extends SavedData {
         int minGZ = Math.floorDiv(aMinZ, CLAIM_CELL_SIZE);
         int maxGZ = Math.floorDiv(aMaxZ, CLAIM_CELL_SIZE);
 
-        for (int gx = minGX; gx <= maxGX; gx++) {
-            for (int gz = minGZ; gz <= maxGZ; gz++) {
-                ClaimKey ck = new ClaimKey(level.dimension(), gx, gz);
-                claims.put(ck, kingdomId);
-                claimsFast.put(packClaimKey(ck.dim(), ck.gx(), ck.gz()), kingdomId);
-
-            }
-        }
+        claims.fillRect(level.dimension(), minGX, maxGX, minGZ, maxGZ, kingdomId);
 
         setDirty();
     }
@@ -128,6 +104,7 @@ public class kingdomState extends SavedData {
         created.diplomacyRangeBlocks = 2000; 
 
         kingdoms.put(id, created);
+        DiplomacyTopology.onKingdomAdded(id);
         setDirty();
         return created;
     }
@@ -296,29 +273,32 @@ public class kingdomState extends SavedData {
     /** player → kingdom id */
     private final Map<UUID, UUID> playerKingdom = new HashMap<>();
 
+    /**
+     * player-owned kingdoms in creation order; index over playerKingdom (AI kingdoms have owners too).
+     * The order is saved as "playerKingdomOrder"; kingdoms from saves without it go last, in UUID order.
+     */
+    private final List<Kingdom> playerKingdoms = new ArrayList<>();
+    private final List<Kingdom> playerKingdomsView = Collections.unmodifiableList(playerKingdoms);
+
     /** puppetKid -> masterKid */
     private final Map<UUID, UUID> puppetMaster = new HashMap<>();
 
-    /** claim → kingdom id */
-    private final Map<ClaimKey, UUID> claims = new HashMap<>();
+    /** claim cell → kingdom id, tiled per dimension */
+    private ClaimGrid claims = new ClaimGrid();
 
     public Collection<Kingdom> getAllKingdoms() {
         return kingdoms.values();
     }
 
-    private static long packClaimKey(ResourceKey<Level> dim, int gx, int gz) {
-      
-        int dimHash = dim.location().hashCode();
-        long k = 0L;
-        k |= (long) dimHash & 0xFFFFFFFFL;
-        k <<= 32;
-
-        int h = 31 * gx + gz;
-        k |= (long) h & 0xFFFFFFFFL;
-        return k;
+    /** Player-owned kingdoms only. Live, read-only view. */
+    public List<Kingdom> getPlayerKingdoms() {
+        return playerKingdomsView;
     }
 
-    private final Map<Long, UUID> claimsFast = new HashMap<>();
+    /** Oldest player kingdom, or null if no player has founded one. */
+    public Kingdom firstPlayerKingdom() {
+        return playerKingdoms.isEmpty() ? null : playerKingdoms.get(0);
+    }
 
 
     /* -----------------------------
@@ -344,7 +324,7 @@ public class kingdomState extends SavedData {
         // 1) validate: no overlaps with other kingdoms
         for (int gx = minGX; gx <= maxGX; gx++) {
             for (int gz = minGZ; gz <= maxGZ; gz++) {
-                UUID existing = claims.get(new ClaimKey(level.dimension(), gx, gz));
+                UUID existing = claims.get(level.dimension(), gx, gz);
                 if (existing != null && !existing.equals(kid)) {
                     return false; // overlaps someone else
                 }
@@ -366,13 +346,7 @@ public class kingdomState extends SavedData {
         k.borderMinZ = aMinZ;
         k.borderMaxZ = aMaxZ;
 
-       for (int gx = minGX; gx <= maxGX; gx++) {
-            for (int gz = minGZ; gz <= maxGZ; gz++) {
-                ClaimKey ck = new ClaimKey(level.dimension(), gx, gz);
-                claims.put(ck, kid);
-                claimsFast.put(packClaimKey(ck.dim(), ck.gx(), ck.gz()), kid);
-            }
-        }
+        claims.fillRect(level.dimension(), minGX, maxGX, minGZ, maxGZ, kid);
 
         setDirty();
         return true;
@@ -399,8 +373,7 @@ public class kingdomState extends SavedData {
     public void claimCellForKingdom(Level level, Kingdom k, BlockPos pos) {
         if (k == null) return;
         ClaimKey ck = claimFromPos(level, pos);
-        claims.put(ck, k.id);
-        claimsFast.put(packClaimKey(ck.dim(), ck.gx(), ck.gz()), k.id);
+        claims.put(ck.dim(), ck.gx(), ck.gz(), k.id);
         setDirty();
     }
 
@@ -433,15 +406,7 @@ public class kingdomState extends SavedData {
         int minGZ = Math.floorDiv(minZ, CLAIM_CELL_SIZE);
         int maxGZ = Math.floorDiv(maxZ, CLAIM_CELL_SIZE);
 
-        for (int gx = minGX; gx <= maxGX; gx++) {
-            for (int gz = minGZ; gz <= maxGZ; gz++) {
-                ClaimKey ck = new ClaimKey(level.dimension(), gx, gz);
-                claims.put(ck, kid);
-                claimsFast.put(packClaimKey(ck.dim(), ck.gx(), ck.gz()), kid);
-
-
-            }
-        }
+        claims.fillRect(level.dimension(), minGX, maxGX, minGZ, maxGZ, kid);
 
         setDirty();
     }
@@ -623,6 +588,38 @@ public class kingdomState extends SavedData {
         public final Map<String, Integer> placed = new HashMap<>();
 
         // --- economy accessors (for WarPeaceEffects etc.) ---
+        public double get(ResourceType t) {
+            return switch (t) {
+                case GOLD -> gold;
+                case MEAT -> meat;
+                case GRAIN -> grain;
+                case FISH -> fish;
+                case WOOD -> wood;
+                case METAL -> metal;
+                case ARMOR -> armor;
+                case WEAPONS -> weapons;
+                case GEMS -> gems;
+                case HORSES -> horses;
+                case POTIONS -> potions;
+            };
+        }
+
+        public void set(ResourceType t, double v) {
+            switch (t) {
+                case GOLD -> gold = v;
+                case MEAT -> meat = v;
+                case GRAIN -> grain = v;
+                case FISH -> fish = v;
+                case WOOD -> wood = v;
+                case METAL -> metal = v;
+                case ARMOR -> armor = v;
+                case WEAPONS -> weapons = v;
+                case GEMS -> gems = v;
+                case HORSES -> horses = v;
+                case POTIONS -> potions = v;
+            }
+        }
+
         public int goldInt()  { return (int) Math.floor(this.gold); }
         public int woodInt()  { return (int) Math.floor(this.wood); }
         public int metalInt() { return (int) Math.floor(this.metal); }
@@ -905,11 +902,11 @@ public class kingdomState extends SavedData {
 
         kingdoms.put(id, k);
         playerKingdom.put(player, id);
+        playerKingdoms.add(k);
 
         // initial claim: the cell containing the origin
         ClaimKey ck = claimFromPos(level, origin);
-        claims.put(ck, id);
-        claimsFast.put(packClaimKey(ck.dim(), ck.gx(), ck.gz()), id);
+        claims.put(ck.dim(), ck.gx(), ck.gz(), id);
 
 
         setDirty();
@@ -927,7 +924,10 @@ public class kingdomState extends SavedData {
         UUID kid = k.id;
 
         kingdoms.remove(kid);
+        DiplomacyTopology.onKingdomRemoved(kid);
+        AiRelationsState.get(level.getServer()).remove(kid);
         playerKingdom.remove(player);
+        playerKingdoms.remove(k);
         removeAllClaimsFor(kid);
 
 
@@ -953,15 +953,14 @@ public class kingdomState extends SavedData {
     }
 
     public Kingdom getKingdomAt(Level level, BlockPos pos) {
-        UUID id = claims.get(claimFromPos(level, pos));
-        return id == null ? null : kingdoms.get(id);
+        return getKingdomAtFast(level, pos.getX(), pos.getZ());
     }
 
     public Kingdom getKingdomAtFast(Level level, int x, int z) {
         int gx = Math.floorDiv(x, CLAIM_CELL_SIZE);
         int gz = Math.floorDiv(z, CLAIM_CELL_SIZE);
 
-        UUID kid = claimsFast.get(packClaimKey(level.dimension(), gx, gz));
+        UUID kid = claims.get(level.dimension(), gx, gz);
         return (kid == null) ? null : kingdoms.get(kid);
     }
 
@@ -1182,40 +1181,103 @@ public class kingdomState extends SavedData {
        PERSISTENCE (STATE CODEC)
      ----------------------------- */
 
+    /**
+     * The "claims" list (one ClaimEntry per cell, same format as always), encoded tile by tile:
+     * tiles unchanged since the last save reuse their previous output.
+     */
+    static final Codec<ClaimGrid> CLAIMS_CODEC = new Codec<>() {
+        @Override
+        public <T> DataResult<Pair<ClaimGrid, T>> decode(DynamicOps<T> ops, T input) {
+            return CLAIM_ENTRY_CODEC.listOf().decode(ops, input).map(p -> {
+                ClaimGrid grid = new ClaimGrid();
+                for (ClaimEntry ce : p.getFirst()) grid.put(ce.dim(), ce.gx(), ce.gz(), ce.kid());
+                return Pair.of(grid, p.getSecond());
+            });
+        }
+
+        @Override
+        public <T> DataResult<T> encode(ClaimGrid grid, DynamicOps<T> ops, T prefix) {
+            SegmentEncodeCache<Long> cache = grid.encodeCache;
+            List<T> out = new ArrayList<>();
+            List<DataResult<Void>> errors = new ArrayList<>(0);
+
+            cache.begin(ops);
+            grid.forEachTile((key, tile) -> {
+                DataResult<Void> r = cache.append(key, tile, tile.version, ops, CLAIM_ENTRY_CODEC,
+                        sink -> grid.forEachIn(key, tile, (dim, gx, gz, kid) -> sink.accept(new ClaimEntry(dim, gx, gz, kid))),
+                        out);
+                if (r.error().isPresent()) errors.add(r);
+            });
+            cache.end();
+
+            if (!errors.isEmpty()) return errors.get(0).map(v -> prefix);
+            return ops.mergeToList(prefix, out);
+        }
+    };
+
+    /** "kingdoms" as decoded, or (in a save snapshot) already encoded on the server thread. */
+    private record KingdomList(List<Kingdom> kingdoms, Tag encoded) {}
+
+    private static final Codec<KingdomList> KINGDOMS_CODEC = new Codec<>() {
+        @Override
+        public <T> DataResult<Pair<KingdomList, T>> decode(DynamicOps<T> ops, T input) {
+            return Kingdom.CODEC.listOf().decode(ops, input)
+                    .map(p -> p.mapFirst(list -> new KingdomList(list, null)));
+        }
+
+        @Override
+        public <T> DataResult<T> encode(KingdomList value, DynamicOps<T> ops, T prefix) {
+            if (value.encoded() != null) return DataResult.success(Dynamic.convert(NbtOps.INSTANCE, ops, value.encoded()));
+            return Kingdom.CODEC.listOf().encode(value.kingdoms(), ops, prefix);
+        }
+    };
+
+    /** Save-format fix-ups, applied once on load. Append new steps; never reorder. */
+    private static final SchemaMigrations<kingdomState> MIGRATIONS = new SchemaMigrations<>(
+            // v0 -> v1: old saves have no diplomacy range; give every kingdom the default
+            s -> {
+                for (Kingdom k : s.kingdoms.values()) {
+                    if (k != null && k.diplomacyRangeBlocks <= 0) k.diplomacyRangeBlocks = 1500;
+                }
+            }
+    );
+
     private static final Codec<kingdomState> CODEC =
             RecordCodecBuilder.create(inst -> inst.group(
-                    Kingdom.CODEC.listOf().fieldOf("kingdoms")
-                            .forGetter(s -> new ArrayList<>(s.kingdoms.values())),
+                    KINGDOMS_CODEC.fieldOf("kingdoms")
+                            .forGetter(s -> new KingdomList(new ArrayList<>(s.kingdoms.values()), s.encodedKingdoms)),
                     UUID_MAP_CODEC.fieldOf("playerKingdom")
                             .forGetter(s -> s.playerKingdom),
-                    CLAIM_ENTRY_CODEC.listOf().fieldOf("claims")
-                            .forGetter(s -> {
-                                List<ClaimEntry> out = new ArrayList<>();
-                                for (var e : s.claims.entrySet()) {
-                                    ClaimKey ck = e.getKey();
-                                    out.add(new ClaimEntry(ck.dim(), ck.gx(), ck.gz(), e.getValue()));
-                                }
-                                return out;
-                            }),
+                    CLAIMS_CODEC.fieldOf("claims").forGetter(s -> s.claims),
                     UUID_MAP_CODEC.optionalFieldOf("puppetMaster", Map.of())
-                    .forGetter(s -> s.puppetMaster)
+                    .forGetter(s -> s.puppetMaster),
+                    UUID_CODEC.listOf().optionalFieldOf("playerKingdomOrder", List.of())
+                            .forGetter(kingdomState::playerKingdomOrder),
+                    SchemaMigrations.versionField()
+                            .forGetter(s -> MIGRATIONS.currentVersion())
 
-            ).apply(inst, (kingdomList, playerMap, claimList, puppetMap) -> {
+            ).apply(inst, (kingdomList, playerMap, loadedClaims, puppetMap, playerOrder, dataVersion) -> {
                 kingdomState s = new kingdomState();
 
-                for (Kingdom k : kingdomList) s.kingdoms.put(k.id, k);
+                for (Kingdom k : kingdomList.kingdoms()) s.kingdoms.put(k.id, k);
                 s.playerKingdom.putAll(playerMap);
-                s.puppetMaster.putAll(puppetMap);
 
-                for (ClaimEntry ce : claimList) {
-                    s.claims.put(new ClaimKey(ce.dim(), ce.gx(), ce.gz()), ce.kid());
+                // saved creation order first, then any player kingdom the order doesn't know (older saves)
+                Set<UUID> owned = new HashSet<>(playerMap.values());
+                List<UUID> order = new ArrayList<>(playerOrder);
+                List<UUID> unordered = new ArrayList<>(owned);
+                unordered.removeAll(playerOrder);
+                unordered.sort(null);
+                order.addAll(unordered);
+                for (UUID kid : order) {
+                    Kingdom pk = owned.contains(kid) ? s.kingdoms.get(kid) : null;
+                    if (pk != null && !s.playerKingdoms.contains(pk)) s.playerKingdoms.add(pk);
                 }
+                s.puppetMaster.putAll(puppetMap);
 
-                for (var e : s.claims.entrySet()) {
-                    ClaimKey ck = e.getKey();
-                    s.claimsFast.put(packClaimKey(ck.dim(), ck.gx(), ck.gz()), e.getValue());
-                }
+                s.claims = loadedClaims;
 
+                if (MIGRATIONS.migrate(s, dataVersion)) s.setDirty();
                 return s;
             }));
 
@@ -1236,24 +1298,37 @@ public class kingdomState extends SavedData {
         ServerLevel overworld = server.getLevel(Level.OVERWORLD);
         if (overworld == null) return new kingdomState();
 
-        kingdomState s = overworld.getDataStorage().computeIfAbsent(TYPE);
+        return overworld.getDataStorage().computeIfAbsent(TYPE);
+    }
 
-        // ✅ Migration: ensure sane diplomacy range defaults for old saves
-        boolean changed = false;
-        for (Kingdom k : s.kingdoms.values()) {
-            if (k == null) continue;
+    // set only on save snapshots
+    private Tag encodedKingdoms;
+    private List<UUID> savedPlayerOrder;
 
-            if (k.diplomacyRangeBlocks <= 0) {
-                // player kingdoms tend to be smaller / more local
-                boolean isPlayer = (k.owner != null && s.playerKingdom.containsKey(k.owner));
+    private List<UUID> playerKingdomOrder() {
+        if (savedPlayerOrder != null) return savedPlayerOrder;
+        List<UUID> out = new ArrayList<>(playerKingdoms.size());
+        for (Kingdom k : playerKingdoms) out.add(k.id);
+        return out;
+    }
 
-                k.diplomacyRangeBlocks = isPlayer ? 1500 : 1500;
-                changed = true;
-            }
-        }
+    @Override
+    protected SavedDataType<kingdomState> saveType() {
+        return TYPE;
+    }
 
-        if (changed) s.setDirty();
-        return s;
+    @Override
+    protected kingdomState snapshotForSave(RegistryOps<Tag> ops) {
+        kingdomState snap = new kingdomState();
+        // Kingdom records are mutable and have no copy, so they are encoded here; the claims are the bulk
+        snap.encodedKingdoms = Kingdom.CODEC.listOf()
+                .encodeStart(ops, new ArrayList<>(kingdoms.values()))
+                .getOrThrow();
+        snap.playerKingdom.putAll(playerKingdom);
+        snap.savedPlayerOrder = playerKingdomOrder();
+        snap.puppetMaster.putAll(puppetMaster);
+        snap.claims = claims.snapshot();
+        return snap;
     }
 
 
@@ -0,0 +1,25 @@
+package name.kingdoms.mixin;
+
+import name.kingdoms.KingdomPoiIndex;
+import name.kingdoms.jobRequirementTracker;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Block-change feed for our incremental trackers. Level.setBlock calls onBlockStateChange after the
+ * chunk accepted the new state (the same hook vanilla uses to keep POIs in sync).
+ */
+@Mixin(ServerLevel.class)
+public abstract class ServerLevelBlockChangeMixin {
+	@Inject(method = "onBlockStateChange", at = @At("TAIL"))
+	private void kingdoms$onBlockStateChange(BlockPos pos, BlockState oldState, BlockState newState, CallbackInfo ci) {
+		ServerLevel level = (ServerLevel) (Object) this;
+		jobRequirementTracker.onBlockChanged(level, pos, oldState, newState);
+		KingdomPoiIndex.onBlockChanged(level, pos, oldState, newState);
+	}
+}
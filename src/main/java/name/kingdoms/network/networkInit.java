@@ -56,6 +56,7 @@ import name.kingdoms.war.WarState;
 import name.kingdoms.payload.mailActionC2SPayload;
 import name.kingdoms.payload.mailInboxRequestC2SPayload;
 import name.kingdoms.payload.mailInboxSyncPayload;
+import name.kingdoms.payload.mailInboxDeltaS2CPayload;
 import name.kingdoms.payload.mailPolicySyncS2CPayload;
 import name.kingdoms.treasuryShop;
 import name.kingdoms.payload.mailRecipientsRequestC2SPayload;
@@ -140,6 +141,7 @@ public final class networkInit {
         PayloadTypeRegistry.playS2C().register(OpenTreasuryS2CPayload.TYPE, OpenTreasuryS2CPayload.CODEC);
         PayloadTypeRegistry.playS2C().register(opendiplomacyS2CPayload.TYPE, opendiplomacyS2CPayload.STREAM_CODEC);
         PayloadTypeRegistry.playS2C().register(mailInboxSyncPayload.TYPE, mailInboxSyncPayload.CODEC);
+        PayloadTypeRegistry.playS2C().register(mailInboxDeltaS2CPayload.TYPE, mailInboxDeltaS2CPayload.CODEC);
         PayloadTypeRegistry.playS2C().register(mailRecipientsSyncS2CPayload.TYPE,mailRecipientsSyncS2CPayload.STREAM_CODEC);
         PayloadTypeRegistry.playS2C().register(mailSendResultS2CPayload.TYPE, mailSendResultS2CPayload.CODEC);
         PayloadTypeRegistry.playS2C().register(name.kingdoms.payload.bordersSyncPayload.TYPE, name.kingdoms.payload.bordersSyncPayload.STREAM_CODEC);
@@ -1282,7 +1284,7 @@ public final class networkInit {
                         var mailbox = DiplomacyMailboxState.get(mailLevel);
                         long now = mailLevel.getGameTime();
 
-                        mailbox.deliverPlayerMail(
+                        Letter declaration = mailbox.deliverPlayerMail(
                                 toOwnerOnline.getUUID(),
                                 playerK.id,
                                 (playerK.name == null || playerK.name.isBlank()) ? "Unknown" : playerK.name,
@@ -1295,9 +1297,8 @@ public final class networkInit {
                                 note
                         );
 
-                        // push updated inbox immediately so they see it without reopening UI
-                        ServerPlayNetworking.send(toOwnerOnline,
-                                new mailInboxSyncPayload(mailbox.getInbox(toOwnerOnline.getUUID())));
+                        // push the new letter immediately so they see it without reopening UI
+                        serverMail.letterAdded(toOwnerOnline, mailbox, declaration);
                     }
 
                     ServerPlayNetworking.send(player,
@@ -1328,14 +1329,15 @@ public final class networkInit {
                         long now = server.getTickCount();
                         String toName = (toK.name == null || toK.name.isBlank()) ? "Unknown Kingdom" : toK.name;
 
-                        mailbox.addLetter(player.getUUID(), Letter.warning(
+                        Letter dissolved = Letter.warning(
                                 toK.id, true, toName,
                                 player.getUUID(),
                                 now, now + 20L * 60L * 10L,
                                 "Alliance has been dissolved."
-                        ).withStatus(Letter.Status.ACCEPTED));
+                        ).withStatus(Letter.Status.ACCEPTED);
+                        mailbox.addLetter(player.getUUID(), dissolved);
 
-                        ServerPlayNetworking.send(player, new mailInboxSyncPayload(mailbox.getInbox(player.getUUID())));
+                        serverMail.letterAdded(player, mailbox, dissolved);
                     }
 
                     ServerPlayNetworking.send(player,
@@ -1382,7 +1384,7 @@ public final class networkInit {
                 // Add a helper to DiplomacyMailboxState (next section) and call it here:
                 long now = server.overworld().getGameTime(); // or server.getTickCount() if you prefer
 
-                mailbox.deliverPlayerMail(
+                Letter delivered = mailbox.deliverPlayerMail(
                         toOwnerOnline.getUUID(),
                         playerK.id,
                         (playerK.name == null || playerK.name.isBlank()) ? "Unknown" : playerK.name,
@@ -1395,9 +1397,8 @@ public final class networkInit {
                         note
                 );
 
-                // Optional: push updated inbox immediately
-                ServerPlayNetworking.send(toOwnerOnline,
-                        new mailInboxSyncPayload(mailbox.getInbox(toOwnerOnline.getUUID())));
+                // Optional: push the new letter immediately
+                serverMail.letterAdded(toOwnerOnline, mailbox, delivered);
 
                 toOwnerOnline.sendSystemMessage(Component.literal("[MAIL] New letter from " +
                         ((playerK.name == null || playerK.name.isBlank()) ? "a kingdom" : playerK.name)));
@@ -1719,12 +1720,12 @@ public final class networkInit {
                 // Optional: only players with kingdoms can see mail (matches your design)
                 var ks = kingdomState.get(ctx.server());
                 if (ks.getPlayerKingdom(player.getUUID()) == null) {
-                    ServerPlayNetworking.send(player, new mailInboxSyncPayload(java.util.List.of()));
+                    ServerPlayNetworking.send(player, mailInboxSyncPayload.empty());
                     return;
                 }
 
                 var mail = DiplomacyMailboxState.get(level);
-                ServerPlayNetworking.send(player, new mailInboxSyncPayload(mail.getInbox(player.getUUID())));
+                serverMail.sendPage(player, mail, payload.offset(), payload.limit(), payload.focus());
             });
         });
             
@@ -1754,7 +1755,7 @@ public final class networkInit {
                 
                 if (payload.action() == mailActionC2SPayload.Action.ACKNOWLEDGE) {
                     mailbox.removeLetter(player.getUUID(), letter.id());
-                    ServerPlayNetworking.send(player, new mailInboxSyncPayload(mailbox.getInbox(player.getUUID())));
+                    serverMail.inboxChanged(player, mailbox);
                     return;
                 }
 
@@ -2067,7 +2068,7 @@ public final class networkInit {
 
 
                     mailbox.setDirty();
-                    ServerPlayNetworking.send(player, new mailInboxSyncPayload(mailbox.getInbox(player.getUUID())));
+                    serverMail.inboxChanged(player, mailbox);
                     return;
                 }
 
@@ -2079,7 +2080,7 @@ public final class networkInit {
                 if (expired) {
                     mailbox.removeLetter(player.getUUID(), letter.id());
                     mailbox.setDirty();
-                    ServerPlayNetworking.send(player, new mailInboxSyncPayload(mailbox.getInbox(player.getUUID())));
+                    serverMail.inboxChanged(player, mailbox);
                     return;
                 }
 
@@ -2105,7 +2106,7 @@ public final class networkInit {
                 }
 
 
-                    ServerPlayNetworking.send(player, new mailInboxSyncPayload(mailbox.getInbox(player.getUUID())));
+                    serverMail.inboxChanged(player, mailbox);
                     return;
                 }
 
@@ -2131,7 +2132,7 @@ public final class networkInit {
                         "Trade failed: not enough resources to execute."
                     ));
                     // Keep letter pending in inbox; just re-sync inbox view
-                    serverMail.syncInbox(player, mailbox.getInbox(player.getUUID()));
+                    serverMail.inboxChanged(player, mailbox);
                     return;
                 }
 
@@ -2158,7 +2159,7 @@ public final class networkInit {
                 }
 
 
-                ServerPlayNetworking.send(player, new mailInboxSyncPayload(mailbox.getInbox(player.getUUID())));
+                serverMail.inboxChanged(player, mailbox);
                 ServerPlayNetworking.send(player, ecoSyncPayload.fromKingdomWithProjected(ctx.server(), playerK));
 
             });
@@ -1,17 +1,57 @@
 // src/main/java/name/kingdoms/network/serverMail.java
 package name.kingdoms.network;
 
+import name.kingdoms.diplomacy.DiplomacyMailboxState;
 import name.kingdoms.diplomacy.Letter;
+import name.kingdoms.payload.mailInboxDeltaS2CPayload;
+import name.kingdoms.payload.mailInboxRequestC2SPayload;
 import name.kingdoms.payload.mailInboxSyncPayload;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.server.level.ServerPlayer;
 
-import java.util.List;
+import java.util.UUID;
 
+/** Inbox traffic: pages on request, small deltas on change. Never the whole inbox. */
 public final class serverMail {
     private serverMail() {}
 
-    public static void syncInbox(ServerPlayer player, List<Letter> inbox) {
-        ServerPlayNetworking.send(player, new mailInboxSyncPayload(inbox));
+    /** First page. */
+    public static void syncInbox(ServerPlayer player, DiplomacyMailboxState mailbox) {
+        sendPage(player, mailbox, 0, mailInboxRequestC2SPayload.PAGE_SIZE, null);
+    }
+
+    /** Page from {@code offset}, or (with {@code focus}) the page holding that letter near its top. */
+    public static void sendPage(ServerPlayer player, DiplomacyMailboxState mailbox, int offset, int limit, UUID focus) {
+        UUID id = player.getUUID();
+        mailbox.takeTrimmedOutOfOrder(id); // the page replaces whatever the client had
+        int total = mailbox.inboxSize(id);
+        limit = Math.max(1, Math.min(limit, mailInboxRequestC2SPayload.MAX_LIMIT));
+
+        if (focus != null) {
+            int idx = mailbox.indexOf(id, focus);
+            if (idx >= 0) offset = Math.max(0, idx - limit / 4);
+        }
+        offset = Math.max(0, Math.min(offset, Math.max(0, total - 1)));
+
+        ServerPlayNetworking.send(player, new mailInboxSyncPayload(
+                total, mailbox.pendingCount(id), Math.max(0L, mailbox.seqAt(id, 0)), offset, mailbox.page(id, offset, limit)));
+    }
+
+    /** {@code letter} was just added (it is now the newest). */
+    public static void letterAdded(ServerPlayer player, DiplomacyMailboxState mailbox, Letter letter) {
+        UUID id = player.getUUID();
+        if (letter == null || mailbox.indexOf(id, letter.id()) != 0 || mailbox.takeTrimmedOutOfOrder(id)) {
+            inboxChanged(player, mailbox);
+            return;
+        }
+        ServerPlayNetworking.send(player, new mailInboxDeltaS2CPayload(
+                mailbox.inboxSize(id), mailbox.pendingCount(id), letter, mailbox.seqAt(id, 0)));
+    }
+
+    /** Letters were removed or replaced; the client refreshes the page it shows. */
+    public static void inboxChanged(ServerPlayer player, DiplomacyMailboxState mailbox) {
+        UUID id = player.getUUID();
+        ServerPlayNetworking.send(player, new mailInboxDeltaS2CPayload(
+                mailbox.inboxSize(id), mailbox.pendingCount(id), null, 0L));
     }
 }
@@ -3,9 +3,11 @@ package name.kingdoms.news;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 
+import name.kingdoms.AsyncSavedData;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
-import net.minecraft.world.level.saveddata.SavedData;
 import net.minecraft.world.level.saveddata.SavedDataType;
 
 import java.util.ArrayList;
@@ -13,7 +15,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 
-public final class KingdomNewsState extends SavedData {
+public final class KingdomNewsState extends AsyncSavedData<KingdomNewsState> {
 
     // -------------------------------------------------
     // Tuning
@@ -74,6 +76,16 @@ public final class KingdomNewsState extends SavedData {
         return level.getDataStorage().computeIfAbsent(TYPE);
     }
 
+    @Override
+    protected SavedDataType<KingdomNewsState> saveType() {
+        return TYPE;
+    }
+
+    @Override
+    protected KingdomNewsState snapshotForSave(RegistryOps<Tag> ops) {
+        return new KingdomNewsState(entries); // entries are immutable records
+    }
+
     // -------------------------------------------------
     // Adding news
     // -------------------------------------------------
@@ -0,0 +1,43 @@
+package name.kingdoms.payload;
+
+import name.kingdoms.Kingdoms;
+import name.kingdoms.diplomacy.Letter;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * The inbox changed. {@code added} (nullable) is a new letter at index 0 with sequence number {@code seq};
+ * without it the client re-requests the page it shows.
+ */
+public record mailInboxDeltaS2CPayload(int total, int pending, Letter added, long seq) implements CustomPacketPayload {
+
+    public static final CustomPacketPayload.Type<mailInboxDeltaS2CPayload> TYPE =
+            new CustomPacketPayload.Type<>(ResourceLocation.fromNamespaceAndPath(Kingdoms.MOD_ID, "mail_inbox_delta"));
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, mailInboxDeltaS2CPayload> CODEC =
+            StreamCodec.of(
+                    (buf, p) -> {
+                        buf.writeVarInt(p.total());
+                        buf.writeVarInt(p.pending());
+                        buf.writeBoolean(p.added() != null);
+                        if (p.added() != null) {
+                            Letter.CODEC.encode(buf, p.added());
+                            buf.writeVarLong(p.seq());
+                        }
+                    },
+                    buf -> {
+                        int total = buf.readVarInt();
+                        int pending = buf.readVarInt();
+                        if (!buf.readBoolean()) return new mailInboxDeltaS2CPayload(total, pending, null, 0L);
+                        Letter added = Letter.CODEC.decode(buf);
+                        return new mailInboxDeltaS2CPayload(total, pending, added, buf.readVarLong());
+                    }
+            );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
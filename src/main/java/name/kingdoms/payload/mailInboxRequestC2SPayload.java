@@ -6,13 +6,39 @@ import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceLocation;
 
-public record mailInboxRequestC2SPayload() implements CustomPacketPayload {
+import java.util.UUID;
+
+/**
+ * Asks for {@code limit} inbox letters from {@code offset} (0 = newest). With {@code focus} (nullable)
+ * the server picks the page holding that letter instead.
+ */
+public record mailInboxRequestC2SPayload(int offset, int limit, UUID focus) implements CustomPacketPayload {
+
+    public static final int PAGE_SIZE = 32;
+    public static final int MAX_LIMIT = 64;
+
+    /** First page. */
+    public mailInboxRequestC2SPayload() {
+        this(0, PAGE_SIZE, null);
+    }
 
     public static final Type<mailInboxRequestC2SPayload> TYPE =
             new Type<>(ResourceLocation.fromNamespaceAndPath(Kingdoms.MOD_ID, "mail_inbox_request"));
 
     public static final StreamCodec<RegistryFriendlyByteBuf, mailInboxRequestC2SPayload> CODEC =
-            StreamCodec.unit(new mailInboxRequestC2SPayload());
+            StreamCodec.of(
+                    (buf, p) -> {
+                        buf.writeVarInt(Math.max(0, p.offset()));
+                        buf.writeVarInt(Math.max(0, p.limit()));
+                        buf.writeBoolean(p.focus() != null);
+                        if (p.focus() != null) buf.writeUUID(p.focus());
+                    },
+                    buf -> new mailInboxRequestC2SPayload(
+                            buf.readVarInt(),
+                            buf.readVarInt(),
+                            buf.readBoolean() ? buf.readUUID() : null
+                    )
+            );
 
     @Override
     public Type<? extends CustomPacketPayload> type() {
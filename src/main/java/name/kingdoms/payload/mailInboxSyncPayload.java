@@ -10,11 +10,20 @@ import net.minecraft.resources.ResourceLocation;
 import java.util.ArrayList;
 import java.util.List;
 
-public record mailInboxSyncPayload(List<Letter> inbox) implements CustomPacketPayload {
+/**
+ * One page of the inbox (newest first): {@code letters} start at index {@code offset} of {@code total}.
+ * {@code headSeq} is the sequence number of the newest letter (0 if empty).
+ * Sent in reply to {@link mailInboxRequestC2SPayload}; later changes arrive as {@link mailInboxDeltaS2CPayload}.
+ */
+public record mailInboxSyncPayload(int total, int pending, long headSeq, int offset, List<Letter> letters) implements CustomPacketPayload {
 
     // ✅ Snapshot the list to prevent ConcurrentModificationException during Netty encode
     public mailInboxSyncPayload {
-        inbox = (inbox == null) ? List.of() : List.copyOf(inbox);
+        letters = (letters == null) ? List.of() : List.copyOf(letters);
+    }
+
+    public static mailInboxSyncPayload empty() {
+        return new mailInboxSyncPayload(0, 0, 0L, 0, List.of());
     }
 
     public static final CustomPacketPayload.Type<mailInboxSyncPayload> TYPE =
@@ -24,25 +33,26 @@ public record mailInboxSyncPayload(List<Letter> inbox) implements CustomPacketPa
             new StreamCodec<>() {
                 @Override
                 public mailInboxSyncPayload decode(RegistryFriendlyByteBuf buf) {
+                    int total = buf.readVarInt();
+                    int pending = buf.readVarInt();
+                    long headSeq = buf.readVarLong();
+                    int offset = buf.readVarInt();
                     int n = buf.readVarInt();
-                    ArrayList<Letter> list = new ArrayList<>(Math.max(0, n));
+                    ArrayList<Letter> list = new ArrayList<>(Math.max(0, Math.min(n, mailInboxRequestC2SPayload.MAX_LIMIT)));
                     for (int i = 0; i < n; i++) {
                         list.add(Letter.CODEC.decode(buf));
                     }
-                    return new mailInboxSyncPayload(list);
+                    return new mailInboxSyncPayload(total, pending, headSeq, offset, list);
                 }
 
                 @Override
                 public void encode(RegistryFriendlyByteBuf buf, mailInboxSyncPayload value) {
-                    List<Letter> list = value.inbox(); // immutable snapshot now
-
-                    int count = 0;
-                    for (Letter l : list) if (l != null) count++;
-
-                    buf.writeVarInt(count);
-
-                    for (Letter l : list) {
-                        if (l == null) continue;
+                    buf.writeVarInt(value.total());
+                    buf.writeVarInt(value.pending());
+                    buf.writeVarLong(value.headSeq());
+                    buf.writeVarInt(value.offset());
+                    buf.writeVarInt(value.letters().size());
+                    for (Letter l : value.letters()) {
                         Letter.CODEC.encode(buf, l);
                     }
                 }
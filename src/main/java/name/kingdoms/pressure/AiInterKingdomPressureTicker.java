@@ -3,9 +3,10 @@ package name.kingdoms.pressure;
 import name.kingdoms.aiKingdomState;
 import name.kingdoms.diplomacy.AllianceState;
 import name.kingdoms.war.WarState;
-import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import name.kingdoms.time.KingdomScheduler;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
 
 import java.util.*;
 
@@ -20,55 +21,46 @@ public final class AiInterKingdomPressureTicker {
     private static final long GLOBAL_COOLDOWN_TICKS = 20L * 60L * 2L;
     private static long nextGlobalAllowed = 0L;
 
-    // Per-kingdom scheduling
-    private static final Map<UUID, Long> nextDueByKingdom = new HashMap<>();
-
     // Optional: a stable "world causer" constant if you ever need it
     private static final UUID ZERO_UUID = new UUID(0L, 0L);
 
     public static void init() {
-        ServerTickEvents.END_SERVER_TICK.register(AiInterKingdomPressureTicker::tick);
+        // Per-kingdom scheduling lives on the shared timer wheel; one "speaker" per tick at most
+        KingdomScheduler.register(
+                "ai_inter_kingdom_pressure",
+                1,
+                AiInterKingdomPressureTicker::nextDelay,
+                AiInterKingdomPressureTicker::nextDelay,
+                server -> aiKingdomState.get(server).ids(),
+                AiInterKingdomPressureTicker::canFire,
+                AiInterKingdomPressureTicker::fire
+        );
     }
 
-    private static long nextDelay(ServerLevel level) {
-        int jitter = (JITTER_TICKS <= 0) ? 0 : level.random.nextInt(JITTER_TICKS * 2 + 1) - JITTER_TICKS;
+    private static long nextDelay(RandomSource r) {
+        int jitter = (JITTER_TICKS <= 0) ? 0 : r.nextInt(JITTER_TICKS * 2 + 1) - JITTER_TICKS;
         return Math.max(20, BASE_INTERVAL_TICKS + jitter);
     }
 
-    private static void tick(MinecraftServer server) {
-        if (server == null) return;
+    private static boolean canFire(MinecraftServer server) {
+        if (server.getTickCount() < nextGlobalAllowed) return false;
+        var aiState = aiKingdomState.get(server);
+        return aiState != null && aiState.count() >= 2;
+    }
+
+    /** {@code aId} is the due "speaker" AI kingdom. */
+    private static KingdomScheduler.Outcome fire(MinecraftServer server, UUID aId) {
         long now = server.getTickCount();
-        if (now < nextGlobalAllowed) return;
 
         ServerLevel level = server.overworld();
-        if (level == null) return;
+        if (level == null) return KingdomScheduler.Outcome.SKIPPED;
 
         var aiState = aiKingdomState.get(server);
-        if (aiState == null || aiState.kingdoms == null || aiState.kingdoms.size() < 2) return;
-
-        // Pick one "speaker" AI kingdom that is due
-        UUID aId = null;
-        for (var aiK : aiState.kingdoms.values()) {
-            if (aiK == null || aiK.id == null) continue;
-
-            long due = nextDueByKingdom.getOrDefault(aiK.id, 0L);
-            if (due == 0L) {
-                nextDueByKingdom.put(aiK.id, now + nextDelay(level));
-                continue;
-            }
-            if (now < due) continue;
-
-            aId = aiK.id;
-            break;
-        }
-        if (aId == null) return;
-
-        // Reschedule immediately (prevents multiple fires same tick)
-        nextDueByKingdom.put(aId, now + nextDelay(level));
+        if (aiState.view(aId) == null) return KingdomScheduler.Outcome.DROP;
 
         // Choose a different AI kingdom as the "target"
         UUID bId = pickOtherAi(aiState, level, aId);
-        if (bId == null) return;
+        if (bId == null) return KingdomScheduler.Outcome.RAN;
 
         boolean atWar = false;
         boolean allied = false;
@@ -83,19 +75,21 @@ public final class AiInterKingdomPressureTicker {
 
         // Global cooldown
         nextGlobalAllowed = now + GLOBAL_COOLDOWN_TICKS;
+        return KingdomScheduler.Outcome.RAN;
     }
 
     private static UUID pickOtherAi(aiKingdomState aiState, ServerLevel level, UUID aId) {
-        // Collect candidate IDs
-        var ids = new ArrayList<UUID>(aiState.kingdoms.size());
-        for (var aiK : aiState.kingdoms.values()) {
-            if (aiK == null || aiK.id == null) continue;
-            if (aiK.id.equals(aId)) continue;
-            ids.add(aiK.id);
+        // Uniform pick among the other AI kingdoms, straight off the live id set (no candidate list)
+        var ids = aiState.ids();
+        int candidates = ids.size() - (ids.contains(aId) ? 1 : 0);
+        if (candidates <= 0) return null;
+
+        int pick = level.random.nextInt(candidates);
+        for (UUID id : ids) {
+            if (id.equals(aId)) continue;
+            if (pick-- == 0) return id;
         }
-        if (ids.isEmpty()) return null;
-
-        return ids.get(level.random.nextInt(ids.size()));
+        return null;
     }
 
     private enum EffectKind {
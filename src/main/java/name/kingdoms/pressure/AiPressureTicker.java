@@ -5,9 +5,10 @@ import name.kingdoms.kingdomState;
 import name.kingdoms.diplomacy.AllianceState;
 import name.kingdoms.diplomacy.DiplomacyRelationsState;
 import name.kingdoms.war.WarState;
-import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import name.kingdoms.time.KingdomScheduler;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
 
 import java.util.*;
 
@@ -26,69 +27,47 @@ public final class AiPressureTicker {
     private static final long PER_CAUSER_CD = 20L * 60L * 12L;
     private static final Map<UUID, Long> nextAllowedByAi = new HashMap<>();
 
-    private static final Map<UUID, Long> NEXT_DUE = new HashMap<>();
-
     public static void init() {
-        ServerTickEvents.END_SERVER_TICK.register(AiPressureTicker::tick);
+        // each AI kingdom is due every ~6 minutes on the shared timer wheel; budget 1 event per tick
+        KingdomScheduler.register(
+                "ai_pressure_on_player",
+                1,
+                AiPressureTicker::nextDelay,
+                AiPressureTicker::nextDelay,
+                server -> aiKingdomState.get(server).ids(),
+                server -> server.getTickCount() >= nextAllowedGlobal
+                        && kingdomState.get(server).firstPlayerKingdom() != null,
+                AiPressureTicker::fire
+        );
     }
 
-    private static long nextDelay(net.minecraft.util.RandomSource r) {
+    private static long nextDelay(RandomSource r) {
         int jitter = (int) (INTERVAL_TICKS * JITTER_FRAC);
         int delta = INTERVAL_TICKS + (jitter == 0 ? 0 : (r.nextInt(jitter * 2 + 1) - jitter));
         return Math.max(20, delta);
     }
 
-    private static void tick(MinecraftServer server) {
-        if (server == null) return;
+    private static KingdomScheduler.Outcome fire(MinecraftServer server, UUID chosenAiId) {
         long nowTick = server.getTickCount();
-        if (nowTick < nextAllowedGlobal) return;
 
         ServerLevel overworld = server.overworld();
-        if (overworld == null) return;
+        if (overworld == null) return KingdomScheduler.Outcome.SKIPPED;
 
-        var ks = kingdomState.get(server);
         // You likely have one player kingdom per owner; for now we target "the calling player kingdom":
-        // simplest: pick ANY player kingdom that exists (first one). If you support multiple, loop them later.
-        kingdomState.Kingdom playerK = null;
-        for (var k : ks.getAllKingdoms()) {
-            if (k != null && k.owner != null) { playerK = k; break; }
-        }
-        if (playerK == null) return;
+        // simplest: the first player kingdom that exists. If you support multiple, loop getPlayerKingdoms() later.
+        kingdomState.Kingdom playerK = kingdomState.get(server).firstPlayerKingdom();
+        if (playerK == null) return KingdomScheduler.Outcome.SKIPPED;
+
+        // per-causer cd: try again next time round without using this tick's budget
+        long perAi = nextAllowedByAi.getOrDefault(chosenAiId, 0L);
+        if (nowTick < perAi) return KingdomScheduler.Outcome.SKIPPED;
 
         var ai = aiKingdomState.get(server);
         var war = WarState.get(server);
         var alliance = AllianceState.get(server);
 
-        // pick one AI due this tick (budget 1)
-        UUID chosenAiId = null;
-        for (var snap : ai.exportSnapshot().values()) {
-            if (snap == null || snap.id() == null) continue;
-
-            long due = NEXT_DUE.getOrDefault(snap.id(), 0L);
-            if (due == 0L) {
-                NEXT_DUE.put(snap.id(), nowTick + nextDelay(overworld.random));
-                continue;
-            }
-            if (nowTick < due) continue;
-
-            // per-causer cd
-            long perAi = nextAllowedByAi.getOrDefault(snap.id(), 0L);
-            if (nowTick < perAi) {
-                NEXT_DUE.put(snap.id(), nowTick + nextDelay(overworld.random));
-                continue;
-            }
-
-            chosenAiId = snap.id();
-            break;
-        }
-
-        if (chosenAiId == null) return;
-
-        // reschedule immediately (so it won't run repeatedly if apply fails)
-        NEXT_DUE.put(chosenAiId, nowTick + nextDelay(overworld.random));
-
-        var snap = ai.exportSnapshot().get(chosenAiId);
-        if (snap == null) return;
+        var aiK = ai.view(chosenAiId);
+        if (aiK == null) return KingdomScheduler.Outcome.DROP;
 
         // Relationship + gates
         boolean atWar = war.isAtWar(playerK.id, chosenAiId);
@@ -106,7 +85,7 @@ public final class AiPressureTicker {
         double security = playerK.securityValue();
 
         // personality
-        var p = snap.personality();
+        var p = aiK.personality();
         double aggression = (p == null) ? 0.35 : p.aggression();
         double generosity = (p == null) ? 0.50 : p.generosity();
         double greed = (p == null) ? 0.50 : p.greed();
@@ -116,13 +95,13 @@ public final class AiPressureTicker {
         PressureCatalog.Template tpl = pickTemplate(overworld.random, rel, atWar, allied, econ, happiness, security,
                 aggression, generosity, greed, prag);
 
-        if (tpl == null) return;
+        if (tpl == null) return KingdomScheduler.Outcome.RAN;
 
         // Apply to player kingdom, with causer = AI kingdom id
         var ps = KingdomPressureState.get(server);
 
         // hard spam prevention: don't stack identical type from same AI if already active anywhere
-        if (ps.hasActiveByCauser(chosenAiId, tpl.typeId(), nowTick)) return;
+        if (ps.hasActiveByCauser(chosenAiId, tpl.typeId(), nowTick)) return KingdomScheduler.Outcome.RAN;
 
         // Determine scope: relation-only effects should usually be CAUSER_ONLY
         boolean hasRel = tpl.effects() != null && tpl.effects().get(KingdomPressureState.Stat.RELATIONS) != null;
@@ -148,6 +127,7 @@ public final class AiPressureTicker {
         // cooldowns
         nextAllowedGlobal = nowTick + GLOBAL_PLAYER_CD;
         nextAllowedByAi.put(chosenAiId, nowTick + PER_CAUSER_CD);
+        return KingdomScheduler.Outcome.RAN;
     }
 
     private static PressureCatalog.Template pickTemplate(
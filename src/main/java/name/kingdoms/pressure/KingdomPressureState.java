@@ -17,6 +17,10 @@ import java.util.*;
  * - Stores time-limited "events" that apply modifiers to kingdoms
  * - Ticks to expire events
  * - Provides a "modifiers for kingdom" snapshot for use by economy/security/happiness/etc.
+ *
+ * Events only change through this class, which keeps three runtime indexes in step (rebuilt on load):
+ * per-kingdom aggregated modifiers (recomputed when that kingdom's events change or one of them expires),
+ * an expiry min-heap for tick(), and causer -> events for hasActiveByCauser.
  */
 public class KingdomPressureState extends SavedData {
 
@@ -44,18 +48,12 @@ public class KingdomPressureState extends SavedData {
     public boolean hasActiveByCauser(UUID causer, String typeId, long nowTick) {
         if (causer == null || typeId == null) return false;
 
-        for (var entry : eventsByKingdom.entrySet()) {
-            var list = entry.getValue();
-            if (list == null || list.isEmpty()) continue;
+        var list = eventsByCauser.get(causer);
+        if (list == null) return false;
 
-            for (var e : list) {
-                if (e == null) continue;
-                if (nowTick >= e.endTick()) continue;
-                if (!typeId.equals(e.typeId())) continue;
-                if (!causer.equals(e.causer())) continue;
-
-                return true;
-            }
+        for (var e : list) {
+            if (nowTick >= e.endTick()) continue;
+            if (typeId.equals(e.typeId())) return true;
         }
         return false;
     }
@@ -179,6 +177,7 @@ public class KingdomPressureState extends SavedData {
         );
 
         eventsByKingdom.computeIfAbsent(causee, k -> new ArrayList<>()).add(pe);
+        index(causee, pe);
         setDirty();
         return eid;
     }
@@ -217,6 +216,7 @@ public class KingdomPressureState extends SavedData {
         );
 
         eventsByKingdom.computeIfAbsent(causee, k -> new ArrayList<>()).add(pe);
+        index(causee, pe);
         setDirty();
         return eid;
     }
@@ -261,10 +261,24 @@ public class KingdomPressureState extends SavedData {
 
     /** Remove an event by id (mostly for debugging; design says "no direct removal"). */
     public boolean removeEvent(UUID causee, UUID eventId) {
+        if (eventId == null) return false;
+        return removeEventsIf(causee, e -> eventId.equals(e.id())) > 0;
+    }
+
+    /** Removes this kingdom's events matching {@code filter} (expired or not). Returns how many were removed. */
+    public int removeEventsIf(UUID causee, java.util.function.Predicate<PressureEvent> filter) {
         var list = eventsByKingdom.get(causee);
-        if (list == null || list.isEmpty()) return false;
-        boolean removed = list.removeIf(e -> e != null && e.id().equals(eventId));
-        if (removed) {
+        if (list == null || list.isEmpty()) return 0;
+
+        int removed = 0;
+        for (var it = list.iterator(); it.hasNext(); ) {
+            PressureEvent e = it.next();
+            if (!filter.test(e)) continue;
+            it.remove();
+            unindex(causee, e);
+            removed++;
+        }
+        if (removed > 0) {
             if (list.isEmpty()) eventsByKingdom.remove(causee);
             setDirty();
         }
@@ -278,24 +292,49 @@ public class KingdomPressureState extends SavedData {
         return Collections.unmodifiableList(list);
     }
 
-    /** INTERNAL: mark dirty explicitly when callers mutate lists directly. */
+    /** Mark dirty explicitly (e.g. after a batch of adds). */
     public void markDirty() {
         setDirty();
     }
 
     /** The main thing other systems want: "what modifiers apply right now?" */
     public Mods getMods(UUID kingdomId, long nowTick) {
+        ModsCache c = cachedMods(kingdomId, nowTick);
+        return (c == null) ? Mods.NONE : c.mods;
+    }
+
+    /** One aggregated modifier, without building a {@link Mods}: ECONOMY is the multiplier, the rest are deltas. */
+    public double getMod(UUID kingdomId, Stat stat, long nowTick) {
+        ModsCache c = cachedMods(kingdomId, nowTick);
+        if (c == null) return (stat == Stat.ECONOMY) ? 1.0 : 0.0;
+        return c.values[stat.ordinal()];
+    }
+
+    private ModsCache cachedMods(UUID kingdomId, long nowTick) {
         var list = eventsByKingdom.get(kingdomId);
-        if (list == null || list.isEmpty()) return Mods.NONE;
+        if (list == null || list.isEmpty()) return null;
 
+        ModsCache c = modsCache.get(kingdomId);
+        if (c != null && nowTick >= c.fromTick && nowTick < c.untilTick) return c;
+
+        if (c == null) {
+            c = new ModsCache();
+            modsCache.put(kingdomId, c);
+        }
+        aggregate(list, nowTick, c);
+        return c;
+    }
+
+    private static void aggregate(List<PressureEvent> list, long nowTick, ModsCache c) {
         double econMult = 1.0;
         double hapDelta = 0.0;
         double secDelta = 0.0;
         int relDelta = 0;
+        long until = Long.MAX_VALUE;
 
         for (PressureEvent e : list) {
-            if (e == null) continue;
             if (nowTick >= e.endTick()) continue; // expired (tick() should clean, but safe)
+            until = Math.min(until, e.endTick());
 
             // For step 1: effects are constant through duration.
             // Later we can add "decay curves" here.
@@ -324,7 +363,13 @@ public class KingdomPressureState extends SavedData {
         // Avoid econ going negative or 0 unless you REALLY want “collapsed economy”
         econMult = Math.max(0.10, econMult);
 
-        return new Mods(econMult, hapDelta, secDelta, relDelta);
+        c.values[Stat.ECONOMY.ordinal()] = econMult;
+        c.values[Stat.HAPPINESS.ordinal()] = hapDelta;
+        c.values[Stat.SECURITY.ordinal()] = secDelta;
+        c.values[Stat.RELATIONS.ordinal()] = relDelta;
+        c.fromTick = nowTick;
+        c.untilTick = until;
+        c.mods = (until == Long.MAX_VALUE) ? Mods.NONE : new Mods(econMult, hapDelta, secDelta, relDelta);
     }
 
     /**
@@ -334,26 +379,15 @@ public class KingdomPressureState extends SavedData {
     public void tick(long nowTick) {
         boolean changed = false;
 
-        if (eventsByKingdom.isEmpty()) return;
+        // expire events: only the ones whose end has passed, soonest first
+        while (!expiries.isEmpty() && nowTick >= expiries.peek().endTick()) {
+            Expiry x = expiries.poll();
+            var list = eventsByKingdom.get(x.kingdomId());
+            if (list == null || !list.remove(x.event())) continue; // removed earlier by other means
 
-        var it = eventsByKingdom.entrySet().iterator();
-        while (it.hasNext()) {
-            var entry = it.next();
-            var list = entry.getValue();
-            if (list == null || list.isEmpty()) {
-                it.remove();
-                changed = true;
-                continue;
-            }
-
-            int before = list.size();
-            list.removeIf(e -> e == null || nowTick >= e.endTick());
-            if (list.isEmpty()) {
-                it.remove();
-                changed = true;
-            } else if (list.size() != before) {
-                changed = true;
-            }
+            unindex(x.kingdomId(), x.event());
+            if (list.isEmpty()) eventsByKingdom.remove(x.kingdomId());
+            changed = true;
         }
 
         // expire entity locks
@@ -367,6 +401,37 @@ public class KingdomPressureState extends SavedData {
         if (changed) setDirty();
     }
 
+    /* ---------------------------------
+       Runtime indexes
+     --------------------------------- */
+
+    /** Aggregated modifiers for one kingdom, by {@link Stat} ordinal; valid for ticks in [fromTick, untilTick). */
+    private static final class ModsCache {
+        final double[] values = new double[Stat.values().length];
+        long fromTick;
+        long untilTick;
+        Mods mods = Mods.NONE;
+    }
+
+    private record Expiry(long endTick, UUID kingdomId, PressureEvent event) {}
+
+    private final Map<UUID, ModsCache> modsCache = new HashMap<>();
+    private final Map<UUID, List<PressureEvent>> eventsByCauser = new HashMap<>();
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>(Comparator.comparingLong(Expiry::endTick));
+
+    private void index(UUID kingdomId, PressureEvent e) {
+        eventsByCauser.computeIfAbsent(e.causer(), k -> new ArrayList<>()).add(e);
+        expiries.add(new Expiry(e.endTick(), kingdomId, e));
+        modsCache.remove(kingdomId);
+    }
+
+    /** Heap entries are dropped lazily when they come due. */
+    private void unindex(UUID kingdomId, PressureEvent e) {
+        var byCauser = eventsByCauser.get(e.causer());
+        if (byCauser != null && byCauser.remove(e) && byCauser.isEmpty()) eventsByCauser.remove(e.causer());
+        modsCache.remove(kingdomId);
+    }
+
     /* ---------------------------------
        Data model + codecs
      --------------------------------- */
@@ -444,12 +509,6 @@ public class KingdomPressureState extends SavedData {
         return kingdomId != null && knownAiKingdoms.contains(kingdomId);
     }
 
-    /** INTERNAL: ensure a mutable list exists for this kingdom (used by server-side policy handlers). */
-    public java.util.List<PressureEvent> getOrCreateEventsMutable(java.util.UUID kingdomId) {
-        if (kingdomId == null) return null;
-        return eventsByKingdom.computeIfAbsent(kingdomId, k -> new java.util.ArrayList<>());
-    }
-
    
     // --- Entity lock codecs ---
     private static final Codec<EntityLock> ENTITY_LOCK_CODEC =
@@ -476,7 +535,14 @@ public class KingdomPressureState extends SavedData {
                         UUID kid = e.getKey();
                         List<PressureEvent> list = e.getValue();
                         if (kid == null || list == null) continue;
-                        s.eventsByKingdom.put(kid, new ArrayList<>(list));
+
+                        List<PressureEvent> copy = new ArrayList<>(list.size());
+                        for (PressureEvent pe : list) {
+                            if (pe == null) continue;
+                            copy.add(pe);
+                            s.index(kid, pe);
+                        }
+                        if (!copy.isEmpty()) s.eventsByKingdom.put(kid, copy);
                     }
                 }
 
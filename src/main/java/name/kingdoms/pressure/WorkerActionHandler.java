@@ -145,17 +145,14 @@ public final class WorkerActionHandler {
     String newType = tpl.typeId();
     String group = policyGroupForTypeId(newType);
 
-    
-    var list = ps.getOrCreateEventsMutable(causee);
-    if (list == null) return;
+    if (causee == null) return;
 
    
-    list.removeIf(e -> e == null || now >= e.endTick());
-    ps.markDirty();
+    ps.removeEventsIf(causee, e -> now >= e.endTick());
 
 
     // 1) same policy already active -> no-op
-    for (var e : list) {
+    for (var e : ps.getEvents(causee)) {
         if (e == null) continue;
         if (newType.equals(e.typeId())) {
             if (player != null) player.sendSystemMessage(Component.literal("That policy is already in effect."));
@@ -165,13 +162,10 @@ public final class WorkerActionHandler {
 
     // 2) mutually exclusive within group -> remove other policies in same group
     if (!group.isEmpty()) {
-        list.removeIf(e -> e != null
-                && group.equals(policyGroupForTypeId(e.typeId()))
+        ps.removeEventsIf(causee, e -> group.equals(policyGroupForTypeId(e.typeId()))
                 && !newType.equals(e.typeId()));
     }
 
-    ps.markDirty();
-
  
     // 3) add new policy (cooldown until expire)
     UUID added = ps.tryAddEvent(
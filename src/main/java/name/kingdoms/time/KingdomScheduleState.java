@@ -0,0 +1,69 @@
+package name.kingdoms.time;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import name.kingdoms.SchemaMigrations;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.saveddata.SavedDataType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Persisted deadlines for {@link KingdomScheduler}: task type id -> kingdom id -> due game time.
+ * The scheduler writes through on every (re)schedule/drop and reads it back once per server start.
+ */
+public final class KingdomScheduleState extends SavedData {
+
+    private final Map<String, Map<UUID, Long>> due = new HashMap<>();
+
+    private static final Codec<UUID> UUID_CODEC =
+            Codec.STRING.xmap(UUID::fromString, UUID::toString);
+
+    private static final Codec<Map<String, Map<UUID, Long>>> DUE_CODEC =
+            Codec.unboundedMap(Codec.STRING, Codec.unboundedMap(UUID_CODEC, Codec.LONG));
+
+    /** Save-format fix-ups, applied once on load (see {@link SchemaMigrations}). None yet. */
+    private static final SchemaMigrations<KingdomScheduleState> MIGRATIONS = new SchemaMigrations<>();
+
+    private static final Codec<KingdomScheduleState> CODEC =
+            RecordCodecBuilder.create(inst -> inst.group(
+                    DUE_CODEC.optionalFieldOf("due", Map.of()).forGetter(s -> s.due),
+                    SchemaMigrations.versionField().forGetter(s -> MIGRATIONS.currentVersion())
+            ).apply(inst, (loadedDue, dataVersion) -> {
+                KingdomScheduleState s = new KingdomScheduleState();
+                for (var e : loadedDue.entrySet()) s.due.put(e.getKey(), new HashMap<>(e.getValue()));
+                if (MIGRATIONS.migrate(s, dataVersion)) s.setDirty();
+                return s;
+            }));
+
+    private static final SavedDataType<KingdomScheduleState> TYPE =
+            new SavedDataType<>("kingdoms_schedule", KingdomScheduleState::new, CODEC, null);
+
+    public static KingdomScheduleState get(MinecraftServer server) {
+        ServerLevel overworld = server.getLevel(Level.OVERWORLD);
+        if (overworld == null) return new KingdomScheduleState();
+        return overworld.getDataStorage().computeIfAbsent(TYPE);
+    }
+
+    Map<UUID, Long> dueFor(String typeId) {
+        Map<UUID, Long> m = due.get(typeId);
+        return (m == null) ? Map.of() : m;
+    }
+
+    void put(String typeId, UUID kingdomId, long dueTick) {
+        due.computeIfAbsent(typeId, k -> new HashMap<>()).put(kingdomId, dueTick);
+        setDirty();
+    }
+
+    void remove(String typeId, UUID kingdomId) {
+        Map<UUID, Long> m = due.get(typeId);
+        if (m == null || m.remove(kingdomId) == null) return;
+        if (m.isEmpty()) due.remove(typeId);
+        setDirty();
+    }
+}
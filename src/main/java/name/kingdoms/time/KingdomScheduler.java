@@ -0,0 +1,248 @@
+package name.kingdoms.time;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Shared per-kingdom recurring tasks, driven by one {@link TimerWheel} keyed by overworld game time.
+ *
+ * A subsystem registers a task type once (delays with jitter, a per-tick budget, an optional gate and
+ * the set of kingdoms it applies to). Each tick the wheel hands over only the timers that came due;
+ * they wait in the type's ready queue until the gate is open and budget is left, then run and are
+ * rescheduled. Nothing iterates all kingdoms per tick: membership is reconciled every
+ * {@link #RECONCILE_PERIOD_TICKS}.
+ *
+ * Deadlines are written through to {@link KingdomScheduleState} so they survive restarts. Lateness
+ * (run tick - due tick) is tracked per type; see {@code /kingdoms perf schedule}.
+ */
+public final class KingdomScheduler {
+    private KingdomScheduler() {}
+
+    private static final int RECONCILE_PERIOD_TICKS = 100;
+
+    public enum Outcome {
+        /** Did its work: reschedule, and it counts against the per-tick budget. */
+        RAN,
+        /** Nothing to do this time: reschedule without using budget. */
+        SKIPPED,
+        /** Kingdom is gone / task no longer applies: forget it. */
+        DROP
+    }
+
+    @FunctionalInterface
+    public interface Task {
+        Outcome run(MinecraftServer server, UUID kingdomId);
+    }
+
+    private record Entry(Type type, UUID kingdomId) {}
+
+    public static final class Type {
+        final String id;
+        final int budgetPerTick;
+        final ToLongFunction<RandomSource> firstDelay;
+        final ToLongFunction<RandomSource> nextDelay;
+        final Function<MinecraftServer, Set<UUID>> kingdoms;
+        final Predicate<MinecraftServer> gate;
+        final Task task;
+
+        final Map<UUID, TimerWheel.Timer<Entry>> timers = new HashMap<>();
+        final ArrayDeque<TimerWheel.Timer<Entry>> ready = new ArrayDeque<>();
+
+        long runs, skips, lateSum, lateMax;
+
+        private Type(String id, int budgetPerTick,
+                     ToLongFunction<RandomSource> firstDelay, ToLongFunction<RandomSource> nextDelay,
+                     Function<MinecraftServer, Set<UUID>> kingdoms, Predicate<MinecraftServer> gate, Task task) {
+            this.id = id;
+            this.budgetPerTick = budgetPerTick;
+            this.firstDelay = firstDelay;
+            this.nextDelay = nextDelay;
+            this.kingdoms = kingdoms;
+            this.gate = gate;
+            this.task = task;
+        }
+
+        void resetRuntime() {
+            timers.clear();
+            ready.clear();
+            runs = skips = lateSum = lateMax = 0;
+        }
+    }
+
+    public record TypeStats(String id, int scheduled, int ready, long runs, long skips,
+                            double avgLateTicks, long maxLateTicks, long oldestReadyLateTicks) {}
+
+    private static final List<Type> TYPES = new ArrayList<>();
+
+    private static TimerWheel<Entry> wheel;
+    private static KingdomScheduleState store;
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(KingdomScheduler::tick);
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> reset());
+    }
+
+    /**
+     * Registers a recurring per-kingdom task type. Call during mod init.
+     *
+     * @param id            stable id (used as the save key)
+     * @param budgetPerTick max {@link Outcome#RAN} runs per tick
+     * @param firstDelay    delay for a kingdom seen for the first time
+     * @param nextDelay     delay after each run (include jitter here)
+     * @param kingdoms      kingdoms the task applies to (reconciled periodically)
+     * @param gate          while false, due tasks wait (and accrue lateness)
+     */
+    public static Type register(String id, int budgetPerTick,
+                                ToLongFunction<RandomSource> firstDelay, ToLongFunction<RandomSource> nextDelay,
+                                Function<MinecraftServer, Set<UUID>> kingdoms, Predicate<MinecraftServer> gate,
+                                Task task) {
+        for (Type t : TYPES) {
+            if (t.id.equals(id)) throw new IllegalStateException("Duplicate scheduler task type: " + id);
+        }
+        Type type = new Type(id, Math.max(1, budgetPerTick), firstDelay, nextDelay, kingdoms, gate, task);
+        TYPES.add(type);
+        return type;
+    }
+
+    // ------------------------------------------------------------
+    // Tick
+    // ------------------------------------------------------------
+
+    private static void tick(MinecraftServer server) {
+        ServerLevel overworld = server.overworld();
+        if (overworld == null || TYPES.isEmpty()) return;
+
+        long now = overworld.getGameTime();
+        boolean loaded = ensureLoaded(server, now);
+
+        if (loaded || now % RECONCILE_PERIOD_TICKS == 0) {
+            for (Type type : TYPES) reconcile(server, type, now, overworld.getRandom());
+        }
+
+        wheel.advance(now, t -> t.value.type().ready.addLast(t));
+
+        for (Type type : TYPES) runReady(server, type, now, overworld.getRandom());
+    }
+
+    private static void runReady(MinecraftServer server, Type type, long now, RandomSource rng) {
+        int budget = type.budgetPerTick;
+        while (budget > 0 && !type.ready.isEmpty()) {
+            if (!type.gate.test(server)) return;
+
+            TimerWheel.Timer<Entry> timer = type.ready.pollFirst();
+            UUID kid = timer.value.kingdomId();
+            long late = Math.max(0L, now - timer.due());
+
+            Outcome outcome = type.task.run(server, kid);
+            if (outcome == Outcome.DROP) {
+                type.timers.remove(kid);
+                store.remove(type.id, kid);
+                continue;
+            }
+
+            long due = now + Math.max(1L, type.nextDelay.applyAsLong(rng));
+            wheel.reschedule(timer, due);
+            store.put(type.id, kid, due);
+
+            if (outcome == Outcome.RAN) {
+                budget--;
+                type.runs++;
+                type.lateSum += late;
+                type.lateMax = Math.max(type.lateMax, late);
+            } else {
+                type.skips++;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Membership / persistence
+    // ------------------------------------------------------------
+
+    /** @return true if the wheel was (re)built from the save this tick */
+    private static boolean ensureLoaded(MinecraftServer server, long now) {
+        KingdomScheduleState s = KingdomScheduleState.get(server);
+        if (wheel != null && s == store) return false;
+
+        wheel = new TimerWheel<>(now);
+        store = s;
+        for (Type type : TYPES) {
+            type.resetRuntime();
+            for (var e : s.dueFor(type.id).entrySet()) {
+                if (e.getKey() == null || e.getValue() == null) continue;
+                type.timers.put(e.getKey(), wheel.schedule(new Entry(type, e.getKey()), e.getValue()));
+            }
+        }
+        return true;
+    }
+
+    private static void reconcile(MinecraftServer server, Type type, long now, RandomSource rng) {
+        Set<UUID> live = type.kingdoms.apply(server);
+
+        // new kingdoms
+        for (UUID kid : live) {
+            if (kid == null || type.timers.containsKey(kid)) continue;
+            long due = now + Math.max(1L, type.firstDelay.applyAsLong(rng));
+            type.timers.put(kid, wheel.schedule(new Entry(type, kid), due));
+            store.put(type.id, kid, due);
+        }
+
+        // kingdoms that no longer exist
+        Iterator<Map.Entry<UUID, TimerWheel.Timer<Entry>>> it = type.timers.entrySet().iterator();
+        while (it.hasNext()) {
+            var e = it.next();
+            if (live.contains(e.getKey())) continue;
+
+            TimerWheel.Timer<Entry> timer = e.getValue();
+            if (timer.isScheduled()) wheel.cancel(timer);
+            else type.ready.remove(timer);
+            it.remove();
+            store.remove(type.id, e.getKey());
+        }
+    }
+
+    private static void reset() {
+        wheel = null;
+        store = null;
+        for (Type type : TYPES) type.resetRuntime();
+    }
+
+    // ------------------------------------------------------------
+    // Stats
+    // ------------------------------------------------------------
+
+    public static List<TypeStats> stats(MinecraftServer server) {
+        long now = server.overworld().getGameTime();
+        List<TypeStats> out = new ArrayList<>(TYPES.size());
+        for (Type t : TYPES) {
+            TimerWheel.Timer<Entry> head = t.ready.peekFirst();
+            long oldest = (head == null) ? 0L : Math.max(0L, now - head.due());
+            out.add(new TypeStats(
+                    t.id,
+                    t.timers.size(),
+                    t.ready.size(),
+                    t.runs,
+                    t.skips,
+                    t.runs == 0 ? 0.0 : (double) t.lateSum / t.runs,
+                    t.lateMax,
+                    oldest
+            ));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,226 @@
+package name.kingdoms.time;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel keyed by absolute tick.
+ *
+ * Four levels of 64 slots: level L holds timers due 64^L .. 64^(L+1) ticks after "now" (level 0 holds the
+ * next 64 ticks, one tick per slot). Every 64^L ticks the current level-L slot is cascaded down, so each
+ * timer is touched at most once per level, and {@link #advance} only looks at the slots for ticks that
+ * actually pass. Timers beyond 64^4 ticks (~9.7 game days) wait in an overflow list.
+ *
+ * Timers are intrusive doubly-linked nodes, so {@link #cancel} is O(1). Single-threaded.
+ */
+public final class TimerWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // A gap larger than this is handled by re-inserting everything instead of stepping tick by tick.
+    private static final long MAX_STEP = SLOTS * SLOTS;
+
+    public static final class Timer<T> {
+        public final T value;
+        long due;
+        Timer<T> prev, next;
+        boolean linked;
+
+        Timer(T value, long due) {
+            this.value = value;
+            this.due = due;
+        }
+
+        public long due() {
+            return due;
+        }
+
+        public boolean isScheduled() {
+            return linked;
+        }
+    }
+
+    // sentinel heads: [level][slot], plus overflow
+    private final Timer<T>[][] slots;
+    private final Timer<T> overflow = new Timer<>(null, 0);
+    private long now;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long startTick) {
+        this.now = startTick;
+        this.slots = new Timer[LEVELS][SLOTS];
+        for (int l = 0; l < LEVELS; l++) {
+            for (int s = 0; s < SLOTS; s++) {
+                Timer<T> head = new Timer<>(null, 0);
+                head.prev = head.next = head;
+                slots[l][s] = head;
+            }
+        }
+        overflow.prev = overflow.next = overflow;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Schedules {@code value} at {@code dueTick}; anything not in the future fires on the next {@link #advance}. */
+    public Timer<T> schedule(T value, long dueTick) {
+        Timer<T> t = new Timer<>(value, dueTick);
+        insert(t);
+        size++;
+        return t;
+    }
+
+    /** Moves an existing timer (scheduled or already fired) to {@code dueTick}. */
+    public void reschedule(Timer<T> t, long dueTick) {
+        if (t.linked) unlink(t);
+        else size++;
+        t.due = dueTick;
+        insert(t);
+    }
+
+    public void cancel(Timer<T> t) {
+        if (!t.linked) return;
+        unlink(t);
+        size--;
+    }
+
+    /**
+     * Advances to {@code tick}, handing every timer due at or before it to {@code fired}, tick by tick.
+     * Timers that were already overdue (scheduled in the past, or skipped over by a jump larger than
+     * 4096 ticks) fire together first. Fired timers are unscheduled before the callback, which may
+     * reschedule them.
+     */
+    public void advance(long tick, Consumer<Timer<T>> fired) {
+        if (tick < now) return;
+
+        if (size == 0) {
+            now = tick;
+            return;
+        }
+
+        if (tick - now > MAX_STEP) {
+            rebase(tick);
+            fireSlot(slots[0][(int) (now & MASK)], fired);
+            return;
+        }
+
+        // the current tick's slot may hold timers scheduled "in the past" since the last advance
+        fireSlot(slots[0][(int) (now & MASK)], fired);
+        while (now < tick) {
+            now++;
+            cascade();
+            fireSlot(slots[0][(int) (now & MASK)], fired);
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Internals
+    // ------------------------------------------------------------
+
+    private void insert(Timer<T> t) {
+        long delta = t.due - now;
+        Timer<T> head;
+        if (delta < SLOTS) {
+            // due now or overdue -> current slot, fired on the next advance
+            head = slots[0][(int) ((delta <= 0 ? now : t.due) & MASK)];
+        } else {
+            head = overflow;
+            for (int l = 1; l < LEVELS; l++) {
+                if (delta < (1L << (BITS * (l + 1)))) {
+                    head = slots[l][(int) ((t.due >>> (BITS * l)) & MASK)];
+                    break;
+                }
+            }
+        }
+
+        t.prev = head.prev;
+        t.next = head;
+        head.prev.next = t;
+        head.prev = t;
+        t.linked = true;
+    }
+
+    private void unlink(Timer<T> t) {
+        t.prev.next = t.next;
+        t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.linked = false;
+    }
+
+    /** At a level boundary, re-inserts the higher-level slot that now falls within range. */
+    private void cascade() {
+        for (int l = 1; l < LEVELS; l++) {
+            if ((now & ((1L << (BITS * l)) - 1)) != 0) return;
+            relink(slots[l][(int) ((now >>> (BITS * l)) & MASK)]);
+        }
+        if ((now & ((1L << (BITS * LEVELS)) - 1)) == 0) relink(overflow);
+    }
+
+    private void relink(Timer<T> head) {
+        Timer<T> t = head.next;
+        head.prev = head.next = head;
+        while (t != head) {
+            Timer<T> next = t.next;
+            t.linked = false;
+            insert(t);
+            t = next;
+        }
+    }
+
+    private void fireSlot(Timer<T> head, Consumer<Timer<T>> fired) {
+        // detach the whole list first so callbacks can schedule into this slot
+        Timer<T> t = head.next;
+        if (t == head) return;
+        Timer<T> last = head.prev;
+        head.prev = head.next = head;
+        last.next = null;
+
+        while (t != null) {
+            Timer<T> next = t.next;
+            if (t.due > now) {
+                // not due yet (re-inserted overdue lists never contain these, but stay safe)
+                t.linked = false;
+                insert(t);
+            } else {
+                t.prev = t.next = null;
+                t.linked = false;
+                size--;
+                fired.accept(t);
+            }
+            t = next;
+        }
+    }
+
+    /** Large jump: collect everything and re-insert relative to {@code tick}. */
+    private void rebase(long tick) {
+        Timer<T> all = new Timer<>(null, 0);
+        all.prev = all.next = all;
+
+        for (int l = 0; l < LEVELS; l++) {
+            for (int s = 0; s < SLOTS; s++) spliceInto(slots[l][s], all);
+        }
+        spliceInto(overflow, all);
+
+        now = tick;
+        relink(all);
+    }
+
+    private void spliceInto(Timer<T> from, Timer<T> to) {
+        if (from.next == from) return;
+        Timer<T> first = from.next, last = from.prev;
+        from.prev = from.next = from;
+
+        first.prev = to.prev;
+        to.prev.next = first;
+        last.next = to;
+        to.prev = last;
+    }
+}
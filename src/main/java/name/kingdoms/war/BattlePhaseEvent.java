@@ -0,0 +1,38 @@
+package name.kingdoms.war;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** JFR event: one phase of one battle tick (see {@link BattleProfiler}). Only committed while a recording enables it. */
+@Name("kingdoms.BattlePhase")
+@Label("Battle Phase")
+@Category({"Kingdoms", "Battle"})
+@Description("Time, allocation and unit handle lookups of one WarBattleManager phase")
+@StackTrace(false)
+public final class BattlePhaseEvent extends Event {
+    @Label("Battle")
+    String battle;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Phase Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long phaseNanos;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    @Label("Unit Lookups")
+    long lookups;
+
+    @Label("Units")
+    int units;
+}
@@ -0,0 +1,190 @@
+package name.kingdoms.war;
+
+import jdk.jfr.EventType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-phase cost of the battle tick: time, bytes allocated and unit handle lookups, kept per battle over
+ * rolling windows ({@code /kingdoms perf battle}) and/or emitted as {@link BattlePhaseEvent} to JFR.
+ *
+ * Off by default. While neither the command toggle nor a JFR recording wants the data, {@link #begin}
+ * and {@link #end} only check two flags. Server thread only.
+ */
+public final class BattleProfiler {
+    private BattleProfiler() {}
+
+    public enum Phase {
+        CONTINGENTS("contingents"),
+        SCAN("scan"),
+        RESPAWNS("respawns"),
+        FORMATION("formation"),
+        STUCK("stuck (in formation)"),
+        TARGETING("targeting"),
+        HUD("hud");
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /** One window = 5 s; a report covers the last minute. */
+    public static final int WINDOW_TICKS = 100;
+    public static final int WINDOWS = 12;
+
+    private static volatile boolean enabled;
+    private static final EventType JFR = EventType.getEventType(BattlePhaseEvent.class);
+
+    // open phase (phases may nest: STUCK runs inside FORMATION)
+    private static final boolean[] open = new boolean[PHASES.length];
+    private static final long[] startNanos = new long[PHASES.length];
+    private static final long[] startAlloc = new long[PHASES.length];
+    private static final long[] startLookups = new long[PHASES.length];
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    public static void begin(Phase p, long lookups) {
+        int i = p.ordinal();
+        if (!enabled && !JFR.isEnabled()) {
+            open[i] = false;
+            return;
+        }
+        open[i] = true;
+        startLookups[i] = lookups;
+        startAlloc[i] = allocatedBytes();
+        startNanos[i] = System.nanoTime();
+    }
+
+    public static void end(Stats stats, Phase p, long lookups, int units) {
+        int i = p.ordinal();
+        if (!open[i]) return;
+        open[i] = false;
+
+        long nanos = System.nanoTime() - startNanos[i];
+        long alloc = Math.max(0L, allocatedBytes() - startAlloc[i]);
+        long looked = lookups - startLookups[i];
+
+        if (enabled) stats.record(i, nanos, alloc, looked);
+
+        if (JFR.isEnabled()) {
+            BattlePhaseEvent ev = new BattlePhaseEvent();
+            ev.battle = stats.label;
+            ev.phase = p.label;
+            ev.phaseNanos = nanos;
+            ev.allocated = alloc;
+            ev.lookups = looked;
+            ev.units = units;
+            ev.commit();
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** Bytes allocated by this thread so far, or 0 if the JVM can't tell us. */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()) {
+            return sun.getCurrentThreadAllocatedBytes();
+        }
+        return 0L;
+    }
+
+    // -------------------------
+    // Per-battle rolling stats
+    // -------------------------
+
+    public record PhaseReport(String phase, long calls, double avgMicrosPerTick, double maxMicros,
+                              double kibPerTick, double lookupsPerTick) {}
+
+    public record Report(String battle, int units, int ticks, List<PhaseReport> phases) {}
+
+    public static final class Stats {
+        final String label;
+
+        private final long[][] nanos = new long[WINDOWS][PHASES.length];
+        private final long[][] maxNanos = new long[WINDOWS][PHASES.length];
+        private final long[][] calls = new long[WINDOWS][PHASES.length];
+        private final long[][] alloc = new long[WINDOWS][PHASES.length];
+        private final long[][] lookups = new long[WINDOWS][PHASES.length];
+        private final int[] ticks = new int[WINDOWS];
+
+        private long window = Long.MIN_VALUE;
+        private int cur;
+
+        Stats(String label) {
+            this.label = label;
+        }
+
+        /** Once per battle tick while profiling: rolls the window. */
+        void tick(long battleTick) {
+            long w = battleTick / WINDOW_TICKS;
+            if (w != window) {
+                long steps = (window == Long.MIN_VALUE) ? WINDOWS : Math.min(WINDOWS, Math.max(1, w - window));
+                for (long s = 0; s < steps; s++) {
+                    cur = (cur + 1) % WINDOWS;
+                    clearWindow(cur);
+                }
+                window = w;
+            }
+            ticks[cur]++;
+        }
+
+        private void record(int phase, long ns, long bytes, long looked) {
+            nanos[cur][phase] += ns;
+            if (ns > maxNanos[cur][phase]) maxNanos[cur][phase] = ns;
+            calls[cur][phase]++;
+            alloc[cur][phase] += bytes;
+            lookups[cur][phase] += looked;
+        }
+
+        void reset() {
+            for (int w = 0; w < WINDOWS; w++) clearWindow(w);
+            window = Long.MIN_VALUE;
+        }
+
+        private void clearWindow(int w) {
+            ticks[w] = 0;
+            for (int p = 0; p < PHASES.length; p++) {
+                nanos[w][p] = 0;
+                maxNanos[w][p] = 0;
+                calls[w][p] = 0;
+                alloc[w][p] = 0;
+                lookups[w][p] = 0;
+            }
+        }
+
+        Report report(int units) {
+            int totalTicks = 0;
+            for (int t : ticks) totalTicks += t;
+            double perTick = Math.max(1, totalTicks);
+
+            List<PhaseReport> out = new ArrayList<>(PHASES.length);
+            for (Phase ph : PHASES) {
+                int p = ph.ordinal();
+                long n = 0, max = 0, c = 0, b = 0, l = 0;
+                for (int w = 0; w < WINDOWS; w++) {
+                    n += nanos[w][p];
+                    max = Math.max(max, maxNanos[w][p]);
+                    c += calls[w][p];
+                    b += alloc[w][p];
+                    l += lookups[w][p];
+                }
+                out.add(new PhaseReport(ph.label, c, n / 1000.0 / perTick, max / 1000.0,
+                        b / 1024.0 / perTick, l / perTick));
+            }
+            return new Report(label, units, totalTicks, out);
+        }
+    }
+}
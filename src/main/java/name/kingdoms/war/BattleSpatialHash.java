@@ -0,0 +1,152 @@
+package name.kingdoms.war;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.world.entity.LivingEntity;
+
+import java.util.Arrays;
+
+/**
+ * Uniform XZ grid over one side's live combatants, rebuilt every targeting pass.
+ *
+ * Entries are chained per cell (head map + next array), so a rebuild allocates nothing once the arrays
+ * have grown. Distances are full 3D like {@code Entity.distanceToSqr}; the grid only prunes by XZ.
+ * Each entry also counts how many units picked it this pass, so targeting can spread out.
+ */
+final class BattleSpatialHash {
+    private static final double CELL = 8.0;
+
+    private LivingEntity[] ents = new LivingEntity[64];
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private double[] zs = new double[64];
+    private int[] next = new int[64];
+    private int[] claims = new int[64];
+    private int size;
+
+    // cell key -> first entry (-1 = empty)
+    private final Long2IntOpenHashMap head = new Long2IntOpenHashMap();
+    // entity -> entry
+    private final Reference2IntOpenHashMap<LivingEntity> index = new Reference2IntOpenHashMap<>();
+
+    BattleSpatialHash() {
+        head.defaultReturnValue(-1);
+        index.defaultReturnValue(-1);
+    }
+
+    void clear() {
+        Arrays.fill(ents, 0, size, null);
+        size = 0;
+        head.clear();
+        index.clear();
+    }
+
+    void add(LivingEntity e) {
+        if (index.containsKey(e)) return;
+        if (size == ents.length) grow();
+
+        int i = size++;
+        ents[i] = e;
+        xs[i] = e.getX();
+        ys[i] = e.getY();
+        zs[i] = e.getZ();
+        claims[i] = 0;
+
+        long key = key(cell(xs[i]), cell(zs[i]));
+        next[i] = head.get(key);
+        head.put(key, i);
+        index.put(e, i);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Entry of {@code e}, or -1 if it is not in this pass. */
+    int indexOf(LivingEntity e) {
+        return e == null ? -1 : index.getInt(e);
+    }
+
+    LivingEntity get(int i) {
+        return ents[i];
+    }
+
+    int claims(int i) {
+        return claims[i];
+    }
+
+    void claim(int i) {
+        claims[i]++;
+    }
+
+    double distSqr(int i, double x, double y, double z) {
+        double dx = xs[i] - x, dy = ys[i] - y, dz = zs[i] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Up to {@code outIdx.length} nearest entries within {@code maxDist} of (x, y, z), nearest first.
+     * @return how many were found
+     */
+    int nearest(double x, double y, double z, double maxDist, int[] outIdx, double[] outD2) {
+        int k = outIdx.length;
+        if (size == 0 || k == 0) return 0;
+
+        double max2 = maxDist * maxDist;
+        int found = 0;
+
+        int cx = cell(x), cz = cell(z);
+        int maxR = (int) Math.ceil(maxDist / CELL);
+
+        for (int r = 0; r <= maxR; r++) {
+            for (int gx = cx - r; gx <= cx + r; gx++) {
+                boolean edgeX = (gx == cx - r || gx == cx + r);
+                for (int gz = cz - r; gz <= cz + r; gz++) {
+                    // ring r only: interior cells were scanned at smaller r
+                    if (!edgeX && gz != cz - r && gz != cz + r) continue;
+
+                    for (int i = head.get(key(gx, gz)); i >= 0; i = next[i]) {
+                        double d2 = distSqr(i, x, y, z);
+                        if (d2 > max2) continue;
+                        if (found == k && d2 >= outD2[k - 1]) continue;
+
+                        // insertion into the sorted top-k
+                        int j = (found < k) ? found++ : k - 1;
+                        while (j > 0 && outD2[j - 1] > d2) {
+                            outD2[j] = outD2[j - 1];
+                            outIdx[j] = outIdx[j - 1];
+                            j--;
+                        }
+                        outD2[j] = d2;
+                        outIdx[j] = i;
+                    }
+                }
+            }
+
+            // anything in ring r+1 is at least r cells away in XZ
+            if (found == k) {
+                double bound = r * CELL;
+                if (outD2[k - 1] <= bound * bound) break;
+            }
+        }
+        return found;
+    }
+
+    private void grow() {
+        int n = ents.length * 2;
+        ents = Arrays.copyOf(ents, n);
+        xs = Arrays.copyOf(xs, n);
+        ys = Arrays.copyOf(ys, n);
+        zs = Arrays.copyOf(zs, n);
+        next = Arrays.copyOf(next, n);
+        claims = Arrays.copyOf(claims, n);
+    }
+
+    private static int cell(double v) {
+        return (int) Math.floor(v / CELL);
+    }
+
+    private static long key(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+}
@@ -5,6 +5,10 @@ import name.kingdoms.entity.SoldierEntity;
 import name.kingdoms.entity.modEntities;
 import name.kingdoms.kingdomState;
 import name.kingdoms.entity.SoldierSkins;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.fabricmc.fabric.api.entity.event.v1.ServerLivingEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.core.BlockPos;
@@ -22,6 +26,7 @@ import net.minecraft.world.scores.PlayerTeam;
 import net.minecraft.world.scores.Scoreboard;
 import name.kingdoms.payload.warBattleHudSyncPayload;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.function.Consumer;
 
@@ -68,6 +73,10 @@ public final class WarBattleManager {
 
     private static final double ARCHER_ENGAGE_DIST = 28.0;   // archers acquire farther
 
+    private static final int TARGET_CANDIDATES = 3;          // k nearest enemies looked at per unit
+    private static final int TARGET_SHARE = 3;               // past this many attackers, prefer a less crowded enemy
+    private static final double RETARGET_RATIO = 0.6;        // only switch targets if the new one is this much closer
+
     // --- composition ---
     private static final double FRIEND_ARCHER_RATIO = 0.35; // 35% archers
     private static final double ENEMY_ARCHER_RATIO  = 0.35;
@@ -99,6 +108,37 @@ public final class WarBattleManager {
 
     public static void init() {
         ServerTickEvents.END_SERVER_TICK.register(WarBattleManager::tick);
+
+        // drop cached unit handles as soon as a soldier leaves the world
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, level) -> {
+            if (entity instanceof SoldierEntity) invalidateUnit(entity.getUUID());
+        });
+        ServerLivingEntityEvents.AFTER_DEATH.register((entity, source) -> {
+            if (entity instanceof SoldierEntity) invalidateUnit(entity.getUUID());
+        });
+    }
+
+    private static void invalidateUnit(UUID id) {
+        for (BattleInstance b : ACTIVE.values()) b.units.invalidate(id);
+    }
+
+    private static void phaseBegin(BattleInstance b, BattleProfiler.Phase phase) {
+        BattleProfiler.begin(phase, b.units.lookups);
+    }
+
+    private static void phaseEnd(BattleInstance b, BattleProfiler.Phase phase) {
+        BattleProfiler.end(b.perf, phase, b.units.lookups, b.units.size());
+    }
+
+    /** Rolling per-phase costs of every active battle (empty while profiling is off). */
+    public static List<BattleProfiler.Report> perfReports() {
+        List<BattleProfiler.Report> out = new ArrayList<>();
+        for (BattleInstance b : ACTIVE.values()) out.add(b.perf.report(b.units.size()));
+        return out;
+    }
+
+    public static void perfReset() {
+        for (BattleInstance b : ACTIVE.values()) b.perf.reset();
     }
 
     private static int deployForKingdom(
@@ -145,6 +185,13 @@ public final class WarBattleManager {
     private static void teleportIfStuck(BattleInstance battle, UUID entId, Mob mob, Vec3 goal) {
         if (mob == null || !mob.isAlive()) return;
 
+        phaseBegin(battle, BattleProfiler.Phase.STUCK);
+        checkStuck(battle, entId, mob, goal);
+        phaseEnd(battle, BattleProfiler.Phase.STUCK);
+    }
+
+    private static void checkStuck(BattleInstance battle, UUID entId, Mob mob, Vec3 goal) {
+
         // too close => don't teleport
         double d2 = mob.position().distanceToSqr(goal);
         if (d2 < TELEPORT_DIST * TELEPORT_DIST) {
@@ -431,6 +478,31 @@ public final class WarBattleManager {
         final Map<UUID, Vec3> lastPos = new HashMap<>();
         final Map<UUID, Integer> stuckTicks = new HashMap<>();
 
+        // Formation slots per side x role, and the anchors of every formation applied so far
+        final FormationSlots[][] formationSlots = new FormationSlots[Side.values().length][UnitRole.values().length];
+        final Map<FormationKey, FormationAnchor> anchors = new HashMap<>();
+
+        FormationSlots slots(Side side, UnitRole role) {
+            FormationSlots fs = formationSlots[side.ordinal()][role.ordinal()];
+            if (fs == null) {
+                fs = new FormationSlots(slotsFor(role));
+                formationSlots[side.ordinal()][role.ordinal()] = fs;
+            }
+            return fs;
+        }
+
+        // Live combatants per side, rebuilt by every refreshTargets pass
+        final BattleSpatialHash friendHash = new BattleSpatialHash();
+        final BattleSpatialHash enemyHash = new BattleSpatialHash();
+
+        // refreshTargets scratch, cleared at the start of each pass
+        final List<Mob> friendMobs = new ArrayList<>();
+        final List<UnitMeta> friendMetas = new ArrayList<>();
+        final List<Mob> enemyMobs = new ArrayList<>();
+        final List<UnitMeta> enemyMetas = new ArrayList<>();
+        final int[] nearIdx = new int[TARGET_CANDIDATES];
+        final double[] nearD2 = new double[TARGET_CANDIDATES];
+
 
         private enum OrderMode { FOLLOW, MOVE }
 
@@ -455,6 +527,7 @@ public final class WarBattleManager {
 
 
         final UUID battleId = UUID.randomUUID();
+        final BattleProfiler.Stats perf = new BattleProfiler.Stats(battleId.toString().substring(0, 8));
 
         final UUID friendRootKingdomId; // war-side root (the belligerent whose side we're on)
         final UUID enemyRootKingdomId;  // opposing belligerent
@@ -484,7 +557,7 @@ public final class WarBattleManager {
         float moraleEnemy  = START_MORALE;
 
         UUID enemyKingEntity;
-        final Map<UUID, UnitMeta> units = new HashMap<>();
+        final BattleUnits units = new BattleUnits();
         final ArrayDeque<PendingSpawn> pending = new ArrayDeque<>();
         final ArrayDeque<Long> friendDeathTicks = new ArrayDeque<>();
         final ArrayDeque<Long> enemyDeathTicks  = new ArrayDeque<>();
@@ -534,8 +607,283 @@ public final class WarBattleManager {
 
 
     private record UnitMeta(UUID sourceKingdomId, Side side, boolean isKing, UnitRole role, int formationIndex) {}
+
+    /**
+     * A battle's units as dense parallel arrays (swap-remove on death) plus uuid -> slot.
+     *
+     * The soldier is resolved once, when it is tracked, and held weakly; the entity unload/death callbacks
+     * (see {@link #init}) drop the handle, so no phase has to go through level.getEntity(uuid).
+     * Iterate from the end when removing.
+     */
+    private static final class BattleUnits {
+        private UUID[] ids = new UUID[64];
+        private UnitMeta[] metas = new UnitMeta[64];
+        @SuppressWarnings("unchecked")
+        private WeakReference<SoldierEntity>[] handles = new WeakReference[64];
+        private int size;
+
+        // handle resolves so far (BattleProfiler reads the deltas)
+        long lookups;
+
+        private final Object2IntOpenHashMap<UUID> slotOf = new Object2IntOpenHashMap<>();
+
+        BattleUnits() {
+            slotOf.defaultReturnValue(-1);
+        }
+
+        int size() {
+            return size;
+        }
+
+        UUID id(int i) {
+            return ids[i];
+        }
+
+        UnitMeta meta(int i) {
+            return metas[i];
+        }
+
+        /** The live soldier in slot {@code i}, or null once it died, unloaded or was removed. */
+        SoldierEntity entity(int i) {
+            lookups++;
+            WeakReference<SoldierEntity> h = handles[i];
+            SoldierEntity se = (h == null) ? null : h.get();
+            if (se == null || se.isRemoved() || !se.isAlive()) return null;
+            return se;
+        }
+
+        SoldierEntity entity(UUID id) {
+            int i = indexOf(id);
+            return (i < 0) ? null : entity(i);
+        }
+
+        int indexOf(UUID id) {
+            return (id == null) ? -1 : slotOf.getInt(id);
+        }
+
+        void add(SoldierEntity soldier, UnitMeta meta) {
+            UUID id = soldier.getUUID();
+            int i = slotOf.getInt(id);
+            if (i < 0) {
+                if (size == ids.length) grow();
+                i = size++;
+                slotOf.put(id, i);
+            }
+            ids[i] = id;
+            metas[i] = meta;
+            handles[i] = new WeakReference<>(soldier);
+        }
+
+        /** Entity left the world (unloaded, died, discarded): the slot reads as dead from now on. */
+        void invalidate(UUID id) {
+            int i = slotOf.getInt(id);
+            if (i >= 0) handles[i] = null;
+        }
+
+        void removeAt(int i) {
+            slotOf.removeInt(ids[i]);
+            int last = --size;
+            if (i != last) {
+                ids[i] = ids[last];
+                metas[i] = metas[last];
+                handles[i] = handles[last];
+                slotOf.put(ids[i], i);
+            }
+            ids[last] = null;
+            metas[last] = null;
+            handles[last] = null;
+        }
+
+        void clear() {
+            Arrays.fill(ids, 0, size, null);
+            Arrays.fill(metas, 0, size, null);
+            Arrays.fill(handles, 0, size, null);
+            size = 0;
+            slotOf.clear();
+        }
+
+        private void grow() {
+            int n = ids.length * 2;
+            ids = Arrays.copyOf(ids, n);
+            metas = Arrays.copyOf(metas, n);
+            handles = Arrays.copyOf(handles, n);
+        }
+    }
     private record PendingSpawn(long atTick, UUID sourceKingdomId, Side side, boolean isKing, UnitRole role) {}
 
+    /** Slot offsets of a cols x rows block, relative to its anchor: sideways (right) and backwards (back). */
+    private record FormationLayout(int cols, int rows, double spacing, double[] right, double[] back) {
+        private record Key(int cols, int rows, double spacing) {}
+        private static final Map<Key, FormationLayout> CACHE = new HashMap<>();
+
+        static FormationLayout of(int cols, int rows, double spacing) {
+            return CACHE.computeIfAbsent(new Key(cols, rows, spacing), k -> {
+                int n = cols * rows;
+                double[] right = new double[n];
+                double[] back = new double[n];
+                for (int i = 0; i < n; i++) {
+                    right[i] = (i % cols - (cols - 1) * 0.5) * spacing;
+                    back[i] = (i / cols) * spacing;
+                }
+                return new FormationLayout(cols, rows, spacing, right, back);
+            });
+        }
+
+        int size() {
+            return right.length;
+        }
+    }
+
+    /**
+     * Slot ownership of one side+role: a taken-bitset and slot -> unit, so claiming a slot is a
+     * first-clear-bit lookup. Units beyond capacity share the last slot (as before) and are kept apart.
+     * Slots and overflow are also listed per source kingdom, so one contingent's formation visits only
+     * its own units.
+     */
+    private static final class FormationSlots {
+        private static final IntArrayList NO_SLOTS = new IntArrayList();
+
+        private final long[] taken;
+        private final UUID[] unitAt;
+        private final List<UUID> overflow = new ArrayList<>();
+        private final Map<UUID, IntArrayList> slotsOf = new HashMap<>();
+        private final Map<UUID, List<UUID>> overflowOf = new HashMap<>();
+
+        FormationSlots(int capacity) {
+            taken = new long[(capacity + 63) >>> 6];
+            unitAt = new UUID[capacity];
+        }
+
+        int capacity() {
+            return unitAt.length;
+        }
+
+        int acquire(UUID unit, UUID source) {
+            for (int w = 0; w < taken.length; w++) {
+                long freeBits = ~taken[w];
+                if (freeBits == 0L) continue;
+                int slot = (w << 6) + Long.numberOfTrailingZeros(freeBits);
+                if (slot >= unitAt.length) break;
+                taken[w] |= 1L << slot;
+                unitAt[slot] = unit;
+                slotsOf.computeIfAbsent(source, k -> new IntArrayList()).add(slot);
+                return slot;
+            }
+            overflow.add(unit);
+            overflowOf.computeIfAbsent(source, k -> new ArrayList<>()).add(unit);
+            return unitAt.length - 1;
+        }
+
+        void release(int slot, UUID unit, UUID source) {
+            if (slot >= 0 && slot < unitAt.length && unit.equals(unitAt[slot])) {
+                taken[slot >>> 6] &= ~(1L << slot);
+                unitAt[slot] = null;
+                IntArrayList own = slotsOf.get(source);
+                if (own != null) own.rem(slot);
+            } else {
+                overflow.remove(unit);
+                List<UUID> own = overflowOf.get(source);
+                if (own != null) own.remove(unit);
+            }
+        }
+
+        UUID unitAt(int slot) {
+            return unitAt[slot];
+        }
+
+        List<UUID> overflow() {
+            return overflow;
+        }
+
+        /** Slots held by units of {@code source}. Don't modify. */
+        IntArrayList slotsOf(UUID source) {
+            return slotsOf.getOrDefault(source, NO_SLOTS);
+        }
+
+        List<UUID> overflowOf(UUID source) {
+            return overflowOf.getOrDefault(source, List.of());
+        }
+
+        void clear() {
+            Arrays.fill(taken, 0L);
+            Arrays.fill(unitAt, null);
+            overflow.clear();
+            slotsOf.clear();
+            overflowOf.clear();
+        }
+    }
+
+    private record FormationKey(Side side, UnitRole role, UUID sourceKingdomId) {}
+
+    /**
+     * Where one formation stands. Slot targets (incl. the ground height) are computed lazily per slot and
+     * reused until the anchor moves or turns noticeably, or for at most {@link #GROUND_TTL_TICKS} while it
+     * stands still (the ground can change under it: blocks placed, dug, exploded).
+     */
+    private static final class FormationAnchor {
+        private static final double MOVE_EPS = 0.25;     // blocks
+        private static final double TURN_COS = 0.999;    // ~2.5 degrees
+        private static final int GROUND_TTL_TICKS = 100;
+
+        private Vec3 base;
+        private Vec3 fwd;
+        private FormationLayout layout;
+        private int version;
+        private long versionTick;
+
+        private BlockPos[] target = new BlockPos[0];
+        private double[] tx = new double[0];
+        private double[] tz = new double[0];
+        private int[] targetVersion = new int[0];
+
+        void moveTo(Vec3 newBase, Vec3 newFwd, FormationLayout newLayout, long gameTime) {
+            if (layout != newLayout) {
+                layout = newLayout;
+                int n = newLayout.size();
+                target = new BlockPos[n];
+                tx = new double[n];
+                tz = new double[n];
+                targetVersion = new int[n];
+            } else if (base != null
+                    && base.distanceToSqr(newBase) < MOVE_EPS * MOVE_EPS
+                    && fwd.dot(newFwd) >= TURN_COS) {
+                if (gameTime - versionTick < GROUND_TTL_TICKS) return;
+                // standing still: keep the position, re-read the ground
+                newBase = base;
+                newFwd = fwd;
+            }
+            base = newBase;
+            fwd = newFwd;
+            version++;
+            versionTick = gameTime;
+        }
+
+        BlockPos target(ServerLevel level, int slot) {
+            if (targetVersion[slot] != version) {
+                // right = (-f.z, 0, f.x), back = -f
+                double x = base.x + (-fwd.z) * layout.right()[slot] - fwd.x * layout.back()[slot];
+                double z = base.z + fwd.x * layout.right()[slot] - fwd.z * layout.back()[slot];
+                int sx = Mth.floor(x);
+                int sz = Mth.floor(z);
+                int sy = level.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, sx, sz);
+
+                target[slot] = new BlockPos(sx, sy, sz);
+                tx[slot] = x;
+                tz[slot] = z;
+                targetVersion[slot] = version;
+            }
+            return target[slot];
+        }
+
+        double x(int slot) {
+            return tx[slot];
+        }
+
+        double z(int slot) {
+            return tz[slot];
+        }
+    }
+
 
     // --------------------
     // Helpers
@@ -558,23 +906,14 @@ public final class WarBattleManager {
             }
         } catch (Exception ignored) {}
 
-        Object kObj = null;
-        try {
-            var ks = kingdomState.get(server);
-            kObj = ks.getKingdom(kingdomId);
-        } catch (Exception ignored) {}
-
-        Object aiObj = null;
+        aiKingdomState.AiKingdom aiObj = null;
         try {
             aiObj = aiKingdomState.get(server).getById(kingdomId);
         } catch (Exception ignored) {}
 
-        String nm = tryReadString(kObj, "kingName", "rulerName", "leaderName");
-        if (nm == null) nm = tryReadString(aiObj, "kingName", "rulerName", "leaderName");
-
-        if (nm == null) {
-            if (side == Side.FRIEND) {
-         
+        // neither kingdom type stores a separate ruler name
+        String nm;
+        if (side == Side.FRIEND) {
             nm = fallbackPlayer.getName().getString();
 
             try {
@@ -591,48 +930,24 @@ public final class WarBattleManager {
                     }
                 }
             } catch (Exception ignored) {}
-        }else {
-                nm = tryReadString(aiObj, "name");
-                if (nm == null) {
-                    try {
-                        var ks = kingdomState.get(server);
-                        var ek = ks.getKingdom(kingdomId);
-                        if (ek != null && ek.name != null && !ek.name.isBlank()) nm = ek.name;
-                    } catch (Exception ignored) {}
-                }
-                if (nm == null) nm = "Enemy King";
+        } else {
+            nm = (aiObj != null && aiObj.name != null && !aiObj.name.isBlank()) ? aiObj.name : null;
+            if (nm == null) {
+                try {
+                    var ks = kingdomState.get(server);
+                    var ek = ks.getKingdom(kingdomId);
+                    if (ek != null && ek.name != null && !ek.name.isBlank()) nm = ek.name;
+                } catch (Exception ignored) {}
             }
+            if (nm == null) nm = "Enemy King";
         }
 
-        Integer skin = tryReadInt(kObj, "skinId", "kingSkinId", "rulerSkinId", "skin");
-        if (skin == null) skin = tryReadInt(aiObj, "skinId", "kingSkinId", "rulerSkinId", "skin");
-        if (skin == null) skin = 0;
+        // player kingdoms have no ruler skin
+        int skin = (aiObj != null) ? aiObj.skinId : 0;
 
         return new RulerInfo(nm, Math.max(0, skin));
     }
 
-    private static Integer tryReadInt(Object obj, String... names) {
-        if (obj == null) return null;
-        Class<?> c = obj.getClass();
-        for (String n : names) {
-            for (Class<?> cc = c; cc != null; cc = cc.getSuperclass()) {
-                try {
-                    var f = cc.getDeclaredField(n);
-                    f.setAccessible(true);
-                    Object v = f.get(obj);
-                    if (v instanceof Number num) return num.intValue();
-                } catch (Exception ignored) {}
-            }
-            String mname = "get" + Character.toUpperCase(n.charAt(0)) + n.substring(1);
-            try {
-                var m = c.getMethod(mname);
-                Object v = m.invoke(obj);
-                if (v instanceof Number num) return num.intValue();
-            } catch (Exception ignored) {}
-        }
-        return null;
-    }
-
     private static boolean anyParticipantPlayerInZone(MinecraftServer server, BattleInstance battle) {
         for (ServerPlayer p : server.getPlayerList().getPlayers()) {
             UUID kid = kingdomState.get(server).getKingdomIdFor(p.getUUID());
@@ -654,36 +969,18 @@ public final class WarBattleManager {
         // remove commander mappings for this battle
         COMMANDER_INDEX.entrySet().removeIf(e -> e.getValue().battle == battle);
 
-        // discard battle entities
-        for (UUID id : new ArrayList<>(battle.units.keySet())) {
-            Entity e = battle.level.getEntity(id);
-            if (e != null) e.discard();
+        // discard battle entities (collect first: discarding fires the unload callback)
+        List<SoldierEntity> alive = new ArrayList<>();
+        for (int i = 0; i < battle.units.size(); i++) {
+            SoldierEntity se = battle.units.entity(i);
+            if (se != null) alive.add(se);
         }
         battle.units.clear();
-    }
-
-
-
-    private static String tryReadString(Object obj, String... names) {
-        if (obj == null) return null;
-        Class<?> c = obj.getClass();
-        for (String n : names) {
-            for (Class<?> cc = c; cc != null; cc = cc.getSuperclass()) {
-                try {
-                    var f = cc.getDeclaredField(n);
-                    f.setAccessible(true);
-                    Object v = f.get(obj);
-                    if (v instanceof String s && !s.isBlank()) return s;
-                } catch (Exception ignored) {}
-            }
-            String mname = "get" + Character.toUpperCase(n.charAt(0)) + n.substring(1);
-            try {
-                var m = c.getMethod(mname);
-                Object v = m.invoke(obj);
-                if (v instanceof String s && !s.isBlank()) return s;
-            } catch (Exception ignored) {}
+        for (FormationSlots[] bySide : battle.formationSlots) {
+            for (FormationSlots fs : bySide) if (fs != null) fs.clear();
         }
-        return null;
+        battle.anchors.clear();
+        for (SoldierEntity se : alive) se.discard();
     }
 
     private static void advanceEnemyAnchor(BattleInstance battle, ServerPlayer player) {
@@ -715,14 +1012,14 @@ public final class WarBattleManager {
         Vec3 sum = Vec3.ZERO;
         int n = 0;
 
-        for (var e : battle.units.entrySet()) {
-            UnitMeta meta = e.getValue();
+        for (int i = 0; i < battle.units.size(); i++) {
+            UnitMeta meta = battle.units.meta(i);
             if (meta.side() != side) continue;
             if (meta.isKing()) continue;
             if (meta.role() != role) continue;
 
-            Entity ent = battle.level.getEntity(e.getKey());
-            if (!(ent instanceof LivingEntity le) || !le.isAlive()) continue;
+            LivingEntity le = battle.units.entity(i);
+            if (le == null) continue;
 
             sum = sum.add(le.position());
             n++;
@@ -751,8 +1048,8 @@ public final class WarBattleManager {
     private static void moveEnemyKingWithFootmen(BattleInstance battle, Vec3 footLeaderPos) {
         if (battle.enemyKingEntity == null) return;
 
-        Entity ent = battle.level.getEntity(battle.enemyKingEntity);
-        if (!(ent instanceof Mob king) || !king.isAlive()) return;
+        Mob king = battle.units.entity(battle.enemyKingEntity);
+        if (king == null) return;
 
         // Keep king close to the footmen leader (slightly behind so it doesn't front-run)
         Vec3 tgt = footLeaderPos;
@@ -800,23 +1097,9 @@ public final class WarBattleManager {
         return (role == UnitRole.ARCHER) ? ARCH_SLOTS : FOOT_SLOTS;
     }
 
-    private static int allocateFormationSlot(BattleInstance b, Side side, UnitRole role) {
-        int max = slotsFor(role);
-        boolean[] used = new boolean[max];
-
-        for (UnitMeta m : b.units.values()) {
-            if (m.side() != side || m.isKing() || m.role() != role) continue;
-            int idx = m.formationIndex();
-            if (idx >= 0 && idx < max) used[idx] = true;
-        }
-
-        for (int i = 0; i < max; i++) if (!used[i]) return i;
-        return max - 1;
-    }
-
     private static void trackUnit(BattleInstance b, SoldierEntity soldier, UUID sourceKingdomId, Side side, boolean isKing, UnitRole role) {
-        int idx = isKing ? -1 : allocateFormationSlot(b, side, role);
-        b.units.put(soldier.getUUID(), new UnitMeta(sourceKingdomId, side, isKing, role, idx));
+        int idx = isKing ? -1 : b.slots(side, role).acquire(soldier.getUUID(), sourceKingdomId);
+        b.units.add(soldier, new UnitMeta(sourceKingdomId, side, isKing, role, idx));
     }
 
 
@@ -914,48 +1197,61 @@ public final class WarBattleManager {
         if (f.lengthSqr() < 1e-4) f = new Vec3(1, 0, 0);
         f = f.normalize();
 
-        Vec3 back = f.scale(-1.0);
-        Vec3 right = new Vec3(-f.z, 0, f.x);
-
-        Vec3 base = leaderPos.add(back.scale(behindDist));
-        int maxSlots = cols * rows;
+        Vec3 base = leaderPos.add(f.scale(-behindDist));
 
-        for (var e : battle.units.entrySet()) {
-            UnitMeta meta = e.getValue();
-            if (meta.side() != side || meta.isKing() || meta.role() != role) continue;
-            if (onlySourceKingdom != null && !onlySourceKingdom.equals(meta.sourceKingdomId())) continue;
+        // the whole formation moves with its anchor; slot targets follow from the layout
+        FormationAnchor anchor = battle.anchors.computeIfAbsent(
+                new FormationKey(side, role, onlySourceKingdom), k -> new FormationAnchor());
+        anchor.moveTo(base, f, FormationLayout.of(cols, rows, spacing), battle.level.getGameTime());
 
-            int slotIndex = meta.formationIndex();
-            if (slotIndex < 0) continue;
-            if (slotIndex >= maxSlots) slotIndex = maxSlots - 1;
+        FormationSlots slots = battle.slots(side, role);
+        int maxSlots = Math.min(cols * rows, slots.capacity());
 
-            Entity ent = battle.level.getEntity(e.getKey());
-            if (!(ent instanceof Mob mob) || !mob.isAlive()) continue;
+        if (onlySourceKingdom != null) {
+            // one contingent: only its own slots
+            IntArrayList own = slots.slotsOf(onlySourceKingdom);
+            for (int k = 0; k < own.size(); k++) {
+                int slot = own.getInt(k);
+                moveToSlot(battle, anchor, Math.min(slot, maxSlots - 1), slots.unitAt(slot), onlySourceKingdom);
+            }
+            for (UUID id : slots.overflowOf(onlySourceKingdom)) {
+                moveToSlot(battle, anchor, maxSlots - 1, id, onlySourceKingdom);
+            }
+            return;
+        }
 
-            int col = slotIndex % cols;
-            int row = slotIndex / cols;
+        for (int slot = 0; slot < slots.capacity(); slot++) {
+            UUID id = slots.unitAt(slot);
+            if (id != null) moveToSlot(battle, anchor, Math.min(slot, maxSlots - 1), id, null);
+        }
+        for (UUID id : slots.overflow()) {
+            moveToSlot(battle, anchor, maxSlots - 1, id, null);
+        }
+    }
 
-            double xOff = (col - (cols - 1) * 0.5) * spacing;
-            double zOff = row * spacing;
+    private static void moveToSlot(BattleInstance battle, FormationAnchor anchor, int slot, UUID id, UUID onlySourceKingdom) {
+        int i = battle.units.indexOf(id);
+        if (i < 0) return;
+        if (onlySourceKingdom != null && !onlySourceKingdom.equals(battle.units.meta(i).sourceKingdomId())) return;
 
-            Vec3 slot = base.add(right.scale(xOff)).add(back.scale(zOff));
+        SoldierEntity mob = battle.units.entity(i);
+        if (mob == null) return;
 
-            int sx = Mth.floor(slot.x);
-            int sz = Mth.floor(slot.z);
-            int sy = battle.level.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, sx, sz);
+        BlockPos target = anchor.target(battle.level, slot);
 
-            // Always update formation target (even if already in place)
-            if (ent instanceof SoldierEntity se) {
-                se.setFormationTarget(new BlockPos(sx, sy, sz));
-            }
+        // Always update formation target (even if already in place)
+        mob.setFormationTarget(target);
 
-            double d2 = mob.distanceToSqr(slot.x, sy, slot.z);
-            if (d2 <= (2.0 * 2.0)) continue;
+        double x = anchor.x(slot), z = anchor.z(slot);
+        double d2 = mob.distanceToSqr(x, target.getY(), z);
+        if (d2 <= (2.0 * 2.0)) return;
 
-            double spd = (d2 > (16.0 * 16.0)) ? 1.6 : 1.25;
-            mob.getNavigation().moveTo(slot.x, sy, slot.z, spd);
-        }
+        // already walking to this slot: don't re-path
+        var nav = mob.getNavigation();
+        if (!nav.isDone() && target.equals(nav.getTargetPos())) return;
 
+        double spd = (d2 > (16.0 * 16.0)) ? 1.6 : 1.25;
+        nav.moveTo(x, target.getY(), z, spd);
     }
 
     private static Vec3 slotPosFor(
@@ -1002,6 +1298,7 @@ public final class WarBattleManager {
         while (it.hasNext()) {
             var battle = it.next().getValue();
             battle.tick++;
+            if (BattleProfiler.enabled()) battle.perf.tick(battle.tick);
 
             ServerPlayer friendCommander = server.getPlayerList().getPlayer(battle.friendCommanderUuid);
             ServerPlayer enemyCommander = (battle.enemyCommanderUuid != null)
@@ -1034,6 +1331,7 @@ public final class WarBattleManager {
             // Throttle contingent checks: 2x per second
             if (battle.tick >= battle.nextContingentCheckTick) {
                 battle.nextContingentCheckTick = battle.tick + 10;
+                phaseBegin(battle, BattleProfiler.Phase.CONTINGENTS);
 
                 // Only check players actually inside the zone AABB (fast rejection)
                 AABB box = battle.zone.toTallAabb();
@@ -1042,21 +1340,31 @@ public final class WarBattleManager {
                     if (!p.getBoundingBox().intersects(box)) continue;
                     ensurePlayerContingentIfPresent(server, battle, p);
                 }
+                phaseEnd(battle, BattleProfiler.Phase.CONTINGENTS);
             }
 
 
             pruneOld(battle.friendDeathTicks, battle.tick - LOSS_WINDOW_TICKS);
             pruneOld(battle.enemyDeathTicks, battle.tick - LOSS_WINDOW_TICKS);
 
+            phaseBegin(battle, BattleProfiler.Phase.SCAN);
             scanTrackedUnits(server, battle);
+            phaseEnd(battle, BattleProfiler.Phase.SCAN);
+
+            phaseBegin(battle, BattleProfiler.Phase.RESPAWNS);
             processRespawns(battle);
+            phaseEnd(battle, BattleProfiler.Phase.RESPAWNS);
 
            if (battle.tick % FORMATION_REFRESH_TICKS == 0) {
+                phaseBegin(battle, BattleProfiler.Phase.FORMATION);
                 keepFormation(server, battle);
+                phaseEnd(battle, BattleProfiler.Phase.FORMATION);
             }
 
             if (battle.tick % TARGET_REFRESH_TICKS == 0) {
+                phaseBegin(battle, BattleProfiler.Phase.TARGETING);
                 refreshTargets(server, battle, friendCommander, enemyCommander);
+                phaseEnd(battle, BattleProfiler.Phase.TARGETING);
             }
 
             if (battle.moraleFriend <= 0f) {
@@ -1082,8 +1390,10 @@ public final class WarBattleManager {
             }
 
             if (battle.tick % HUD_SYNC_TICKS == 0) {
+                phaseBegin(battle, BattleProfiler.Phase.HUD);
                 sendHudToCommander(friendCommander, battle, Side.FRIEND);
                 if (enemyCommander != null) sendHudToCommander(enemyCommander, battle, Side.ENEMY);
+                phaseEnd(battle, BattleProfiler.Phase.HUD);
             }
 
         }
@@ -1423,7 +1733,7 @@ public final class WarBattleManager {
             if (kk != null && kk.name != null && !kk.name.isBlank()) nm = kk.name + " Captain";
             else {
                 var ai = aiKingdomState.get(server).getById(kid);
-                if (ai != null) nm = tryReadString(ai, "name") + " Captain";
+                if (ai != null) nm = ai.name + " Captain";
             }
 
             ItemStack capHeraldry = getHeraldryForKingdom(level, kid);
@@ -1471,7 +1781,7 @@ public final class WarBattleManager {
             if (kk != null && kk.name != null && !kk.name.isBlank()) nm = kk.name + " Captain";
             else {
                 var ai = aiKingdomState.get(server).getById(kid);
-                if (ai != null) nm = tryReadString(ai, "name") + " Captain";
+                if (ai != null) nm = ai.name + " Captain";
             }
 
             ItemStack capHeraldry = getHeraldryForKingdom(level, kid);
@@ -1531,16 +1841,15 @@ public final class WarBattleManager {
     // Unit tracking + deaths
     // --------------------
     private static void scanTrackedUnits(MinecraftServer server, BattleInstance battle) {
-        var it = battle.units.entrySet().iterator();
-        while (it.hasNext()) {
-            var e = it.next();
-            UUID id = e.getKey();
-            UnitMeta meta = e.getValue();
+        // from the end: removeAt swaps the last unit into the freed slot
+        for (int i = battle.units.size() - 1; i >= 0; i--) {
+            if (battle.units.entity(i) != null) continue;
 
-            Entity ent = battle.level.getEntity(id);
-            if (ent instanceof LivingEntity le && le.isAlive()) continue;
-
-            it.remove();
+            UnitMeta meta = battle.units.meta(i);
+            if (meta.formationIndex() >= 0) {
+                battle.slots(meta.side(), meta.role()).release(meta.formationIndex(), battle.units.id(i), meta.sourceKingdomId());
+            }
+            battle.units.removeAt(i);
             onUnitDeath(battle, meta.sourceKingdomId(), meta.side(), meta.isKing(), meta.role());
         }
     }
@@ -1634,7 +1943,7 @@ public final class WarBattleManager {
 
     private static int countAlive(BattleInstance battle, Side side) {
         int c = 0;
-        for (var meta : battle.units.values()) if (meta.side() == side) c++;
+        for (int i = 0; i < battle.units.size(); i++) if (battle.units.meta(i).side() == side) c++;
         return c;
     }
 
@@ -1667,7 +1976,7 @@ public final class WarBattleManager {
 
             UUID capId = battle.aiCaptainByKingdom.get(sourceKingdom);
             if (capId != null) {
-                Entity cap = battle.level.getEntity(capId);
+                Entity cap = battle.units.entity(capId);
                 if (cap != null) spawnBase = cap.blockPosition();
             }
 
@@ -1750,8 +2059,8 @@ public final class WarBattleManager {
             UUID capId = battle.aiCaptainByKingdom.get(kid);
             if (capId == null) continue;
 
-            Entity ent = battle.level.getEntity(capId);
-            if (!(ent instanceof Mob cap) || !cap.isAlive()) continue;
+            Mob cap = battle.units.entity(capId);
+            if (cap == null) continue;
 
             cap.getNavigation().moveTo(mainFriendLeader.x, mainFriendLeader.y, mainFriendLeader.z, 1.25);
             teleportIfStuck(battle, cap.getUUID(), cap, mainFriendLeader);
@@ -1809,8 +2118,8 @@ public final class WarBattleManager {
             UUID capId = battle.aiCaptainByKingdom.get(kid);
             if (capId == null) continue;
 
-            Entity ent = battle.level.getEntity(capId);
-            if (!(ent instanceof Mob cap) || !cap.isAlive()) continue;
+            Mob cap = battle.units.entity(capId);
+            if (cap == null) continue;
 
             cap.getNavigation().moveTo(enemyTarget.x, enemyTarget.y, enemyTarget.z, 1.25);
             teleportIfStuck(battle, cap.getUUID(), cap, enemyTarget);
@@ -1824,32 +2133,6 @@ public final class WarBattleManager {
             applyRectFormation(battle, Side.ENEMY, UnitRole.ARCHER,
                     capPos, fwd, 8.0, ARCH_COLS, ARCH_ROWS, 1.2, kid);
         }
-
-        // Optional extra safety: if any soldier is extremely far from its formation slot and not moving, teleport it.
-        // (Your SoldierEntity already does this, so you can skip this if it causes jitter.)
-        if (battle.tick % TELEPORT_CHECK_TICKS == 0) {
-            for (var e : battle.units.entrySet()) {
-                UUID id = e.getKey();
-                UnitMeta meta = e.getValue();
-                if (meta.isKing()) continue; // captains already handled above
-
-                Entity ent = battle.level.getEntity(id);
-                if (!(ent instanceof Mob mob) || !mob.isAlive()) continue;
-
-                // Only apply to AI-controlled units (optional):
-                // if you want ALL units, remove this if-block.
-                boolean isAI = isAiKingdom(server, meta.sourceKingdomId());
-                if (!isAI) continue;
-
-                // Use current formation target if this is SoldierEntity, otherwise skip.
-                if (ent instanceof SoldierEntity se) {
-                    // If you don't have a getter, skip this section — captains are the main win.
-                    // (Most setups don't expose formation target publicly.)
-                }
-            }
-        }
-
-
     }
 
 
@@ -1891,15 +2174,33 @@ public final class WarBattleManager {
                                     ServerPlayer enemyCommander) {
         if (friendCommander == null || !friendCommander.isAlive()) return;
 
-        List<LivingEntity> friend = new ArrayList<>();
-        List<LivingEntity> enemy = new ArrayList<>();
-
-        for (var e : battle.units.entrySet()) {
-            Entity ent = battle.level.getEntity(e.getKey());
-            if (!(ent instanceof LivingEntity le) || !le.isAlive()) continue;
-
-            if (e.getValue().side() == Side.FRIEND) friend.add(le);
-            else enemy.add(le);
+        // one pass over the units: fills both spatial hashes and the lists of units to retarget
+        BattleSpatialHash friend = battle.friendHash;
+        BattleSpatialHash enemy = battle.enemyHash;
+        friend.clear();
+        enemy.clear();
+
+        List<Mob> friendMobs = battle.friendMobs;
+        List<UnitMeta> friendMetas = battle.friendMetas;
+        List<Mob> enemyMobs = battle.enemyMobs;
+        List<UnitMeta> enemyMetas = battle.enemyMetas;
+        friendMobs.clear();
+        friendMetas.clear();
+        enemyMobs.clear();
+        enemyMetas.clear();
+
+        for (int i = 0; i < battle.units.size(); i++) {
+            SoldierEntity le = battle.units.entity(i);
+            if (le == null) continue;
+
+            UnitMeta meta = battle.units.meta(i);
+            boolean isFriend = meta.side() == Side.FRIEND;
+            (isFriend ? friend : enemy).add(le);
+
+            if (!meta.isKing()) {
+                (isFriend ? friendMobs : enemyMobs).add(le);
+                (isFriend ? friendMetas : enemyMetas).add(meta);
+            }
         }
 
         // commanders are valid targets too
@@ -1959,34 +2260,16 @@ public final class WarBattleManager {
         double reform2 = REFORM_FIRST_DIST * REFORM_FIRST_DIST;
         double drop2   = DROP_TARGET_DIST * DROP_TARGET_DIST;
 
-        // --- FRIENDS ---
-        for (var entry : battle.units.entrySet()) {
-            UnitMeta meta = entry.getValue();
-            if (meta.side() != Side.FRIEND || meta.isKing()) continue;
-
-            Entity ent = battle.level.getEntity(entry.getKey());
-            if (!(ent instanceof Mob mob) || !mob.isAlive()) continue;
-
-            // drop dead / far targets
-            LivingEntity cur = mob.getTarget();
-            if (cur != null && (!cur.isAlive() || mob.distanceToSqr(cur) > drop2)) {
-                cur = null;
-                mob.setTarget(null);
-            }
-
-            double engageDist = (meta.role() == UnitRole.ARCHER) ? ARCHER_ENGAGE_DIST : ENGAGE_DIST;
-            double engage2 = engageDist * engageDist;
+        int[] nearIdx = battle.nearIdx;
+        double[] nearD2 = battle.nearD2;
 
-            // 1) choose a candidate target FIRST
-            LivingEntity candidate = null;
+        // --- FRIENDS ---
+        for (int u = 0; u < friendMobs.size(); u++) {
+            Mob mob = friendMobs.get(u);
+            UnitMeta meta = friendMetas.get(u);
 
-            // PvP preference: enemy commander
-            if (enemyCommander != null && enemyCommander.isAlive() && mob.distanceToSqr(enemyCommander) <= engage2) {
-                candidate = enemyCommander;
-            } else {
-                LivingEntity best = nearestLiving(mob.position(), enemy);
-                if (best != null && mob.distanceToSqr(best) <= engage2) candidate = best;
-            }
+            // 1) choose a candidate target FIRST (PvP preference: enemy commander)
+            LivingEntity candidate = pickTarget(mob, meta, enemy, enemyCommander, drop2, nearIdx, nearD2);
 
             if (candidate != null) {
                 mob.setTarget(candidate);
@@ -2011,31 +2294,12 @@ public final class WarBattleManager {
 
 
         // --- ENEMIES ---
-        for (var entry : battle.units.entrySet()) {
-            UnitMeta meta = entry.getValue();
-            if (meta.side() != Side.ENEMY || meta.isKing()) continue;
-
-            Entity ent = battle.level.getEntity(entry.getKey());
-            if (!(ent instanceof Mob mob) || !mob.isAlive()) continue;
-
-            LivingEntity cur = mob.getTarget();
-            if (cur != null && (!cur.isAlive() || mob.distanceToSqr(cur) > drop2)) {
-                cur = null;
-                mob.setTarget(null);
-            }
-
-            double engageDist = (meta.role() == UnitRole.ARCHER) ? ARCHER_ENGAGE_DIST : ENGAGE_DIST;
-            double engage2 = engageDist * engageDist;
-
-            LivingEntity candidate = null;
+        for (int u = 0; u < enemyMobs.size(); u++) {
+            Mob mob = enemyMobs.get(u);
+            UnitMeta meta = enemyMetas.get(u);
 
             // always prefer friend commander if close
-            if (friendCommander.isAlive() && mob.distanceToSqr(friendCommander) <= engage2) {
-                candidate = friendCommander;
-            } else {
-                LivingEntity best = nearestLiving(mob.position(), friend);
-                if (best != null && mob.distanceToSqr(best) <= engage2) candidate = best;
-            }
+            LivingEntity candidate = pickTarget(mob, meta, friend, friendCommander, drop2, nearIdx, nearD2);
 
             if (candidate != null) {
                 mob.setTarget(candidate);
@@ -2060,14 +2324,49 @@ public final class WarBattleManager {
     }
 
 
-    private static LivingEntity nearestLiving(Vec3 pos, List<LivingEntity> list) {
-        LivingEntity best = null;
-        double bestD = Double.MAX_VALUE;
-        for (var e : list) {
-            double d = e.position().distanceToSqr(pos);
-            if (d < bestD) { bestD = d; best = e; }
+    /**
+     * Target for one unit, or null to fall back to its formation.
+     *
+     * The preferred unit (the opposing commander) wins whenever it is in engage range. Otherwise the
+     * unit keeps its current target while that stays within drop range, and only switches when one of
+     * the k nearest enemies is clearly closer (RETARGET_RATIO). New targets skip enemies that already
+     * have TARGET_SHARE attackers this pass if a less crowded one is among the k nearest.
+     */
+    private static LivingEntity pickTarget(Mob mob, UnitMeta meta, BattleSpatialHash opp, LivingEntity preferred,
+                                           double drop2, int[] nearIdx, double[] nearD2) {
+        double engageDist = (meta.role() == UnitRole.ARCHER) ? ARCHER_ENGAGE_DIST : ENGAGE_DIST;
+        double engage2 = engageDist * engageDist;
+        double x = mob.getX(), y = mob.getY(), z = mob.getZ();
+
+        if (preferred != null && preferred.isAlive() && mob.distanceToSqr(preferred) <= engage2) {
+            int pi = opp.indexOf(preferred);
+            if (pi >= 0) opp.claim(pi);
+            return preferred;
         }
-        return best;
+
+        // current target only counts if it is a live opposing combatant still in range
+        LivingEntity cur = mob.getTarget();
+        int curIdx = opp.indexOf(cur);
+        double curD2 = (curIdx >= 0) ? opp.distSqr(curIdx, x, y, z) : Double.MAX_VALUE;
+        if (curD2 > Math.max(engage2, drop2)) curIdx = -1;
+
+        int n = opp.nearest(x, y, z, engageDist, nearIdx, nearD2);
+
+        int pick = -1;
+        for (int i = 0; i < n && pick < 0; i++) {
+            if (opp.claims(nearIdx[i]) < TARGET_SHARE) pick = i;
+        }
+        if (pick < 0 && n > 0) pick = 0;
+
+        if (curIdx >= 0 && (pick < 0 || nearIdx[pick] == curIdx
+                || nearD2[pick] >= RETARGET_RATIO * RETARGET_RATIO * curD2)) {
+            opp.claim(curIdx);
+            return cur;
+        }
+
+        if (pick < 0) return null;
+        opp.claim(nearIdx[pick]);
+        return opp.get(nearIdx[pick]);
     }
 
     // --------------------
@@ -2280,7 +2579,8 @@ public final class WarBattleManager {
         if (captain) soldier.setCustomNameVisible(true);
 
         soldier.setPersistenceRequired();
-        level.addFreshEntity(soldier);
+        // refused (e.g. the chunk is not loaded or an event cancelled it): never track a unit that isn't in the level
+        if (!level.addFreshEntity(soldier)) return null;
         
         var srv = level.getServer();
         if (srv != null) {
@@ -2425,14 +2725,11 @@ public final class WarBattleManager {
 
     public static void applySkinToActiveUnits(MinecraftServer server, UUID kingdomId, int skinId) {
         for (BattleInstance b : ACTIVE.values()) {
-            for (var entry : b.units.entrySet()) {
-                UnitMeta meta = entry.getValue();
-                if (!kingdomId.equals(meta.sourceKingdomId())) continue;
+            for (int i = 0; i < b.units.size(); i++) {
+                if (!kingdomId.equals(b.units.meta(i).sourceKingdomId())) continue;
 
-                Entity ent = b.level.getEntity(entry.getKey());
-                if (ent instanceof SoldierEntity se && se.isAlive()) {
-                    se.setSkinId(skinId);
-                }
+                SoldierEntity se = b.units.entity(i);
+                if (se != null) se.setSkinId(skinId);
             }
         }
     }
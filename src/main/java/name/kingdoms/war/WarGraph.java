@@ -0,0 +1,149 @@
+package name.kingdoms.war;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory view of {@link WarState}'s pair-link keys ("minUUID|maxUUID") as a graph.
+ *
+ * Kingdom UUIDs are interned to small ints; each kingdom keeps its enemy list, and the edge set holds
+ * (lo << 32 | hi) so {@link #isAtWar} is two map lookups + one set probe and {@link #isAtWarWithAny}
+ * is one lookup + a size check. Keys are parsed once, when they enter the graph.
+ *
+ * Not persisted: WarState rebuilds it from the saved keys on load and mirrors every add/remove.
+ */
+final class WarGraph {
+
+    /** A parsed pair-link. {@code a}/{@code b} are in key order. */
+    record Edge(String key, UUID a, UUID b, int ia, int ib) {}
+
+    private final Object2IntOpenHashMap<UUID> ids = new Object2IntOpenHashMap<>();
+    private final List<UUID> byId = new ArrayList<>();
+    private final List<IntArrayList> enemies = new ArrayList<>();
+
+    private final LongOpenHashSet edgeSet = new LongOpenHashSet();
+    private final Map<String, Edge> byKey = new HashMap<>();
+
+    WarGraph() {
+        ids.defaultReturnValue(-1);
+    }
+
+    // ------------------------------------------------------------
+    // Updates
+    // ------------------------------------------------------------
+
+    void clear() {
+        ids.clear();
+        byId.clear();
+        enemies.clear();
+        edgeSet.clear();
+        byKey.clear();
+    }
+
+    void rebuild(Iterable<String> keys) {
+        clear();
+        for (String k : keys) add(k);
+    }
+
+    /**
+     * Adds a pair-link key. Malformed keys are ignored (they never matched a real kingdom either).
+     * @return the new edge, or null if nothing was added
+     */
+    @Nullable
+    Edge add(String key) {
+        if (key == null || byKey.containsKey(key)) return null;
+
+        int bar = key.indexOf('|');
+        if (bar <= 0) return null;
+
+        UUID a, b;
+        try {
+            a = UUID.fromString(key.substring(0, bar));
+            b = UUID.fromString(key.substring(bar + 1));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        if (a.equals(b)) return null;
+
+        int ia = intern(a);
+        int ib = intern(b);
+        Edge e = new Edge(key, a, b, ia, ib);
+        byKey.put(key, e);
+
+        if (edgeSet.add(edgeKey(ia, ib))) {
+            enemies.get(ia).add(ib);
+            enemies.get(ib).add(ia);
+        }
+        return e;
+    }
+
+    /** @return the removed edge, or null if the key wasn't in the graph */
+    @Nullable
+    Edge remove(String key) {
+        Edge e = byKey.remove(key);
+        if (e == null) return null;
+
+        if (edgeSet.remove(edgeKey(e.ia(), e.ib()))) {
+            enemies.get(e.ia()).rem(e.ib());
+            enemies.get(e.ib()).rem(e.ia());
+        }
+        return e;
+    }
+
+    private int intern(UUID id) {
+        int i = ids.getInt(id);
+        if (i >= 0) return i;
+
+        i = byId.size();
+        ids.put(id, i);
+        byId.add(id);
+        enemies.add(new IntArrayList(2));
+        return i;
+    }
+
+    private static long edgeKey(int i, int j) {
+        int lo = Math.min(i, j), hi = Math.max(i, j);
+        return ((long) lo << 32) | (hi & 0xFFFFFFFFL);
+    }
+
+    // ------------------------------------------------------------
+    // Queries
+    // ------------------------------------------------------------
+
+    boolean isAtWar(UUID a, UUID b) {
+        int ia = ids.getInt(a);
+        if (ia < 0) return false;
+        int ib = ids.getInt(b);
+        return ib >= 0 && edgeSet.contains(edgeKey(ia, ib));
+    }
+
+    boolean isAtWarWithAny(UUID id) {
+        int i = ids.getInt(id);
+        return i >= 0 && !enemies.get(i).isEmpty();
+    }
+
+    /** Everyone {@code id} has a pair-link with (allies pulled into a war count too). */
+    List<UUID> enemiesOf(UUID id) {
+        int i = ids.getInt(id);
+        if (i < 0) return List.of();
+
+        IntArrayList list = enemies.get(i);
+        List<UUID> out = new ArrayList<>(list.size());
+        for (int k = 0, n = list.size(); k < n; k++) out.add(byId.get(list.getInt(k)));
+        return out;
+    }
+
+    /** Parsed form of a stored key, or null if the key isn't in the graph. */
+    @Nullable
+    Edge edge(String key) {
+        return byKey.get(key);
+    }
+}
@@ -3,29 +3,39 @@ package name.kingdoms.war;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 
+import name.kingdoms.AsyncSavedData;
 import name.kingdoms.Kingdoms;
+import name.kingdoms.SchemaMigrations;
 import name.kingdoms.aiKingdomState;
 import name.kingdoms.aiKingdomState.AiKingdom;
 import name.kingdoms.kingdomState;
 import name.kingdoms.diplomacy.AiDiplomacyEvent;
 import name.kingdoms.diplomacy.AiDiplomacyEventState;
+import name.kingdoms.diplomacy.DiplomacyTopology;
 import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.RegistryOps;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.Mth;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.levelgen.Heightmap;
 import net.minecraft.world.level.material.Fluids;
-import net.minecraft.world.level.saveddata.SavedData;
 import net.minecraft.world.level.saveddata.SavedDataType;
 import name.kingdoms.news.KingdomNewsState;
 import java.util.*;
 
-public final class WarState extends SavedData {
+public final class WarState extends AsyncSavedData<WarState> {
 
     // store unordered pairs as "minUUID|maxUUID"
     private final Set<String> wars = new HashSet<>();
 
+    // parsed/interned view of `wars` for O(1) queries; every mutation of `wars` mirrors into it
+    private final WarGraph graph = new WarGraph();
+
+    // bumped whenever the set of active zones can change (wars, pair->root links, zones)
+    private transient int zoneVersion = 0;
+
     // battle zone per war pair (key is same min|max)
     private final Map<String, BattleZone> zones = new HashMap<>();
     private final Map<String, BattleZone> siegeZones = new HashMap<>();
@@ -504,18 +514,23 @@ public final class WarState extends SavedData {
     // -----------------------------
 
     public boolean isAtWar(UUID a, UUID b) {
-        return wars.contains(key(a, b));
+        if (a == null || b == null) return false;
+        return graph.isAtWar(a, b);
     }
 
     public boolean isAtWarWithAny(UUID kingdomId) {
-        String s = kingdomId.toString();
-        String prefix = s + "|";
-        String suffix = "|" + s;
+        if (kingdomId == null) return false;
+        return graph.isAtWarWithAny(kingdomId);
+    }
 
-        for (String k : wars) {
-            if (k.startsWith(prefix) || k.endsWith(suffix)) return true;
-        }
-        return false;
+    /** Every kingdom {@code kingdomId} currently has a war pair-link with. */
+    public List<UUID> enemiesOf(UUID kingdomId) {
+        if (kingdomId == null) return List.of();
+        return graph.enemiesOf(kingdomId);
+    }
+
+    private void warLinked(WarGraph.Edge edge, boolean started) {
+        if (edge != null) DiplomacyTopology.onWarChanged(this, edge.a(), edge.b(), started);
     }
 
     public Set<String> wars() {
@@ -556,17 +571,21 @@ public final class WarState extends SavedData {
 
         // Prevent duplicate pair-links
         if (!wars.add(pairKey)) {
-            pairToRoot.putIfAbsent(pairKey, rootKey);
+            // a new root mapping changes which zone the pair resolves to
+            if (pairToRoot.putIfAbsent(pairKey, rootKey) == null) zoneVersion++;
             return;
         }
+        warLinked(graph.add(pairKey), true);
 
         pairToRoot.put(pairKey, rootKey);
+        zoneVersion++;
 
         Kingdoms.LOGGER.info("[War] declareWar link a={} b={} pairKey={} rootKey={}", a, b, pairKey, rootKey);
 
         // Only compute if allowed (we will pass false for pending-war commit)
         if (computeZoneIfMissing) {
             zones.computeIfAbsent(rootKey, kk -> computeZone(server, rootA, rootB));
+            zoneVersion++;
         }
 
         setDirty();
@@ -727,6 +746,7 @@ public final class WarState extends SavedData {
 
                 // store zone under ROOT KEY
                 zones.put(rootKey, finalZone);
+                zoneVersion++;
 
                 // Now commit the war links + ally auto-join (cheap)
                 commitRootWar(server, pr.rootA(), pr.rootB());
@@ -777,7 +797,9 @@ public final class WarState extends SavedData {
             String rk = pairToRoot.getOrDefault(wk, wk);
             if (rk.equals(rootKey)) {
                 it.remove();
+                warLinked(graph.remove(wk), false);
                 pairToRoot.remove(wk);
+                zoneVersion++;
                 changed = true;
 
                 // clear AI sim for this pair-link
@@ -788,7 +810,10 @@ public final class WarState extends SavedData {
         // --- remove the root zone ---
         changed |= (zones.remove(rootKey) != null);
 
-        if (changed) setDirty();
+        if (changed) {
+            zoneVersion++;
+            setDirty();
+        }
     }
 
 
@@ -797,6 +822,30 @@ public final class WarState extends SavedData {
     // Zone API
     // -----------------------------
 
+    public record ActiveZone(UUID a, UUID b, String rootKey, BattleZone zone) {}
+
+    /** Bumped whenever {@link #activeZones()} may have changed; lets callers cache derived indexes. */
+    public int zoneVersion() {
+        return zoneVersion;
+    }
+
+    /**
+     * Every pair-link whose root war has a zone, in {@link #wars()} iteration order
+     * (so several entries can share one root zone).
+     */
+    public List<ActiveZone> activeZones() {
+        var out = new ArrayList<ActiveZone>();
+        for (String pairKey : wars) {
+            WarGraph.Edge edge = graph.edge(pairKey);
+            if (edge == null) continue;
+
+            String rootKey = pairToRoot.getOrDefault(pairKey, pairKey);
+            BattleZone zone = zones.get(rootKey);
+            if (zone != null) out.add(new ActiveZone(edge.a(), edge.b(), rootKey, zone));
+        }
+        return out;
+    }
+
     public Optional<BattleZone> getZone(UUID a, UUID b) {
         String pairKey = key(a, b);
         String rootKey = pairToRoot.getOrDefault(pairKey, pairKey);
@@ -807,6 +856,7 @@ public final class WarState extends SavedData {
     public void setZone(UUID a, UUID b, BattleZone zone) {
         String rootKey = pairToRoot.getOrDefault(key(a, b), key(a, b));
         zones.put(rootKey, zone);
+        zoneVersion++;
         setDirty();
     }
 
@@ -814,6 +864,7 @@ public final class WarState extends SavedData {
     public void clearZone(UUID a, UUID b) {
         String rootKey = pairToRoot.getOrDefault(key(a, b), key(a, b));
         zones.remove(rootKey);
+        zoneVersion++;
         setDirty();
     }
 
@@ -855,11 +906,14 @@ public final class WarState extends SavedData {
     @SuppressWarnings("unchecked")
     public void importState(WarSnapshot snap) {
         this.wars.clear();
+        this.graph.clear();
+        this.zoneVersion++;
         this.zones.clear();
         this.aiSim.clear();
 
         if (snap != null) {
             if (snap.wars() != null) this.wars.addAll(snap.wars());
+            this.graph.rebuild(this.wars);
             if (snap.zones() != null) this.zones.putAll(snap.zones());
 
             if (snap.aiSim() != null) {
@@ -870,6 +924,7 @@ public final class WarState extends SavedData {
             }
         }
 
+        DiplomacyTopology.invalidate();
         setDirty();
     }
 
@@ -956,16 +1011,11 @@ public final class WarState extends SavedData {
 
         // Snapshot to avoid ConcurrentModificationException when makePeace() removes from wars.
         for (String key : new ArrayList<>(wars)) {
-            var parts = key.split("\\|");
-            if (parts.length != 2) continue;
+            WarGraph.Edge edge = graph.edge(key);
+            if (edge == null) continue; // malformed key
 
-            UUID a, b;
-            try {
-                a = UUID.fromString(parts[0]);
-                b = UUID.fromString(parts[1]);
-            } catch (IllegalArgumentException ex) {
-                continue;
-            }
+            UUID a = edge.a();
+            UUID b = edge.b();
 
             var aiA = aiState.getById(a);
             var aiB = aiState.getById(b);
@@ -1120,6 +1170,7 @@ public final class WarState extends SavedData {
                 int half = 120;
                 z = BattleZone.of(frontX - half, frontZ - half, frontX + half, frontZ + half);
                 zones.put(rootKey, z);
+                zoneVersion++;
                 changed = true;
             }
 
@@ -1358,20 +1409,26 @@ public final class WarState extends SavedData {
         Codec.unboundedMap(Codec.STRING, Codec.STRING);
 
 
+    /** Save-format fix-ups, applied once on load (see {@link SchemaMigrations}). None yet. */
+    private static final SchemaMigrations<WarState> MIGRATIONS = new SchemaMigrations<>();
+
     private static final Codec<WarState> CODEC =
         RecordCodecBuilder.create(inst -> inst.group(
                 WARS_CODEC.optionalFieldOf("wars", Set.of()).forGetter(s -> s.wars),
                 ZONES_CODEC.optionalFieldOf("zones", Map.of()).forGetter(s -> s.zones),
                 PAIR_TO_ROOT_CODEC.optionalFieldOf("pairToRoot", Map.of()).forGetter(s -> s.pairToRoot),
                 AI_SIM_MAP_CODEC.optionalFieldOf("aiSim", Map.of()).forGetter(s -> s.aiSim),
-                PENDING_ROOTS_CODEC.optionalFieldOf("pendingRoots", Map.of()).forGetter(s -> s.pendingRoots) 
-        ).apply(inst, (loadedWars, loadedZones, loadedPairToRoot, loadedAiSim, loadedPendingRoots) -> {
+                PENDING_ROOTS_CODEC.optionalFieldOf("pendingRoots", Map.of()).forGetter(s -> s.pendingRoots),
+                SchemaMigrations.versionField().forGetter(s -> MIGRATIONS.currentVersion())
+        ).apply(inst, (loadedWars, loadedZones, loadedPairToRoot, loadedAiSim, loadedPendingRoots, dataVersion) -> {
             WarState s = new WarState();
             s.wars.addAll(loadedWars);
+            s.graph.rebuild(s.wars);
             s.zones.putAll(loadedZones);
             s.pairToRoot.putAll(loadedPairToRoot);
             s.aiSim.putAll(loadedAiSim);
             s.pendingRoots.putAll(loadedPendingRoots); 
+            if (MIGRATIONS.migrate(s, dataVersion)) s.setDirty();
             return s;
         }));
 
@@ -1392,6 +1449,23 @@ public final class WarState extends SavedData {
         return overworld.getDataStorage().computeIfAbsent(TYPE);
     }
 
+    @Override
+    protected SavedDataType<WarState> saveType() {
+        return TYPE;
+    }
+
+    /** All saved values are records/strings, so copying the collections is enough. */
+    @Override
+    protected WarState snapshotForSave(RegistryOps<Tag> ops) {
+        WarState snap = new WarState();
+        snap.wars.addAll(wars);
+        snap.zones.putAll(zones);
+        snap.pairToRoot.putAll(pairToRoot);
+        snap.aiSim.putAll(aiSim);
+        snap.pendingRoots.putAll(pendingRoots);
+        return snap;
+    }
+
     private static String key(UUID a, UUID b) {
         String sa = a.toString();
         String sb = b.toString();
@@ -1449,14 +1523,21 @@ public final class WarState extends SavedData {
                     String rootKey = pairToRoot.getOrDefault(pairKey, pairKey);
                     rootsToRemove.add(rootKey);
 
-                    if (wars.remove(pairKey)) changed = true;
+                    if (wars.remove(pairKey)) {
+                        warLinked(graph.remove(pairKey), false);
+                        zoneVersion++;
+                        changed = true;
+                    }
                     if (aiSim.remove(pairKey) != null) changed = true;
                     pairToRoot.remove(pairKey);
                 }
             }
 
             for (String rootKey : rootsToRemove) {
-                if (zones.remove(rootKey) != null) changed = true;
+                if (zones.remove(rootKey) != null) {
+                    zoneVersion++;
+                    changed = true;
+                }
 
                 // cancel pending work too
                 PendingRootWar pr = pendingRoots.remove(rootKey);